@@ -19,6 +19,13 @@ import com.edinarobotics.scouting.definitions.event.Listener;
  * <br/>
  * Database objects are expected to adhere to the
  * <a href=http://en.wikipedia.org/wiki/ACID>ACID</a> principles.
+ * <h3>Isolation</h3>
+ * A {@link Query} must see the Database as it was when the query began
+ * (snapshot isolation). It must not see any part of a {@link Transaction}
+ * that commits while the query runs, and it should not block transactions.
+ * Implementations may use
+ * {@link com.edinarobotics.scouting.definitions.database.helpers.MultiVersionStore MultiVersionStore}
+ * to provide this.
  * <h3>Database Metadata</h3>
  * To retrieve a list of all currently defined tables, query
  * the {@code @tables} metatable. Its results will have
@@ -64,6 +71,12 @@ public interface Database extends EventRegistrar{
 	 * can be retrieved by the Future object's {@link Future#get() get()} method.
 	 * However, this method will throw different exceptions depending on the
 	 * results of the database transaction.
+	 * <br/>
+	 * Implementations may answer repeated queries from a
+	 * {@link com.edinarobotics.scouting.definitions.database.helpers.QueryResultCache QueryResultCache}
+	 * as long as every committed {@link Transaction} invalidates the tables it changes
+	 * before its Future completes (see {@link com.edinarobotics.scouting.definitions.database.helpers.MultiVersionStore#setQueryResultCache(com.edinarobotics.scouting.definitions.database.helpers.QueryResultCache)
+	 * MultiVersionStore.setQueryResultCache}).
 	 * @param query The Query object representing the desired parameters
 	 * for the {@link Row} objects to return.
 	 * @return A {@link Future} object containing the result of the query
@@ -81,6 +94,19 @@ public interface Database extends EventRegistrar{
 	 * exceptions may still be thrown to indicate a failure in the execution the given
 	 * transaction. Use the {@link Future#get() Future.get()} method to join the
 	 * transaction after its completion or failure.
+	 * <br/>
+	 * If a {@link com.edinarobotics.scouting.definitions.database.changes.EntryEditChange EntryEditChange}
+	 * in the transaction expects a row version that is no longer current, or a conditional
+	 * {@link com.edinarobotics.scouting.definitions.database.changes.RowInsertionChange RowInsertionChange}
+	 * targets a row that already exists, the transaction is not applied and the Future reports
+	 * {@link com.edinarobotics.scouting.definitions.event.Result#CONFLICT Result.CONFLICT}.
+	 * <br/>
+	 * Implementations should fire the
+	 * {@link com.edinarobotics.scouting.definitions.database.events.DatabaseChangeEvent DatabaseChangeEvent}
+	 * objects of a transaction with many changes together, using
+	 * {@link com.edinarobotics.scouting.definitions.event.helpers.EventFiringManager#fireEvents(java.util.List) EventFiringManager.fireEvents},
+	 * so that listeners accepting an
+	 * {@link com.edinarobotics.scouting.definitions.event.EventBatch EventBatch} are invoked once per transaction.
 	 * @param transaction The {@link Transaction} to be applied to the Database.
 	 * @return A {@link Future} object that can be used to inspect the results
 	 * of the transaction. The Future object always contains a {@code null}
@@ -93,8 +119,16 @@ public interface Database extends EventRegistrar{
 	 * If no key-value store with name {@code name} exists, one is created.<br/>
 	 * This method is designed to be used by plugins as configuration storage.
 	 * It is <em>not</em> to be used to store scouting data.<br/>
-	 * Note that this storage method is <em>not</em> thread-safe and provides
-	 * very few features.<br/>
+	 * Note that this storage method provides very few features.<br/>
+	 * Plugins use the returned Map from event threads, so implementations should
+	 * return a thread-safe Map, such as a
+	 * {@link com.edinarobotics.scouting.definitions.database.helpers.KeyValueStore KeyValueStore}.
+	 * Plugins must not store {@code null} keys or values.<br/>
+	 * Implementations should fire a
+	 * {@link com.edinarobotics.scouting.definitions.database.events.KeyValueChangeEvent KeyValueChangeEvent}
+	 * after every change of the returned Map, and a single
+	 * {@link com.edinarobotics.scouting.definitions.database.events.KeyValueBatchChangeEvent KeyValueBatchChangeEvent}
+	 * for bulk changes such as {@link Map#putAll(Map)}, so that plugins do not poll key-value stores.<br/>
 	 * All data entered into the returned Map is automatically stored by the Database
 	 * implementation.<br/>
 	 * Databases may discard empty key-value stores when they are closed but must create
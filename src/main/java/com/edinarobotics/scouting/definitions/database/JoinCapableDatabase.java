@@ -0,0 +1,34 @@
+package com.edinarobotics.scouting.definitions.database;
+
+import com.edinarobotics.scouting.definitions.database.queries.JoinQuery;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.event.Future;
+
+/**
+ * This interface is implemented by {@link Database} implementations that can
+ * execute {@link JoinQuery} objects.
+ * <br/>
+ * Joins are optional. Clients should check whether a Database is a
+ * JoinCapableDatabase before issuing a JoinQuery and otherwise run the
+ * joined {@link Query} objects separately.
+ */
+public interface JoinCapableDatabase extends Database{
+	
+	/**
+	 * Launches a {@link JoinQuery} on this Database.
+	 * <br/>
+	 * The joined tables are read at the same point in time (see the information
+	 * on isolation in {@link Database}), so the combined {@link Row} objects are
+	 * consistent with each other. The results are returned in the same way as the
+	 * results of {@link #executeQuery(Query)}. Every result Row contains the columns
+	 * of all joined tables.
+	 * <br/>
+	 * Implementations may use
+	 * {@link com.edinarobotics.scouting.definitions.database.helpers.MultiVersionStore#executeJoin(JoinQuery, com.edinarobotics.scouting.definitions.database.helpers.Snapshot) MultiVersionStore.executeJoin}
+	 * to execute joins with hash, sort-merge and primary key index joins.
+	 * @param query The JoinQuery object describing the tables to be joined.
+	 * @return A {@link Future} object containing the result of the join
+	 * (if the join succeeds).
+	 */
+	public Future<RowSet> executeQuery(JoinQuery query);
+}
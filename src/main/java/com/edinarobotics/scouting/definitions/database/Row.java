@@ -14,10 +14,22 @@ import com.edinarobotics.scouting.definitions.database.types.Integer;
  * result structure of a {@link com.edinarobotics.scouting.definitions.database.queries.Query Query}.<br/>
  * Row objects give snapshots of the state of the data stored in a
  * {@link com.edinarobotics.scouting.definitions.database.Database Database}.
+ * <br/>
+ * Each Row may carry a version number identifying the write that produced it.
+ * The version can be passed back to the Database with an
+ * {@link com.edinarobotics.scouting.definitions.database.changes.EntryEditChange EntryEditChange}
+ * to detect concurrent edits of the same row (optimistic concurrency).
  */
 public class Row {
+	/**
+	 * This value is returned by {@link #getVersion()} for Row objects
+	 * that do not carry a version number.
+	 */
+	public static final long NO_VERSION = -1;
+	
 	private Map<Column, Data> values;
 	private Column primaryKeyColumn;
+	private long version;
 	
 	/**
 	 * Constructs a Row object that contains the given mapping
@@ -28,11 +40,26 @@ public class Row {
 	 * @throws NoSuchColumnException If {@code primaryKeyColumn} is not a key in {@code values}. 
 	 */
 	public Row(Map<Column, Data> values, Column primaryKeyColumn) throws NoSuchColumnException{
+		this(values, primaryKeyColumn, NO_VERSION);
+	}
+	
+	/**
+	 * Constructs a Row object that contains the given mapping
+	 * of values to columns, uses a given {@link Column} as the primary
+	 * key value and carries the given version number.
+	 * @param values The values to be stored in this Row object.
+	 * @param primaryKeyColumn The Column object to use as the primary key Column.
+	 * @param version The version number of the write that produced this Row.
+	 * @throws NoSuchColumnException If {@code primaryKeyColumn} is not a key in {@code values}.
+	 * @see #getVersion()
+	 */
+	public Row(Map<Column, Data> values, Column primaryKeyColumn, long version) throws NoSuchColumnException{
 		if(!values.keySet().contains(primaryKeyColumn)){
 			throw new NoSuchColumnException("Primary key column \""+primaryKeyColumn.getColumnName()+"\" does not exist.");
 		}
 		this.values = values;
 		this.primaryKeyColumn = primaryKeyColumn;
+		this.version = version;
 	}
 	
 	/**
@@ -127,6 +154,17 @@ public class Row {
 		return Collections.unmodifiableMap(values);
 	}
 	
+	/**
+	 * Returns the version number of this Row. Every write to a row gives it
+	 * a new, larger version number. The version is not included in
+	 * {@link #equals(Object)}.
+	 * @return The version number of this Row or {@link #NO_VERSION} if this
+	 * Row does not carry a version.
+	 */
+	public long getVersion(){
+		return version;
+	}
+	
 	/**
 	 * Returns the {@link RowReference} object that can be used to reference
 	 * this Row.
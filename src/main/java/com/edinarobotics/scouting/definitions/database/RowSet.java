@@ -20,6 +20,7 @@ public class RowSet implements Iterable<Row>{
 	
 	/**
 	 * Constructs a new RowSet using the given {@link Set} of {@link Row} objects.
+	 * {@code rows} may be empty.
 	 * @param rows The rows to be stored in this RowSet.
 	 * @throws InvalidSchemaException If not all Row objects share the same
 	 * set of columns (A RowSet must be a subset of a table and all Row objects
@@ -27,9 +28,12 @@ public class RowSet implements Iterable<Row>{
 	 * @see Row#getColumns()
 	 */
 	public RowSet(Set<Row> rows) throws InvalidSchemaException{
-		Set<Column> sampleColumns = ((Row) rows.toArray()[0]).getColumns();
+		Set<Column> sampleColumns = null;
 		for(Row row : rows){
-			if(!row.getColumns().equals(sampleColumns)){
+			if(sampleColumns == null){
+				sampleColumns = row.getColumns();
+			}
+			else if(!row.getColumns().equals(sampleColumns)){
 				throw new InvalidSchemaException("Not all Row objects have the same set of Columns.");
 			}
 		}
@@ -67,9 +71,13 @@ public class RowSet implements Iterable<Row>{
 	/**
 	 * Returns a {@link Set} of all available {@link Column} objects in this RowSet.
 	 * Any of these columns can be used to extract data from this RowSet.
-	 * @return A Set of all the columns in this RowSet.
+	 * @return A Set of all the columns in this RowSet. This Set is empty
+	 * if this RowSet contains no rows.
 	 */
 	public Set<Column> getColumns(){
+		if(rows.isEmpty()){
+			return Collections.emptySet();
+		}
 		return Collections.unmodifiableSet(((Row)rows.toArray()[0]).getColumns());
 	}
 	
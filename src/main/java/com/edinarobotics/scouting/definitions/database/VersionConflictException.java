@@ -0,0 +1,69 @@
+package com.edinarobotics.scouting.definitions.database;
+
+import com.edinarobotics.scouting.definitions.database.changes.Change;
+
+/**
+ * This exception indicates that a {@link Change} expected
+ * a row to be at a version other than its current version.
+ * This happens when the row was changed by another transaction after
+ * it was read (see
+ * {@link com.edinarobotics.scouting.definitions.database.changes.EntryEditChange#getExpectedRowVersion()
+ * EntryEditChange.getExpectedRowVersion()}).
+ * The transaction containing the Change is not applied and can be retried
+ * after the row is read again.
+ */
+@SuppressWarnings("serial")
+public class VersionConflictException extends Exception{
+	
+	/**
+	 * Constructs a new VersionConflictException with
+	 * {@code null} as its detail message.
+	 */
+	public VersionConflictException(){
+		super();
+	}
+	
+	/**
+	 * Constructs a new VersionConflictException with
+	 * the specified detail message.
+	 * @param message The detail message, saved for later
+	 * retrieval by the {@link Throwable#getMessage()} method.
+	 */
+	public VersionConflictException(String message){
+		super(message);
+	}
+	
+	/**
+	 * Constructs a new VersionConflictException 
+	 * with the specified detail message and cause.
+	 * <br/><br/>
+	 * Note that the detail message associated with {@code cause}
+	 * is <em>not</em> automatically incorporated in this exception's
+	 * detail message.
+	 * @param message The detail message, saved for later
+	 * retrieval by the {@link Throwable#getMessage()} method.
+	 * @param cause The cause (which is saved for later retrieval
+	 * by the {@link Throwable#getCause()} method). A {@code null}
+	 * value is permitted, and indicates that the cause is nonexistant
+	 * or unknown.
+	 */
+	public VersionConflictException(String message, Throwable cause){
+		super(message, cause);
+	}
+	
+	/**
+	 * Constructs a new VersionConflictException with the
+	 * specified cause and a detail message of
+	 * {@code (cause==null ? null : cause.toString())}
+	 * (which typically contains the class and detail message of
+	 * {@code cause}). This constructor is useful for exceptions
+	 * that are little more than wrappers for other throwables.
+	 * @param cause The cause (which is saved for later retrieval
+	 * by the {@link Throwable#getCause()} method). A {@code null}
+	 * value is permitted and indicates that the cause is nonexistant
+	 * or unknown.
+	 */
+	public VersionConflictException(Throwable cause){
+		super(cause);
+	}
+}
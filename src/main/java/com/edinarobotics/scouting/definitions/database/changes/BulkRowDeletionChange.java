@@ -0,0 +1,95 @@
+package com.edinarobotics.scouting.definitions.database.changes;
+
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+
+/**
+ * This {@link Change} is used to delete every {@link Row} of a
+ * {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * table that satisfies a {@link Query}.
+ * <br/>
+ * A Query without constraints selects every row, so a BulkRowDeletionChange
+ * built from it empties the table but keeps the table and its columns.
+ * To remove the table itself, use a {@link TableDeletionChange}.
+ * <br/>
+ * Database implementations must apply the change in a single pass over the rows
+ * selected by the Query, using an index to select them if one can answer one of
+ * the Query's
+ * {@link com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint EqualsConstraint}
+ * objects. Only one
+ * {@link com.edinarobotics.scouting.definitions.database.events.BulkRowDeletionChangeEvent BulkRowDeletionChangeEvent}
+ * is fired for the whole change.
+ */
+public final class BulkRowDeletionChange implements Change{
+	private Query query;
+	
+	/**
+	 * Constructs a new BulkRowDeletionChange that will attempt to delete
+	 * every row that satisfies {@code query}.
+	 * @param query The {@link Query} selecting the rows to be deleted.
+	 */
+	public BulkRowDeletionChange(Query query){
+		this.query = query;
+	}
+	
+	/**
+	 * Returns the {@link Query} that selects the rows to be deleted.
+	 * @return The Query selecting the rows deleted by this change.
+	 */
+	public Query getQuery(){
+		return query;
+	}
+	
+	/**
+	 * Determines whether or not this BulkRowDeletionChange deletes the given {@link Row}.
+	 * @param row The Row to be checked.
+	 * @return {@code true} if {@code row} satisfies the {@link Query} of this change,
+	 * {@code false} otherwise.
+	 * @see Query#satisfiesQuery(Row)
+	 */
+	public boolean affectsRow(Row row){
+		return query.satisfiesQuery(row);
+	}
+	
+	/**
+	 * Returns the {@link TableReference} of the table containing the rows to be deleted.
+	 * @return The TableReference of the queried table.
+	 */
+	public TableReference getTargetTableReference(){
+		return query.getTableReference();
+	}
+	
+	/**
+	 * Returns the name of the table containing the rows to be deleted.
+	 * @return The {@code String} name of the queried table.
+	 */
+	public String getTargetTableName(){
+		return getTargetTableReference().getTableName();
+	}
+	
+	/**
+	 * Returns a hash code value for this BulkRowDeletionChange as described in
+	 * {@link Object#hashCode()}.
+	 * @return A hash code value for this object.
+	 */
+	public int hashCode(){
+		return query.hashCode();
+	}
+	
+	/**
+	 * Determines whether some object is equal to this BulkRowDeletionChange.
+	 * An {@code Object} is equal to this one if it is also a BulkRowDeletionChange
+	 * and its {@link Query} (from {@link #getQuery()}) is equal to the Query of
+	 * this object.
+	 * @param obj The object to be tested for equality against this one.
+	 * @return {@code true} if the objects are equal as defined above,
+	 * {@code false} otherwise.
+	 */
+	public boolean equals(Object obj){
+		if(obj instanceof BulkRowDeletionChange){
+			return ((BulkRowDeletionChange) obj).getQuery().equals(getQuery());
+		}
+		return false;
+	}
+}
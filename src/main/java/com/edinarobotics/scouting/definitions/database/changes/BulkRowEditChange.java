@@ -0,0 +1,178 @@
+package com.edinarobotics.scouting.definitions.database.changes;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.InvalidSchemaException;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.InvalidReferenceException;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+
+/**
+ * This {@link Change} is used to edit the values stored in every
+ * {@link Row} of a
+ * {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * table that satisfies a {@link Query}.
+ * <br/>
+ * Each matching row has the value in each column named by {@link #getNewValues()}
+ * replaced with the associated {@link Data} value. Database implementations must
+ * apply the change in a single pass over the rows selected by the Query. If an index
+ * can answer one of the Query's
+ * {@link com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint EqualsConstraint}
+ * objects, it should be used to select the rows.
+ * Only one
+ * {@link com.edinarobotics.scouting.definitions.database.events.BulkRowEditChangeEvent BulkRowEditChangeEvent}
+ * is fired for the whole change.
+ * <br/>
+ * As with {@link EntryEditChange}, Database implementations have the responsibility
+ * to ensure that attempting to store an incorrect {@link Data} type in a column will
+ * fail with an exception. Editing the primary key column is not permitted.
+ * As a Query does not name the primary key column of its table, this is
+ * checked against the rows being edited (see {@link #applyTo(Row)}).
+ */
+public final class BulkRowEditChange implements Change{
+	private Query query;
+	private Map<ColumnReference, Data> newValues;
+	
+	/**
+	 * Constructs a new BulkRowEditChange that will attempt to store the values
+	 * in {@code newValues} in every row that satisfies {@code query}.
+	 * @param query The {@link Query} selecting the rows to be edited.
+	 * @param newValues A {@link Map} of the {@link ColumnReference} objects of the
+	 * columns to be edited to the {@link Data} values to be stored in them.
+	 * @throws InvalidSchemaException If {@code newValues} is empty.
+	 * @throws InvalidTargetException If any of the ColumnReference objects in
+	 * {@code newValues} references a column in a table other than the table
+	 * queried by {@code query}.
+	 */
+	public BulkRowEditChange(Query query, Map<ColumnReference, Data> newValues) throws InvalidSchemaException, InvalidTargetException{
+		if(newValues.size() <= 0){
+			throw new InvalidSchemaException("Cannot edit zero columns.");
+		}
+		for(ColumnReference col : newValues.keySet()){
+			if(!col.getTableReference().equals(query.getTableReference())){
+				throw new InvalidTargetException("Cannot edit columns outside of the queried table "+query.getTableName()+".");
+			}
+		}
+		this.query = query;
+		this.newValues = new HashMap<ColumnReference, Data>(newValues);
+	}
+	
+	/**
+	 * Constructs a new BulkRowEditChange that will attempt to store {@code newValue}
+	 * in the column named {@code columnName} of every row that satisfies {@code query}.
+	 * @param query The {@link Query} selecting the rows to be edited.
+	 * @param columnName The {@code String} name (<em>not</em> column reference) of the
+	 * column to be edited in the queried table.
+	 * @param newValue The {@link Data} value to be stored in the column.
+	 * @throws InvalidReferenceException If {@code columnName} is not valid when
+	 * used as a part of a {@link ColumnReference}.
+	 * @throws InvalidSchemaException This is never thrown, as exactly one column is edited.
+	 * @throws InvalidTargetException This is never thrown, as the column is part of
+	 * the queried table.
+	 */
+	public BulkRowEditChange(Query query, String columnName, Data newValue) throws InvalidReferenceException, InvalidSchemaException, InvalidTargetException{
+		this(query, Collections.singletonMap(new ColumnReference(query.getTableName()+"."+columnName), newValue));
+	}
+	
+	/**
+	 * Returns the {@link Query} that selects the rows to be edited.
+	 * @return The Query selecting the rows edited by this change.
+	 */
+	public Query getQuery(){
+		return query;
+	}
+	
+	/**
+	 * Returns the {@link Map} containing the {@link ColumnReference} objects
+	 * and {@link Data} values to be stored in each selected row.
+	 * @return The Map containing the new values.
+	 */
+	public Map<ColumnReference, Data> getNewValues(){
+		return Collections.unmodifiableMap(newValues);
+	}
+	
+	/**
+	 * Determines whether or not this BulkRowEditChange edits the given {@link Row}.
+	 * @param row The Row to be checked.
+	 * @return {@code true} if {@code row} satisfies the {@link Query} of this change,
+	 * {@code false} otherwise.
+	 * @see Query#satisfiesQuery(Row)
+	 */
+	public boolean affectsRow(Row row){
+		return query.satisfiesQuery(row);
+	}
+	
+	/**
+	 * Computes the values that the given {@link Row} will have after it is edited
+	 * by this BulkRowEditChange. This does not check whether {@code row} is selected
+	 * by the change's {@link Query}. Columns of {@code row} that are not edited keep
+	 * their values and columns named by this change but missing from {@code row} are
+	 * ignored.
+	 * @param row The Row to be edited.
+	 * @return A new {@link Map} of {@link Column} objects to {@link Data} values
+	 * representing the edited row.
+	 * @throws InvalidSchemaException If this change edits the primary key column
+	 * of {@code row}.
+	 * @see #affectsRow(Row)
+	 */
+	public Map<Column, Data> applyTo(Row row) throws InvalidSchemaException{
+		if(newValues.containsKey(row.getPrimaryKeyColumn().getReference())){
+			throw new InvalidSchemaException("Editing the primary key column is not permitted.");
+		}
+		Map<Column, Data> edited = new HashMap<Column, Data>(row.getValues());
+		for(Column col : row.getColumns()){
+			if(newValues.containsKey(col.getReference())){
+				edited.put(col, newValues.get(col.getReference()));
+			}
+		}
+		return edited;
+	}
+	
+	/**
+	 * Returns the {@link TableReference} of the table containing the rows to be edited.
+	 * @return The TableReference of the queried table.
+	 */
+	public TableReference getTargetTableReference(){
+		return query.getTableReference();
+	}
+	
+	/**
+	 * Returns the name of the table containing the rows to be edited.
+	 * @return The {@code String} name of the queried table.
+	 */
+	public String getTargetTableName(){
+		return getTargetTableReference().getTableName();
+	}
+	
+	/**
+	 * Returns a hash code value for this BulkRowEditChange as described in
+	 * {@link Object#hashCode()}.
+	 * @return A hash code value for this object.
+	 */
+	public int hashCode(){
+		return query.hashCode() + newValues.hashCode();
+	}
+	
+	/**
+	 * Determines whether some object is equal to this BulkRowEditChange.
+	 * An {@code Object} is equal to this one if it is also a BulkRowEditChange
+	 * and its {@link #getQuery()} and {@link #getNewValues()} methods return
+	 * values that are equal to what is returned by these methods on this object.
+	 * @param obj The object to be tested for equality against this one.
+	 * @return {@code true} if the objects are equal as defined above,
+	 * {@code false} otherwise.
+	 */
+	public boolean equals(Object obj){
+		if(obj instanceof BulkRowEditChange){
+			BulkRowEditChange other = (BulkRowEditChange) obj;
+			return other.getQuery().equals(getQuery()) && other.getNewValues().equals(getNewValues());
+		}
+		return false;
+	}
+}
@@ -0,0 +1,288 @@
+package com.edinarobotics.scouting.definitions.database.changes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.database.InvalidSchemaException;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.InvalidReferenceException;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+
+/**
+ * This {@link Change} is used to insert many rows of data into a
+ * {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * table at once.
+ * <br/>
+ * The data is stored in a columnar layout. A single schema header (the
+ * list of {@link ColumnReference} objects) is shared by every row, and the
+ * values of each column are stored together in a single {@link List}.
+ * The value at index {@code i} of each column list belongs to row {@code i}.
+ * <br/>
+ * Database implementations must treat a BulkRowInsertionChange exactly as
+ * they would treat a series of {@link RowInsertionChange} objects with the
+ * same values. The same restrictions apply to every row: rows may not
+ * replace existing rows and all columns except the primary key column must
+ * be given values. However, Database implementations fire only a single
+ * {@link com.edinarobotics.scouting.definitions.database.events.BulkRowInsertionChangeEvent BulkRowInsertionChangeEvent}
+ * for the entire change.
+ */
+public final class BulkRowInsertionChange implements Change{
+	private TableReference targetTable;
+	private List<ColumnReference> columns;
+	private List<List<Data>> columnValues;
+	private int rowCount;
+	
+	/**
+	 * Constructs a new BulkRowInsertionChange that attempts to insert rows
+	 * into the table referenced by {@code tableReference}.
+	 * {@code columns} is the schema header for the inserted rows and
+	 * {@code columnValues} contains one List of values for each entry in
+	 * {@code columns}, in the same order.
+	 * @param tableReference The {@link TableReference} indicating the table
+	 * into which the rows are to be inserted.
+	 * @param columns The {@link ColumnReference} objects naming the columns
+	 * into which values are to be inserted.
+	 * @param columnValues A List of the {@link Data} values for each column.
+	 * Every List must have the same length, which is the number of rows to insert.
+	 * @throws InvalidSchemaException If {@code columns} is empty, if a column is
+	 * named twice or if {@code columnValues} does not contain exactly one List of
+	 * equal length for each column.
+	 * @throws InvalidTargetException If any of the ColumnReference objects in
+	 * {@code columns} references a column in a table other than {@code tableReference}.
+	 * A BulkRowInsertionChange can only insert values into a single table.
+	 */
+	public BulkRowInsertionChange(TableReference tableReference, List<ColumnReference> columns, List<List<Data>> columnValues) throws InvalidSchemaException, InvalidTargetException{
+		if(columns.size() <= 0){
+			throw new InvalidSchemaException("Cannot insert zero columns into a table.");
+		}
+		if(columnValues.size() != columns.size()){
+			throw new InvalidSchemaException("Each column must have exactly one list of values.");
+		}
+		Set<ColumnReference> seenColumns = new HashSet<ColumnReference>();
+		for(ColumnReference col : columns){
+			if(!col.getTableReference().equals(tableReference)){
+				throw new InvalidTargetException("Cannot insert data into different tables.");
+			}
+			if(!seenColumns.add(col)){
+				throw new InvalidSchemaException(String.format("Cannot insert two values into the same column (%s).", col.getColumnName()));
+			}
+		}
+		int rows = columnValues.get(0).size();
+		List<List<Data>> valuesCopy = new ArrayList<List<Data>>(columnValues.size());
+		for(List<Data> values : columnValues){
+			if(values.size() != rows){
+				throw new InvalidSchemaException("All columns must contain the same number of values.");
+			}
+			valuesCopy.add(Collections.unmodifiableList(new ArrayList<Data>(values)));
+		}
+		this.targetTable = tableReference;
+		this.columns = Collections.unmodifiableList(new ArrayList<ColumnReference>(columns));
+		this.columnValues = Collections.unmodifiableList(valuesCopy);
+		this.rowCount = rows;
+	}
+	
+	/**
+	 * Constructs a new BulkRowInsertionChange that attempts to insert rows
+	 * into the table referenced by {@code tableReference}.
+	 * {@code columnNames} contains {@code String} column names
+	 * (<em>not</em> column references). Each column name is parsed only once,
+	 * regardless of the number of rows being inserted.
+	 * @param tableReference The {@link TableReference} indicating the table
+	 * into which the rows are to be inserted.
+	 * @param columnNames The names of the columns into which values are to
+	 * be inserted.
+	 * @param columnValues A List of the {@link Data} values for each column.
+	 * Every List must have the same length, which is the number of rows to insert.
+	 * @throws InvalidReferenceException If {@code tableReference} and the
+	 * {@code String} objects in {@code columnNames} do not form valid
+	 * column references.
+	 * @throws InvalidSchemaException If {@code columnNames} is empty, if a column is
+	 * named twice or if {@code columnValues} does not contain exactly one List of
+	 * equal length for each column.
+	 * @throws InvalidTargetException If the columns reference different tables.
+	 * @see #BulkRowInsertionChange(TableReference, List, List)
+	 */
+	public BulkRowInsertionChange(TableReference tableReference, Collection<String> columnNames, List<List<Data>> columnValues) throws InvalidReferenceException, InvalidSchemaException, InvalidTargetException{
+		this(tableReference, nameListToColumnReferences(tableReference.toString(), columnNames), columnValues);
+	}
+	
+	/**
+	 * Constructs a new BulkRowInsertionChange that attempts to insert rows
+	 * into the table referenced by the table reference {@code String},
+	 * {@code tableReference}.
+	 * @param tableReference The table reference {@code String} indicating the
+	 * table into which the rows are to be inserted.
+	 * @param columnNames The names of the columns into which values are to
+	 * be inserted.
+	 * @param columnValues A List of the {@link Data} values for each column.
+	 * Every List must have the same length, which is the number of rows to insert.
+	 * @throws InvalidReferenceException If {@code tableReference} or the
+	 * {@code String} objects in {@code columnNames} are not valid when used
+	 * as a part of a {@link ColumnReference}.
+	 * @throws InvalidSchemaException If {@code columnNames} is empty, if a column is
+	 * named twice or if {@code columnValues} does not contain exactly one List of
+	 * equal length for each column.
+	 * @throws InvalidTargetException If the columns reference different tables.
+	 * @see #BulkRowInsertionChange(TableReference, Collection, List)
+	 */
+	public BulkRowInsertionChange(String tableReference, Collection<String> columnNames, List<List<Data>> columnValues) throws InvalidReferenceException, InvalidSchemaException, InvalidTargetException{
+		this(new TableReference(tableReference), columnNames, columnValues);
+	}
+	
+	/**
+	 * This is a private method used to convert a {@code String} table reference and
+	 * a Collection of {@code String} column names into a List of {@link ColumnReference}
+	 * objects.
+	 * @param tableReferenceString The {@code String} to use as the table
+	 * name when creating ColumnReference objects.
+	 * @param columnNames The column names to be converted.
+	 * @return A List of ColumnReference objects in the iteration order of {@code columnNames}.
+	 * @throws InvalidReferenceException If {@code tableReferenceString} and a column
+	 * name produce an invalid ColumnReference.
+	 */
+	private static List<ColumnReference> nameListToColumnReferences(String tableReferenceString, Collection<String> columnNames) throws InvalidReferenceException{
+		List<ColumnReference> references = new ArrayList<ColumnReference>(columnNames.size());
+		for(String name : columnNames){
+			references.add(new ColumnReference(tableReferenceString+"."+name));
+		}
+		return references;
+	}
+	
+	/**
+	 * Returns the schema header of this BulkRowInsertionChange.
+	 * This is the List of {@link ColumnReference} objects
+	 * naming the columns into which values are inserted.
+	 * This List cannot be modified.
+	 * @return The List of columns into which values are inserted.
+	 */
+	public List<ColumnReference> getColumnReferences(){
+		return columns;
+	}
+	
+	/**
+	 * Returns the number of columns in the schema header of
+	 * this BulkRowInsertionChange.
+	 * @return The number of columns into which values are inserted.
+	 */
+	public int getColumnCount(){
+		return columns.size();
+	}
+	
+	/**
+	 * Returns the number of rows to be inserted by this
+	 * BulkRowInsertionChange.
+	 * @return The number of rows to be inserted.
+	 */
+	public int getRowCount(){
+		return rowCount;
+	}
+	
+	/**
+	 * Returns all values to be inserted into the column at position
+	 * {@code columnIndex} in the schema header. This List cannot be modified.
+	 * @param columnIndex The index of the column in {@link #getColumnReferences()}.
+	 * @return The List of {@link Data} values to be inserted into the column.
+	 * @throws IndexOutOfBoundsException If {@code columnIndex} is out of range.
+	 */
+	public List<Data> getColumnValues(int columnIndex){
+		return columnValues.get(columnIndex);
+	}
+	
+	/**
+	 * Returns all values to be inserted into the given column. This List
+	 * cannot be modified.
+	 * @param column The {@link ColumnReference} of the requested column.
+	 * @return The List of {@link Data} values to be inserted into the column or
+	 * {@code null} if {@code column} is not in the schema header.
+	 */
+	public List<Data> getColumnValues(ColumnReference column){
+		int index = columns.indexOf(column);
+		if(index < 0){
+			return null;
+		}
+		return getColumnValues(index);
+	}
+	
+	/**
+	 * Returns a single value to be inserted.
+	 * @param rowIndex The index of the row to be inserted.
+	 * @param columnIndex The index of the column in {@link #getColumnReferences()}.
+	 * @return The {@link Data} value to be inserted at the given position.
+	 * @throws IndexOutOfBoundsException If either index is out of range.
+	 */
+	public Data getValue(int rowIndex, int columnIndex){
+		return columnValues.get(columnIndex).get(rowIndex);
+	}
+	
+	/**
+	 * Returns the values of a single row as a {@link Map}, in the
+	 * same format as {@link RowInsertionChange#getValues()}.
+	 * This method creates a new Map for each call and is provided for
+	 * Database implementations that cannot use the columnar layout directly.
+	 * @param rowIndex The index of the row to be returned.
+	 * @return A Map of {@link ColumnReference} objects to the {@link Data}
+	 * values to be inserted in the requested row.
+	 * @throws IndexOutOfBoundsException If {@code rowIndex} is out of range.
+	 */
+	public Map<ColumnReference, Data> getRowValues(int rowIndex){
+		Map<ColumnReference, Data> row = new HashMap<ColumnReference, Data>();
+		for(int i = 0; i < columns.size(); i++){
+			row.put(columns.get(i), getValue(rowIndex, i));
+		}
+		return Collections.unmodifiableMap(row);
+	}
+	
+	/**
+	 * Returns the {@link TableReference} object referencing the table into which
+	 * the new rows are to be inserted.
+	 * @return The TableReference of the table into which the new rows are to be
+	 * inserted.
+	 */
+	public TableReference getTargetTableReference(){
+		return targetTable;
+	}
+	
+	/**
+	 * Returns the name of the table into which the new rows are to be inserted.
+	 * @return The {@code String} name of the table into which the new rows are
+	 * to be inserted.
+	 */
+	public String getTargetTableName(){
+		return getTargetTableReference().getTableName();
+	}
+	
+	/**
+	 * Returns a hash code value for this BulkRowInsertionChange as defined in
+	 * {@link Object#hashCode()}.
+	 * @return A hash code value for this object.
+	 */
+	public int hashCode(){
+		return targetTable.hashCode() + columns.hashCode() + columnValues.hashCode();
+	}
+	
+	/**
+	 * Determines whether some object is equal to this BulkRowInsertionChange.
+	 * An {@code Object} is equal to this one if it is also a BulkRowInsertionChange,
+	 * if it targets the same table and if it has an equal schema header
+	 * (from {@link #getColumnReferences()}) and equal column values in the same
+	 * order.
+	 * @param obj The object to be tested for equality against this one.
+	 * @return {@code true} if the objects are equal as defined above,
+	 * {@code false} otherwise.
+	 */
+	public boolean equals(Object obj){
+		if(obj instanceof BulkRowInsertionChange){
+			BulkRowInsertionChange other = (BulkRowInsertionChange) obj;
+			return other.getTargetTableReference().equals(getTargetTableReference()) &&
+					other.columns.equals(columns) && other.columnValues.equals(columnValues);
+		}
+		return false;
+	}
+}
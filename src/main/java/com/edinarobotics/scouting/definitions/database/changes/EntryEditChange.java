@@ -18,10 +18,21 @@ import com.edinarobotics.scouting.definitions.database.types.Integer;
  * Database implementations have the responsibility to ensure that attempting
  * to store an incorrect {@link Data} type in an entry will fail with an
  * exception.
+ * <br/>
+ * An EntryEditChange may carry the version of the target {@link Row}
+ * (see {@link Row#getVersion()}) that its new value was based on. If the row
+ * has been written by another transaction since then, the Database must not
+ * apply the transaction. Its {@link com.edinarobotics.scouting.definitions.event.Future Future}
+ * must report {@link com.edinarobotics.scouting.definitions.event.Result#CONFLICT Result.CONFLICT}
+ * and throw a
+ * {@link com.edinarobotics.scouting.definitions.database.VersionConflictException VersionConflictException}
+ * from its {@code get()} method.
+ * This check is made when the transaction is applied and does not lock the row.
  */
 public final class EntryEditChange implements Change{
 	private EntryReference targetEntry;
 	private Data newValue;
+	private long expectedRowVersion;
 	
 	/**
 	 * Constructs a new EntryEditChange that will attempt to change
@@ -32,8 +43,26 @@ public final class EntryEditChange implements Change{
 	 * into the target entry.
 	 */
 	public EntryEditChange(EntryReference targetEntry, Data newValue){
+		this(targetEntry, newValue, Row.NO_VERSION);
+	}
+	
+	/**
+	 * Constructs a new EntryEditChange that will attempt to change
+	 * the value stored in {@code targetEntry} to {@code newValue}
+	 * only if the row containing {@code targetEntry} is still at
+	 * {@code expectedRowVersion}.
+	 * @param targetEntry The {@link EntryReference} indicating
+	 * the entry to change.
+	 * @param newValue The {@link Data} value that will be substituted
+	 * into the target entry.
+	 * @param expectedRowVersion The version of the target {@link Row} that
+	 * this change is based on, or {@link Row#NO_VERSION} to skip the check.
+	 * @see Row#getVersion()
+	 */
+	public EntryEditChange(EntryReference targetEntry, Data newValue, long expectedRowVersion){
 		this.targetEntry = targetEntry;
 		this.newValue = newValue;
+		this.expectedRowVersion = expectedRowVersion;
 	}
 	
 	/**
@@ -52,6 +81,25 @@ public final class EntryEditChange implements Change{
 		this(new EntryReference(entryReference), newValue);
 	}
 	
+	/**
+	 * Constructs a new EntryEditChange that will attempt to change
+	 * the value stored in {@code entryReference} to {@code newValue}
+	 * only if the row containing the entry is still at {@code expectedRowVersion}.
+	 * @param entryReference The entry reference {@code String} indicating
+	 * the {@link com.edinarobotics.scouting.definitions.database.Database Database}
+	 * entry to change.
+	 * @param newValue The {@link Data} value that will be substituted into
+	 * the target entry.
+	 * @param expectedRowVersion The version of the target {@link Row} that
+	 * this change is based on, or {@link Row#NO_VERSION} to skip the check.
+	 * @throws InvalidReferenceException If {@code entryReference} is not a valid
+	 * entry reference {@code String}.
+	 * @see EntryReference#EntryReference(String)
+	 */
+	public EntryEditChange(String entryReference, Data newValue, long expectedRowVersion) throws InvalidReferenceException{
+		this(new EntryReference(entryReference), newValue, expectedRowVersion);
+	}
+	
 	/**
 	 * Returns the {@link EntryReference} that indicates the target
 	 * {@link com.edinarobotics.scouting.definitions.database.Database Database}
@@ -72,6 +120,27 @@ public final class EntryEditChange implements Change{
 		return newValue;
 	}
 	
+	/**
+	 * Returns the version that the target {@link Row} must be at for
+	 * this change to be applied.
+	 * @return The expected row version or {@link Row#NO_VERSION} if
+	 * this change does not check the row version.
+	 * @see #hasExpectedRowVersion()
+	 */
+	public long getExpectedRowVersion(){
+		return expectedRowVersion;
+	}
+	
+	/**
+	 * Indicates whether or not this change checks the version of
+	 * the target {@link Row} before it is applied.
+	 * @return {@code true} if this change carries an expected row version,
+	 * {@code false} otherwise.
+	 */
+	public boolean hasExpectedRowVersion(){
+		return expectedRowVersion != Row.NO_VERSION;
+	}
+	
 	/**
 	 * Returns the {@link Class} object representing the type of the {@link Data}
 	 * object that is to be inserted into a
@@ -141,15 +210,16 @@ public final class EntryEditChange implements Change{
 	 * @return A hash code value for this object.
 	 */
 	public int hashCode(){
-		return targetEntry.hashCode() + newValue.hashCode();
+		return targetEntry.hashCode() + newValue.hashCode() + (int)(expectedRowVersion ^ (expectedRowVersion >>> 32));
 	}
 	
 	/**
 	 * Determines whether some object is equal to this EntryEditChange.
 	 * An {@code Object} is equal to this one if it is also an
-	 * EntryEditChange and its {@link #getTargetEntryReference()} and
-	 * {@link #getNewValue()} methods return values that are equal to
-	 * what is returned by these methods on this object.
+	 * EntryEditChange and its {@link #getTargetEntryReference()},
+	 * {@link #getNewValue()} and {@link #getExpectedRowVersion()} methods
+	 * return values that are equal to what is returned by these methods
+	 * on this object.
 	 * @param obj The object to be tested for equality against this one.
 	 * @return {@code true} if the objects are equal as defined above,
 	 * {@code false} otherwise.
@@ -157,7 +227,8 @@ public final class EntryEditChange implements Change{
 	public boolean equals(Object obj){
 		if(obj instanceof EntryEditChange){
 			EntryEditChange entryObj = (EntryEditChange) obj;
-			return entryObj.getTargetEntryReference().equals(getTargetEntryReference()) && entryObj.getNewValue().equals(getNewValue());
+			return entryObj.getTargetEntryReference().equals(getTargetEntryReference()) && entryObj.getNewValue().equals(getNewValue()) &&
+					entryObj.getExpectedRowVersion() == getExpectedRowVersion();
 		}
 		return false;
 	}
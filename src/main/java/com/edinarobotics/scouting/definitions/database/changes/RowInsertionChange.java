@@ -20,14 +20,27 @@ import com.edinarobotics.scouting.definitions.database.types.Data;
  * It is the responsibility of Database implementations to prevent this usage and to throw
  * an exception.
  * <br/>
+ * A RowInsertionChange can instead be made conditional with
+ * {@link #RowInsertionChange(Map, boolean)}. A conditional insertion asserts that no row
+ * with its primary key value exists, just as an {@link EntryEditChange} may assert the
+ * version of the row it edits. If such a row exists when the transaction is applied,
+ * the Database reports a
+ * {@link com.edinarobotics.scouting.definitions.database.VersionConflictException VersionConflictException}
+ * and {@link com.edinarobotics.scouting.definitions.event.Result#CONFLICT Result.CONFLICT},
+ * so that the caller can read the existing row and retry.
+ * <br/>
  * Additionally, the data included in a RowInsertionChange must define values for all
  * database columns. The only column that can be left undefined is the table's
  * primary key column. Database implementations must enforce this restriction
  * and automatically assign primary key values to inserted rows if no primary key
  * is explicitly defined.
+ * <br/>
+ * To insert many rows into the same table, use a {@link BulkRowInsertionChange}.
  */
 public final class RowInsertionChange implements Change{
 	private Map<ColumnReference, Data> newValues;
+	private TableReference targetTable;
+	private boolean insertIfAbsent;
 	
 	/**
 	 * Constructs a new RowInsertionChange that attempts to create a row containing
@@ -41,16 +54,37 @@ public final class RowInsertionChange implements Change{
 	 * into a single table.
 	 */
 	public RowInsertionChange(Map<ColumnReference, Data> newValues) throws InvalidSchemaException, InvalidTargetException{
+		this(newValues, false);
+	}
+	
+	/**
+	 * Constructs a new RowInsertionChange that attempts to create a row containing
+	 * the values defined in the {@code newValues} {@link Map}.
+	 * If {@code insertIfAbsent} is {@code true} the insertion is conditional and an
+	 * existing row with the same primary key value is reported as a conflict.
+	 * @param newValues The Map of {@link Data} values to be inserted in the
+	 * columns defined by their linked {@link ColumnReference} objects.
+	 * @param insertIfAbsent {@code true} if this insertion asserts that the row
+	 * does not exist yet.
+	 * @throws InvalidSchemaException If {@code newValues} is an empty map. It is impossible
+	 * to insert zero columns into a table.
+	 * @throws InvalidTargetException If the ColumnReference objects in {@code newValues}
+	 * reference columns in different tables. A RowInsertionChange can only insert values
+	 * into a single table.
+	 */
+	public RowInsertionChange(Map<ColumnReference, Data> newValues, boolean insertIfAbsent) throws InvalidSchemaException, InvalidTargetException{
 		if (newValues.size() <= 0){
 			throw new InvalidSchemaException("Cannot insert zero columns into a table.");
 		}
-		TableReference table = ((ColumnReference) newValues.keySet().toArray()[0]).getTableReference();
+		TableReference table = newValues.keySet().iterator().next().getTableReference();
 		for(ColumnReference col : newValues.keySet()){
 			if(!col.getTableReference().equals(table)){
 				throw new InvalidTargetException("Cannot insert data into different tables.");
 			}
 		}
 		this.newValues = new HashMap<ColumnReference, Data>(newValues);
+		this.targetTable = table;
+		this.insertIfAbsent = insertIfAbsent;
 	}
 	
 	/**
@@ -130,6 +164,15 @@ public final class RowInsertionChange implements Change{
 		return Collections.unmodifiableMap(newValues);
 	}
 	
+	/**
+	 * Indicates whether this RowInsertionChange asserts that its row does not exist yet.
+	 * @return {@code true} if an existing row is reported as a conflict,
+	 * {@code false} if it is reported as an error.
+	 */
+	public boolean isInsertIfAbsent(){
+		return insertIfAbsent;
+	}
+	
 	/**
 	 * Returns the {@link TableReference} object referencing the table into which
 	 * the new row is to be inserted.
@@ -137,7 +180,7 @@ public final class RowInsertionChange implements Change{
 	 * inserted.
 	 */
 	public TableReference getTargetTableReference(){
-		return ((ColumnReference) getValues().keySet().toArray()[0]).getTableReference();
+		return targetTable;
 	}
 	
 	/**
@@ -155,21 +198,24 @@ public final class RowInsertionChange implements Change{
 	 * @return A hash code value for this object.
 	 */
 	public int hashCode(){
-		return getValues().hashCode();
+		return getValues().hashCode() + (insertIfAbsent ? 1 : 0);
 	}
 	
 	/**
 	 * Determines whether some object is equal to this RowInsertionChange.
 	 * An {@code Object} is equal to this one if it is also a RowInsertionChange
 	 * and if its internal {@link Data} mapping (from {@link #getValues()}) is
-	 * equal to this RowInsertionChange's internal mapping.
+	 * equal to this RowInsertionChange's internal mapping and both are conditional
+	 * or unconditional (see {@link #isInsertIfAbsent()}).
 	 * @param obj The object to be tested for equality against this one.
 	 * @return {@code true} if the objects are equal as defined above,
 	 * {@code false} otherwise.
 	 */
 	public boolean equals(Object obj){
 		if(obj instanceof RowInsertionChange){
-			return ((RowInsertionChange) obj).getValues().equals(getValues());
+			RowInsertionChange insertionObj = (RowInsertionChange) obj;
+			return insertionObj.getValues().equals(getValues()) &&
+					insertionObj.isInsertIfAbsent() == isInsertIfAbsent();
 		}
 		return false;
 	}
@@ -20,6 +20,7 @@ import com.edinarobotics.scouting.definitions.database.references.TableReference
 public final class TableCreationChange implements Change{
 	private TableReference newTableRef;
 	private Set<Column> newColumns;
+	private Column primaryKeyColumn;
 	
 	/**
 	 * Constructs a TableCreationChange which will attempt to create a table
@@ -82,6 +83,7 @@ public final class TableCreationChange implements Change{
 			}
 		}
 		this.newColumns = new HashSet<Column>(newColumns);
+		this.primaryKeyColumn = primaryKeyColumn;
 	}
 	
 	/**
@@ -113,6 +115,15 @@ public final class TableCreationChange implements Change{
 		return Collections.unmodifiableSet(newColumns);
 	}
 	
+	/**
+	 * Returns the {@link Column} that will act as the primary key
+	 * column of the new table.
+	 * @return The primary key Column of the new table.
+	 */
+	public Column getPrimaryKeyColumn(){
+		return primaryKeyColumn;
+	}
+	
 	/**
 	 * Returns a {@link Set} of the {@link ColumnReference}
 	 * objects for each of the {@link Column} objects
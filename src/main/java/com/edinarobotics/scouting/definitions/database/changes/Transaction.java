@@ -47,7 +47,7 @@ public class Transaction {
 	 * @see List#add(Object)
 	 */
 	public void add(Change change){
-		getChanges().add(change);
+		changes.add(change);
 	}
 	
 	/**
@@ -59,7 +59,7 @@ public class Transaction {
 	 * @see List#remove(Object)
 	 */
 	public void remove(Change change){
-		getChanges().remove(change);
+		changes.remove(change);
 	}
 	
 	/**
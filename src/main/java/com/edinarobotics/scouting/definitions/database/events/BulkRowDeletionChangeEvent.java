@@ -0,0 +1,42 @@
+package com.edinarobotics.scouting.definitions.database.events;
+
+import com.edinarobotics.scouting.definitions.database.changes.BulkRowDeletionChange;
+
+/**
+ * This event is fired by {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * implementations whenever a table is modified by a {@link BulkRowDeletionChange} object in a
+ * {@link com.edinarobotics.scouting.definitions.database.changes.Transaction Transaction}.
+ * Only one event is fired for each BulkRowDeletionChange, regardless of the number
+ * of rows it deletes. Cancelling this event cancels the change for every row.
+ */
+public class BulkRowDeletionChangeEvent extends DatabaseChangeEvent{
+	
+	/**
+	 * Constructs a BulkRowDeletionChangeEvent representing the given
+	 * {@link BulkRowDeletionChange} object.
+	 * @param change The BulkRowDeletionChange to be stored in this
+	 * BulkRowDeletionChangeEvent.
+	 */
+	public BulkRowDeletionChangeEvent(BulkRowDeletionChange change){
+		super(change);
+	}
+	
+	/**
+	 * Constructs a BulkRowDeletionChangeEvent representing the given {@link BulkRowDeletionChange} object and
+	 * having the given String ID value.
+	 * @param change The BulkRowDeletionChange to be stored in this BulkRowDeletionChangeEvent.
+	 * @param id The String ID value to be assigned to this event.
+	 * @see com.edinarobotics.scouting.definitions.event.CancellableEvent#CancellableEvent(String)
+	 */
+	public BulkRowDeletionChangeEvent(BulkRowDeletionChange change, String id){
+		super(change, id);
+	}
+	
+	/**
+	 * Allows access to the {@link BulkRowDeletionChange} object stored in this BulkRowDeletionChangeEvent.
+	 * @return The BulkRowDeletionChange object stored in this BulkRowDeletionChangeEvent.
+	 */
+	public BulkRowDeletionChange getChange(){
+		return (BulkRowDeletionChange)super.getChange();
+	}
+}
@@ -0,0 +1,42 @@
+package com.edinarobotics.scouting.definitions.database.events;
+
+import com.edinarobotics.scouting.definitions.database.changes.BulkRowEditChange;
+
+/**
+ * This event is fired by {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * implementations whenever a table is modified by a {@link BulkRowEditChange} object in a
+ * {@link com.edinarobotics.scouting.definitions.database.changes.Transaction Transaction}.
+ * Only one event is fired for each BulkRowEditChange, regardless of the number
+ * of rows it edits. Cancelling this event cancels the change for every row.
+ */
+public class BulkRowEditChangeEvent extends DatabaseChangeEvent{
+	
+	/**
+	 * Constructs a BulkRowEditChangeEvent representing the given
+	 * {@link BulkRowEditChange} object.
+	 * @param change The BulkRowEditChange to be stored in this
+	 * BulkRowEditChangeEvent.
+	 */
+	public BulkRowEditChangeEvent(BulkRowEditChange change){
+		super(change);
+	}
+	
+	/**
+	 * Constructs a BulkRowEditChangeEvent representing the given {@link BulkRowEditChange} object and
+	 * having the given String ID value.
+	 * @param change The BulkRowEditChange to be stored in this BulkRowEditChangeEvent.
+	 * @param id The String ID value to be assigned to this event.
+	 * @see com.edinarobotics.scouting.definitions.event.CancellableEvent#CancellableEvent(String)
+	 */
+	public BulkRowEditChangeEvent(BulkRowEditChange change, String id){
+		super(change, id);
+	}
+	
+	/**
+	 * Allows access to the {@link BulkRowEditChange} object stored in this BulkRowEditChangeEvent.
+	 * @return The BulkRowEditChange object stored in this BulkRowEditChangeEvent.
+	 */
+	public BulkRowEditChange getChange(){
+		return (BulkRowEditChange)super.getChange();
+	}
+}
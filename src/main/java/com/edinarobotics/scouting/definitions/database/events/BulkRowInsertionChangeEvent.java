@@ -0,0 +1,42 @@
+package com.edinarobotics.scouting.definitions.database.events;
+
+import com.edinarobotics.scouting.definitions.database.changes.BulkRowInsertionChange;
+
+/**
+ * This event is fired by {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * implementations whenever a table is modified by a {@link BulkRowInsertionChange} object in a
+ * {@link com.edinarobotics.scouting.definitions.database.changes.Transaction Transaction}.
+ * Only one event is fired for each BulkRowInsertionChange, regardless of the number
+ * of rows it inserts. Cancelling this event cancels the insertion of every row.
+ */
+public class BulkRowInsertionChangeEvent extends DatabaseChangeEvent{
+	
+	/**
+	 * Constructs a BulkRowInsertionChangeEvent representing the given
+	 * {@link BulkRowInsertionChange} object.
+	 * @param change The BulkRowInsertionChange to be stored in this
+	 * BulkRowInsertionChangeEvent.
+	 */
+	public BulkRowInsertionChangeEvent(BulkRowInsertionChange change){
+		super(change);
+	}
+	
+	/**
+	 * Constructs a BulkRowInsertionChangeEvent representing the given {@link BulkRowInsertionChange} object and
+	 * having the given String ID value.
+	 * @param change The BulkRowInsertionChange to be stored in this BulkRowInsertionChangeEvent.
+	 * @param id The String ID value to be assigned to this event.
+	 * @see com.edinarobotics.scouting.definitions.event.CancellableEvent#CancellableEvent(String)
+	 */
+	public BulkRowInsertionChangeEvent(BulkRowInsertionChange change, String id){
+		super(change, id);
+	}
+	
+	/**
+	 * Allows access to the {@link BulkRowInsertionChange} object stored in this BulkRowInsertionChangeEvent.
+	 * @return The BulkRowInsertionChange object stored in this BulkRowInsertionChangeEvent.
+	 */
+	public BulkRowInsertionChange getChange(){
+		return (BulkRowInsertionChange)super.getChange();
+	}
+}
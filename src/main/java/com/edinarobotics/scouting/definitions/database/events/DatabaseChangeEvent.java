@@ -3,13 +3,16 @@ package com.edinarobotics.scouting.definitions.database.events;
 import com.edinarobotics.scouting.definitions.database.changes.Change;
 import com.edinarobotics.scouting.definitions.database.references.TableReference;
 import com.edinarobotics.scouting.definitions.event.CancellableEvent;
+import com.edinarobotics.scouting.definitions.event.TableEvent;
 
 /**
  * This event is fired by {@link com.edinarobotics.scouting.definitions.database.Database Database}
  * implementations whenever a table is modified by a {@link Change} object in a
  * {@link com.edinarobotics.scouting.definitions.database.changes.Transaction Transaction}.
+ * Listeners interested in a few tables only can name them with
+ * {@link com.edinarobotics.scouting.definitions.event.EventListener#tables() EventListener.tables()}.
  */
-public abstract class DatabaseChangeEvent extends CancellableEvent{
+public abstract class DatabaseChangeEvent extends CancellableEvent implements TableEvent{
 	private Change databaseChange;
 	
 	/**
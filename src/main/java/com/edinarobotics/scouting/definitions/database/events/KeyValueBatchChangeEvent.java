@@ -0,0 +1,87 @@
+package com.edinarobotics.scouting.definitions.database.events;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This event is fired by the key-value stores returned from
+ * {@link com.edinarobotics.scouting.definitions.database.Database#getKeyValueStore(String) Database.getKeyValueStore(String)}
+ * after many entries of a store have been changed at once, for example by
+ * {@link Map#putAll(Map)} or {@link Map#clear()}.<br/>
+ * Only one event is fired for each such operation, regardless of the number of
+ * entries it changes.
+ */
+public class KeyValueBatchChangeEvent extends KeyValueChangeEvent{
+	private Map<String, String> previousValues;
+	private Map<String, String> newValues;
+	
+	/**
+	 * Constructs a KeyValueBatchChangeEvent representing changes of the values of several keys.
+	 * Both Maps must contain every changed key. A {@code null} value in {@code previousValues}
+	 * means that the key was added, a {@code null} value in {@code newValues} means that
+	 * the key was removed.
+	 * @param storeName The name of the changed key-value store.
+	 * @param previousValues The values of the changed keys before the change.
+	 * @param newValues The values of the changed keys after the change.
+	 */
+	public KeyValueBatchChangeEvent(String storeName, Map<String, String> previousValues, Map<String, String> newValues){
+		super(storeName);
+		this.previousValues = Collections.unmodifiableMap(previousValues);
+		this.newValues = Collections.unmodifiableMap(newValues);
+	}
+	
+	/**
+	 * Constructs a KeyValueBatchChangeEvent representing changes of the values of several keys
+	 * and having the given String ID value.
+	 * @param storeName The name of the changed key-value store.
+	 * @param previousValues The values of the changed keys before the change.
+	 * @param newValues The values of the changed keys after the change.
+	 * @param id The String ID value to be assigned to this event.
+	 * @see #KeyValueBatchChangeEvent(String, Map, Map)
+	 * @see com.edinarobotics.scouting.definitions.event.Event#Event(String)
+	 */
+	public KeyValueBatchChangeEvent(String storeName, Map<String, String> previousValues, Map<String, String> newValues, String id){
+		super(storeName, id);
+		this.previousValues = Collections.unmodifiableMap(previousValues);
+		this.newValues = Collections.unmodifiableMap(newValues);
+	}
+	
+	/**
+	 * Returns the values of the changed keys before the change.
+	 * @return An unmodifiable Map from each changed key to its previous value,
+	 * or to {@code null} if the key was added.
+	 */
+	public Map<String, String> getPreviousValues(){
+		return previousValues;
+	}
+	
+	/**
+	 * Returns the values of the changed keys after the change.
+	 * @return An unmodifiable Map from each changed key to its new value,
+	 * or to {@code null} if the key was removed.
+	 */
+	public Map<String, String> getNewValues(){
+		return newValues;
+	}
+	
+	/**
+	 * Returns the number of keys changed by this batch.
+	 * @return The number of changed keys.
+	 */
+	public int size(){
+		return newValues.size();
+	}
+	
+	public Set<String> getChangedKeys(){
+		return newValues.keySet();
+	}
+	
+	public String getNewValue(String key){
+		return newValues.get(key);
+	}
+	
+	public String getPreviousValue(String key){
+		return previousValues.get(key);
+	}
+}
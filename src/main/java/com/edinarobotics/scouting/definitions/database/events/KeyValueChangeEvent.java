@@ -0,0 +1,68 @@
+package com.edinarobotics.scouting.definitions.database.events;
+
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.event.Event;
+
+/**
+ * This event is fired by the key-value stores returned from
+ * {@link com.edinarobotics.scouting.definitions.database.Database#getKeyValueStore(String) Database.getKeyValueStore(String)}
+ * after entries of a store have been changed.<br/>
+ * Unlike {@link DatabaseChangeEvent}, this event is fired <em>after</em> the change
+ * has been applied, so it cannot be cancelled. Plugins can listen for this event
+ * instead of polling key-value stores for changes.
+ * @see KeyValueEntryChangeEvent
+ * @see KeyValueBatchChangeEvent
+ */
+public abstract class KeyValueChangeEvent extends Event{
+	private String storeName;
+	
+	/**
+	 * Constructs a KeyValueChangeEvent for the key-value store named {@code storeName}.
+	 * @param storeName The name of the changed key-value store.
+	 */
+	public KeyValueChangeEvent(String storeName){
+		this.storeName = storeName;
+	}
+	
+	/**
+	 * Constructs a KeyValueChangeEvent for the key-value store named {@code storeName}
+	 * and having the given String ID value.
+	 * @param storeName The name of the changed key-value store.
+	 * @param id The String ID value to be assigned to this event.
+	 * @see Event#Event(String)
+	 */
+	public KeyValueChangeEvent(String storeName, String id){
+		super(id);
+		this.storeName = storeName;
+	}
+	
+	/**
+	 * Returns the name of the key-value store that was changed.
+	 * @return The String name of the changed key-value store.
+	 */
+	public String getStoreName(){
+		return storeName;
+	}
+	
+	/**
+	 * Returns the keys whose values were changed.
+	 * @return An unmodifiable Set containing the changed keys.
+	 */
+	public abstract Set<String> getChangedKeys();
+	
+	/**
+	 * Returns the value of {@code key} after the change.
+	 * @param key The key.
+	 * @return The new value of {@code key} or {@code null} if {@code key}
+	 * was removed or was not changed.
+	 */
+	public abstract String getNewValue(String key);
+	
+	/**
+	 * Returns the value of {@code key} before the change.
+	 * @param key The key.
+	 * @return The previous value of {@code key} or {@code null} if {@code key}
+	 * was added or was not changed.
+	 */
+	public abstract String getPreviousValue(String key);
+}
@@ -0,0 +1,86 @@
+package com.edinarobotics.scouting.definitions.database.events;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * This event is fired by the key-value stores returned from
+ * {@link com.edinarobotics.scouting.definitions.database.Database#getKeyValueStore(String) Database.getKeyValueStore(String)}
+ * after a single entry of a store has been added, replaced or removed.
+ */
+public class KeyValueEntryChangeEvent extends KeyValueChangeEvent{
+	private String key;
+	private String previousValue;
+	private String newValue;
+	
+	/**
+	 * Constructs a KeyValueEntryChangeEvent representing a change of the value of {@code key}.
+	 * @param storeName The name of the changed key-value store.
+	 * @param key The changed key.
+	 * @param previousValue The value of {@code key} before the change or {@code null}
+	 * if {@code key} was added.
+	 * @param newValue The value of {@code key} after the change or {@code null}
+	 * if {@code key} was removed.
+	 */
+	public KeyValueEntryChangeEvent(String storeName, String key, String previousValue, String newValue){
+		super(storeName);
+		this.key = key;
+		this.previousValue = previousValue;
+		this.newValue = newValue;
+	}
+	
+	/**
+	 * Constructs a KeyValueEntryChangeEvent representing a change of the value of {@code key}
+	 * and having the given String ID value.
+	 * @param storeName The name of the changed key-value store.
+	 * @param key The changed key.
+	 * @param previousValue The value of {@code key} before the change or {@code null}
+	 * if {@code key} was added.
+	 * @param newValue The value of {@code key} after the change or {@code null}
+	 * if {@code key} was removed.
+	 * @param id The String ID value to be assigned to this event.
+	 * @see com.edinarobotics.scouting.definitions.event.Event#Event(String)
+	 */
+	public KeyValueEntryChangeEvent(String storeName, String key, String previousValue, String newValue, String id){
+		super(storeName, id);
+		this.key = key;
+		this.previousValue = previousValue;
+		this.newValue = newValue;
+	}
+	
+	/**
+	 * Returns the key whose value was changed.
+	 * @return The changed key.
+	 */
+	public String getKey(){
+		return key;
+	}
+	
+	/**
+	 * Returns the value of the changed key before the change.
+	 * @return The previous value or {@code null} if the key was added.
+	 */
+	public String getPreviousValue(){
+		return previousValue;
+	}
+	
+	/**
+	 * Returns the value of the changed key after the change.
+	 * @return The new value or {@code null} if the key was removed.
+	 */
+	public String getNewValue(){
+		return newValue;
+	}
+	
+	public Set<String> getChangedKeys(){
+		return Collections.singleton(key);
+	}
+	
+	public String getNewValue(String key){
+		return this.key.equals(key) ? newValue : null;
+	}
+	
+	public String getPreviousValue(String key){
+		return this.key.equals(key) ? previousValue : null;
+	}
+}
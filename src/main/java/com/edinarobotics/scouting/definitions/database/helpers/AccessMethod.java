@@ -0,0 +1,26 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+/**
+ * The values in this enum describe how a {@link TablePlan} reads the rows
+ * of its table.
+ */
+public enum AccessMethod {
+	
+	/**
+	 * Every row of the table is read and tested against the constraints.
+	 */
+	TABLE_SCAN,
+	
+	/**
+	 * A single row is read through the primary key index. The query
+	 * requires the primary key column to be equal to one value.
+	 */
+	PRIMARY_KEY_LOOKUP,
+	
+	/**
+	 * Every primary key value in a range is looked up in the primary key
+	 * index. The query limits the primary key column to a range that holds
+	 * fewer values than the table holds rows.
+	 */
+	PRIMARY_KEY_RANGE
+}
@@ -0,0 +1,539 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.rowset.serial.SerialBlob;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.InvalidSchemaException;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.changes.BulkRowDeletionChange;
+import com.edinarobotics.scouting.definitions.database.changes.BulkRowEditChange;
+import com.edinarobotics.scouting.definitions.database.changes.BulkRowInsertionChange;
+import com.edinarobotics.scouting.definitions.database.changes.Change;
+import com.edinarobotics.scouting.definitions.database.changes.ColumnDeletionChange;
+import com.edinarobotics.scouting.definitions.database.changes.ColumnInsertionChange;
+import com.edinarobotics.scouting.definitions.database.changes.EntryEditChange;
+import com.edinarobotics.scouting.definitions.database.changes.RowInsertionChange;
+import com.edinarobotics.scouting.definitions.database.changes.TableCreationChange;
+import com.edinarobotics.scouting.definitions.database.changes.TableDeletionChange;
+import com.edinarobotics.scouting.definitions.database.changes.Transaction;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.Constraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.RangeConstraint;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.EntryReference;
+import com.edinarobotics.scouting.definitions.database.references.InvalidReferenceException;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Blob;
+import com.edinarobotics.scouting.definitions.database.types.Boolean;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+/**
+ * This class converts {@link Transaction} objects and their {@link Change}
+ * objects to and from a compact binary form.
+ * It is used by {@link WriteAheadLog} and can be used by
+ * {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * implementations that need to store or send changes.
+ * <br/>
+ * Every Change is written as a one byte type tag followed by its fields.
+ * {@link Data} values are written as a one byte type tag followed by their
+ * value in binary form (not their {@link Data#serializeToString()} form).
+ * All Change and Data types defined in this library are supported.
+ * {@link Query} objects can only be encoded if all of their
+ * {@link Constraint} objects are {@link EqualsConstraint} or
+ * {@link RangeConstraint} objects.
+ */
+public final class ChangeCodec {
+	private static final byte TABLE_CREATION = 1;
+	private static final byte TABLE_DELETION = 2;
+	private static final byte COLUMN_INSERTION = 3;
+	private static final byte COLUMN_DELETION = 4;
+	private static final byte ROW_INSERTION = 5;
+	private static final byte ENTRY_EDIT = 6;
+	private static final byte BULK_ROW_INSERTION = 7;
+	private static final byte BULK_ROW_EDIT = 8;
+	private static final byte BULK_ROW_DELETION = 9;
+	
+	private static final byte NULL_DATA = 0;
+	private static final byte INTEGER_DATA = 1;
+	private static final byte REAL_DATA = 2;
+	private static final byte TEXT_DATA = 3;
+	private static final byte BOOLEAN_DATA = 4;
+	private static final byte BLOB_DATA = 5;
+	
+	private static final byte EQUALS_CONSTRAINT = 1;
+	private static final byte RANGE_CONSTRAINT = 2;
+	
+	/**
+	 * ChangeCodec only has static methods and cannot be constructed.
+	 */
+	private ChangeCodec(){
+	}
+	
+	/**
+	 * Writes every {@link Change} in a {@link Transaction}.
+	 * @param out The {@link DataOutput} to which the Transaction is written.
+	 * @param transaction The Transaction to be written.
+	 * @throws IOException If writing fails or if the Transaction contains
+	 * a Change, Data value or Constraint that cannot be encoded.
+	 */
+	public static void writeTransaction(DataOutput out, Transaction transaction) throws IOException{
+		List<Change> changes = transaction.getChanges();
+		out.writeInt(changes.size());
+		for(Change change : changes){
+			writeChange(out, change);
+		}
+	}
+	
+	/**
+	 * Reads a {@link Transaction} written by {@link #writeTransaction(DataOutput, Transaction)}.
+	 * @param in The {@link DataInput} from which the Transaction is read.
+	 * @return The decoded Transaction.
+	 * @throws IOException If reading fails or if the data is not a valid
+	 * encoded Transaction.
+	 */
+	public static Transaction readTransaction(DataInput in) throws IOException{
+		int count = readCount(in);
+		Transaction transaction = new Transaction();
+		for(int i = 0; i < count; i++){
+			transaction.add(readChange(in));
+		}
+		return transaction;
+	}
+	
+	/**
+	 * Writes a single {@link Change}.
+	 * @param out The {@link DataOutput} to which the Change is written.
+	 * @param change The Change to be written.
+	 * @throws IOException If writing fails or if the Change cannot be encoded.
+	 */
+	public static void writeChange(DataOutput out, Change change) throws IOException{
+		if(change instanceof TableCreationChange){
+			TableCreationChange tableCreation = (TableCreationChange) change;
+			out.writeByte(TABLE_CREATION);
+			writeString(out, tableCreation.getTargetTableName());
+			writeColumn(out, tableCreation.getPrimaryKeyColumn());
+			out.writeInt(tableCreation.getNewColumns().size());
+			for(Column col : tableCreation.getNewColumns()){
+				writeColumn(out, col);
+			}
+		}
+		else if(change instanceof TableDeletionChange){
+			out.writeByte(TABLE_DELETION);
+			writeString(out, change.getTargetTableName());
+		}
+		else if(change instanceof ColumnInsertionChange){
+			out.writeByte(COLUMN_INSERTION);
+			writeColumn(out, ((ColumnInsertionChange) change).getNewColumn());
+		}
+		else if(change instanceof ColumnDeletionChange){
+			out.writeByte(COLUMN_DELETION);
+			writeString(out, ((ColumnDeletionChange) change).getTargetColumnReference().toString());
+		}
+		else if(change instanceof RowInsertionChange){
+			RowInsertionChange insertion = (RowInsertionChange) change;
+			out.writeByte(ROW_INSERTION);
+			writeValues(out, insertion.getValues());
+			out.writeBoolean(insertion.isInsertIfAbsent());
+		}
+		else if(change instanceof EntryEditChange){
+			EntryEditChange entryEdit = (EntryEditChange) change;
+			out.writeByte(ENTRY_EDIT);
+			writeString(out, entryEdit.getTargetEntryReference().toString());
+			writeData(out, entryEdit.getNewValue());
+			out.writeLong(entryEdit.getExpectedRowVersion());
+		}
+		else if(change instanceof BulkRowInsertionChange){
+			BulkRowInsertionChange bulkInsertion = (BulkRowInsertionChange) change;
+			out.writeByte(BULK_ROW_INSERTION);
+			writeString(out, bulkInsertion.getTargetTableName());
+			out.writeInt(bulkInsertion.getColumnCount());
+			out.writeInt(bulkInsertion.getRowCount());
+			for(int col = 0; col < bulkInsertion.getColumnCount(); col++){
+				writeString(out, bulkInsertion.getColumnReferences().get(col).toString());
+				for(Data value : bulkInsertion.getColumnValues(col)){
+					writeData(out, value);
+				}
+			}
+		}
+		else if(change instanceof BulkRowEditChange){
+			BulkRowEditChange bulkEdit = (BulkRowEditChange) change;
+			out.writeByte(BULK_ROW_EDIT);
+			writeQuery(out, bulkEdit.getQuery());
+			writeValues(out, bulkEdit.getNewValues());
+		}
+		else if(change instanceof BulkRowDeletionChange){
+			out.writeByte(BULK_ROW_DELETION);
+			writeQuery(out, ((BulkRowDeletionChange) change).getQuery());
+		}
+		else{
+			throw new IOException("Cannot encode change of type "+change.getClass().getName()+".");
+		}
+	}
+	
+	/**
+	 * Reads a single {@link Change} written by {@link #writeChange(DataOutput, Change)}.
+	 * @param in The {@link DataInput} from which the Change is read.
+	 * @return The decoded Change.
+	 * @throws IOException If reading fails or if the data is not a valid encoded Change.
+	 */
+	public static Change readChange(DataInput in) throws IOException{
+		byte tag = in.readByte();
+		try{
+			switch(tag){
+			case TABLE_CREATION:
+				TableReference newTable = new TableReference(readString(in));
+				Column primaryKeyColumn = readColumn(in);
+				int columnCount = readCount(in);
+				Set<Column> columns = new HashSet<Column>();
+				for(int i = 0; i < columnCount; i++){
+					columns.add(readColumn(in));
+				}
+				return new TableCreationChange(newTable, columns, primaryKeyColumn);
+			case TABLE_DELETION:
+				return new TableDeletionChange(readString(in));
+			case COLUMN_INSERTION:
+				return new ColumnInsertionChange(readColumn(in));
+			case COLUMN_DELETION:
+				return new ColumnDeletionChange(readString(in));
+			case ROW_INSERTION:
+				return new RowInsertionChange(readValues(in), in.readBoolean());
+			case ENTRY_EDIT:
+				EntryReference entry = new EntryReference(readString(in));
+				Data newValue = readData(in);
+				return new EntryEditChange(entry, newValue, in.readLong());
+			case BULK_ROW_INSERTION:
+				TableReference bulkTable = new TableReference(readString(in));
+				int bulkColumns = readCount(in);
+				int bulkRows = readCount(in);
+				List<ColumnReference> columnRefs = new ArrayList<ColumnReference>(bulkColumns);
+				List<List<Data>> columnValues = new ArrayList<List<Data>>(bulkColumns);
+				for(int col = 0; col < bulkColumns; col++){
+					columnRefs.add(new ColumnReference(readString(in)));
+					List<Data> values = new ArrayList<Data>(bulkRows);
+					for(int row = 0; row < bulkRows; row++){
+						values.add(readData(in));
+					}
+					columnValues.add(values);
+				}
+				return new BulkRowInsertionChange(bulkTable, columnRefs, columnValues);
+			case BULK_ROW_EDIT:
+				Query editQuery = readQuery(in);
+				return new BulkRowEditChange(editQuery, readValues(in));
+			case BULK_ROW_DELETION:
+				return new BulkRowDeletionChange(readQuery(in));
+			default:
+				throw new IOException("Unknown change type "+tag+".");
+			}
+		}catch(InvalidReferenceException e){
+			throw new IOException("Invalid reference in encoded change.", e);
+		}catch(InvalidSchemaException e){
+			throw new IOException("Invalid schema in encoded change.", e);
+		}catch(InvalidTargetException e){
+			throw new IOException("Invalid target in encoded change.", e);
+		}
+	}
+	
+	/**
+	 * Writes a single {@link Data} value, which may be {@code null}.
+	 * @param out The {@link DataOutput} to which the value is written.
+	 * @param value The Data value to be written.
+	 * @throws IOException If writing fails or if the value is of an unknown type.
+	 */
+	public static void writeData(DataOutput out, Data value) throws IOException{
+		if(value == null){
+			out.writeByte(NULL_DATA);
+		}
+		else if(value instanceof Integer){
+			out.writeByte(INTEGER_DATA);
+			out.writeLong(((Integer) value).longValue());
+		}
+		else if(value instanceof Real){
+			out.writeByte(REAL_DATA);
+			out.writeDouble(((Real) value).doubleValue());
+		}
+		else if(value instanceof Text){
+			out.writeByte(TEXT_DATA);
+			writeString(out, ((Text) value).getValue());
+		}
+		else if(value instanceof Boolean){
+			out.writeByte(BOOLEAN_DATA);
+			out.writeBoolean(((Boolean) value).getValue());
+		}
+		else if(value instanceof Blob){
+			out.writeByte(BLOB_DATA);
+			try{
+				java.sql.Blob blob = ((Blob) value).getValue();
+				byte[] bytes = blob.getBytes(1, (int) blob.length());
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}catch(SQLException e){
+				throw new IOException("Cannot read blob value.", e);
+			}
+		}
+		else{
+			throw new IOException("Cannot encode data of type "+value.getClass().getName()+".");
+		}
+	}
+	
+	/**
+	 * Reads a single {@link Data} value written by {@link #writeData(DataOutput, Data)}.
+	 * @param in The {@link DataInput} from which the value is read.
+	 * @return The decoded Data value, which may be {@code null}.
+	 * @throws IOException If reading fails or if the data is not a valid encoded value.
+	 */
+	public static Data readData(DataInput in) throws IOException{
+		byte tag = in.readByte();
+		switch(tag){
+		case NULL_DATA:
+			return null;
+		case INTEGER_DATA:
+			return new Integer(in.readLong());
+		case REAL_DATA:
+			return new Real(in.readDouble());
+		case TEXT_DATA:
+			return new Text(readString(in));
+		case BOOLEAN_DATA:
+			return new Boolean(in.readBoolean());
+		case BLOB_DATA:
+			byte[] bytes = new byte[readCount(in)];
+			in.readFully(bytes);
+			try{
+				return new Blob(new SerialBlob(bytes));
+			}catch(SQLException e){
+				throw new IOException("Cannot create blob value.", e);
+			}
+		default:
+			throw new IOException("Unknown data type "+tag+".");
+		}
+	}
+	
+	/**
+	 * Returns the type tag used for a {@link Data} type.
+	 * @param type The {@link Class} of the Data type.
+	 * @return The type tag of {@code type}.
+	 * @throws IOException If {@code type} is not a known Data type.
+	 */
+	static byte getTypeTag(Class<? extends Data> type) throws IOException{
+		if(type.equals(Integer.class)){
+			return INTEGER_DATA;
+		}
+		if(type.equals(Real.class)){
+			return REAL_DATA;
+		}
+		if(type.equals(Text.class)){
+			return TEXT_DATA;
+		}
+		if(type.equals(Boolean.class)){
+			return BOOLEAN_DATA;
+		}
+		if(type.equals(Blob.class)){
+			return BLOB_DATA;
+		}
+		throw new IOException("Cannot encode column type "+type.getName()+".");
+	}
+	
+	/**
+	 * Returns the {@link Data} type for a type tag.
+	 * @param tag The type tag.
+	 * @return The {@link Class} of the Data type named by {@code tag}.
+	 * @throws IOException If {@code tag} is not a known type tag.
+	 */
+	static Class<? extends Data> getType(byte tag) throws IOException{
+		switch(tag){
+		case INTEGER_DATA:
+			return Integer.class;
+		case REAL_DATA:
+			return Real.class;
+		case TEXT_DATA:
+			return Text.class;
+		case BOOLEAN_DATA:
+			return Boolean.class;
+		case BLOB_DATA:
+			return Blob.class;
+		default:
+			throw new IOException("Unknown column type "+tag+".");
+		}
+	}
+	
+	/**
+	 * Writes a {@link Column} as its column reference and type.
+	 * @param out The {@link DataOutput} to which the Column is written.
+	 * @param column The Column to be written.
+	 * @throws IOException If writing fails or if the Column type is unknown.
+	 */
+	static void writeColumn(DataOutput out, Column column) throws IOException{
+		writeString(out, column.getReference().toString());
+		out.writeByte(getTypeTag(column.getType()));
+	}
+	
+	/**
+	 * Reads a {@link Column} written by {@link #writeColumn(DataOutput, Column)}.
+	 * @param in The {@link DataInput} from which the Column is read.
+	 * @return The decoded Column.
+	 * @throws IOException If reading fails or if the data is not a valid encoded Column.
+	 * @throws InvalidReferenceException If the column reference is not valid.
+	 */
+	static Column readColumn(DataInput in) throws IOException, InvalidReferenceException{
+		ColumnReference reference = new ColumnReference(readString(in));
+		return new Column(reference, getType(in.readByte()));
+	}
+	
+	/**
+	 * Writes a {@link Map} of column references to values.
+	 * @param out The {@link DataOutput} to which the values are written.
+	 * @param values The Map to be written.
+	 * @throws IOException If writing fails or if a value cannot be encoded.
+	 */
+	private static void writeValues(DataOutput out, Map<ColumnReference, Data> values) throws IOException{
+		out.writeInt(values.size());
+		for(Map.Entry<ColumnReference, Data> entry : values.entrySet()){
+			writeString(out, entry.getKey().toString());
+			writeData(out, entry.getValue());
+		}
+	}
+	
+	/**
+	 * Reads a {@link Map} written by {@link #writeValues(DataOutput, Map)}.
+	 * @param in The {@link DataInput} from which the values are read.
+	 * @return The decoded Map.
+	 * @throws IOException If reading fails or if the data is not valid.
+	 * @throws InvalidReferenceException If a column reference is not valid.
+	 */
+	private static Map<ColumnReference, Data> readValues(DataInput in) throws IOException, InvalidReferenceException{
+		int count = readCount(in);
+		Map<ColumnReference, Data> values = new HashMap<ColumnReference, Data>();
+		for(int i = 0; i < count; i++){
+			ColumnReference column = new ColumnReference(readString(in));
+			values.put(column, readData(in));
+		}
+		return values;
+	}
+	
+	/**
+	 * Writes a {@link Query} as its table and constraints.
+	 * @param out The {@link DataOutput} to which the Query is written.
+	 * @param query The Query to be written.
+	 * @throws IOException If writing fails or if a Constraint cannot be encoded.
+	 */
+	static void writeQuery(DataOutput out, Query query) throws IOException{
+		writeString(out, query.getTableName());
+		out.writeInt(query.getConstraints().size());
+		for(Constraint constraint : query.getConstraints()){
+			if(constraint instanceof EqualsConstraint){
+				out.writeByte(EQUALS_CONSTRAINT);
+				writeString(out, constraint.getColumnReference().toString());
+				writeData(out, ((EqualsConstraint) constraint).getValue());
+			}
+			else if(constraint instanceof RangeConstraint){
+				RangeConstraint range = (RangeConstraint) constraint;
+				out.writeByte(RANGE_CONSTRAINT);
+				writeString(out, constraint.getColumnReference().toString());
+				writeData(out, range.getLowerBound());
+				out.writeBoolean(range.isLowerInclusive());
+				writeData(out, range.getUpperBound());
+				out.writeBoolean(range.isUpperInclusive());
+			}
+			else{
+				throw new IOException("Cannot encode constraint of type "+constraint.getClass().getName()+".");
+			}
+		}
+	}
+	
+	/**
+	 * Reads a {@link Query} written by {@link #writeQuery(DataOutput, Query)}.
+	 * @param in The {@link DataInput} from which the Query is read.
+	 * @return The decoded Query.
+	 * @throws IOException If reading fails or if the data is not a valid encoded Query.
+	 * @throws InvalidReferenceException If a reference in the Query is not valid.
+	 * @throws InvalidTargetException If a Constraint targets another table.
+	 */
+	static Query readQuery(DataInput in) throws IOException, InvalidReferenceException, InvalidTargetException{
+		Query query = new Query(readString(in));
+		int count = readCount(in);
+		for(int i = 0; i < count; i++){
+			byte tag = in.readByte();
+			if(tag == EQUALS_CONSTRAINT){
+				ColumnReference column = new ColumnReference(readString(in));
+				query = query.constrain(new EqualsConstraint(column, readData(in)));
+			}
+			else if(tag == RANGE_CONSTRAINT){
+				ColumnReference column = new ColumnReference(readString(in));
+				Real lower = readBound(in);
+				boolean lowerInclusive = in.readBoolean();
+				Real upper = readBound(in);
+				boolean upperInclusive = in.readBoolean();
+				query = query.constrain(new RangeConstraint(column, lower, lowerInclusive, upper, upperInclusive));
+			}
+			else{
+				throw new IOException("Unknown constraint type "+tag+".");
+			}
+		}
+		return query;
+	}
+	
+	/**
+	 * Reads a bound of a {@link RangeConstraint}.
+	 * @param in The {@link DataInput} from which the bound is read.
+	 * @return The bound or {@code null} if the range is unbounded.
+	 * @throws IOException If reading fails or if the bound is not numeric.
+	 */
+	private static Real readBound(DataInput in) throws IOException{
+		Data bound = readData(in);
+		if(bound != null && !(bound instanceof Real)){
+			throw new IOException("A range bound must be a Real value.");
+		}
+		return (Real) bound;
+	}
+	
+	/**
+	 * Writes a {@code String} as its length in bytes followed by its UTF-8 bytes.
+	 * Unlike {@link DataOutput#writeUTF(String)} this has no length limit.
+	 * @param out The {@link DataOutput} to which the String is written.
+	 * @param value The String to be written.
+	 * @throws IOException If writing fails.
+	 */
+	static void writeString(DataOutput out, String value) throws IOException{
+		byte[] bytes = value.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	/**
+	 * Reads a {@code String} written by {@link #writeString(DataOutput, String)}.
+	 * @param in The {@link DataInput} from which the String is read.
+	 * @return The decoded String.
+	 * @throws IOException If reading fails.
+	 */
+	static String readString(DataInput in) throws IOException{
+		byte[] bytes = new byte[readCount(in)];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+	
+	/**
+	 * Reads a non-negative count.
+	 * @param in The {@link DataInput} from which the count is read.
+	 * @return The count.
+	 * @throws IOException If reading fails or if the count is negative.
+	 */
+	private static int readCount(DataInput in) throws IOException{
+		int count = in.readInt();
+		if(count < 0){
+			throw new IOException("Invalid count "+count+".");
+		}
+		return count;
+	}
+}
@@ -0,0 +1,522 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import javax.sql.rowset.serial.SerialBlob;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.InvalidSchemaException;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.NoSuchColumnException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.InvalidReferenceException;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Blob;
+import com.edinarobotics.scouting.definitions.database.types.Boolean;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+/**
+ * A Checkpoint is a file containing every table of a {@link MultiVersionStore}
+ * as of a {@link Snapshot}, together with the sequence number of the last
+ * {@link WriteAheadLog} record included in it.
+ * <br/>
+ * {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * implementations should call {@link #checkpoint(File, MultiVersionStore, Snapshot, long, WriteAheadLog)}
+ * periodically (for example every few thousand transactions or between matches).
+ * Log segments behind the checkpoint are then deleted. On startup,
+ * {@link #recover(File, MultiVersionStore, WriteAheadLog, LogReplayHandler)} maps the
+ * checkpoint file into memory, restores its tables and replays only the log records
+ * written after it.
+ * <br/>
+ * Checkpoint files are written and read through a {@link MappedFile}, which maps
+ * them in chunks with {@code long} offsets, so a checkpoint is not limited to the
+ * 2 GiB of a single mapping. The mapping only avoids copying the file through
+ * system calls: {@link MultiVersionStore} keeps its rows on the heap, so
+ * {@link #restore(MultiVersionStore)} decodes every row of the checkpoint onto
+ * the heap.
+ * <h3>Format</h3>
+ * Tables are stored column by column. Each column is a contiguous block of values,
+ * so a column can be read with sequential access to the mapped file. The commit
+ * version of the Snapshot and the version of every row (see {@link Row#getVersion()})
+ * are stored as well and restored unchanged, so row versions read before a restart
+ * remain valid for version-checked changes replayed from the log. The file ends
+ * with a CRC-32 checksum of its contents. Checkpoints are written to a temporary
+ * file and atomically moved over the previous checkpoint, so a crash while
+ * checkpointing leaves the previous checkpoint in place. The directory is synced
+ * after the move, so the new checkpoint survives a crash once
+ * {@link #write(File, MultiVersionStore, Snapshot, long)} returns.
+ * <br/>
+ * Table schemas are not versioned by MultiVersionStore. Schema changes must not run
+ * while a checkpoint is being written.
+ */
+public final class Checkpoint implements Closeable {
+	private static final int MAGIC = 0x53434b50;
+	private static final int FORMAT_VERSION = 2;
+	private static final int HEADER_SIZE = 24;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private final File file;
+	private final MappedFile mapped;
+	private final long length;
+	private final long logSequence;
+	private final long commitVersion;
+	
+	/**
+	 * Checks an existing, mapped checkpoint file.
+	 * Checkpoints are opened by {@link #open(File)}.
+	 * @param file The checkpoint file.
+	 * @param mapped The mapped contents of the file.
+	 * @throws IOException If the file is not a valid checkpoint.
+	 */
+	private Checkpoint(File file, MappedFile mapped) throws IOException{
+		this.file = file;
+		this.mapped = mapped;
+		this.length = mapped.getCapacity();
+		DataInputStream header = new DataInputStream(new MappedInputStream(mapped, 0, Math.min(length, HEADER_SIZE)));
+		if(length < HEADER_SIZE + 12 || header.readInt() != MAGIC){
+			throw new IOException(file+" is not a checkpoint file.");
+		}
+		int formatVersion = header.readInt();
+		if(formatVersion != FORMAT_VERSION){
+			throw new IOException("Checkpoint "+file+" has unsupported format version "+formatVersion+".");
+		}
+		long bodyLength = length - 8;
+		if(ByteBuffer.wrap(mapped.getBytes(bodyLength, 8)).getLong() != checksum(mapped, bodyLength)){
+			throw new IOException("Checkpoint "+file+" is damaged.");
+		}
+		this.logSequence = header.readLong();
+		this.commitVersion = header.readLong();
+	}
+	
+	/**
+	 * Opens an existing checkpoint file by mapping it into memory.
+	 * The Checkpoint must be closed to release the file.
+	 * @param file The checkpoint file.
+	 * @return The opened Checkpoint.
+	 * @throws IOException If the file cannot be mapped or is not a valid checkpoint.
+	 */
+	public static Checkpoint open(File file) throws IOException{
+		MappedFile mapped = new MappedFile(file);
+		try{
+			return new Checkpoint(file, mapped);
+		}catch(IOException e){
+			mapped.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Closes the checkpoint file. The mapped contents are released when they
+	 * are garbage-collected.
+	 * @throws IOException If the file cannot be closed.
+	 */
+	public void close() throws IOException{
+		mapped.close();
+	}
+	
+	/**
+	 * Returns the checkpoint file.
+	 * @return The File from which this Checkpoint was opened.
+	 */
+	public File getFile(){
+		return file;
+	}
+	
+	/**
+	 * Returns the sequence number of the last {@link WriteAheadLog} record whose
+	 * effects are included in this Checkpoint.
+	 * @return The log sequence number of this Checkpoint.
+	 */
+	public long getLogSequence(){
+		return logSequence;
+	}
+	
+	/**
+	 * Returns the commit version of the {@link Snapshot} from which this Checkpoint
+	 * was written.
+	 * @return The commit version restored by {@link #restore(MultiVersionStore)}.
+	 * @see MultiVersionStore#getCommittedVersion()
+	 */
+	public long getCommitVersion(){
+		return commitVersion;
+	}
+	
+	/**
+	 * Creates every table of this Checkpoint in {@code store} and restores its rows.
+	 * Every row keeps the version it had when the checkpoint was written and the
+	 * committed version of {@code store} is set to {@link #getCommitVersion()}, so
+	 * later writes get the same versions they would have had without the restart.
+	 * The rows are decoded onto the heap, where {@code store} keeps them.
+	 * @param store The empty MultiVersionStore to be filled.
+	 * @throws IOException If the checkpoint contents cannot be decoded.
+	 * @throws InvalidSchemaException If a table of this Checkpoint already exists in {@code store}.
+	 */
+	public void restore(MultiVersionStore store) throws IOException, InvalidSchemaException{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new MappedInputStream(mapped, HEADER_SIZE, length - 8), BUFFER_SIZE));
+		Map<TableReference, List<Row>> restored = new HashMap<TableReference, List<Row>>();
+		try{
+			int tableCount = in.readInt();
+			for(int t = 0; t < tableCount; t++){
+				TableReference tableRef = new TableReference(ChangeCodec.readString(in));
+				int columnCount = in.readInt();
+				List<Column> columns = new ArrayList<Column>(columnCount);
+				for(int c = 0; c < columnCount; c++){
+					ColumnReference columnRef = new ColumnReference(ChangeCodec.readString(in));
+					columns.add(new Column(columnRef, ChangeCodec.getType(in.readByte())));
+				}
+				Column primaryKeyColumn = columns.get(in.readInt());
+				int rowCount = in.readInt();
+				long[] versions = new long[rowCount];
+				for(int r = 0; r < rowCount; r++){
+					versions[r] = in.readLong();
+					if(versions[r] > commitVersion){
+						throw new IOException("Row version "+versions[r]+" in checkpoint is newer than its commit version.");
+					}
+				}
+				List<Map<Column, Data>> rows = new ArrayList<Map<Column, Data>>(rowCount);
+				for(int r = 0; r < rowCount; r++){
+					rows.add(new HashMap<Column, Data>());
+				}
+				for(Column column : columns){
+					for(int r = 0; r < rowCount; r++){
+						rows.get(r).put(column, readValue(in, column.getType()));
+					}
+				}
+				store.createTable(tableRef, new HashSet<Column>(columns), primaryKeyColumn);
+				List<Row> tableRows = new ArrayList<Row>(rowCount);
+				for(int r = 0; r < rowCount; r++){
+					tableRows.add(new Row(rows.get(r), primaryKeyColumn, versions[r]));
+				}
+				restored.put(tableRef, tableRows);
+			}
+			store.restore(restored, commitVersion);
+		}catch(InvalidReferenceException e){
+			throw new IOException("Invalid reference in checkpoint.", e);
+		}catch(NoSuchColumnException e){
+			throw new IOException("Invalid row in checkpoint.", e);
+		}catch(InvalidTargetException e){
+			throw new IOException("Invalid table in checkpoint.", e);
+		}
+	}
+	
+	/**
+	 * Writes a new checkpoint file containing every table of {@code store}
+	 * as seen by {@code snapshot}. The file is written through a mapping, forced
+	 * to disk and moved over {@code file}, and the directory is synced.
+	 * @param file The checkpoint file. An existing checkpoint is replaced only
+	 * once the new one is completely written.
+	 * @param store The MultiVersionStore to be written.
+	 * @param snapshot The {@link Snapshot} through which the rows are read.
+	 * @param logSequence The sequence number of the last {@link WriteAheadLog} record
+	 * whose effects are visible to {@code snapshot}.
+	 * @throws IOException If the checkpoint cannot be written or a value cannot be encoded.
+	 */
+	public static void write(File file, MultiVersionStore store, Snapshot snapshot, long logSequence) throws IOException{
+		File temporary = new File(file.getPath()+".tmp");
+		if(temporary.exists() && !temporary.delete()){
+			throw new IOException("Cannot delete the old temporary checkpoint "+temporary+".");
+		}
+		MappedFile mapped = new MappedFile(temporary);
+		MappedOutputStream mappedOut = new MappedOutputStream(mapped);
+		CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(mappedOut, BUFFER_SIZE), new CRC32());
+		DataOutputStream out = new DataOutputStream(checked);
+		try{
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(logSequence);
+			out.writeLong(snapshot.getVersion());
+			List<MultiVersionTable> tables = new ArrayList<MultiVersionTable>();
+			for(TableReference tableRef : store.getTableReferences()){
+				MultiVersionTable table = store.getTable(tableRef);
+				if(table != null){
+					tables.add(table);
+				}
+			}
+			out.writeInt(tables.size());
+			for(MultiVersionTable table : tables){
+				writeTable(out, table, snapshot);
+			}
+			out.flush();
+			out.writeLong(checked.getChecksum().getValue());
+			out.flush();
+		}finally{
+			//Forces the mapped chunks to disk.
+			mapped.close();
+		}
+		//The mapped file grows in whole chunks, so it is cut to the written length.
+		RandomAccessFile access = new RandomAccessFile(temporary, "rw");
+		try{
+			access.setLength(mappedOut.getPosition());
+			access.getFD().sync();
+		}finally{
+			access.close();
+		}
+		try{
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}catch(IOException e){
+			throw new IOException("Cannot replace checkpoint "+file+".", e);
+		}
+		FileSync.syncDirectory(file.getAbsoluteFile().getParentFile());
+	}
+	
+	/**
+	 * Writes a checkpoint and then deletes the {@link WriteAheadLog} segments
+	 * that it makes unnecessary.
+	 * @param file The checkpoint file.
+	 * @param store The MultiVersionStore to be written.
+	 * @param snapshot The {@link Snapshot} through which the rows are read.
+	 * @param logSequence The sequence number of the last log record whose effects
+	 * are visible to {@code snapshot}.
+	 * @param log The WriteAheadLog to be truncated.
+	 * @throws IOException If the checkpoint cannot be written or the log cannot be truncated.
+	 * @see #write(File, MultiVersionStore, Snapshot, long)
+	 * @see WriteAheadLog#truncateBefore(long)
+	 */
+	public static void checkpoint(File file, MultiVersionStore store, Snapshot snapshot, long logSequence, WriteAheadLog log) throws IOException{
+		write(file, store, snapshot, logSequence);
+		log.truncateBefore(logSequence + 1);
+	}
+	
+	/**
+	 * Restores {@code store} from the checkpoint in {@code file}, if it exists, and
+	 * replays the {@link WriteAheadLog} records written after the checkpoint.
+	 * @param file The checkpoint file.
+	 * @param store The empty MultiVersionStore to be filled.
+	 * @param log The WriteAheadLog to be replayed.
+	 * @param handler The {@link LogReplayHandler} applying each replayed Transaction to {@code store}.
+	 * @return The sequence number of the last recovered log record.
+	 * @throws IOException If the checkpoint or log cannot be read or replay fails.
+	 * @throws InvalidSchemaException If {@code store} already contains a table of the checkpoint.
+	 */
+	public static long recover(File file, MultiVersionStore store, WriteAheadLog log, LogReplayHandler handler) throws IOException, InvalidSchemaException{
+		long fromSequence = 1;
+		if(file.exists()){
+			Checkpoint checkpoint = open(file);
+			try{
+				checkpoint.restore(store);
+				fromSequence = checkpoint.getLogSequence() + 1;
+			}finally{
+				checkpoint.close();
+			}
+		}
+		return log.replay(fromSequence, handler);
+	}
+	
+	/**
+	 * Writes a single table column by column.
+	 * @param out The stream to which the table is written.
+	 * @param table The MultiVersionTable to be written.
+	 * @param snapshot The Snapshot through which the rows are read.
+	 * @throws IOException If writing fails.
+	 */
+	private static void writeTable(DataOutputStream out, MultiVersionTable table, Snapshot snapshot) throws IOException{
+		List<Column> columns = new ArrayList<Column>(table.getColumns());
+		List<Row> rows = new ArrayList<Row>(table.getRows(snapshot));
+		ChangeCodec.writeString(out, table.getTableReference().getTableName());
+		out.writeInt(columns.size());
+		for(Column column : columns){
+			ChangeCodec.writeColumn(out, column);
+		}
+		out.writeInt(columns.indexOf(table.getPrimaryKeyColumn()));
+		out.writeInt(rows.size());
+		for(Row row : rows){
+			out.writeLong(row.getVersion());
+		}
+		for(Column column : columns){
+			for(Row row : rows){
+				writeValue(out, row.getValues().get(column));
+			}
+		}
+	}
+	
+	/**
+	 * Writes a single value of a column block. Values are preceded by a presence
+	 * flag; the type is known from the column.
+	 * @param out The stream to which the value is written.
+	 * @param value The {@link Data} value, which may be {@code null}.
+	 * @throws IOException If writing fails or the value cannot be encoded.
+	 */
+	private static void writeValue(DataOutputStream out, Data value) throws IOException{
+		if(value == null){
+			out.writeBoolean(false);
+			return;
+		}
+		out.writeBoolean(true);
+		if(value instanceof Integer){
+			out.writeLong(((Integer) value).longValue());
+		}
+		else if(value instanceof Real){
+			out.writeDouble(((Real) value).doubleValue());
+		}
+		else if(value instanceof Boolean){
+			out.writeBoolean(((Boolean) value).getValue());
+		}
+		else if(value instanceof Text){
+			ChangeCodec.writeString(out, ((Text) value).getValue());
+		}
+		else if(value instanceof Blob){
+			try{
+				java.sql.Blob blob = ((Blob) value).getValue();
+				byte[] bytes = blob.getBytes(1, (int) blob.length());
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}catch(SQLException e){
+				throw new IOException("Cannot read blob value.", e);
+			}
+		}
+		else{
+			throw new IOException("Cannot encode data of type "+value.getClass().getName()+".");
+		}
+	}
+	
+	/**
+	 * Reads a single value written by {@link #writeValue(DataOutputStream, Data)}.
+	 * @param in The mapped contents, positioned at the value.
+	 * @param type The {@link Data} type of the column.
+	 * @return The decoded value, which may be {@code null}.
+	 * @throws IOException If the value cannot be decoded.
+	 */
+	private static Data readValue(DataInput in, Class<? extends Data> type) throws IOException{
+		if(in.readByte() == 0){
+			return null;
+		}
+		if(type.equals(Integer.class)){
+			return new Integer(in.readLong());
+		}
+		if(type.equals(Real.class)){
+			return new Real(in.readDouble());
+		}
+		if(type.equals(Boolean.class)){
+			return new Boolean(in.readByte() != 0);
+		}
+		if(type.equals(Text.class)){
+			return new Text(ChangeCodec.readString(in));
+		}
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		try{
+			return new Blob(new SerialBlob(bytes));
+		}catch(SQLException e){
+			throw new IOException("Cannot create blob value.", e);
+		}
+	}
+	
+	/**
+	 * Computes the CRC-32 checksum of the first {@code length} bytes of a mapped file.
+	 * @param mapped The mapped file to be checked.
+	 * @param length The number of bytes to be checked.
+	 * @return The checksum.
+	 */
+	private static long checksum(MappedFile mapped, long length){
+		CRC32 crc = new CRC32();
+		byte[] chunk = new byte[BUFFER_SIZE];
+		long position = 0;
+		while(position < length){
+			int size = (int) Math.min(chunk.length, length - position);
+			mapped.getBytes(position, chunk, 0, size);
+			crc.update(chunk, 0, size);
+			position += size;
+		}
+		return crc.getValue();
+	}
+	
+	/**
+	 * An OutputStream writing sequentially into a {@link MappedFile}, which grows
+	 * as needed.
+	 */
+	private static final class MappedOutputStream extends OutputStream {
+		private final MappedFile mapped;
+		private long position;
+		
+		/**
+		 * Constructs a new MappedOutputStream writing from the start of a file.
+		 * @param mapped The MappedFile to be written.
+		 */
+		MappedOutputStream(MappedFile mapped){
+			this.mapped = mapped;
+			this.position = 0;
+		}
+		
+		/**
+		 * Returns the number of bytes written.
+		 * @return The position of the next byte.
+		 */
+		long getPosition(){
+			return position;
+		}
+		
+		public void write(int b) throws IOException{
+			mapped.putByte(position, (byte) b);
+			position++;
+		}
+		
+		public void write(byte[] bytes, int start, int length) throws IOException{
+			mapped.putBytes(position, bytes, start, length);
+			position += length;
+		}
+	}
+	
+	/**
+	 * An InputStream reading sequentially from a range of a {@link MappedFile}.
+	 */
+	private static final class MappedInputStream extends InputStream {
+		private final MappedFile mapped;
+		private final long end;
+		private long position;
+		
+		/**
+		 * Constructs a new MappedInputStream.
+		 * @param mapped The MappedFile to be read.
+		 * @param start The position of the first byte to be read.
+		 * @param end The position after the last byte to be read.
+		 */
+		MappedInputStream(MappedFile mapped, long start, long end){
+			this.mapped = mapped;
+			this.position = start;
+			this.end = end;
+		}
+		
+		public int read(){
+			if(position >= end){
+				return -1;
+			}
+			return mapped.getByte(position++) & 0xff;
+		}
+		
+		public int read(byte[] bytes, int start, int length){
+			if(length == 0){
+				return 0;
+			}
+			if(position >= end){
+				return -1;
+			}
+			int size = (int) Math.min(length, end - position);
+			mapped.getBytes(position, bytes, start, size);
+			position += size;
+			return size;
+		}
+	}
+}
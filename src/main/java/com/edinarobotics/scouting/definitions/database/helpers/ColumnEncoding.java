@@ -0,0 +1,51 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+/**
+ * These values name the encodings that a {@link CompressedTable} can choose
+ * for a segment of a column. The encoding of every segment is chosen
+ * separately from the values stored in it.
+ * @see CompressedTable#getEncoding(com.edinarobotics.scouting.definitions.database.Column, int)
+ */
+public enum ColumnEncoding {
+	
+	/**
+	 * Values are stored uncompressed. This encoding is used when
+	 * no other encoding is smaller and for
+	 * {@link com.edinarobotics.scouting.definitions.database.types.Blob Blob} columns.
+	 */
+	PLAIN,
+	
+	/**
+	 * Runs of equal values are stored once with the length of the run.
+	 * This suits columns that rarely change, such as mostly-false
+	 * {@link com.edinarobotics.scouting.definitions.database.types.Boolean Boolean} columns.
+	 */
+	RUN_LENGTH,
+	
+	/**
+	 * Each value is stored as its difference from the previous value,
+	 * bit-packed. This suits increasing columns such as match numbers.
+	 */
+	DELTA,
+	
+	/**
+	 * Non-negative values are stored with only as many bits as the
+	 * largest value needs.
+	 */
+	BIT_PACKED,
+	
+	/**
+	 * Values are stored as bit-packed offsets from the smallest value
+	 * in the segment. This suits values that cluster in a small range,
+	 * such as scores.
+	 */
+	FRAME_OF_REFERENCE,
+	
+	/**
+	 * The distinct values of the segment are stored once, in order, and each
+	 * value is stored as a bit-packed index into them. This suits columns with
+	 * few distinct values, such as team numbers and
+	 * {@link com.edinarobotics.scouting.definitions.database.types.Text Text} columns.
+	 */
+	DICTIONARY
+}
@@ -0,0 +1,168 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+
+/**
+ * This class holds the statistics of the values in a single {@link Column}
+ * of a {@link MultiVersionTable}: the number of values and {@code null}
+ * values, an estimate of the number of distinct values and, for numeric
+ * columns, a histogram of the values.
+ * <br/>
+ * The statistics are updated whenever a row is written, so they describe the
+ * newest state of the table rather than any one {@link Snapshot}. The number
+ * of distinct values only decreases when values are removed from every row,
+ * so it may be too high after many deletions.
+ * @see TableStatistics
+ */
+public final class ColumnStatistics {
+	private final Column column;
+	private final DistinctSketch distinctValues;
+	private final Histogram histogram;
+	private long valueCount;
+	private long nullCount;
+	
+	/**
+	 * Constructs empty statistics for a {@link Column}.
+	 * @param column The Column described by these statistics.
+	 */
+	ColumnStatistics(Column column){
+		this.column = column;
+		this.distinctValues = new DistinctSketch();
+		this.histogram = Real.class.isAssignableFrom(column.getType()) ? new Histogram() : null;
+		this.valueCount = 0;
+		this.nullCount = 0;
+	}
+	
+	/**
+	 * Counts a value written to the {@link Column}.
+	 * @param value The written value, which may be {@code null}.
+	 */
+	synchronized void add(Data value){
+		if(value == null){
+			nullCount++;
+			return;
+		}
+		valueCount++;
+		distinctValues.add(value);
+		if(histogram != null && value instanceof Real){
+			histogram.add(((Real) value).doubleValue());
+		}
+	}
+	
+	/**
+	 * Removes a value that was replaced or deleted from the counts.
+	 * @param value The removed value, which may be {@code null}.
+	 */
+	synchronized void remove(Data value){
+		if(value == null){
+			nullCount = Math.max(0, nullCount - 1);
+			return;
+		}
+		valueCount = Math.max(0, valueCount - 1);
+		if(histogram != null && value instanceof Real){
+			histogram.remove(((Real) value).doubleValue());
+		}
+	}
+	
+	/**
+	 * Returns the {@link Column} described by these statistics.
+	 * @return The Column of these statistics.
+	 */
+	public Column getColumn(){
+		return column;
+	}
+	
+	/**
+	 * Returns the number of rows with a non-{@code null} value in the {@link Column}.
+	 * @return The number of values.
+	 */
+	public synchronized long getValueCount(){
+		return valueCount;
+	}
+	
+	/**
+	 * Returns the number of rows with a {@code null} value in the {@link Column}.
+	 * @return The number of {@code null} values.
+	 */
+	public synchronized long getNullCount(){
+		return nullCount;
+	}
+	
+	/**
+	 * Returns the estimated number of distinct non-{@code null} values in the
+	 * {@link Column}. The estimate is never larger than {@link #getValueCount()}.
+	 * @return The estimated number of distinct values.
+	 */
+	public synchronized long getDistinctCount(){
+		if(valueCount == 0){
+			return 0;
+		}
+		return Math.max(1, Math.min(valueCount, distinctValues.estimate()));
+	}
+	
+	/**
+	 * Determines whether or not these statistics include a histogram.
+	 * Histograms are kept for numeric columns only.
+	 * @return {@code true} if ranges of values can be estimated from a
+	 * histogram, {@code false} otherwise.
+	 */
+	public boolean hasHistogram(){
+		return histogram != null;
+	}
+	
+	/**
+	 * Estimates the fraction of rows whose value in the {@link Column} is
+	 * equal to {@code value}. Values are assumed to be equally frequent.
+	 * @param value The value, which may be {@code null}.
+	 * @return The estimated fraction of rows, between {@code 0} and {@code 1}.
+	 */
+	public synchronized double estimateEquals(Data value){
+		long rows = valueCount + nullCount;
+		if(rows == 0){
+			return 0;
+		}
+		if(value == null){
+			return (double) nullCount / rows;
+		}
+		if(valueCount == 0){
+			return 0;
+		}
+		if(histogram != null && value instanceof Real){
+			double number = ((Real) value).doubleValue();
+			if(histogram.estimateFraction(null, number) == 0 || histogram.estimateFraction(number, null) == 0){
+				//The value is outside of the range of the stored values.
+				return 0;
+			}
+		}
+		return (double) valueCount / rows / getDistinctCount();
+	}
+	
+	/**
+	 * Estimates the fraction of rows whose value in the {@link Column} lies
+	 * between two bounds. The estimate is taken from the histogram of the
+	 * Column, if it has one.
+	 * @param lower The lower bound or {@code null} if there is none.
+	 * @param upper The upper bound or {@code null} if there is none.
+	 * @param defaultFraction The fraction returned if the Column has no histogram.
+	 * @return The estimated fraction of rows, between {@code 0} and {@code 1}.
+	 */
+	public synchronized double estimateRange(Real lower, Real upper, double defaultFraction){
+		long rows = valueCount + nullCount;
+		if(rows == 0){
+			return 0;
+		}
+		if(histogram == null){
+			return defaultFraction;
+		}
+		Double from = lower == null ? null : lower.doubleValue();
+		Double to = upper == null ? null : upper.doubleValue();
+		double fraction = histogram.estimateFraction(from, to);
+		if(from != null && from.equals(to)){
+			//A range of a single value selects one distinct value.
+			fraction = Math.max(fraction, 1.0 / getDistinctCount());
+		}
+		return fraction * valueCount / rows;
+	}
+}
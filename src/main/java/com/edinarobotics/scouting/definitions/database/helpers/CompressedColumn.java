@@ -0,0 +1,404 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeSet;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.Constraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.RangeConstraint;
+import com.edinarobotics.scouting.definitions.database.types.Blob;
+import com.edinarobotics.scouting.definitions.database.types.Boolean;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+/**
+ * This class stores the values of a single column of a {@link CompressedTable}
+ * as a list of encoded segments.
+ * <br/>
+ * {@link Integer} and {@link Boolean} values are stored as {@code long} values.
+ * {@link Real} values are stored as {@code long} values whose order matches
+ * the order of the {@code double} values (see {@link #sortableBits(double)}).
+ * {@link Text} values are stored as codes into a sorted dictionary kept for
+ * each segment. {@link Blob} values are not encoded. A bitmap of {@code null}
+ * values is kept for each segment.
+ */
+final class CompressedColumn {
+	private final Column column;
+	private final BitSet[] nulls;
+	private final LongSegment[] values;
+	private final String[][] dictionaries;
+	private final Data[][] blobs;
+	
+	/**
+	 * Encodes the values of a column.
+	 * @param column The {@link Column} being stored.
+	 * @param data The values of the column in row order. Values of the wrong
+	 * type are stored as {@code null}.
+	 * @param segmentSize The number of rows in each segment.
+	 */
+	CompressedColumn(Column column, List<Data> data, int segmentSize){
+		this.column = column;
+		int segments = (data.size() + segmentSize - 1) / segmentSize;
+		this.nulls = new BitSet[segments];
+		this.values = new LongSegment[segments];
+		this.dictionaries = isType(Text.class) ? new String[segments][] : null;
+		this.blobs = isType(Blob.class) ? new Data[segments][] : null;
+		long[] encoded = new long[segmentSize];
+		for(int segment = 0; segment < segments; segment++){
+			int start = segment * segmentSize;
+			List<Data> block = data.subList(start, Math.min(start + segmentSize, data.size()));
+			nulls[segment] = new BitSet(block.size());
+			if(blobs != null){
+				blobs[segment] = block.toArray(new Data[block.size()]);
+				for(int i = 0; i < block.size(); i++){
+					if(!(block.get(i) instanceof Blob)){
+						nulls[segment].set(i);
+						blobs[segment][i] = null;
+					}
+				}
+				continue;
+			}
+			if(dictionaries != null){
+				dictionaries[segment] = buildDictionary(block);
+			}
+			for(int i = 0; i < block.size(); i++){
+				Data value = block.get(i);
+				if(!isStorable(value)){
+					nulls[segment].set(i);
+					encoded[i] = i == 0 ? 0 : encoded[i - 1];
+				}
+				else{
+					encoded[i] = encode(value, segment);
+				}
+			}
+			values[segment] = SegmentEncoder.encode(encoded, block.size());
+		}
+	}
+	
+	/**
+	 * Returns the {@link Column} stored by this CompressedColumn.
+	 * @return The stored Column.
+	 */
+	Column getColumn(){
+		return column;
+	}
+	
+	/**
+	 * Returns the encoding of a segment.
+	 * @param segment The index of the segment.
+	 * @return The {@link ColumnEncoding} of the segment.
+	 */
+	ColumnEncoding getEncoding(int segment){
+		if(blobs != null){
+			return ColumnEncoding.PLAIN;
+		}
+		if(dictionaries != null){
+			return ColumnEncoding.DICTIONARY;
+		}
+		return values[segment].getEncoding();
+	}
+	
+	/**
+	 * Returns the approximate number of bytes used by the encoded values,
+	 * not counting {@link Blob} contents.
+	 * @return The encoded size in bytes.
+	 */
+	long getEncodedBytes(){
+		long size = 0;
+		for(int segment = 0; segment < nulls.length; segment++){
+			size += nulls[segment].size() / 8;
+			if(values[segment] != null){
+				size += values[segment].getEncodedBytes();
+			}
+			if(dictionaries != null){
+				for(String word : dictionaries[segment]){
+					size += word.length() * 2;
+				}
+			}
+			if(blobs != null){
+				size += (long) blobs[segment].length * 8;
+			}
+		}
+		return size;
+	}
+	
+	/**
+	 * Decodes a single value.
+	 * @param segment The index of the segment.
+	 * @param index The index of the value within the segment.
+	 * @return The decoded {@link Data} value or {@code null}.
+	 */
+	Data get(int segment, int index){
+		if(nulls[segment].get(index)){
+			return null;
+		}
+		if(blobs != null){
+			return blobs[segment][index];
+		}
+		long value = values[segment].get(index);
+		if(dictionaries != null){
+			return new Text(dictionaries[segment][(int) value]);
+		}
+		if(isType(Integer.class)){
+			return new Integer(value);
+		}
+		if(isType(Real.class)){
+			return new Real(fromSortableBits(value));
+		}
+		return new Boolean(value != 0);
+	}
+	
+	/**
+	 * Tests a {@link Constraint} against the encoded values of a segment.
+	 * The bit of every candidate that does not satisfy the Constraint is cleared.
+	 * {@link EqualsConstraint} objects are evaluated on every column type except
+	 * {@link Blob}. {@link RangeConstraint} objects are evaluated on
+	 * {@link Integer} and {@link Real} columns.
+	 * @param constraint The Constraint to be tested. It must operate on this column.
+	 * @param segment The index of the segment.
+	 * @param candidates The indexes of the candidate rows within the segment.
+	 * @return {@code true} if the Constraint was evaluated, {@code false} if the
+	 * caller must test the candidate rows itself.
+	 */
+	boolean retain(Constraint constraint, int segment, BitSet candidates){
+		if(blobs != null){
+			return false;
+		}
+		if(constraint instanceof EqualsConstraint){
+			Data value = ((EqualsConstraint) constraint).getValue();
+			if(value == null){
+				candidates.and(nulls[segment]);
+				return true;
+			}
+			candidates.andNot(nulls[segment]);
+			long[] range = equalityRange(value, segment);
+			if(range == null){
+				candidates.clear(0, values[segment].size());
+			}
+			else{
+				values[segment].retainRange(range[0], range[1], candidates);
+			}
+			return true;
+		}
+		if(constraint instanceof RangeConstraint && (isType(Integer.class) || isType(Real.class))){
+			candidates.andNot(nulls[segment]);
+			RangeConstraint range = (RangeConstraint) constraint;
+			long[] bounds = isType(Integer.class) ? integerRange(range) : realRange(range);
+			if(bounds == null || bounds[0] > bounds[1]){
+				candidates.clear(0, values[segment].size());
+			}
+			else{
+				values[segment].retainRange(bounds[0], bounds[1], candidates);
+			}
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Finds the encoded values that are equal to {@code value}
+	 * as defined by the {@code equals} method of {@code value}.
+	 * @param value The required value.
+	 * @param segment The index of the segment.
+	 * @return The smallest and largest matching encoded values or {@code null}
+	 * if no stored value can be equal to {@code value}.
+	 */
+	private long[] equalityRange(Data value, int segment){
+		if(dictionaries != null){
+			if(!(value instanceof Text) || ((Text) value).getValue() == null){
+				return null;
+			}
+			int code = Arrays.binarySearch(dictionaries[segment], ((Text) value).getValue());
+			return code < 0 ? null : new long[]{code, code};
+		}
+		if(isType(Boolean.class)){
+			if(!(value instanceof Boolean)){
+				return null;
+			}
+			long bit = ((Boolean) value).getValue() ? 1 : 0;
+			return new long[]{bit, bit};
+		}
+		if(!(value instanceof Real)){
+			return null;
+		}
+		double number = ((Real) value).doubleValue();
+		if(isType(Integer.class)){
+			if(value instanceof Integer){
+				long exact = ((Integer) value).longValue();
+				return new long[]{exact, exact};
+			}
+			if(number != Math.floor(number) || Double.isInfinite(number)){
+				return null;
+			}
+			return new long[]{(long) number, (long) number};
+		}
+		if(Double.isNaN(number)){
+			return null;
+		}
+		if(number == 0){
+			return new long[]{sortableBits(-0.0), sortableBits(0.0)};
+		}
+		return new long[]{sortableBits(number), sortableBits(number)};
+	}
+	
+	/**
+	 * Converts the bounds of a {@link RangeConstraint} to inclusive bounds on
+	 * the values of an {@link Integer} column.
+	 * @param range The RangeConstraint.
+	 * @return The smallest and largest accepted values or {@code null} if no
+	 * value is accepted.
+	 */
+	private static long[] integerRange(RangeConstraint range){
+		long min = Long.MIN_VALUE;
+		long max = Long.MAX_VALUE;
+		if(range.getLowerBound() != null){
+			double lower = range.getLowerBound().doubleValue();
+			if(Double.isNaN(lower)){
+				return null;
+			}
+			min = range.isLowerInclusive() ? (long) Math.ceil(lower) : (long) Math.floor(lower) + 1;
+			if(!range.isLowerInclusive() && lower >= Long.MAX_VALUE){
+				return null;
+			}
+		}
+		if(range.getUpperBound() != null){
+			double upper = range.getUpperBound().doubleValue();
+			if(Double.isNaN(upper)){
+				return null;
+			}
+			max = range.isUpperInclusive() ? (long) Math.floor(upper) : (long) Math.ceil(upper) - 1;
+			if(!range.isUpperInclusive() && upper <= Long.MIN_VALUE){
+				return null;
+			}
+		}
+		return new long[]{min, max};
+	}
+	
+	/**
+	 * Converts the bounds of a {@link RangeConstraint} to inclusive bounds on
+	 * the encoded values of a {@link Real} column.
+	 * @param range The RangeConstraint.
+	 * @return The smallest and largest accepted encoded values or {@code null}
+	 * if no value is accepted.
+	 */
+	private static long[] realRange(RangeConstraint range){
+		long min = sortableBits(Double.NEGATIVE_INFINITY);
+		long max = sortableBits(Double.POSITIVE_INFINITY);
+		if(range.getLowerBound() != null){
+			double lower = range.getLowerBound().doubleValue();
+			if(Double.isNaN(lower)){
+				return null;
+			}
+			//-0.0 and 0.0 are equal, so a bound of zero must include or exclude both.
+			if(lower == 0){
+				min = range.isLowerInclusive() ? sortableBits(-0.0) : sortableBits(0.0) + 1;
+			}
+			else{
+				min = range.isLowerInclusive() ? sortableBits(lower) : sortableBits(lower) + 1;
+			}
+		}
+		if(range.getUpperBound() != null){
+			double upper = range.getUpperBound().doubleValue();
+			if(Double.isNaN(upper)){
+				return null;
+			}
+			if(upper == 0){
+				max = range.isUpperInclusive() ? sortableBits(0.0) : sortableBits(-0.0) - 1;
+			}
+			else{
+				max = range.isUpperInclusive() ? sortableBits(upper) : sortableBits(upper) - 1;
+			}
+		}
+		return new long[]{min, max};
+	}
+	
+	/**
+	 * Converts a {@code double} value to a {@code long} value such that
+	 * comparing the converted values as signed numbers orders them like the
+	 * {@code double} values. {@code NaN} values sort beyond the infinities.
+	 * @param value The {@code double} value.
+	 * @return The sortable {@code long} value.
+	 */
+	static long sortableBits(double value){
+		long bits = Double.doubleToRawLongBits(value);
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Reverses {@link #sortableBits(double)}.
+	 * @param bits The sortable {@code long} value.
+	 * @return The original {@code double} value.
+	 */
+	static double fromSortableBits(long bits){
+		return Double.longBitsToDouble(bits ^ ((bits >> 63) & Long.MAX_VALUE));
+	}
+	
+	/**
+	 * Builds the sorted dictionary of the {@link Text} values of a segment.
+	 * @param block The values of the segment.
+	 * @return The distinct {@code String} values in ascending order.
+	 */
+	private static String[] buildDictionary(List<Data> block){
+		TreeSet<String> words = new TreeSet<String>();
+		for(Data value : block){
+			if(value instanceof Text && ((Text) value).getValue() != null){
+				words.add(((Text) value).getValue());
+			}
+		}
+		return new ArrayList<String>(words).toArray(new String[words.size()]);
+	}
+	
+	/**
+	 * Converts a non-null value to its encoded {@code long} value.
+	 * @param value The value, which must be storable in this column.
+	 * @param segment The index of the segment being built.
+	 * @return The encoded value.
+	 */
+	private long encode(Data value, int segment){
+		if(dictionaries != null){
+			return Arrays.binarySearch(dictionaries[segment], ((Text) value).getValue());
+		}
+		if(isType(Integer.class)){
+			return ((Integer) value).longValue();
+		}
+		if(isType(Real.class)){
+			return sortableBits(((Real) value).doubleValue());
+		}
+		return ((Boolean) value).getValue() ? 1 : 0;
+	}
+	
+	/**
+	 * Indicates whether a value can be stored in this column.
+	 * @param value The value.
+	 * @return {@code true} if {@code value} has a type that this column stores.
+	 */
+	private boolean isStorable(Data value){
+		if(value == null){
+			return false;
+		}
+		if(dictionaries != null){
+			return value instanceof Text && ((Text) value).getValue() != null;
+		}
+		if(isType(Integer.class)){
+			return value instanceof Integer;
+		}
+		if(isType(Real.class)){
+			return value instanceof Real;
+		}
+		return value instanceof Boolean;
+	}
+	
+	/**
+	 * Indicates whether this column stores values of a type.
+	 * @param type The {@link Data} type.
+	 * @return {@code true} if the type of this column is {@code type}.
+	 */
+	private boolean isType(Class<? extends Data> type){
+		return column.getType().equals(type);
+	}
+}
@@ -0,0 +1,312 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.InvalidSchemaException;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.NoSuchColumnException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.Constraint;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+
+/**
+ * A CompressedTable is an immutable, column-oriented copy of a table in which
+ * every column is split into segments of {@link #SEGMENT_SIZE} rows and every
+ * segment is encoded separately. The encoding of each segment is chosen from
+ * the values in it (see {@link ColumnEncoding}): mostly-false booleans become
+ * runs, increasing match numbers become deltas, clustered scores become small
+ * offsets from a base value and team numbers or text become dictionary codes.
+ * <br/>
+ * {@link #executeQuery(Query)} evaluates {@link Constraint} objects on the
+ * encoded values wherever the encoding allows it and only decodes the rows
+ * that satisfy them.
+ * {@link com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint EqualsConstraint}
+ * and {@link com.edinarobotics.scouting.definitions.database.queries.constraints.RangeConstraint RangeConstraint}
+ * objects are evaluated this way. Other constraints are tested against the
+ * decoded rows.
+ * <br/>
+ * Rows are stored in primary key order, so {@link #getRow(long)} is a binary search.
+ * Database implementations build CompressedTable objects from tables that are no
+ * longer being written, such as the tables of past events, with
+ * {@link #build(MultiVersionTable, Snapshot)}.
+ */
+public final class CompressedTable {
+	/**
+	 * The number of rows in every segment except the last.
+	 */
+	public static final int SEGMENT_SIZE = 4096;
+	
+	private final TableReference tableRef;
+	private final Column primaryKeyColumn;
+	private final Set<Column> columns;
+	private final Map<String, CompressedColumn> columnsByName;
+	private final Map<String, ZoneMap> zoneMaps;
+	private final CompressedColumn primaryKeyValues;
+	private final int rowCount;
+	
+	/**
+	 * Encodes the rows of a table.
+	 * CompressedTable objects are created by the {@code build} methods.
+	 * @param tableRef The {@link TableReference} naming the table.
+	 * @param columns The {@link Column} objects of the table.
+	 * @param primaryKeyColumn The primary key Column of the table.
+	 * @param rows The rows of the table in primary key order.
+	 */
+	private CompressedTable(TableReference tableRef, Set<Column> columns, Column primaryKeyColumn, List<Row> rows){
+		this.tableRef = tableRef;
+		this.primaryKeyColumn = primaryKeyColumn;
+		this.columns = Collections.unmodifiableSet(new LinkedHashSet<Column>(columns));
+		this.columnsByName = new HashMap<String, CompressedColumn>();
+		this.zoneMaps = new HashMap<String, ZoneMap>();
+		this.rowCount = rows.size();
+		for(Column column : columns){
+			List<Data> values = new ArrayList<Data>(rows.size());
+			for(Row row : rows){
+				values.add(row.getValues().get(column));
+			}
+			columnsByName.put(column.getColumnName(), new CompressedColumn(column, values, SEGMENT_SIZE));
+			if(column.getType().equals(Integer.class) || column.getType().equals(Real.class)){
+				ZoneMap zoneMap = new ZoneMap(SEGMENT_SIZE);
+				try{
+					for(int i = 0; i < values.size(); i++){
+						zoneMap.add(i, values.get(i));
+					}
+				}catch(IOException e){
+					//This should never happen. A ZoneMap on the heap writes no file.
+					e.printStackTrace();
+				}
+				zoneMaps.put(column.getColumnName(), zoneMap);
+			}
+		}
+		this.primaryKeyValues = columnsByName.get(primaryKeyColumn.getColumnName());
+	}
+	
+	/**
+	 * Builds a CompressedTable from a collection of rows.
+	 * @param tableRef The {@link TableReference} naming the table.
+	 * @param columns The {@link Column} objects of the table.
+	 * @param primaryKeyColumn The primary key Column of the table. It must
+	 * be one of {@code columns} and must store {@link Integer} values.
+	 * @param rows The rows of the table, in any order.
+	 * @return The new CompressedTable.
+	 * @throws InvalidSchemaException If {@code primaryKeyColumn} is not a valid
+	 * primary key column or if two rows have the same primary key value.
+	 */
+	public static CompressedTable build(TableReference tableRef, Set<Column> columns, Column primaryKeyColumn, Collection<Row> rows) throws InvalidSchemaException{
+		if(!columns.contains(primaryKeyColumn) || !primaryKeyColumn.getType().equals(Integer.class)){
+			throw new InvalidSchemaException("The primary key column \""+primaryKeyColumn.getColumnName()+"\" must be an Integer column of the table.");
+		}
+		List<Row> sorted = new ArrayList<Row>(rows);
+		Collections.sort(sorted, new Comparator<Row>(){
+			public int compare(Row first, Row second){
+				long a = first.getPrimaryKeyValue().longValue();
+				long b = second.getPrimaryKeyValue().longValue();
+				return a < b ? -1 : (a == b ? 0 : 1);
+			}
+		});
+		for(int i = 1; i < sorted.size(); i++){
+			if(sorted.get(i).getPrimaryKeyValue().longValue() == sorted.get(i - 1).getPrimaryKeyValue().longValue()){
+				throw new InvalidSchemaException("The primary key "+sorted.get(i).getPrimaryKeyValue()+" is used by more than one row.");
+			}
+		}
+		return new CompressedTable(tableRef, columns, primaryKeyColumn, sorted);
+	}
+	
+	/**
+	 * Builds a CompressedTable from the rows of a {@link MultiVersionTable}
+	 * as seen by a {@link Snapshot}.
+	 * @param table The table to be copied.
+	 * @param snapshot The Snapshot through which the rows are read.
+	 * @return The new CompressedTable.
+	 * @throws InvalidSchemaException If the primary key column of {@code table}
+	 * does not store {@link Integer} values.
+	 */
+	public static CompressedTable build(MultiVersionTable table, Snapshot snapshot) throws InvalidSchemaException{
+		return build(table.getTableReference(), table.getColumns(), table.getPrimaryKeyColumn(), table.getRows(snapshot));
+	}
+	
+	/**
+	 * Returns the {@link TableReference} naming this table.
+	 * @return The TableReference of this table.
+	 */
+	public TableReference getTableReference(){
+		return tableRef;
+	}
+	
+	/**
+	 * Returns the primary key {@link Column} of this table.
+	 * @return The primary key Column.
+	 */
+	public Column getPrimaryKeyColumn(){
+		return primaryKeyColumn;
+	}
+	
+	/**
+	 * Returns the {@link Column} objects of this table.
+	 * This Set cannot be modified.
+	 * @return A Set of the Columns of this table.
+	 */
+	public Set<Column> getColumns(){
+		return columns;
+	}
+	
+	/**
+	 * Returns the number of rows in this table.
+	 * @return The number of rows.
+	 */
+	public int getRowCount(){
+		return rowCount;
+	}
+	
+	/**
+	 * Returns the number of segments in every column of this table.
+	 * @return The number of segments.
+	 */
+	public int getSegmentCount(){
+		return (rowCount + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+	}
+	
+	/**
+	 * Returns the encoding chosen for a segment of a column.
+	 * @param column The {@link Column}.
+	 * @param segment The index of the segment.
+	 * @return The {@link ColumnEncoding} of the segment.
+	 * @throws NoSuchColumnException If {@code column} is not part of this table.
+	 */
+	public ColumnEncoding getEncoding(Column column, int segment) throws NoSuchColumnException{
+		return getCompressedColumn(column).getEncoding(segment);
+	}
+	
+	/**
+	 * Returns the approximate number of bytes used by the encoded values
+	 * of this table, not counting the contents of
+	 * {@link com.edinarobotics.scouting.definitions.database.types.Blob Blob} values.
+	 * @return The encoded size in bytes.
+	 */
+	public long getEncodedSize(){
+		long size = 0;
+		for(CompressedColumn column : columnsByName.values()){
+			size += column.getEncodedBytes();
+		}
+		return size;
+	}
+	
+	/**
+	 * Returns the row with the given primary key value.
+	 * @param primaryKey The primary key value of the requested row.
+	 * @return The {@link Row} or {@code null} if it does not exist.
+	 */
+	public Row getRow(long primaryKey){
+		int low = 0;
+		int high = rowCount - 1;
+		while(low <= high){
+			int middle = (low + high) >>> 1;
+			long value = ((Integer) primaryKeyValues.get(middle / SEGMENT_SIZE, middle % SEGMENT_SIZE)).longValue();
+			if(value < primaryKey){
+				low = middle + 1;
+			}
+			else if(value > primaryKey){
+				high = middle - 1;
+			}
+			else{
+				return decodeRow(middle / SEGMENT_SIZE, middle % SEGMENT_SIZE);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the rows of this table that satisfy {@code query}.
+	 * @param query The {@link Query} that the rows must satisfy.
+	 * @return A new Set containing every {@link Row} that satisfies {@code query}.
+	 * @throws InvalidTargetException If {@code query} does not target this table.
+	 * @see Query#satisfiesQuery(Row)
+	 */
+	public Set<Row> executeQuery(Query query) throws InvalidTargetException{
+		if(!query.getTableReference().equals(tableRef)){
+			throw new InvalidTargetException("The query targets table "+query.getTableName()+", not "+tableRef.getTableName()+".");
+		}
+		Set<Row> result = new HashSet<Row>();
+		for(int segment = 0; segment < getSegmentCount(); segment++){
+			int size = Math.min(SEGMENT_SIZE, rowCount - segment * SEGMENT_SIZE);
+			BitSet candidates = new BitSet(size);
+			candidates.set(0, size);
+			boolean checkRows = false;
+			for(Constraint constraint : query.getConstraints()){
+				ZoneMap zoneMap = zoneMaps.get(constraint.getColumnName());
+				if(zoneMap != null && !zoneMap.mayContain(segment, constraint)){
+					candidates.clear();
+					break;
+				}
+			}
+			for(Constraint constraint : query.getConstraints()){
+				if(candidates.isEmpty()){
+					break;
+				}
+				CompressedColumn column = columnsByName.get(constraint.getColumnName());
+				if(column == null){
+					candidates.clear();
+				}
+				else if(!column.retain(constraint, segment, candidates)){
+					checkRows = true;
+				}
+			}
+			for(int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)){
+				Row row = decodeRow(segment, i);
+				if(!checkRows || query.satisfiesQuery(row)){
+					result.add(row);
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Decodes every value of a row.
+	 * @param segment The index of the segment containing the row.
+	 * @param index The index of the row within the segment.
+	 * @return The decoded {@link Row}.
+	 */
+	private Row decodeRow(int segment, int index){
+		Map<Column, Data> values = new HashMap<Column, Data>();
+		for(CompressedColumn column : columnsByName.values()){
+			values.put(column.getColumn(), column.get(segment, index));
+		}
+		try{
+			return new Row(values, primaryKeyColumn);
+		}catch(NoSuchColumnException e){
+			//This should never happen. The primary key column is one of the columns.
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	/**
+	 * Returns the CompressedColumn storing a {@link Column}.
+	 * @param column The Column.
+	 * @return The CompressedColumn storing {@code column}.
+	 * @throws NoSuchColumnException If {@code column} is not part of this table.
+	 */
+	private CompressedColumn getCompressedColumn(Column column) throws NoSuchColumnException{
+		CompressedColumn compressed = columnsByName.get(column.getColumnName());
+		if(compressed == null || !compressed.getColumn().equals(column)){
+			throw new NoSuchColumnException("Column "+column.getColumnName()+" does not exist in table "+tableRef.getTableName()+".");
+		}
+		return compressed;
+	}
+}
@@ -0,0 +1,82 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.BitSet;
+
+/**
+ * This {@link LongSegment} stores the differences between consecutive values,
+ * bit-packed as offsets from the smallest difference. Every
+ * {@link #SAMPLE_INTERVAL}th value is also stored in full, so single values can be
+ * decoded without summing the whole segment.
+ * <br/>
+ * When the values never decrease, range tests stop decoding as soon as a
+ * value exceeds the range.
+ * @see ColumnEncoding#DELTA
+ */
+final class DeltaSegment extends LongSegment {
+	/**
+	 * The number of values between stored full values.
+	 */
+	static final int SAMPLE_INTERVAL = 128;
+	
+	private final long[] samples;
+	private final long minDelta;
+	private final PackedLongs deltas;
+	
+	/**
+	 * Constructs a new DeltaSegment.
+	 * @param values The values to be stored.
+	 * @param count The number of values to be stored. This must be at least 1.
+	 * @param minDelta The smallest difference between consecutive values.
+	 * @param deltaSpan The largest difference minus {@code minDelta}.
+	 */
+	DeltaSegment(long[] values, int count, long minDelta, long deltaSpan){
+		this.minDelta = minDelta;
+		long[] differences = new long[count];
+		for(int i = 1; i < count; i++){
+			differences[i] = values[i] - values[i - 1];
+		}
+		differences[0] = minDelta;
+		this.deltas = new PackedLongs(differences, count, minDelta, PackedLongs.bitsRequired(deltaSpan));
+		this.samples = new long[(count + SAMPLE_INTERVAL - 1) / SAMPLE_INTERVAL];
+		for(int i = 0; i < samples.length; i++){
+			samples[i] = values[i * SAMPLE_INTERVAL];
+		}
+	}
+	
+	int size(){
+		return deltas.size();
+	}
+	
+	long get(int index){
+		int sample = index / SAMPLE_INTERVAL;
+		long value = samples[sample];
+		for(int i = sample * SAMPLE_INTERVAL + 1; i <= index; i++){
+			value += minDelta + deltas.get(i);
+		}
+		return value;
+	}
+	
+	ColumnEncoding getEncoding(){
+		return ColumnEncoding.DELTA;
+	}
+	
+	long getEncodedBytes(){
+		return deltas.getEncodedBytes() + (long) samples.length * 8 + 8;
+	}
+	
+	void retainRange(long min, long max, BitSet candidates){
+		long value = samples[0];
+		for(int i = 0; i < size(); i++){
+			if(i > 0){
+				value += minDelta + deltas.get(i);
+			}
+			if(minDelta >= 0 && value > max){
+				candidates.clear(i, size());
+				return;
+			}
+			if(value < min || value > max){
+				candidates.clear(i);
+			}
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This {@link LongSegment} stores the distinct values of the segment once,
+ * in ascending order, and each value as a bit-packed index into them.
+ * Because the dictionary is sorted, a range of values is a range of codes,
+ * so range tests compare the codes directly.
+ * @see ColumnEncoding#DICTIONARY
+ */
+final class DictionarySegment extends LongSegment {
+	private final long[] dictionary;
+	private final PackedLongs codes;
+	
+	/**
+	 * Constructs a new DictionarySegment.
+	 * @param values The values to be stored.
+	 * @param count The number of values to be stored.
+	 * @param dictionary The distinct values of the segment in ascending order.
+	 */
+	DictionarySegment(long[] values, int count, long[] dictionary){
+		this.dictionary = dictionary;
+		long[] indexes = new long[count];
+		for(int i = 0; i < count; i++){
+			indexes[i] = Arrays.binarySearch(dictionary, values[i]);
+		}
+		this.codes = new PackedLongs(indexes, count, 0, PackedLongs.bitsRequired(dictionary.length - 1));
+	}
+	
+	int size(){
+		return codes.size();
+	}
+	
+	long get(int index){
+		return dictionary[(int) codes.get(index)];
+	}
+	
+	ColumnEncoding getEncoding(){
+		return ColumnEncoding.DICTIONARY;
+	}
+	
+	long getEncodedBytes(){
+		return codes.getEncodedBytes() + (long) dictionary.length * 8;
+	}
+	
+	void retainRange(long min, long max, BitSet candidates){
+		int low = Arrays.binarySearch(dictionary, min);
+		low = low < 0 ? -low - 1 : low;
+		int high = Arrays.binarySearch(dictionary, max);
+		high = high < 0 ? -high - 2 : high;
+		if(low > high){
+			candidates.clear(0, size());
+			return;
+		}
+		for(int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)){
+			long code = codes.get(i);
+			if(code < low || code > high){
+				candidates.clear(i);
+			}
+		}
+	}
+}
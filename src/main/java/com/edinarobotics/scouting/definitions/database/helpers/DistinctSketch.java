@@ -0,0 +1,78 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+/**
+ * This class estimates the number of distinct values added to it
+ * (HyperLogLog). It uses a fixed 1 KiB of memory however many values are
+ * added, and its estimates are usually within a few percent of the true count.
+ * <br/>
+ * Values cannot be removed, so after deletions the estimate is an upper
+ * bound of the number of distinct values that remain.
+ * DistinctSketch objects are not thread-safe.
+ */
+class DistinctSketch {
+	/**
+	 * The number of hash bits that select a register.
+	 */
+	private static final int INDEX_BITS = 10;
+	private static final int REGISTERS = 1 << INDEX_BITS;
+	
+	private final byte[] registers;
+	
+	/**
+	 * Constructs a new, empty DistinctSketch.
+	 */
+	DistinctSketch(){
+		registers = new byte[REGISTERS];
+	}
+	
+	/**
+	 * Adds a value to this DistinctSketch.
+	 * @param value The value. Only its {@link Object#hashCode()} is used.
+	 */
+	void add(Object value){
+		long hash = mix(value.hashCode());
+		int index = (int) (hash >>> (64 - INDEX_BITS));
+		//The rank is the position of the first set bit after the index bits.
+		int rank = Long.numberOfLeadingZeros((hash << INDEX_BITS) | (1L << (INDEX_BITS - 1))) + 1;
+		if(rank > registers[index]){
+			registers[index] = (byte) rank;
+		}
+	}
+	
+	/**
+	 * Returns the estimated number of distinct values added to this DistinctSketch.
+	 * @return The estimated number of distinct values.
+	 */
+	long estimate(){
+		double sum = 0;
+		int zeros = 0;
+		for(byte register : registers){
+			sum += 1.0 / (1L << register);
+			if(register == 0){
+				zeros++;
+			}
+		}
+		double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+		double estimate = alpha * REGISTERS * REGISTERS / sum;
+		if(estimate <= 2.5 * REGISTERS && zeros > 0){
+			//Small counts are estimated from the number of empty registers (linear counting).
+			estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+		}
+		return Math.round(estimate);
+	}
+	
+	/**
+	 * Spreads a 32-bit hash code over 64 bits.
+	 * @param hashCode The hash code of a value.
+	 * @return A 64-bit hash of {@code hashCode}.
+	 */
+	private static long mix(int hashCode){
+		long hash = hashCode;
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,42 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class contains helper methods for making file system changes durable.
+ * Syncing a file only makes its contents durable. Creating, renaming or
+ * moving a file changes its directory, which must be synced separately
+ * before the new name is guaranteed to survive a crash.
+ */
+final class FileSync {
+	
+	/**
+	 * This class only contains static methods.
+	 */
+	private FileSync(){
+	}
+	
+	/**
+	 * Forces the entries of a directory to stable storage.
+	 * On platforms that cannot open a directory (for example Windows, where
+	 * directory entries are written through) this method does nothing.
+	 * @param directory The directory to be synced.
+	 * @throws IOException If the directory was opened but could not be synced.
+	 */
+	static void syncDirectory(File directory) throws IOException{
+		FileChannel channel;
+		try{
+			channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+		}catch(IOException e){
+			return;
+		}
+		try{
+			channel.force(true);
+		}finally{
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.types.Boolean;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+
+/**
+ * This {@link MappedColumn} stores {@link Integer}, {@link Real} and
+ * {@link Boolean} values in a single file of 8 byte slots, so the value
+ * of row {@code n} is at byte {@code 8 * n}.
+ */
+final class FixedWidthColumn extends MappedColumn {
+	private static final int WIDTH = 8;
+	
+	private final MappedFile values;
+	
+	/**
+	 * Opens a fixed-width column.
+	 * @param column The {@link Column} stored by this column.
+	 * @param nullFile The file of the null bitmap.
+	 * @param valueFile The file of the values.
+	 * @throws IOException If a file cannot be opened.
+	 */
+	FixedWidthColumn(Column column, File nullFile, File valueFile) throws IOException{
+		super(column, nullFile);
+		this.values = new MappedFile(valueFile);
+	}
+	
+	Data read(int row) throws IOException{
+		long bits = values.getLong((long) row * WIDTH);
+		Class<? extends Data> type = getColumn().getType();
+		if(type.equals(Integer.class)){
+			return new Integer(bits);
+		}
+		if(type.equals(Real.class)){
+			return new Real(Double.longBitsToDouble(bits));
+		}
+		if(type.equals(Boolean.class)){
+			return new Boolean(bits != 0);
+		}
+		throw new IOException("Cannot decode data of type "+type.getName()+".");
+	}
+	
+	void write(int row, Data value) throws IOException{
+		long bits;
+		if(value instanceof Integer){
+			bits = ((Integer) value).longValue();
+		}
+		else if(value instanceof Real){
+			bits = Double.doubleToRawLongBits(((Real) value).doubleValue());
+		}
+		else if(value instanceof Boolean){
+			bits = ((Boolean) value).getValue() ? 1 : 0;
+		}
+		else{
+			throw new IOException("Cannot store data of type "+value.getClass().getName()+" in a fixed-width column.");
+		}
+		values.putLong((long) row * WIDTH, bits);
+	}
+	
+	void force(){
+		super.force();
+		values.force();
+	}
+	
+	public void close() throws IOException{
+		super.close();
+		values.close();
+	}
+}
@@ -0,0 +1,87 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.queries.JoinType;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+
+/**
+ * This {@link JoinOperator} builds a hash table of one side of the join
+ * and probes it with the rows of the other side. It reads both inputs once
+ * and works on any {@link Data} type with a consistent
+ * {@link Object#hashCode()}.
+ * <br/>
+ * An inner join builds the hash table on the smaller input. A
+ * {@link JoinType#LEFT LEFT} join always builds it on the right input so that
+ * unmatched left rows are found while probing.
+ */
+class HashJoin extends JoinOperator {
+	
+	List<Map<Column, Data>> join(List<Map<Column, Data>> left, Column leftKey,
+			List<Map<Column, Data>> right, Column rightKey, JoinType type, Set<Column> rightColumns){
+		List<Map<Column, Data>> result = new ArrayList<Map<Column, Data>>();
+		if(type == JoinType.INNER && left.size() < right.size()){
+			Map<Data, List<Map<Column, Data>>> table = build(left, leftKey);
+			for(Map<Column, Data> row : right){
+				List<Map<Column, Data>> matches = probe(table, row.get(rightKey));
+				if(matches != null){
+					for(Map<Column, Data> match : matches){
+						result.add(combine(match, row));
+					}
+				}
+			}
+			return result;
+		}
+		Map<Data, List<Map<Column, Data>>> table = build(right, rightKey);
+		for(Map<Column, Data> row : left){
+			List<Map<Column, Data>> matches = probe(table, row.get(leftKey));
+			if(matches != null){
+				for(Map<Column, Data> match : matches){
+					result.add(combine(row, match));
+				}
+			}
+			else if(type == JoinType.LEFT){
+				result.add(pad(row, rightColumns));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Builds a hash table of rows by their join values.
+	 * Rows with a {@code null} join value are left out because they never match.
+	 * @param rows The rows to be hashed.
+	 * @param key The join {@link Column} of {@code rows}.
+	 * @return A Map of join values to the rows containing them.
+	 */
+	private static Map<Data, List<Map<Column, Data>>> build(List<Map<Column, Data>> rows, Column key){
+		Map<Data, List<Map<Column, Data>>> table = new HashMap<Data, List<Map<Column, Data>>>(rows.size() * 2);
+		for(Map<Column, Data> row : rows){
+			Data value = row.get(key);
+			if(value == null){
+				continue;
+			}
+			List<Map<Column, Data>> bucket = table.get(value);
+			if(bucket == null){
+				bucket = new ArrayList<Map<Column, Data>>(1);
+				table.put(value, bucket);
+			}
+			bucket.add(row);
+		}
+		return table;
+	}
+	
+	/**
+	 * Looks up the rows matching a join value.
+	 * @param table The hash table built by {@link #build(List, Column)}.
+	 * @param value The join value to look up.
+	 * @return The matching rows or {@code null} if there are none.
+	 */
+	private static List<Map<Column, Data>> probe(Map<Data, List<Map<Column, Data>>> table, Data value){
+		return value == null ? null : table.get(value);
+	}
+}
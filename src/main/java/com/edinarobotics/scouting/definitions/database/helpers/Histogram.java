@@ -0,0 +1,131 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+/**
+ * This class counts numeric values in equal-width buckets so that the
+ * fraction of values in a range can be estimated.
+ * <br/>
+ * The buckets cover the range of the values added so far. When a value falls
+ * outside of it, the width of every bucket is doubled and neighbouring buckets
+ * are merged until the value is covered. The range never shrinks, so values can
+ * be removed again at any time.
+ * Histogram objects are not thread-safe.
+ */
+class Histogram {
+	/**
+	 * The number of buckets in a Histogram.
+	 */
+	static final int BUCKETS = 64;
+	
+	private final long[] counts;
+	private double lowest;
+	private double width;
+	private long total;
+	
+	/**
+	 * Constructs a new, empty Histogram.
+	 */
+	Histogram(){
+		counts = new long[BUCKETS];
+		width = 0;
+		total = 0;
+	}
+	
+	/**
+	 * Adds a value to this Histogram. {@code NaN} and infinite values are ignored.
+	 * @param value The value to be counted.
+	 */
+	void add(double value){
+		if(Double.isNaN(value) || Double.isInfinite(value)){
+			return;
+		}
+		if(width == 0){
+			lowest = Math.floor(value);
+			width = 1;
+		}
+		while(value < lowest){
+			grow(false);
+		}
+		while(value >= lowest + width * BUCKETS){
+			grow(true);
+		}
+		counts[bucket(value)]++;
+		total++;
+	}
+	
+	/**
+	 * Removes a value that was added to this Histogram.
+	 * @param value The value to be removed.
+	 */
+	void remove(double value){
+		if(Double.isNaN(value) || width == 0 || value < lowest || value >= lowest + width * BUCKETS){
+			return;
+		}
+		int bucket = bucket(value);
+		if(counts[bucket] > 0){
+			counts[bucket]--;
+			total--;
+		}
+	}
+	
+	/**
+	 * Returns the number of values counted by this Histogram.
+	 * @return The number of values.
+	 */
+	long getCount(){
+		return total;
+	}
+	
+	/**
+	 * Estimates the fraction of the counted values that lie between two bounds.
+	 * Values are assumed to be spread evenly within each bucket.
+	 * @param lower The lower bound or {@code null} if there is none.
+	 * @param upper The upper bound or {@code null} if there is none.
+	 * @return The estimated fraction, between {@code 0} and {@code 1}.
+	 */
+	double estimateFraction(Double lower, Double upper){
+		if(total == 0){
+			return 0;
+		}
+		double from = lower == null ? lowest : Math.max(lower, lowest);
+		double to = upper == null ? lowest + width * BUCKETS : Math.min(upper, lowest + width * BUCKETS);
+		if(from > to){
+			return 0;
+		}
+		double matched = 0;
+		for(int i = 0; i < BUCKETS; i++){
+			double start = lowest + width * i;
+			double overlap = Math.min(to, start + width) - Math.max(from, start);
+			if(overlap > 0){
+				matched += counts[i] * overlap / width;
+			}
+		}
+		return Math.min(1, matched / total);
+	}
+	
+	/**
+	 * Doubles the width of every bucket.
+	 * @param upward {@code true} to extend the covered range upward,
+	 * {@code false} to extend it downward.
+	 */
+	private void grow(boolean upward){
+		long[] merged = new long[BUCKETS];
+		int offset = upward ? 0 : BUCKETS / 2;
+		for(int i = 0; i < BUCKETS; i++){
+			merged[offset + i / 2] += counts[i];
+		}
+		System.arraycopy(merged, 0, counts, 0, BUCKETS);
+		if(!upward){
+			lowest -= width * BUCKETS;
+		}
+		width *= 2;
+	}
+	
+	/**
+	 * Returns the bucket of a value in the covered range.
+	 * @param value The value.
+	 * @return The index of the bucket containing {@code value}.
+	 */
+	private int bucket(double value){
+		return Math.min(BUCKETS - 1, (int) ((value - lowest) / width));
+	}
+}
@@ -0,0 +1,27 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+/**
+ * The values in this enum describe how a step of a {@link JoinPlan}
+ * combines rows with the rows of a joined table.
+ */
+public enum JoinMethod {
+	
+	/**
+	 * Every row on the left looks up its match in the primary key index of
+	 * the joined table. The joined table is not read as a whole.
+	 */
+	INDEX_LOOKUP,
+	
+	/**
+	 * The rows of the joined table are read and combined by a {@link HashJoin}.
+	 */
+	HASH_JOIN,
+	
+	/**
+	 * The rows of the joined table are read and combined by a {@link MergeJoin}.
+	 * It is chosen when sorting both sides is estimated to cost less than
+	 * hashing them, which happens when the hash table would not fit in the
+	 * processor caches.
+	 */
+	MERGE_JOIN
+}
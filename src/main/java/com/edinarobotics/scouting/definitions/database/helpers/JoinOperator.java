@@ -0,0 +1,67 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.queries.JoinType;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+
+/**
+ * A JoinOperator combines two lists of rows on equal values in a join column.
+ * Rows are passed as {@link Map} objects of {@link Column} objects to
+ * {@link Data} values so that the rows produced by one join can be joined
+ * again without being wrapped in
+ * {@link com.edinarobotics.scouting.definitions.database.Row Row} objects.
+ * <br/>
+ * {@code null} join values never match. Subclasses must produce the same rows
+ * for the same inputs, in any order.
+ * @see HashJoin
+ * @see MergeJoin
+ */
+abstract class JoinOperator {
+	
+	/**
+	 * Joins two lists of rows.
+	 * @param left The rows on the left side of the join.
+	 * @param leftKey The join {@link Column} of the left rows.
+	 * @param right The rows on the right side of the join.
+	 * @param rightKey The join Column of the right rows.
+	 * @param type The {@link JoinType} deciding whether unmatched left rows are kept.
+	 * @param rightColumns The Column objects of the right rows. They are set to
+	 * {@code null} in unmatched left rows of a {@link JoinType#LEFT} join.
+	 * @return A new List of the combined rows.
+	 */
+	abstract List<Map<Column, Data>> join(List<Map<Column, Data>> left, Column leftKey,
+			List<Map<Column, Data>> right, Column rightKey, JoinType type, Set<Column> rightColumns);
+	
+	/**
+	 * Combines a left row and a right row into a single row.
+	 * @param left The values of the left row.
+	 * @param right The values of the right row.
+	 * @return A new Map containing the values of both rows.
+	 */
+	static Map<Column, Data> combine(Map<Column, Data> left, Map<Column, Data> right){
+		Map<Column, Data> combined = new HashMap<Column, Data>(left.size() + right.size(), 1.0f);
+		combined.putAll(left);
+		combined.putAll(right);
+		return combined;
+	}
+	
+	/**
+	 * Extends an unmatched left row with {@code null} values for the right columns.
+	 * @param left The values of the left row.
+	 * @param rightColumns The Column objects of the right side of the join.
+	 * @return A new Map containing the values of {@code left} and a {@code null}
+	 * value for every right Column.
+	 */
+	static Map<Column, Data> pad(Map<Column, Data> left, Set<Column> rightColumns){
+		Map<Column, Data> padded = new HashMap<Column, Data>(left.size() + rightColumns.size(), 1.0f);
+		padded.putAll(left);
+		for(Column column : rightColumns){
+			padded.put(column, null);
+		}
+		return padded;
+	}
+}
@@ -0,0 +1,269 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.NoSuchColumnException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.Join;
+import com.edinarobotics.scouting.definitions.database.queries.JoinQuery;
+import com.edinarobotics.scouting.definitions.database.queries.JoinType;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+
+/**
+ * A JoinPlan describes how the {@link QueryPlanner} executes a {@link JoinQuery}.
+ * The rows of the base table are read by a {@link TablePlan}. Each {@link Step}
+ * then combines the rows produced so far with the rows of one joined table,
+ * using the {@link JoinMethod} chosen for it.
+ * <br/>
+ * The steps need not be in the order of the {@link Join} objects of the
+ * JoinQuery. The planner executes the Join producing the fewest rows first,
+ * as long as the table of its left column has already been joined. This does
+ * not change the result, because the condition of every Join only refers to
+ * its own table and the table of its left column.
+ * <br/>
+ * JoinPlan objects are immutable.
+ */
+public final class JoinPlan {
+	private final TablePlan base;
+	private final List<Step> steps;
+	
+	/**
+	 * Constructs a new JoinPlan.
+	 * JoinPlan objects are created by {@link QueryPlanner#plan(JoinQuery)}.
+	 * @param base The {@link TablePlan} reading the base table.
+	 * @param steps The steps of this plan in execution order.
+	 */
+	JoinPlan(TablePlan base, List<Step> steps){
+		this.base = base;
+		this.steps = Collections.unmodifiableList(new ArrayList<Step>(steps));
+	}
+	
+	/**
+	 * Returns the {@link TablePlan} reading the base table.
+	 * @return The plan of the base table.
+	 */
+	public TablePlan getBasePlan(){
+		return base;
+	}
+	
+	/**
+	 * Returns the steps of this JoinPlan in execution order.
+	 * This List cannot be modified.
+	 * @return The steps of this plan.
+	 */
+	public List<Step> getSteps(){
+		return steps;
+	}
+	
+	/**
+	 * Returns the estimated number of rows returned by this JoinPlan.
+	 * @return The estimated number of result rows.
+	 */
+	public double getEstimatedRows(){
+		return steps.isEmpty() ? base.getEstimatedRows() : steps.get(steps.size() - 1).getEstimatedRows();
+	}
+	
+	/**
+	 * Returns the estimated cost of this JoinPlan.
+	 * @return The sum of the estimated costs of the base table and every step.
+	 */
+	public double getCost(){
+		double cost = base.getCost();
+		for(Step step : steps){
+			cost += step.getCost();
+		}
+		return cost;
+	}
+	
+	/**
+	 * Executes this JoinPlan. Every table is read through the same {@link Snapshot}.
+	 * @param snapshot The Snapshot through which the rows are read.
+	 * @return A new Set containing the combined {@link Row} objects. The primary
+	 * key column of every Row is the primary key column of the base table.
+	 */
+	public Set<Row> execute(Snapshot snapshot){
+		List<Map<Column, Data>> rows = new ArrayList<Map<Column, Data>>();
+		for(Row row : base.execute(snapshot)){
+			rows.add(row.getValues());
+		}
+		for(Step step : steps){
+			MultiVersionTable table = step.getTablePlan().getTable();
+			if(step.getMethod() == JoinMethod.INDEX_LOOKUP){
+				rows = lookupJoin(rows, step, snapshot);
+				continue;
+			}
+			List<Map<Column, Data>> right = new ArrayList<Map<Column, Data>>();
+			for(Row row : step.getTablePlan().execute(snapshot)){
+				right.add(row.getValues());
+			}
+			JoinOperator operator = step.getMethod() == JoinMethod.MERGE_JOIN ? new MergeJoin() : new HashJoin();
+			rows = operator.join(rows, step.getLeftColumn(), right, step.getRightColumn(), step.getJoin().getType(), table.getColumns());
+		}
+		Set<Row> result = new HashSet<Row>();
+		Column primaryKey = base.getTable().getPrimaryKeyColumn();
+		for(Map<Column, Data> values : rows){
+			try{
+				result.add(new Row(values, primaryKey));
+			}catch(NoSuchColumnException e){
+				//This should never happen. Every joined row contains the base row.
+				e.printStackTrace();
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Joins rows with a table by looking up their join values in the primary
+	 * key index of the table (index nested loop join).
+	 * @param left The rows on the left side of the join.
+	 * @param step The {@link Step} being executed. Its right column is the primary key column.
+	 * @param snapshot The {@link Snapshot} through which the rows are read.
+	 * @return A new List of the combined rows.
+	 */
+	private static List<Map<Column, Data>> lookupJoin(List<Map<Column, Data>> left, Step step, Snapshot snapshot){
+		MultiVersionTable table = step.getTablePlan().getTable();
+		List<Map<Column, Data>> result = new ArrayList<Map<Column, Data>>(left.size());
+		for(Map<Column, Data> row : left){
+			Row match = null;
+			Long primaryKey = QueryPlan.toPrimaryKey(row.get(step.getLeftColumn()));
+			if(primaryKey != null){
+				match = table.getRow(primaryKey, snapshot);
+			}
+			if(match != null && step.getTablePlan().matches(match)){
+				result.add(JoinOperator.combine(row, match.getValues()));
+			}
+			else if(step.getJoin().getType() == JoinType.LEFT){
+				result.add(JoinOperator.pad(row, table.getColumns()));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns a description of this JoinPlan and the estimates it was chosen by.
+	 * @return A multi-line description of this plan.
+	 */
+	public String explain(){
+		StringBuilder out = new StringBuilder();
+		out.append("JOIN (cost=").append(TablePlan.format(getCost())).append(", rows=").append(TablePlan.format(getEstimatedRows())).append(")\n");
+		base.explain(out, "  ");
+		for(Step step : steps){
+			Join join = step.getJoin();
+			out.append("  ").append(step.getMethod().name().replace('_', ' ')).append(' ').append(join.getType())
+					.append(' ').append(join.getTableReference().getTableName()).append(" ON ").append(join.getLeftColumn())
+					.append(" = ").append(join.getRightColumn()).append(" (cost=").append(TablePlan.format(step.getCost()))
+					.append(", rows=").append(TablePlan.format(step.getEstimatedRows())).append(")\n");
+			if(step.getMethod() == JoinMethod.INDEX_LOOKUP){
+				step.getTablePlan().explainConstraints(out, "    ");
+			}
+			else{
+				step.getTablePlan().explain(out, "    ");
+			}
+		}
+		return out.toString();
+	}
+	
+	/**
+	 * Returns the description of this JoinPlan.
+	 * @return The result of {@link #explain()}.
+	 */
+	public String toString(){
+		return explain();
+	}
+	
+	/**
+	 * A Step is the part of a {@link JoinPlan} that executes one {@link Join}.
+	 */
+	public static final class Step {
+		private final Join join;
+		private final TablePlan tablePlan;
+		private final JoinMethod method;
+		private final Column leftColumn;
+		private final Column rightColumn;
+		private final double estimatedRows;
+		private final double cost;
+		
+		/**
+		 * Constructs a new Step.
+		 * @param join The {@link Join} executed by this Step.
+		 * @param tablePlan The {@link TablePlan} of the Query of {@code join}.
+		 * @param method The {@link JoinMethod} combining the rows.
+		 * @param leftColumn The resolved left join {@link Column}.
+		 * @param rightColumn The resolved right join Column.
+		 * @param estimatedRows The estimated number of rows after this Step.
+		 * @param cost The estimated cost of this Step.
+		 */
+		Step(Join join, TablePlan tablePlan, JoinMethod method, Column leftColumn, Column rightColumn, double estimatedRows, double cost){
+			this.join = join;
+			this.tablePlan = tablePlan;
+			this.method = method;
+			this.leftColumn = leftColumn;
+			this.rightColumn = rightColumn;
+			this.estimatedRows = estimatedRows;
+			this.cost = cost;
+		}
+		
+		/**
+		 * Returns the {@link Join} executed by this Step.
+		 * @return The Join of this Step.
+		 */
+		public Join getJoin(){
+			return join;
+		}
+		
+		/**
+		 * Returns the {@link TablePlan} of the joined table. It is not
+		 * executed by {@link JoinMethod#INDEX_LOOKUP}, which only tests
+		 * its constraints.
+		 * @return The plan of the joined table.
+		 */
+		public TablePlan getTablePlan(){
+			return tablePlan;
+		}
+		
+		/**
+		 * Returns the {@link JoinMethod} combining the rows.
+		 * @return The JoinMethod of this Step.
+		 */
+		public JoinMethod getMethod(){
+			return method;
+		}
+		
+		/**
+		 * Returns the left join {@link Column}.
+		 * @return The left join Column.
+		 */
+		public Column getLeftColumn(){
+			return leftColumn;
+		}
+		
+		/**
+		 * Returns the right join {@link Column} in the joined table.
+		 * @return The right join Column.
+		 */
+		public Column getRightColumn(){
+			return rightColumn;
+		}
+		
+		/**
+		 * Returns the estimated number of rows after this Step.
+		 * @return The estimated number of rows.
+		 */
+		public double getEstimatedRows(){
+			return estimatedRows;
+		}
+		
+		/**
+		 * Returns the estimated cost of this Step.
+		 * @return The estimated cost.
+		 */
+		public double getCost(){
+			return cost;
+		}
+	}
+}
@@ -0,0 +1,1168 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import com.edinarobotics.scouting.definitions.database.events.KeyValueBatchChangeEvent;
+import com.edinarobotics.scouting.definitions.database.events.KeyValueChangeEvent;
+import com.edinarobotics.scouting.definitions.database.events.KeyValueEntryChangeEvent;
+import com.edinarobotics.scouting.definitions.event.helpers.EventFiringManager;
+
+/**
+ * This class is a thread-safe key-value store that
+ * {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * implementations can return from
+ * {@link com.edinarobotics.scouting.definitions.database.Database#getKeyValueStore(String) getKeyValueStore(String)}.
+ * <br/>
+ * Reads never take locks. Writes take one of {@value #STRIPES} locks chosen by
+ * the hash of their key, so writes of different keys rarely wait for each other.
+ * Keys and values may not be {@code null}.
+ * <h3>Persistence</h3>
+ * A KeyValueStore may be backed by a file. Every write is appended to the file
+ * as a record of the form:
+ * <pre>
+ * int  payload length
+ * int  CRC-32 of the payload
+ * byte operation (put, remove or clear)
+ * String key and value, as written by {@link ChangeCodec}
+ * </pre>
+ * When the store is opened, the records are replayed. A record at the end of the
+ * file that is incomplete or fails its checksum was being written during a crash;
+ * it is cut off. When the file has grown past {@link #MIN_COMPACTION_SIZE} and holds
+ * more than twice the bytes needed for the live entries, it is rewritten with one
+ * record per entry (compaction). The new file is written next to the old one and
+ * atomically moved over it, so a crash during compaction leaves either the old or
+ * the new file in place. A failed compaction does not fail the write that started
+ * it; it is logged and retried once the file has grown by another
+ * {@link #MIN_COMPACTION_SIZE}.
+ * <br/>
+ * Records are collected in a buffer and written to the file when the buffer is full
+ * or when they are synced, so most writes make no system call. The {@link SyncPolicy}
+ * decides when records are synced. With {@link SyncPolicy#ALWAYS} every write waits
+ * until its record is on disk. Writers that wait at the same time share a single sync
+ * (group commit), so writes under different stripes still proceed in parallel. With
+ * {@link SyncPolicy#INTERVAL}, a write syncs the file if the sync interval has passed
+ * since the last sync, and a daemon thread syncs writes left unsynced for a whole
+ * interval. The thread is stopped by {@link #close()}. With {@link SyncPolicy#NEVER},
+ * records may stay in the buffer until it is full, {@link #sync()} is called or the
+ * store is closed.
+ * <br/>
+ * If a sync fails, the buffered records may be lost and syncing again cannot be relied
+ * upon to write them. The failure is remembered and every later write fails with an
+ * {@link IllegalStateException} caused by it. The store must be reopened to recover.
+ * <h3>Change Events</h3>
+ * When an {@link EventFiringManager} is set with {@link #setEventFiringManager(EventFiringManager)},
+ * the store fires a {@link KeyValueChangeEvent} after every change, so plugins do not need
+ * to poll it. Bulk writes fire a single {@link KeyValueBatchChangeEvent}.
+ * <h3>Memory Accounting</h3>
+ * {@link #getMemoryUsage()} estimates the heap memory used by the entries of the store,
+ * so that plugins and Database implementations can watch the size of each store.
+ */
+public final class KeyValueStore extends AbstractMap<String, String> implements ConcurrentMap<String, String>, Closeable {
+	/**
+	 * The number of write locks of a KeyValueStore.
+	 */
+	public static final int STRIPES = 64;
+	
+	/**
+	 * The size in bytes below which a store file is never compacted (1 MiB).
+	 */
+	public static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+	
+	/**
+	 * The estimated memory used by an entry in addition to the characters of
+	 * its key and value: the hash table node and two {@code String} objects
+	 * with their character arrays.
+	 */
+	static final long ENTRY_OVERHEAD = 128;
+	
+	private static final int MAGIC = 0x534b5653;
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 8;
+	private static final int RECORD_HEADER_SIZE = 8;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final byte PUT = 1;
+	private static final byte REMOVE = 2;
+	private static final byte CLEAR = 3;
+	
+	private final String name;
+	private final ConcurrentMap<String, String> entries;
+	private final Lock[] stripes;
+	private final AtomicLong memoryUsage;
+	private final File file;
+	private final SyncPolicy syncPolicy;
+	private final long syncIntervalNanos;
+	private final Lock logLock;
+	private final Lock syncLock;
+	private final AtomicLong liveBytes;
+	private final AtomicReference<IOException> syncFailure;
+	private FileOutputStream logFile;
+	private DataOutputStream log;
+	private long logSize;
+	private long failedCompactionSize;
+	private long writtenRecords;
+	private volatile long syncedRecords;
+	private volatile long lastSyncTime;
+	private volatile boolean closed;
+	private ScheduledExecutorService flusher;
+	private volatile EventFiringManager eventManager;
+	
+	/**
+	 * Constructs a new, empty KeyValueStore that is only kept in memory.
+	 * @param name The name of the store.
+	 */
+	public KeyValueStore(String name){
+		this.name = name;
+		this.entries = new ConcurrentHashMap<String, String>(16, 0.75f, STRIPES);
+		this.stripes = new Lock[STRIPES];
+		for(int i = 0; i < STRIPES; i++){
+			stripes[i] = new ReentrantLock();
+		}
+		this.memoryUsage = new AtomicLong();
+		this.liveBytes = new AtomicLong();
+		this.file = null;
+		this.syncPolicy = SyncPolicy.NEVER;
+		this.syncIntervalNanos = 0;
+		this.logLock = new ReentrantLock();
+		this.syncLock = new ReentrantLock();
+		this.syncFailure = new AtomicReference<IOException>();
+	}
+	
+	/**
+	 * Opens the KeyValueStore stored in {@code file} using
+	 * {@link WriteAheadLog#DEFAULT_SYNC_INTERVAL}. The file is created if it does
+	 * not exist.
+	 * @param name The name of the store.
+	 * @param file The file in which the store is kept.
+	 * @param syncPolicy The {@link SyncPolicy} deciding when records are synced.
+	 * @throws IOException If the file cannot be opened or is not a KeyValueStore file.
+	 */
+	public KeyValueStore(String name, File file, SyncPolicy syncPolicy) throws IOException{
+		this(name, file, syncPolicy, WriteAheadLog.DEFAULT_SYNC_INTERVAL);
+	}
+	
+	/**
+	 * Opens the KeyValueStore stored in {@code file}. The file is created if it does
+	 * not exist. Otherwise its records are replayed and an incomplete record at its
+	 * end is removed.
+	 * @param name The name of the store.
+	 * @param file The file in which the store is kept.
+	 * @param syncPolicy The {@link SyncPolicy} deciding when records are synced.
+	 * @param syncInterval The time between syncs in milliseconds when
+	 * {@code syncPolicy} is {@link SyncPolicy#INTERVAL}.
+	 * @throws IOException If the file cannot be opened or is not a KeyValueStore file.
+	 */
+	public KeyValueStore(String name, File file, SyncPolicy syncPolicy, long syncInterval) throws IOException{
+		this.name = name;
+		this.entries = new ConcurrentHashMap<String, String>(16, 0.75f, STRIPES);
+		this.stripes = new Lock[STRIPES];
+		for(int i = 0; i < STRIPES; i++){
+			stripes[i] = new ReentrantLock();
+		}
+		this.memoryUsage = new AtomicLong();
+		this.liveBytes = new AtomicLong();
+		this.file = file;
+		this.syncPolicy = syncPolicy;
+		this.syncIntervalNanos = syncInterval * 1000000L;
+		this.logLock = new ReentrantLock();
+		this.syncLock = new ReentrantLock();
+		this.syncFailure = new AtomicReference<IOException>();
+		long validBytes = file.exists() ? replay() : 0;
+		if(validBytes < HEADER_SIZE){
+			writeFile(file);
+			FileSync.syncDirectory(file.getAbsoluteFile().getParentFile());
+			validBytes = HEADER_SIZE;
+		}
+		else if(validBytes < file.length()){
+			RandomAccessFile torn = new RandomAccessFile(file, "rw");
+			try{
+				torn.setLength(validBytes);
+			}finally{
+				torn.close();
+			}
+		}
+		openLog(validBytes);
+		if(syncPolicy == SyncPolicy.INTERVAL){
+			startFlusher();
+		}
+	}
+	
+	/**
+	 * Starts the daemon thread that syncs writes made during
+	 * an interval if no later write has synced them.
+	 */
+	private void startFlusher(){
+		flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory(){
+			public Thread newThread(Runnable runnable){
+				Thread thread = new Thread(runnable, "kvs-flusher-"+name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), syncIntervalNanos);
+		flusher.scheduleWithFixedDelay(new Runnable(){
+			public void run(){
+				if(closed || !hasUnsyncedWrites() || System.nanoTime() - lastSyncTime < syncIntervalNanos){
+					return;
+				}
+				try{
+					sync();
+				}catch(IOException e){
+					//syncTo() recorded the failure for the next write, and a sync
+					//racing with close() fails harmlessly. Never let an exception
+					//end the scheduled syncs.
+				}
+			}
+		}, period, period, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Returns the name of this KeyValueStore.
+	 * @return The name of this store.
+	 */
+	public String getName(){
+		return name;
+	}
+	
+	/**
+	 * Returns the file in which this KeyValueStore is kept.
+	 * @return The file of this store or {@code null} if it is only kept in memory.
+	 */
+	public File getFile(){
+		return file;
+	}
+	
+	/**
+	 * Returns the estimated heap memory used by the entries of this KeyValueStore.
+	 * Each entry is counted as {@link #ENTRY_OVERHEAD} bytes plus two bytes for
+	 * every character of its key and value.
+	 * @return The estimated memory usage in bytes.
+	 */
+	public long getMemoryUsage(){
+		return memoryUsage.get();
+	}
+	
+	/**
+	 * Returns the size of the file of this KeyValueStore.
+	 * @return The size of the file in bytes or {@code 0} if this store is
+	 * only kept in memory.
+	 */
+	public long getFileSize(){
+		logLock.lock();
+		try{
+			return logSize;
+		}finally{
+			logLock.unlock();
+		}
+	}
+	
+	/**
+	 * Indicates whether records have been written to the file of this
+	 * KeyValueStore since it was last synced.
+	 * @return {@code true} if a crash could lose writes, {@code false} otherwise.
+	 */
+	boolean hasUnsyncedWrites(){
+		logLock.lock();
+		try{
+			return writtenRecords > syncedRecords;
+		}finally{
+			logLock.unlock();
+		}
+	}
+	
+	/**
+	 * Sets the {@link EventFiringManager} through which this KeyValueStore fires
+	 * {@link KeyValueChangeEvent} objects after its entries change.
+	 * Single-entry writes fire a {@link KeyValueEntryChangeEvent}, while
+	 * {@link #putAll(Map)} and {@link #clear()} fire one {@link KeyValueBatchChangeEvent}.
+	 * Writes that do not change a value fire no event. Events are fired after the
+	 * write locks have been released, so listeners may write to this store.
+	 * @param eventManager The EventFiringManager to be used or {@code null} to fire
+	 * no events.
+	 */
+	public void setEventFiringManager(EventFiringManager eventManager){
+		this.eventManager = eventManager;
+	}
+	
+	/**
+	 * Returns the {@link EventFiringManager} through which this KeyValueStore fires events.
+	 * @return The EventFiringManager of this store or {@code null} if it fires no events.
+	 * @see #setEventFiringManager(EventFiringManager)
+	 */
+	public EventFiringManager getEventFiringManager(){
+		return eventManager;
+	}
+	
+	public String get(Object key){
+		return entries.get(key);
+	}
+	
+	public boolean containsKey(Object key){
+		return entries.containsKey(key);
+	}
+	
+	public boolean containsValue(Object value){
+		return entries.containsValue(value);
+	}
+	
+	public int size(){
+		return entries.size();
+	}
+	
+	public boolean isEmpty(){
+		return entries.isEmpty();
+	}
+	
+	/**
+	 * Associates {@code value} with {@code key} and records the write in the
+	 * file of this store.
+	 * @param key The key.
+	 * @param value The new value of {@code key}.
+	 * @return The previous value of {@code key} or {@code null} if it had none.
+	 * @throws NullPointerException If {@code key} or {@code value} is {@code null}.
+	 * @throws IllegalStateException If the write cannot be recorded because this
+	 * store has been closed or its file cannot be written.
+	 */
+	public String put(String key, String value){
+		String previous = write(key, value);
+		fireChange(key, previous, value);
+		return previous;
+	}
+	
+	/**
+	 * Copies every entry of {@code map} into this KeyValueStore.
+	 * Only one {@link KeyValueBatchChangeEvent} is fired for all of the changed
+	 * entries.
+	 * @param map The entries to be stored.
+	 * @throws NullPointerException If {@code map} contains a {@code null} key or value.
+	 * Entries before the {@code null} entry are stored.
+	 * @throws IllegalStateException If a write cannot be recorded because this
+	 * store has been closed or its file cannot be written.
+	 */
+	public void putAll(Map<? extends String, ? extends String> map){
+		boolean fire = eventManager != null;
+		Map<String, String> previousValues = fire ? new HashMap<String, String>() : null;
+		Map<String, String> newValues = fire ? new HashMap<String, String>() : null;
+		try{
+			for(Map.Entry<? extends String, ? extends String> entry : map.entrySet()){
+				String key = entry.getKey();
+				String value = entry.getValue();
+				String previous = write(key, value);
+				if(fire && !value.equals(previous)){
+					previousValues.put(key, previous);
+					newValues.put(key, value);
+				}
+			}
+		}finally{
+			if(fire && !newValues.isEmpty()){
+				fireEvent(new KeyValueBatchChangeEvent(name, previousValues, newValues));
+			}
+		}
+	}
+	
+	public String putIfAbsent(String key, String value){
+		checkNotNull(key, value);
+		String previous;
+		Lock lock = stripe(key);
+		lock.lock();
+		try{
+			previous = entries.get(key);
+			if(previous == null){
+				append(PUT, key, value);
+				entries.put(key, value);
+				account(key, null, value);
+			}
+		}finally{
+			lock.unlock();
+		}
+		if(previous == null){
+			compactIfNeeded();
+			fireChange(key, null, value);
+		}
+		return previous;
+	}
+	
+	public String replace(String key, String value){
+		checkNotNull(key, value);
+		String previous;
+		Lock lock = stripe(key);
+		lock.lock();
+		try{
+			previous = entries.get(key);
+			if(previous != null){
+				append(PUT, key, value);
+				entries.put(key, value);
+				account(key, previous, value);
+			}
+		}finally{
+			lock.unlock();
+		}
+		if(previous != null){
+			compactIfNeeded();
+			fireChange(key, previous, value);
+		}
+		return previous;
+	}
+	
+	public boolean replace(String key, String oldValue, String newValue){
+		checkNotNull(key, newValue);
+		String previous;
+		Lock lock = stripe(key);
+		lock.lock();
+		try{
+			previous = entries.get(key);
+			if(previous == null || !previous.equals(oldValue)){
+				return false;
+			}
+			append(PUT, key, newValue);
+			entries.put(key, newValue);
+			account(key, previous, newValue);
+		}finally{
+			lock.unlock();
+		}
+		compactIfNeeded();
+		fireChange(key, previous, newValue);
+		return true;
+	}
+	
+	public String remove(Object key){
+		if(!(key instanceof String)){
+			return null;
+		}
+		String previous;
+		Lock lock = stripe((String) key);
+		lock.lock();
+		try{
+			previous = entries.get(key);
+			if(previous != null){
+				append(REMOVE, (String) key, null);
+				entries.remove(key);
+				account((String) key, previous, null);
+			}
+		}finally{
+			lock.unlock();
+		}
+		if(previous != null){
+			compactIfNeeded();
+			fireChange((String) key, previous, null);
+		}
+		return previous;
+	}
+	
+	public boolean remove(Object key, Object value){
+		if(!(key instanceof String) || value == null){
+			return false;
+		}
+		String previous;
+		Lock lock = stripe((String) key);
+		lock.lock();
+		try{
+			previous = entries.get(key);
+			if(previous == null || !previous.equals(value)){
+				return false;
+			}
+			append(REMOVE, (String) key, null);
+			entries.remove(key);
+			account((String) key, previous, null);
+		}finally{
+			lock.unlock();
+		}
+		compactIfNeeded();
+		fireChange((String) key, previous, null);
+		return true;
+	}
+	
+	/**
+	 * Removes every entry from this KeyValueStore. Writes are blocked while
+	 * the entries are removed. Only one {@link KeyValueBatchChangeEvent} is
+	 * fired for all of the removed entries.
+	 * @throws IllegalStateException If the write cannot be recorded because this
+	 * store has been closed or its file cannot be written.
+	 */
+	public void clear(){
+		Map<String, String> previousValues = null;
+		lockAll();
+		try{
+			append(CLEAR, null, null);
+			if(eventManager != null){
+				previousValues = new HashMap<String, String>(entries);
+			}
+			entries.clear();
+			memoryUsage.set(0);
+			liveBytes.set(0);
+		}finally{
+			unlockAll();
+		}
+		if(previousValues != null && !previousValues.isEmpty()){
+			Map<String, String> newValues = new HashMap<String, String>();
+			for(String key : previousValues.keySet()){
+				newValues.put(key, null);
+			}
+			fireEvent(new KeyValueBatchChangeEvent(name, previousValues, newValues));
+		}
+	}
+	
+	/**
+	 * Returns a {@link Set} view of the entries of this KeyValueStore.
+	 * Changes made through the view, including {@link Map.Entry#setValue(Object)},
+	 * are written to this store. Iterators of the view never throw
+	 * {@link java.util.ConcurrentModificationException ConcurrentModificationException}.
+	 * @return A Set view of the entries of this store.
+	 */
+	public Set<Map.Entry<String, String>> entrySet(){
+		return new EntrySet();
+	}
+	
+	/**
+	 * Writes buffered records to the file of this KeyValueStore and forces
+	 * them to disk.
+	 * @throws IOException If the file cannot be written or synced, or if an
+	 * earlier sync failed.
+	 */
+	public void sync() throws IOException{
+		long target;
+		logLock.lock();
+		try{
+			target = writtenRecords;
+		}finally{
+			logLock.unlock();
+		}
+		syncTo(target);
+	}
+	
+	/**
+	 * Writes and forces every record up to the {@code record}-th record of this
+	 * store's file to disk. If another thread is already syncing, this thread waits
+	 * for it and then only syncs if its record was not covered (group commit).
+	 * The file is synced without holding the log lock, so other writers can keep
+	 * adding records to the buffer meanwhile.
+	 * @param record The number of the record that must be synced.
+	 * @throws IOException If the file cannot be written or synced, or if an
+	 * earlier sync failed.
+	 */
+	private void syncTo(long record) throws IOException{
+		if(file == null || syncedRecords >= record){
+			return;
+		}
+		syncLock.lock();
+		try{
+			while(syncedRecords < record){
+				long target;
+				logLock.lock();
+				try{
+					if(closed){
+						return;
+					}
+					checkSyncFailure();
+					target = writtenRecords;
+					try{
+						log.flush();
+					}catch(IOException e){
+						throw recordSyncFailure(e);
+					}
+				}finally{
+					logLock.unlock();
+				}
+				try{
+					logFile.getFD().sync();
+				}catch(IOException e){
+					throw recordSyncFailure(e);
+				}
+				syncedRecords = target;
+				lastSyncTime = System.nanoTime();
+			}
+		}finally{
+			syncLock.unlock();
+		}
+	}
+	
+	/**
+	 * Remembers the first failed sync of this store.
+	 * @param failure The IOException thrown by the sync.
+	 * @return {@code failure}, so that it can be thrown.
+	 */
+	private IOException recordSyncFailure(IOException failure){
+		syncFailure.compareAndSet(null, failure);
+		return failure;
+	}
+	
+	/**
+	 * Throws an IOException if a sync of this store has failed.
+	 * @throws IOException If a sync has failed. The cause is the first failure.
+	 */
+	private void checkSyncFailure() throws IOException{
+		IOException failure = syncFailure.get();
+		if(failure != null){
+			throw new IOException("An earlier sync of the key-value store \""+name+"\" failed.", failure);
+		}
+	}
+	
+	/**
+	 * Rewrites the file of this KeyValueStore with one record per entry.
+	 * Writes are blocked while the file is rewritten. Reads are not.
+	 * This method does nothing if this store is only kept in memory.
+	 * @throws IOException If the file cannot be rewritten.
+	 */
+	public void compact() throws IOException{
+		if(file == null){
+			return;
+		}
+		lockAll();
+		syncLock.lock();
+		logLock.lock();
+		try{
+			if(closed){
+				throw new IOException("The key-value store \""+name+"\" is closed.");
+			}
+			checkSyncFailure();
+			try{
+				log.flush();
+			}catch(IOException e){
+				throw recordSyncFailure(e);
+			}
+			File temporary = new File(file.getPath()+".tmp");
+			long size = writeFile(temporary);
+			log.close();
+			try{
+				Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				FileSync.syncDirectory(file.getAbsoluteFile().getParentFile());
+			}catch(IOException e){
+				openLog(logSize);
+				throw new IOException("Cannot replace key-value store file "+file+".", e);
+			}
+			openLog(size);
+			//Every entry is in the new file, which writeFile() synced.
+			syncedRecords = writtenRecords;
+		}finally{
+			logLock.unlock();
+			syncLock.unlock();
+			unlockAll();
+		}
+	}
+	
+	/**
+	 * Closes the file of this KeyValueStore after writing and syncing every
+	 * record and stops its sync thread, if any. The entries remain readable,
+	 * but writes fail with an {@link IllegalStateException}.
+	 * @throws IOException If the file cannot be written, or if an earlier sync
+	 * failed. The file is closed in every case.
+	 */
+	public void close() throws IOException{
+		if(flusher != null){
+			flusher.shutdown();
+		}
+		syncLock.lock();
+		logLock.lock();
+		try{
+			if(closed){
+				return;
+			}
+			closed = true;
+			if(log != null){
+				try{
+					checkSyncFailure();
+					log.flush();
+					logFile.getFD().sync();
+					syncedRecords = writtenRecords;
+				}catch(IOException e){
+					//Closing would try to write the buffer again.
+					logFile.close();
+					throw recordSyncFailure(e);
+				}
+				log.close();
+			}
+		}finally{
+			logLock.unlock();
+			syncLock.unlock();
+		}
+	}
+	
+	/**
+	 * Associates {@code value} with {@code key} without firing an event.
+	 * @param key The key.
+	 * @param value The new value of {@code key}.
+	 * @return The previous value of {@code key} or {@code null} if it had none.
+	 * @throws NullPointerException If {@code key} or {@code value} is {@code null}.
+	 * @throws IllegalStateException If the write cannot be recorded.
+	 */
+	private String write(String key, String value){
+		checkNotNull(key, value);
+		Lock lock = stripe(key);
+		String previous;
+		lock.lock();
+		try{
+			append(PUT, key, value);
+			previous = entries.put(key, value);
+			account(key, previous, value);
+		}finally{
+			lock.unlock();
+		}
+		compactIfNeeded();
+		return previous;
+	}
+	
+	/**
+	 * Fires a {@link KeyValueEntryChangeEvent} for a changed entry, unless
+	 * this store fires no events or the value did not change.
+	 * @param key The key of the entry.
+	 * @param previous The previous value or {@code null} if the entry was added.
+	 * @param value The new value or {@code null} if the entry was removed.
+	 */
+	private void fireChange(String key, String previous, String value){
+		if(eventManager != null && (previous == null || !previous.equals(value))){
+			fireEvent(new KeyValueEntryChangeEvent(name, key, previous, value));
+		}
+	}
+	
+	/**
+	 * Fires an event through the {@link EventFiringManager} of this store.
+	 * The event is fired asynchronously and writers do not wait for listeners.
+	 * @param event The event to be fired.
+	 */
+	private void fireEvent(KeyValueChangeEvent event){
+		EventFiringManager manager = eventManager;
+		if(manager != null){
+			manager.fireEvent(event);
+		}
+	}
+	
+	/**
+	 * Returns the write lock of a key.
+	 * @param key The key.
+	 * @return The Lock guarding writes of {@code key}.
+	 */
+	private Lock stripe(String key){
+		int hash = key.hashCode();
+		hash ^= hash >>> 16;
+		return stripes[hash & (STRIPES - 1)];
+	}
+	
+	/**
+	 * Acquires every write lock, in order.
+	 */
+	private void lockAll(){
+		for(Lock lock : stripes){
+			lock.lock();
+		}
+	}
+	
+	/**
+	 * Releases every write lock.
+	 */
+	private void unlockAll(){
+		for(int i = stripes.length - 1; i >= 0; i--){
+			stripes[i].unlock();
+		}
+	}
+	
+	/**
+	 * Checks a key and value before they are written.
+	 * @param key The key.
+	 * @param value The value.
+	 * @throws NullPointerException If {@code key} or {@code value} is {@code null}.
+	 */
+	private static void checkNotNull(String key, String value){
+		if(key == null || value == null){
+			throw new NullPointerException("Key-value stores cannot contain null keys or values.");
+		}
+	}
+	
+	/**
+	 * Updates the memory and file accounting after an entry changed.
+	 * @param key The key of the entry.
+	 * @param previous The previous value or {@code null} if the entry was added.
+	 * @param value The new value or {@code null} if the entry was removed.
+	 */
+	private void account(String key, String previous, String value){
+		long memory = 0;
+		long bytes = 0;
+		if(previous != null){
+			memory -= entrySize(key, previous);
+			bytes -= file == null ? 0 : recordSize(key, previous);
+		}
+		if(value != null){
+			memory += entrySize(key, value);
+			bytes += file == null ? 0 : recordSize(key, value);
+		}
+		memoryUsage.addAndGet(memory);
+		liveBytes.addAndGet(bytes);
+	}
+	
+	/**
+	 * Returns the estimated memory used by an entry.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 * @return The estimated size of the entry in bytes.
+	 */
+	private static long entrySize(String key, String value){
+		return ENTRY_OVERHEAD + 2L * (key.length() + value.length());
+	}
+	
+	/**
+	 * Returns the size of the record of an entry in a compacted file.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 * @return The size of the record in bytes.
+	 */
+	private static long recordSize(String key, String value){
+		return RECORD_HEADER_SIZE + 9 + utf8Length(key) + utf8Length(value);
+	}
+	
+	/**
+	 * Returns the number of bytes in the UTF-8 encoding of a String.
+	 * @param value The String.
+	 * @return The length of the encoded String.
+	 */
+	private static long utf8Length(String value){
+		long length = 0;
+		for(int i = 0; i < value.length(); i++){
+			char c = value.charAt(i);
+			if(c < 0x80){
+				length += 1;
+			}
+			else if(c < 0x800){
+				length += 2;
+			}
+			else if(Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))){
+				length += 4;
+				i++;
+			}
+			else{
+				length += 3;
+			}
+		}
+		return length;
+	}
+	
+	/**
+	 * Appends a record to the file of this KeyValueStore, if it has one.
+	 * The record is encoded before the log lock is taken and only copied into the
+	 * buffer while it is held. If the {@link SyncPolicy} requires it, this method
+	 * then waits until the record is synced.
+	 * The caller must hold the write lock of {@code key}, or every write lock.
+	 * @param operation The operation of the record.
+	 * @param key The key of the record or {@code null} for {@link #CLEAR}.
+	 * @param value The value of the record or {@code null} if it has none.
+	 * @throws IllegalStateException If this store has been closed or its file
+	 * cannot be written.
+	 */
+	private void append(byte operation, String key, String value){
+		if(closed){
+			throw new IllegalStateException("The key-value store \""+name+"\" is closed.");
+		}
+		if(file == null){
+			return;
+		}
+		try{
+			byte[] payload = encode(operation, key, value);
+			int checksum = checksum(payload);
+			long record;
+			logLock.lock();
+			try{
+				if(closed){
+					throw new IllegalStateException("The key-value store \""+name+"\" is closed.");
+				}
+				checkSyncFailure();
+				try{
+					//The buffer writes to the file by itself only when it is full.
+					log.writeInt(payload.length);
+					log.writeInt(checksum);
+					log.write(payload);
+				}catch(IOException e){
+					throw recordSyncFailure(e);
+				}
+				logSize += RECORD_HEADER_SIZE + payload.length;
+				record = ++writtenRecords;
+			}finally{
+				logLock.unlock();
+			}
+			if(syncPolicy == SyncPolicy.ALWAYS || (syncPolicy == SyncPolicy.INTERVAL && System.nanoTime() - lastSyncTime >= syncIntervalNanos)){
+				syncTo(record);
+			}
+		}catch(IOException e){
+			throw new IllegalStateException("Cannot write the key-value store \""+name+"\".", e);
+		}
+	}
+	
+	/**
+	 * Compacts the file of this KeyValueStore if it has grown past
+	 * {@link #MIN_COMPACTION_SIZE} and is more than twice as large as needed.
+	 * This method is called after a successful write and must be called without
+	 * holding a write lock. The write has already been recorded, so a failed
+	 * compaction is logged instead of thrown and is not retried until the file
+	 * has grown by another {@link #MIN_COMPACTION_SIZE}.
+	 */
+	private void compactIfNeeded(){
+		if(file == null){
+			return;
+		}
+		long size;
+		logLock.lock();
+		try{
+			if(closed || logSize < failedCompactionSize + MIN_COMPACTION_SIZE){
+				return;
+			}
+			size = logSize;
+		}finally{
+			logLock.unlock();
+		}
+		if(size > MIN_COMPACTION_SIZE && size > 2 * (HEADER_SIZE + liveBytes.get())){
+			try{
+				compact();
+			}catch(IOException e){
+				logLock.lock();
+				try{
+					failedCompactionSize = logSize;
+				}finally{
+					logLock.unlock();
+				}
+				Logger.getLogger(KeyValueStore.class.getName()).log(Level.WARNING, "Cannot compact the key-value store \""+name+"\".", e);
+			}
+		}
+	}
+	
+	/**
+	 * Writes a complete store file containing one record per entry.
+	 * The caller must hold every write lock or be the constructor.
+	 * @param target The file to be written.
+	 * @return The size of the written file in bytes.
+	 * @throws IOException If the file cannot be written.
+	 */
+	private long writeFile(File target) throws IOException{
+		FileOutputStream fileOut = new FileOutputStream(target);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+		try{
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			for(Map.Entry<String, String> entry : entries.entrySet()){
+				byte[] payload = encode(PUT, entry.getKey(), entry.getValue());
+				out.writeInt(payload.length);
+				out.writeInt(checksum(payload));
+				out.write(payload);
+			}
+			out.flush();
+			fileOut.getFD().sync();
+			return out.size();
+		}finally{
+			out.close();
+		}
+	}
+	
+	/**
+	 * Opens the file of this KeyValueStore for appending.
+	 * @param size The size of the file in bytes.
+	 * @throws IOException If the file cannot be opened.
+	 */
+	private void openLog(long size) throws IOException{
+		logFile = new FileOutputStream(file, true);
+		log = new DataOutputStream(new BufferedOutputStream(logFile, BUFFER_SIZE));
+		logSize = size;
+		lastSyncTime = System.nanoTime();
+	}
+	
+	/**
+	 * Replays the records of the file of this KeyValueStore.
+	 * @return The number of bytes in the file up to the end of the last valid record.
+	 * @throws IOException If the file cannot be read or is not a KeyValueStore file.
+	 */
+	private long replay() throws IOException{
+		long length = file.length();
+		if(length < HEADER_SIZE){
+			return 0;
+		}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try{
+			if(in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION){
+				throw new IOException(file+" is not a key-value store file.");
+			}
+			long validBytes = HEADER_SIZE;
+			while(validBytes + RECORD_HEADER_SIZE <= length){
+				int payloadLength = in.readInt();
+				int checksum = in.readInt();
+				if(payloadLength < 1 || validBytes + RECORD_HEADER_SIZE + payloadLength > length){
+					break;
+				}
+				byte[] payload = new byte[payloadLength];
+				in.readFully(payload);
+				if(checksum != checksum(payload)){
+					break;
+				}
+				apply(payload);
+				validBytes += RECORD_HEADER_SIZE + payloadLength;
+			}
+			return validBytes;
+		}finally{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Applies a replayed record to the entries of this KeyValueStore.
+	 * @param payload The payload of the record.
+	 * @throws IOException If the record cannot be decoded.
+	 */
+	private void apply(byte[] payload) throws IOException{
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		byte operation = in.readByte();
+		if(operation == CLEAR){
+			entries.clear();
+			memoryUsage.set(0);
+			liveBytes.set(0);
+			return;
+		}
+		String key = ChangeCodec.readString(in);
+		if(operation == PUT){
+			String value = ChangeCodec.readString(in);
+			account(key, entries.put(key, value), value);
+		}
+		else if(operation == REMOVE){
+			String previous = entries.remove(key);
+			if(previous != null){
+				account(key, previous, null);
+			}
+		}
+		else{
+			throw new IOException("Unknown key-value store operation "+operation+".");
+		}
+	}
+	
+	/**
+	 * Encodes the payload of a record.
+	 * @param operation The operation of the record.
+	 * @param key The key or {@code null} if the record has none.
+	 * @param value The value or {@code null} if the record has none.
+	 * @return The encoded payload.
+	 * @throws IOException If encoding fails.
+	 */
+	private static byte[] encode(byte operation, String key, String value) throws IOException{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(operation);
+		if(key != null){
+			ChangeCodec.writeString(out, key);
+		}
+		if(value != null){
+			ChangeCodec.writeString(out, value);
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * Computes the CRC-32 checksum of a record payload.
+	 * @param payload The payload.
+	 * @return The checksum of {@code payload}.
+	 */
+	private static int checksum(byte[] payload){
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		return (int) crc.getValue();
+	}
+	
+	/**
+	 * The {@link Set} view returned by {@link KeyValueStore#entrySet()}.
+	 */
+	private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+		
+		public Iterator<Map.Entry<String, String>> iterator(){
+			final Iterator<Map.Entry<String, String>> iterator = entries.entrySet().iterator();
+			return new Iterator<Map.Entry<String, String>>(){
+				private Map.Entry<String, String> current;
+				
+				public boolean hasNext(){
+					return iterator.hasNext();
+				}
+				
+				public Map.Entry<String, String> next(){
+					current = iterator.next();
+					return new StoreEntry(current.getKey(), current.getValue());
+				}
+				
+				public void remove(){
+					if(current == null){
+						throw new IllegalStateException();
+					}
+					KeyValueStore.this.remove(current.getKey());
+					current = null;
+				}
+			};
+		}
+		
+		public int size(){
+			return entries.size();
+		}
+		
+		public boolean contains(Object obj){
+			if(!(obj instanceof Map.Entry)){
+				return false;
+			}
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+			String value = entries.get(entry.getKey());
+			return value != null && value.equals(entry.getValue());
+		}
+		
+		public boolean remove(Object obj){
+			if(!(obj instanceof Map.Entry)){
+				return false;
+			}
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+			return KeyValueStore.this.remove(entry.getKey(), entry.getValue());
+		}
+		
+		public void clear(){
+			KeyValueStore.this.clear();
+		}
+	}
+	
+	/**
+	 * An entry returned by the iterators of {@link EntrySet}.
+	 * {@link #setValue(String)} writes the new value to the store.
+	 */
+	@SuppressWarnings("serial")
+	private final class StoreEntry extends AbstractMap.SimpleEntry<String, String> {
+		
+		/**
+		 * Constructs a new StoreEntry.
+		 * @param key The key of the entry.
+		 * @param value The value of the entry when it was read.
+		 */
+		StoreEntry(String key, String value){
+			super(key, value);
+		}
+		
+		public String setValue(String value){
+			super.setValue(value);
+			return put(getKey(), value);
+		}
+	}
+}
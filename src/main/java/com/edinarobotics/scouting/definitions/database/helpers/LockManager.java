@@ -0,0 +1,228 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import com.edinarobotics.scouting.definitions.database.changes.BulkRowInsertionChange;
+import com.edinarobotics.scouting.definitions.database.changes.Change;
+import com.edinarobotics.scouting.definitions.database.changes.EntryEditChange;
+import com.edinarobotics.scouting.definitions.database.changes.RowInsertionChange;
+import com.edinarobotics.scouting.definitions.database.changes.Transaction;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.RowReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+
+/**
+ * This class provides table and row locks that
+ * {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * implementations can use instead of a single lock around
+ * {@link com.edinarobotics.scouting.definitions.database.Database#executeTransaction(Transaction)
+ * executeTransaction(Transaction)}.
+ * <br/>
+ * Locks are striped: a fixed number of {@link ReadWriteLock} objects is shared
+ * by all tables and another fixed number by all rows. Each {@link TableReference}
+ * and {@link RowReference} always maps to the same stripe, so memory use does not
+ * grow with the size of the Database. Two unrelated tables or rows that map to the
+ * same stripe may occasionally wait for each other, but they are never applied
+ * incorrectly.
+ * <br/>
+ * Locks are taken through {@link LockSet} objects, which acquire all of their
+ * stripes in a single global order (tables before rows, each in ascending stripe
+ * order). Because every LockSet follows the same order, LockSets cannot deadlock
+ * with each other.
+ * <br/>
+ * Writing or inserting a row takes a {@link LockMode#SHARED} lock on its table and an
+ * {@link LockMode#EXCLUSIVE} lock on the row. Changes to a whole table take an
+ * exclusive lock on the table. This allows transactions on different tables (and
+ * on different rows of the same table) to run in parallel.
+ */
+public class LockManager {
+	/**
+	 * The number of stripes used by {@link #LockManager()}.
+	 */
+	public static final int DEFAULT_STRIPES = 64;
+	
+	private final ReadWriteLock[] tableLocks;
+	private final ReadWriteLock[] rowLocks;
+	
+	/**
+	 * Constructs a new LockManager with {@link #DEFAULT_STRIPES} table stripes
+	 * and {@link #DEFAULT_STRIPES} row stripes.
+	 */
+	public LockManager(){
+		this(DEFAULT_STRIPES);
+	}
+	
+	/**
+	 * Constructs a new LockManager with {@code stripes} table stripes and
+	 * {@code stripes} row stripes.
+	 * @param stripes The number of lock stripes used for tables and for rows.
+	 * More stripes reduce false sharing at the cost of memory.
+	 * @throws IllegalArgumentException If {@code stripes} is less than 1.
+	 */
+	public LockManager(int stripes){
+		if(stripes < 1){
+			throw new IllegalArgumentException("A LockManager needs at least one stripe.");
+		}
+		tableLocks = new ReadWriteLock[stripes];
+		rowLocks = new ReadWriteLock[stripes];
+		for(int i = 0; i < stripes; i++){
+			tableLocks[i] = new ReentrantReadWriteLock();
+			rowLocks[i] = new ReentrantReadWriteLock();
+		}
+	}
+	
+	/**
+	 * Returns the number of table stripes (which is equal to the number of
+	 * row stripes) of this LockManager.
+	 * @return The number of stripes.
+	 */
+	public int getStripeCount(){
+		return tableLocks.length;
+	}
+	
+	/**
+	 * Creates a new, empty {@link LockSet} using the locks of this LockManager.
+	 * @return A new LockSet containing no locks.
+	 */
+	public LockSet newLockSet(){
+		return new LockSet(this);
+	}
+	
+	/**
+	 * Creates a new {@link LockSet} containing the locks needed to apply
+	 * {@code transaction}, without knowing the primary key columns of its tables.
+	 * Row insertions therefore lock their table in {@link LockMode#EXCLUSIVE} mode.
+	 * The LockSet is not acquired.
+	 * @param transaction The {@link Transaction} to be applied.
+	 * @return A new LockSet for {@code transaction}.
+	 * @see #getLockSet(Transaction, Map)
+	 */
+	public LockSet getLockSet(Transaction transaction){
+		return getLockSet(transaction, Collections.<TableReference, ColumnReference>emptyMap());
+	}
+	
+	/**
+	 * Creates a new {@link LockSet} containing the locks needed to apply
+	 * {@code transaction}. The LockSet is not acquired.
+	 * <br/>
+	 * {@link EntryEditChange} objects lock their table in {@link LockMode#SHARED}
+	 * mode and their row in {@link LockMode#EXCLUSIVE} mode.
+	 * {@link RowInsertionChange} and {@link BulkRowInsertionChange} objects do the
+	 * same for every inserted row, so that concurrent insertions of the same primary
+	 * key value are serialized. Rows inserted without a primary key value get a new
+	 * value from the Database and lock only their table. If the primary key column of
+	 * a table is not given in {@code primaryKeyColumns}, insertions into it lock the
+	 * table in exclusive mode instead.
+	 * All other Change objects (bulk edits, bulk deletions and schema changes) lock
+	 * their table in exclusive mode.
+	 * @param transaction The {@link Transaction} to be applied.
+	 * @param primaryKeyColumns A {@link Map} from the tables of the Database to their
+	 * primary key columns.
+	 * @return A new LockSet for {@code transaction}.
+	 */
+	public LockSet getLockSet(Transaction transaction, Map<TableReference, ColumnReference> primaryKeyColumns){
+		LockSet lockSet = newLockSet();
+		for(Change change : transaction.getChanges()){
+			TableReference tableRef = change.getTargetTableReference();
+			ColumnReference primaryKey = primaryKeyColumns.get(tableRef);
+			if(change instanceof EntryEditChange){
+				lockSet.addTable(tableRef, LockMode.SHARED);
+				lockSet.addRow(((EntryEditChange) change).getTargetRowReference(), LockMode.EXCLUSIVE);
+			}
+			else if(change instanceof RowInsertionChange && primaryKey != null){
+				lockSet.addTable(tableRef, LockMode.SHARED);
+				addInsertedRow(lockSet, tableRef, ((RowInsertionChange) change).getValues().get(primaryKey));
+			}
+			else if(change instanceof BulkRowInsertionChange && primaryKey != null){
+				BulkRowInsertionChange bulkInsertion = (BulkRowInsertionChange) change;
+				lockSet.addTable(tableRef, LockMode.SHARED);
+				if(bulkInsertion.getColumnReferences().contains(primaryKey)){
+					for(Data value : bulkInsertion.getColumnValues(primaryKey)){
+						addInsertedRow(lockSet, tableRef, value);
+					}
+				}
+			}
+			else{
+				lockSet.addTable(tableRef, LockMode.EXCLUSIVE);
+			}
+		}
+		return lockSet;
+	}
+	
+	/**
+	 * Adds the row lock of an inserted row to a {@link LockSet}.
+	 * @param lockSet The LockSet.
+	 * @param tableRef The {@link TableReference} of the table containing the row.
+	 * @param primaryKey The primary key value of the row, or {@code null} if the
+	 * Database assigns it.
+	 */
+	private static void addInsertedRow(LockSet lockSet, TableReference tableRef, Data primaryKey){
+		if(primaryKey instanceof Integer){
+			lockSet.addRow(tableRef, ((Integer) primaryKey).longValue(), LockMode.EXCLUSIVE);
+		}
+	}
+	
+	/**
+	 * Returns the table stripe index of a {@link TableReference}.
+	 * @param tableRef The TableReference to be located.
+	 * @return The index of the stripe guarding {@code tableRef}.
+	 */
+	int getTableStripe(TableReference tableRef){
+		return stripeOf(tableRef.hashCode(), tableLocks.length);
+	}
+	
+	/**
+	 * Returns the row stripe index of a {@link RowReference}.
+	 * @param rowRef The RowReference to be located.
+	 * @return The index of the stripe guarding {@code rowRef}.
+	 */
+	int getRowStripe(RowReference rowRef){
+		return stripeOf(rowRef.hashCode(), rowLocks.length);
+	}
+	
+	/**
+	 * Returns the row stripe index of a row. The result is the same as
+	 * for the {@link RowReference} {@code tableRef+"#"+primaryKey}.
+	 * @param tableRef The {@link TableReference} of the table containing the row.
+	 * @param primaryKey The primary key value of the row.
+	 * @return The index of the stripe guarding the row.
+	 */
+	int getRowStripe(TableReference tableRef, long primaryKey){
+		return stripeOf((tableRef.getTableName()+"#"+primaryKey).hashCode(), rowLocks.length);
+	}
+	
+	/**
+	 * Returns the lock of a table stripe.
+	 * @param stripe The index of the table stripe.
+	 * @return The ReadWriteLock of the stripe.
+	 */
+	ReadWriteLock getTableLock(int stripe){
+		return tableLocks[stripe];
+	}
+	
+	/**
+	 * Returns the lock of a row stripe.
+	 * @param stripe The index of the row stripe.
+	 * @return The ReadWriteLock of the stripe.
+	 */
+	ReadWriteLock getRowLock(int stripe){
+		return rowLocks[stripe];
+	}
+	
+	/**
+	 * Maps a hash code to a stripe index. The hash code is spread so that
+	 * keys differing only in their high bits use different stripes.
+	 * @param hash The hash code to be mapped.
+	 * @param stripes The number of stripes.
+	 * @return A stripe index between {@code 0} and {@code stripes - 1}.
+	 */
+	private static int stripeOf(int hash, int stripes){
+		hash ^= (hash >>> 20) ^ (hash >>> 12);
+		hash ^= (hash >>> 7) ^ (hash >>> 4);
+		return (hash & 0x7fffffff) % stripes;
+	}
+}
@@ -0,0 +1,33 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+/**
+ * The values in this enum represent the modes in which a {@link LockSet}
+ * can lock a table or row.
+ */
+public enum LockMode {
+	
+	/**
+	 * The table or row is read, or a row in the table is written.
+	 * Any number of shared locks can be held on the same table or row at once.
+	 */
+	SHARED,
+	
+	/**
+	 * The table or row is written as a whole.
+	 * An exclusive lock excludes every other lock on the same table or row.
+	 */
+	EXCLUSIVE;
+	
+	/**
+	 * Returns the stronger of this LockMode and {@code other}.
+	 * @param other The LockMode to be compared with this one.
+	 * @return {@link #EXCLUSIVE} if either mode is exclusive,
+	 * {@link #SHARED} otherwise.
+	 */
+	public LockMode combine(LockMode other){
+		if(this == EXCLUSIVE || other == EXCLUSIVE){
+			return EXCLUSIVE;
+		}
+		return SHARED;
+	}
+}
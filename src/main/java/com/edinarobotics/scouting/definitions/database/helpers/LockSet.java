@@ -0,0 +1,188 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import com.edinarobotics.scouting.definitions.database.references.RowReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+
+/**
+ * A LockSet is a group of table and row locks from a {@link LockManager}
+ * that are acquired and released together.
+ * <br/>
+ * Locks are acquired in the global order defined by {@link LockManager},
+ * so LockSets never deadlock with each other. If a table or row is added
+ * more than once, or two of them share a stripe, the strongest requested
+ * {@link LockMode} is used.
+ * <br/>
+ * A LockSet must be released by the thread that acquired it and is not
+ * reentrant. A typical use is:
+ * <pre>
+ * LockSet locks = lockManager.getLockSet(transaction);
+ * locks.acquire();
+ * try{
+ *     //Apply the transaction
+ * }finally{
+ *     locks.release();
+ * }
+ * </pre>
+ */
+public final class LockSet {
+	private final LockManager manager;
+	private final TreeMap<Integer, LockMode> tableStripes;
+	private final TreeMap<Integer, LockMode> rowStripes;
+	private final List<Lock> held;
+	
+	/**
+	 * Constructs a new, empty LockSet.
+	 * LockSets are created by {@link LockManager#newLockSet()}
+	 * and {@link LockManager#getLockSet(com.edinarobotics.scouting.definitions.database.changes.Transaction)}.
+	 * @param manager The LockManager providing the locks.
+	 */
+	LockSet(LockManager manager){
+		this.manager = manager;
+		this.tableStripes = new TreeMap<Integer, LockMode>();
+		this.rowStripes = new TreeMap<Integer, LockMode>();
+		this.held = new ArrayList<Lock>();
+	}
+	
+	/**
+	 * Adds a table lock to this LockSet.
+	 * @param tableRef The {@link TableReference} of the table to be locked.
+	 * @param mode The {@link LockMode} of the lock.
+	 * @throws IllegalStateException If this LockSet is currently held.
+	 */
+	public void addTable(TableReference tableRef, LockMode mode){
+		add(tableStripes, manager.getTableStripe(tableRef), mode);
+	}
+	
+	/**
+	 * Adds a row lock to this LockSet. Row locks should be used together
+	 * with a {@link LockMode#SHARED} lock on the table containing the row.
+	 * @param rowRef The {@link RowReference} of the row to be locked.
+	 * @param mode The {@link LockMode} of the lock.
+	 * @throws IllegalStateException If this LockSet is currently held.
+	 */
+	public void addRow(RowReference rowRef, LockMode mode){
+		add(rowStripes, manager.getRowStripe(rowRef), mode);
+	}
+	
+	/**
+	 * Adds a row lock to this LockSet. This is equivalent to
+	 * {@link #addRow(RowReference, LockMode)} with the row reference
+	 * {@code tableRef+"#"+primaryKey}, without parsing a reference string.
+	 * @param tableRef The {@link TableReference} of the table containing the row.
+	 * @param primaryKey The primary key value of the row to be locked.
+	 * @param mode The {@link LockMode} of the lock.
+	 * @throws IllegalStateException If this LockSet is currently held.
+	 */
+	public void addRow(TableReference tableRef, long primaryKey, LockMode mode){
+		add(rowStripes, manager.getRowStripe(tableRef, primaryKey), mode);
+	}
+	
+	/**
+	 * Adds a stripe to one of the stripe maps of this LockSet.
+	 * @param stripes The stripe map.
+	 * @param stripe The index of the stripe.
+	 * @param mode The requested LockMode.
+	 */
+	private void add(TreeMap<Integer, LockMode> stripes, int stripe, LockMode mode){
+		if(isHeld()){
+			throw new IllegalStateException("Cannot add locks to a LockSet that is held.");
+		}
+		LockMode current = stripes.get(stripe);
+		stripes.put(stripe, current == null ? mode : current.combine(mode));
+	}
+	
+	/**
+	 * Indicates whether or not this LockSet is currently held.
+	 * @return {@code true} if this LockSet has been acquired and
+	 * not yet released, {@code false} otherwise.
+	 */
+	public boolean isHeld(){
+		return !held.isEmpty();
+	}
+	
+	/**
+	 * Acquires every lock in this LockSet, waiting as long as necessary.
+	 * @throws InterruptedException If the current thread is interrupted while waiting.
+	 * No locks are held when this exception is thrown.
+	 * @throws IllegalStateException If this LockSet is already held.
+	 */
+	public void acquire() throws InterruptedException{
+		tryAcquire(-1, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Attempts to acquire every lock in this LockSet within the given timeout.
+	 * @param timeout The maximum time to wait. A negative value waits indefinitely.
+	 * @param unit The {@link TimeUnit} of {@code timeout}.
+	 * @return {@code true} if all locks were acquired, {@code false} if the
+	 * timeout elapsed. No locks are held if {@code false} is returned.
+	 * @throws InterruptedException If the current thread is interrupted while waiting.
+	 * No locks are held when this exception is thrown.
+	 * @throws IllegalStateException If this LockSet is already held.
+	 */
+	public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException{
+		if(isHeld()){
+			throw new IllegalStateException("This LockSet is already held.");
+		}
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		boolean success = false;
+		try{
+			for(Map.Entry<Integer, LockMode> entry : tableStripes.entrySet()){
+				if(!lock(manager.getTableLock(entry.getKey()), entry.getValue(), timeout < 0, deadline)){
+					return false;
+				}
+			}
+			for(Map.Entry<Integer, LockMode> entry : rowStripes.entrySet()){
+				if(!lock(manager.getRowLock(entry.getKey()), entry.getValue(), timeout < 0, deadline)){
+					return false;
+				}
+			}
+			success = true;
+			return true;
+		}finally{
+			if(!success){
+				release();
+			}
+		}
+	}
+	
+	/**
+	 * Acquires a single stripe lock and records it as held.
+	 * @param lock The ReadWriteLock of the stripe.
+	 * @param mode The LockMode in which the stripe is locked.
+	 * @param indefinitely {@code true} to wait without a timeout.
+	 * @param deadline The {@link System#nanoTime()} value at which to give up.
+	 * @return {@code true} if the lock was acquired, {@code false} otherwise.
+	 * @throws InterruptedException If the current thread is interrupted while waiting.
+	 */
+	private boolean lock(ReadWriteLock lock, LockMode mode, boolean indefinitely, long deadline) throws InterruptedException{
+		Lock target = mode == LockMode.EXCLUSIVE ? lock.writeLock() : lock.readLock();
+		if(indefinitely){
+			target.lockInterruptibly();
+		}
+		else if(!target.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)){
+			return false;
+		}
+		held.add(target);
+		return true;
+	}
+	
+	/**
+	 * Releases every lock held by this LockSet, in the reverse of the order in
+	 * which they were acquired. Calling this method on a LockSet that is not held
+	 * has no effect.
+	 */
+	public void release(){
+		for(int i = held.size() - 1; i >= 0; i--){
+			held.get(i).unlock();
+		}
+		held.clear();
+	}
+}
@@ -0,0 +1,24 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import com.edinarobotics.scouting.definitions.database.changes.Transaction;
+
+/**
+ * This interface receives the {@link Transaction} objects read back from
+ * a {@link WriteAheadLog} by {@link WriteAheadLog#replay(long, LogReplayHandler)}.
+ * Database implementations apply each Transaction as if it had just been
+ * executed, without logging it again.
+ */
+public interface LogReplayHandler {
+	
+	/**
+	 * Applies a single logged {@link Transaction}.
+	 * Transactions are passed to this method in the order they were appended.
+	 * @param sequenceNumber The sequence number assigned to the Transaction
+	 * when it was appended.
+	 * @param transaction The logged Transaction.
+	 * @throws Exception If the Transaction could not be applied. Replay stops
+	 * and {@link WriteAheadLog#replay(long, LogReplayHandler)} throws an
+	 * {@link java.io.IOException IOException} caused by this exception.
+	 */
+	public void replayTransaction(long sequenceNumber, Transaction transaction) throws Exception;
+}
@@ -0,0 +1,56 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.BitSet;
+
+/**
+ * This class is the parent of the encoded segments of {@code long} values
+ * stored by a {@link CompressedTable}. Numeric values, {@code boolean} values
+ * and dictionary codes of text values are all stored as {@code long} values.
+ * <br/>
+ * Subclasses override {@link #retainRange(long, long, BitSet)} to test the
+ * values without decoding them where their encoding allows it.
+ */
+abstract class LongSegment {
+	
+	/**
+	 * Returns the number of values in this segment.
+	 * @return The number of values.
+	 */
+	abstract int size();
+	
+	/**
+	 * Decodes a single value.
+	 * @param index The index of the value within this segment.
+	 * @return The decoded value.
+	 */
+	abstract long get(int index);
+	
+	/**
+	 * Returns the encoding used by this segment.
+	 * @return The {@link ColumnEncoding} of this segment.
+	 */
+	abstract ColumnEncoding getEncoding();
+	
+	/**
+	 * Returns the approximate number of bytes used by the encoded values.
+	 * @return The encoded size in bytes.
+	 */
+	abstract long getEncodedBytes();
+	
+	/**
+	 * Clears the bit of every candidate whose value is not between
+	 * {@code min} and {@code max}, both inclusive.
+	 * This implementation decodes every candidate value.
+	 * @param min The smallest accepted value.
+	 * @param max The largest accepted value.
+	 * @param candidates The indexes of the candidate values within this segment.
+	 */
+	void retainRange(long min, long max, BitSet candidates){
+		for(int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)){
+			long value = get(i);
+			if(value < min || value > max){
+				candidates.clear(i);
+			}
+		}
+	}
+}
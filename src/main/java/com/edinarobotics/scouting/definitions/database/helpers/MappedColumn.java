@@ -0,0 +1,142 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.types.Blob;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+/**
+ * This class is the parent of the memory-mapped files storing a single
+ * column of a {@link MappedColumnTable}. Values are addressed by row index.
+ * Every column keeps a null bitmap with one bit per row.
+ */
+abstract class MappedColumn implements Closeable {
+	private final Column column;
+	private final MappedFile nulls;
+	
+	/**
+	 * Opens the null bitmap of a column.
+	 * @param column The {@link Column} stored by this MappedColumn.
+	 * @param nullFile The file of the null bitmap.
+	 * @throws IOException If the file cannot be opened.
+	 */
+	MappedColumn(Column column, File nullFile) throws IOException{
+		this.column = column;
+		this.nulls = new MappedFile(nullFile);
+	}
+	
+	/**
+	 * Opens the files of a column, choosing the layout from its type.
+	 * {@link Text} and {@link Blob} columns use offset and data files,
+	 * all other types use fixed-width files.
+	 * @param column The {@link Column} to be opened.
+	 * @param directory The directory of the table.
+	 * @param index The position of the column in the table schema, used to name its files.
+	 * @return The opened MappedColumn.
+	 * @throws IOException If the files cannot be opened.
+	 */
+	static MappedColumn open(Column column, File directory, int index) throws IOException{
+		String prefix = "column"+index;
+		File nullFile = new File(directory, prefix+".nul");
+		if(column.getType().equals(Text.class) || column.getType().equals(Blob.class)){
+			return new VariableWidthColumn(column, nullFile, new File(directory, prefix+".off"), new File(directory, prefix+".dat"));
+		}
+		return new FixedWidthColumn(column, nullFile, new File(directory, prefix+".col"));
+	}
+	
+	/**
+	 * Returns the {@link Column} stored by this MappedColumn.
+	 * @return The stored Column.
+	 */
+	Column getColumn(){
+		return column;
+	}
+	
+	/**
+	 * Reads the value of a row.
+	 * @param row The row index.
+	 * @return The stored {@link Data} value or {@code null}.
+	 * @throws IOException If the value cannot be decoded.
+	 */
+	Data get(int row) throws IOException{
+		if(isNull(row)){
+			return null;
+		}
+		return read(row);
+	}
+	
+	/**
+	 * Writes the value of a row.
+	 * @param row The row index.
+	 * @param value The {@link Data} value or {@code null}.
+	 * @throws IOException If the value cannot be written.
+	 */
+	void set(int row, Data value) throws IOException{
+		if(value != null){
+			write(row, value);
+		}
+		setNull(row, value == null);
+	}
+	
+	/**
+	 * Indicates whether the value of a row is {@code null}.
+	 * @param row The row index.
+	 * @return {@code true} if the value is {@code null}, {@code false} otherwise.
+	 */
+	boolean isNull(int row){
+		long position = row >>> 3;
+		if(position >= nulls.getCapacity()){
+			return true;
+		}
+		return (nulls.getByte(position) & (1 << (row & 7))) == 0;
+	}
+	
+	/**
+	 * Updates the null bitmap. A set bit marks a present value, so rows
+	 * that were never written read as {@code null}.
+	 * @param row The row index.
+	 * @param isNull {@code true} if the value is {@code null}.
+	 * @throws IOException If the bitmap cannot be grown.
+	 */
+	private void setNull(int row, boolean isNull) throws IOException{
+		long position = row >>> 3;
+		nulls.ensureCapacity(position + 1);
+		int bits = nulls.getByte(position);
+		bits = isNull ? bits & ~(1 << (row & 7)) : bits | (1 << (row & 7));
+		nulls.putByte(position, (byte) bits);
+	}
+	
+	/**
+	 * Reads a non-null value from the column files.
+	 * @param row The row index.
+	 * @return The stored value.
+	 * @throws IOException If the value cannot be decoded.
+	 */
+	abstract Data read(int row) throws IOException;
+	
+	/**
+	 * Writes a non-null value to the column files.
+	 * @param row The row index.
+	 * @param value The value to be written.
+	 * @throws IOException If the value cannot be written or has the wrong type.
+	 */
+	abstract void write(int row, Data value) throws IOException;
+	
+	/**
+	 * Forces the column files to stable storage.
+	 */
+	void force(){
+		nulls.force();
+	}
+	
+	/**
+	 * Closes the column files.
+	 * @throws IOException If a file cannot be closed.
+	 */
+	public void close() throws IOException{
+		nulls.close();
+	}
+}
@@ -0,0 +1,489 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.InvalidSchemaException;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.NoSuchColumnException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.Constraint;
+import com.edinarobotics.scouting.definitions.database.references.InvalidReferenceException;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+
+/**
+ * This class stores a single table in a directory of memory-mapped column files.
+ * It is meant for tables that are too large to be held on the Java heap, such as
+ * the scouting history of several seasons.
+ * <h3>Layout</h3>
+ * Each {@link Column} is stored in its own files, named after its position in the
+ * table schema:
+ * <ul>
+ * <li>{@link Integer}, {@link Real}
+ * and {@link com.edinarobotics.scouting.definitions.database.types.Boolean Boolean}
+ * columns use a single file of 8 byte values ({@code columnN.col}).</li>
+ * <li>{@link com.edinarobotics.scouting.definitions.database.types.Text Text} and
+ * {@link com.edinarobotics.scouting.definitions.database.types.Blob Blob} columns use
+ * an offset file ({@code columnN.off}) pointing into a data file ({@code columnN.dat}).</li>
+ * <li>Every column has a null bitmap ({@code columnN.nul}).</li>
+ * </ul>
+ * The {@code schema} file holds the table name and its columns. The {@code rows}
+ * file holds the number of rows followed by a bitmap of deleted rows.
+ * <br/>
+ * All files are mapped in chunks by the operating system, so the contents of a
+ * table live in the page cache instead of on the Java heap. Only the rows
+ * returned by a read are materialized as {@link Row} objects.
+ * <h3>Queries</h3>
+ * {@link #executeQuery(Query)} first reads only the columns named by the
+ * constraints of the {@link Query}. The remaining columns of a row are read
+ * only if the row satisfies the Query, so selective queries touch very little
+ * of the mapped data.
+ * <br/>
+ * A {@link ZoneMap} is kept in a mapped {@code columnN.zon} file for every
+ * {@link Integer} and {@link Real} column.
+ * It records the bounds and {@code null} count of each block of rows and is
+ * updated by every write. Blocks that cannot satisfy a constraint are skipped
+ * without reading them. Zone maps are rebuilt from the column files when a
+ * table is opened.
+ * <br/>
+ * Rows are found by primary key value through a {@link MappedKeyIndex}, a hash
+ * table in the mapped {@code keys0} or {@code keys1} file that maps every primary
+ * key to its latest slot. It keeps the heap use of a table independent of its number
+ * of rows. Like the zone maps, the index is updated by every write and rebuilt from
+ * the primary key column when a table is opened. The zone map and index files are
+ * deleted when the table is closed. Deleting a row only marks its slot,
+ * so a slot found in the index is checked against the deleted bitmap.
+ * <h3>Concurrency</h3>
+ * Reads may run concurrently with each other and with writes. Writes are
+ * serialized by this object. A read running concurrently with a write may
+ * see the row being written partly updated; Database implementations that
+ * need isolated reads should keep recent changes in a {@link MultiVersionStore}
+ * and copy them into a MappedColumnTable once they are no longer being read.
+ */
+public final class MappedColumnTable implements Closeable {
+	private static final String SCHEMA_FILE = "schema";
+	private static final String ROWS_FILE = "rows";
+	private static final String KEYS_FILE = "keys";
+	private static final int DELETED_BITMAP_OFFSET = 8;
+	
+	private final File directory;
+	private final TableReference tableRef;
+	private final Column primaryKeyColumn;
+	private final Set<Column> columns;
+	private final Map<Column, MappedColumn> columnFiles;
+	private final Map<String, ZoneMap> zoneMaps;
+	private final MappedKeyIndex rowIndex;
+	private final MappedColumn primaryKeyFile;
+	private final MappedFile rows;
+	private volatile int rowCount;
+	
+	/**
+	 * Opens the column files of a table.
+	 * Tables are opened by {@link #create(File, TableReference, Set, Column)}
+	 * and {@link #open(File)}.
+	 * @param directory The directory of the table.
+	 * @param tableRef The {@link TableReference} naming the table.
+	 * @param schema The {@link Column} objects of the table, in file order.
+	 * @param primaryKeyColumn The primary key Column of the table.
+	 * @throws IOException If a file cannot be opened.
+	 */
+	private MappedColumnTable(File directory, TableReference tableRef, List<Column> schema, Column primaryKeyColumn) throws IOException{
+		this.directory = directory;
+		this.tableRef = tableRef;
+		this.primaryKeyColumn = primaryKeyColumn;
+		this.columns = Collections.unmodifiableSet(new LinkedHashSet<Column>(schema));
+		this.columnFiles = new HashMap<Column, MappedColumn>();
+		for(int i = 0; i < schema.size(); i++){
+			columnFiles.put(schema.get(i), MappedColumn.open(schema.get(i), directory, i));
+		}
+		this.primaryKeyFile = columnFiles.get(primaryKeyColumn);
+		this.rows = new MappedFile(new File(directory, ROWS_FILE));
+		this.rowCount = rows.getCapacity() >= 8 ? (int) rows.getLong(0) : 0;
+		this.zoneMaps = new HashMap<String, ZoneMap>();
+		for(int c = 0; c < schema.size(); c++){
+			Column column = schema.get(c);
+			if(column.getType().equals(Integer.class) || column.getType().equals(Real.class)){
+				File zoneFile = new File(directory, "column"+c+".zon");
+				if(zoneFile.exists() && !zoneFile.delete()){
+					throw new IOException("Cannot delete the old zone map "+zoneFile+".");
+				}
+				ZoneMap zoneMap = new ZoneMap(ZoneMap.DEFAULT_BLOCK_SIZE, new MappedFile(zoneFile));
+				MappedColumn file = columnFiles.get(column);
+				for(int i = 0; i < rowCount; i++){
+					zoneMap.add(i, file.get(i));
+				}
+				zoneMaps.put(column.getColumnName(), zoneMap);
+			}
+		}
+		this.rowIndex = new MappedKeyIndex(directory, KEYS_FILE, rowCount);
+		for(int i = 0; i < rowCount; i++){
+			Data value = primaryKeyFile.get(i);
+			if(!isDeleted(i) && value != null){
+				rowIndex.put(((Integer) value).longValue(), i);
+			}
+		}
+	}
+	
+	/**
+	 * Creates a new, empty table in {@code directory}.
+	 * @param directory The directory in which the table files are created.
+	 * It is created if it does not exist.
+	 * @param tableRef The {@link TableReference} naming the table.
+	 * @param columns The {@link Column} objects of the table.
+	 * @param primaryKeyColumn The primary key Column of the table. It must
+	 * be one of {@code columns} and must store
+	 * {@link Integer} values.
+	 * @return The new MappedColumnTable.
+	 * @throws IOException If the table files cannot be created.
+	 * @throws InvalidSchemaException If {@code directory} already contains a table
+	 * or if {@code primaryKeyColumn} is not a valid primary key column.
+	 */
+	public static MappedColumnTable create(File directory, TableReference tableRef, Set<Column> columns, Column primaryKeyColumn) throws IOException, InvalidSchemaException{
+		if(!columns.contains(primaryKeyColumn) || !primaryKeyColumn.getType().equals(Integer.class)){
+			throw new InvalidSchemaException("The primary key column \""+primaryKeyColumn.getColumnName()+"\" must be an Integer column of the table.");
+		}
+		File schemaFile = new File(directory, SCHEMA_FILE);
+		if(schemaFile.exists()){
+			throw new InvalidSchemaException("The directory "+directory+" already contains a table.");
+		}
+		if(!directory.isDirectory() && !directory.mkdirs()){
+			throw new IOException("Cannot create directory "+directory+".");
+		}
+		List<Column> schema = new ArrayList<Column>(columns);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(schemaFile)));
+		try{
+			ChangeCodec.writeString(out, tableRef.getTableName());
+			out.writeInt(schema.size());
+			for(Column column : schema){
+				ChangeCodec.writeColumn(out, column);
+			}
+			out.writeInt(schema.indexOf(primaryKeyColumn));
+		}finally{
+			out.close();
+		}
+		return new MappedColumnTable(directory, tableRef, schema, primaryKeyColumn);
+	}
+	
+	/**
+	 * Opens a table that was created by {@link #create(File, TableReference, Set, Column)}.
+	 * @param directory The directory containing the table files.
+	 * @return The opened MappedColumnTable.
+	 * @throws IOException If the table files cannot be read.
+	 */
+	public static MappedColumnTable open(File directory) throws IOException{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(directory, SCHEMA_FILE))));
+		try{
+			TableReference tableRef = new TableReference(ChangeCodec.readString(in));
+			int count = in.readInt();
+			List<Column> schema = new ArrayList<Column>(count);
+			for(int i = 0; i < count; i++){
+				schema.add(ChangeCodec.readColumn(in));
+			}
+			return new MappedColumnTable(directory, tableRef, schema, schema.get(in.readInt()));
+		}catch(InvalidReferenceException e){
+			throw new IOException("The schema file in "+directory+" is corrupt.", e);
+		}finally{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Returns the directory containing the files of this table.
+	 * @return The directory of this table.
+	 */
+	public File getDirectory(){
+		return directory;
+	}
+	
+	/**
+	 * Returns the {@link TableReference} naming this table.
+	 * @return The TableReference of this table.
+	 */
+	public TableReference getTableReference(){
+		return tableRef;
+	}
+	
+	/**
+	 * Returns the primary key {@link Column} of this table.
+	 * @return The primary key Column.
+	 */
+	public Column getPrimaryKeyColumn(){
+		return primaryKeyColumn;
+	}
+	
+	/**
+	 * Returns the {@link Column} objects of this table.
+	 * This Set cannot be modified.
+	 * @return A Set of the Columns of this table.
+	 */
+	public Set<Column> getColumns(){
+		return columns;
+	}
+	
+	/**
+	 * Returns the number of row slots in this table, including
+	 * the slots of deleted rows.
+	 * @return The number of row slots.
+	 */
+	public int getRowCount(){
+		return rowCount;
+	}
+	
+	/**
+	 * Adds a row to the end of this table.
+	 * Columns of this table that are missing from {@code row} are stored as {@code null}.
+	 * @param row The {@link Row} to be added.
+	 * @throws IOException If the row cannot be written.
+	 * @throws NoSuchColumnException If {@code row} contains a column that
+	 * is not part of this table.
+	 * @throws InvalidTargetException If a row with the same primary key value
+	 * already exists.
+	 */
+	public synchronized void insert(Row row) throws IOException, NoSuchColumnException, InvalidTargetException{
+		for(Column column : row.getColumns()){
+			if(!columnFiles.containsKey(column)){
+				throw new NoSuchColumnException("Column "+column.getColumnName()+" does not exist in table "+tableRef.getTableName()+".");
+			}
+		}
+		Data primaryKey = row.getColumnValue(primaryKeyColumn);
+		if(!(primaryKey instanceof Integer)){
+			throw new NoSuchColumnException("The row has no primary key value.");
+		}
+		if(findRow(((Integer) primaryKey).longValue()) >= 0){
+			throw new InvalidTargetException("A row with primary key "+primaryKey+" already exists in table "+tableRef.getTableName()+".");
+		}
+		int index = rowCount;
+		for(Map.Entry<Column, MappedColumn> entry : columnFiles.entrySet()){
+			Data value = row.getColumns().contains(entry.getKey()) ? row.getColumnValue(entry.getKey()) : null;
+			entry.getValue().set(index, value);
+			ZoneMap zoneMap = zoneMaps.get(entry.getKey().getColumnName());
+			if(zoneMap != null){
+				zoneMap.add(index, value);
+			}
+		}
+		setDeleted(index, false);
+		rows.putLong(0, index + 1);
+		rowCount = index + 1;
+		rowIndex.put(((Integer) primaryKey).longValue(), index);
+	}
+	
+	/**
+	 * Changes a single value of an existing row.
+	 * The primary key value of a row cannot be changed.
+	 * @param primaryKey The primary key value of the row.
+	 * @param column The {@link Column} to be changed.
+	 * @param value The new {@link Data} value or {@code null}.
+	 * @throws IOException If the value cannot be written.
+	 * @throws NoSuchColumnException If {@code column} is not part of this table
+	 * or is the primary key column.
+	 * @throws InvalidTargetException If no row has the primary key value {@code primaryKey}.
+	 */
+	public synchronized void update(long primaryKey, Column column, Data value) throws IOException, NoSuchColumnException, InvalidTargetException{
+		MappedColumn file = columnFiles.get(column);
+		if(file == null || file == primaryKeyFile){
+			throw new NoSuchColumnException("Column "+column.getColumnName()+" cannot be updated in table "+tableRef.getTableName()+".");
+		}
+		int index = findRow(primaryKey);
+		if(index < 0){
+			throw new InvalidTargetException("No row with primary key "+primaryKey+" exists in table "+tableRef.getTableName()+".");
+		}
+		ZoneMap zoneMap = zoneMaps.get(column.getColumnName());
+		if(zoneMap != null){
+			zoneMap.update(index, file.get(index), value);
+		}
+		file.set(index, value);
+	}
+	
+	/**
+	 * Deletes a row. The slot of the row is marked as deleted and is not reused.
+	 * @param primaryKey The primary key value of the row.
+	 * @return {@code true} if a row was deleted, {@code false} if no row has
+	 * the primary key value {@code primaryKey}.
+	 * @throws IOException If the row cannot be marked as deleted.
+	 */
+	public synchronized boolean delete(long primaryKey) throws IOException{
+		int index = findRow(primaryKey);
+		if(index < 0){
+			return false;
+		}
+		setDeleted(index, true);
+		return true;
+	}
+	
+	/**
+	 * Returns the row with the given primary key value.
+	 * @param primaryKey The primary key value of the requested row.
+	 * @return The {@link Row} or {@code null} if it does not exist.
+	 * @throws IOException If the row cannot be read.
+	 */
+	public Row getRow(long primaryKey) throws IOException{
+		int index = findRow(primaryKey);
+		return index < 0 ? null : readRow(index, columnFiles.values());
+	}
+	
+	/**
+	 * Returns the rows of this table that satisfy {@code query}.
+	 * @param query The {@link Query} that the rows must satisfy.
+	 * @return A new Set containing every {@link Row} that satisfies {@code query}.
+	 * @throws IOException If a row cannot be read.
+	 * @throws InvalidTargetException If {@code query} does not target this table.
+	 * @see Query#satisfiesQuery(Row)
+	 */
+	public Set<Row> executeQuery(Query query) throws IOException, InvalidTargetException{
+		if(!query.getTableReference().equals(tableRef)){
+			throw new InvalidTargetException("The query targets table "+query.getTableName()+", not "+tableRef.getTableName()+".");
+		}
+		Set<MappedColumn> constrained = new HashSet<MappedColumn>();
+		List<Constraint> zoneConstraints = new ArrayList<Constraint>();
+		for(Constraint constraint : query.getConstraints()){
+			if(zoneMaps.containsKey(constraint.getColumnName())){
+				zoneConstraints.add(constraint);
+			}
+			for(MappedColumn file : columnFiles.values()){
+				if(file.getColumn().getColumnName().equals(constraint.getColumnName())){
+					constrained.add(file);
+				}
+			}
+		}
+		Set<Row> result = new HashSet<Row>();
+		int count = rowCount;
+		for(int i = 0; i < count; i++){
+			if(i % ZoneMap.DEFAULT_BLOCK_SIZE == 0 && !mayContain(i / ZoneMap.DEFAULT_BLOCK_SIZE, zoneConstraints)){
+				i += ZoneMap.DEFAULT_BLOCK_SIZE - 1;
+				continue;
+			}
+			if(isDeleted(i)){
+				continue;
+			}
+			if(!constrained.isEmpty() && !query.satisfiesQuery(readRow(i, constrained))){
+				continue;
+			}
+			Row row = readRow(i, columnFiles.values());
+			if(query.satisfiesQuery(row)){
+				result.add(row);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Checks the zone maps of the constrained columns for a block of rows.
+	 * @param block The index of the block.
+	 * @param constraints The constraints on columns that have zone maps.
+	 * @return {@code false} if no row of the block can satisfy every constraint.
+	 */
+	private boolean mayContain(int block, List<Constraint> constraints){
+		for(Constraint constraint : constraints){
+			if(!zoneMaps.get(constraint.getColumnName()).mayContain(block, constraint)){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Finds the slot of a live row in the primary key index.
+	 * The index keeps the slots of deleted rows, so the slot is checked
+	 * against the deleted bitmap.
+	 * @param primaryKey The primary key value of the requested row.
+	 * @return The row index or {@code -1} if no live row has the value.
+	 */
+	private int findRow(long primaryKey){
+		int index = rowIndex.get(primaryKey);
+		return index < 0 || index >= rowCount || isDeleted(index) ? -1 : index;
+	}
+	
+	/**
+	 * Materializes some columns of a row. The primary key column is always read.
+	 * @param index The row index.
+	 * @param files The columns to be read.
+	 * @return A {@link Row} containing the requested columns.
+	 * @throws IOException If a value cannot be read.
+	 */
+	private Row readRow(int index, Iterable<MappedColumn> files) throws IOException{
+		Map<Column, Data> values = new HashMap<Column, Data>();
+		values.put(primaryKeyColumn, primaryKeyFile.get(index));
+		for(MappedColumn file : files){
+			values.put(file.getColumn(), file.get(index));
+		}
+		try{
+			return new Row(values, primaryKeyColumn);
+		}catch(NoSuchColumnException e){
+			//This should never happen. The primary key column was added above.
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	/**
+	 * Indicates whether a row slot has been deleted.
+	 * @param index The row index.
+	 * @return {@code true} if the row was deleted.
+	 */
+	private boolean isDeleted(int index){
+		long position = DELETED_BITMAP_OFFSET + (index >>> 3);
+		if(position >= rows.getCapacity()){
+			return false;
+		}
+		return (rows.getByte(position) & (1 << (index & 7))) != 0;
+	}
+	
+	/**
+	 * Marks a row slot as deleted or live.
+	 * @param index The row index.
+	 * @param deleted {@code true} to mark the row as deleted.
+	 * @throws IOException If the bitmap cannot be grown.
+	 */
+	private void setDeleted(int index, boolean deleted) throws IOException{
+		long position = DELETED_BITMAP_OFFSET + (index >>> 3);
+		rows.ensureCapacity(position + 1);
+		int bits = rows.getByte(position);
+		bits = deleted ? bits | (1 << (index & 7)) : bits & ~(1 << (index & 7));
+		rows.putByte(position, (byte) bits);
+	}
+	
+	/**
+	 * Forces every file of this table to stable storage.
+	 */
+	public synchronized void force(){
+		for(MappedColumn file : columnFiles.values()){
+			file.force();
+		}
+		rows.force();
+	}
+	
+	/**
+	 * Forces and closes every file of this table. The primary key index and
+	 * the zone maps are deleted; they are rebuilt when the table is opened again.
+	 * @throws IOException If a file cannot be closed.
+	 */
+	public synchronized void close() throws IOException{
+		for(MappedColumn file : columnFiles.values()){
+			file.close();
+		}
+		rows.close();
+		rowIndex.close();
+		for(ZoneMap zoneMap : zoneMaps.values()){
+			zoneMap.delete();
+		}
+	}
+}
@@ -0,0 +1,265 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class is a growable file that is accessed through memory mapping.
+ * The file is mapped in chunks of up to {@link #CHUNK_SIZE} bytes, so it can grow
+ * beyond the 2 GiB limit of a single {@link MappedByteBuffer}. The operating system
+ * page cache holds the contents; none of the data is copied onto the Java heap.
+ * <br/>
+ * Small files stay small. A file starts at {@link #MIN_CAPACITY} bytes and doubles
+ * in size until it fills a whole chunk, after which it grows one chunk at a time.
+ * Only the last, partly filled chunk is remapped when the file grows.
+ * <br/>
+ * Reads may run concurrently with each other and with a single writer.
+ * Writers must be serialized by the caller.
+ */
+final class MappedFile implements Closeable {
+	/**
+	 * The largest size of a mapped chunk (4 MiB). Chunk boundaries are aligned
+	 * to every fixed value width used by the column files.
+	 */
+	static final int CHUNK_SIZE = 1 << 22;
+	
+	/**
+	 * The capacity of a file after its first growth (4 KiB).
+	 */
+	static final int MIN_CAPACITY = 1 << 12;
+	
+	private final File file;
+	private final RandomAccessFile access;
+	private final FileChannel channel;
+	private volatile MappedByteBuffer[] chunks;
+	private volatile long capacity;
+	
+	/**
+	 * Opens or creates a mapped file. Existing contents are mapped immediately.
+	 * @param file The file to be mapped.
+	 * @throws IOException If the file cannot be opened or mapped.
+	 */
+	MappedFile(File file) throws IOException{
+		this.file = file;
+		this.access = new RandomAccessFile(file, "rw");
+		this.channel = access.getChannel();
+		this.chunks = new MappedByteBuffer[0];
+		this.capacity = 0;
+		map(channel.size());
+	}
+	
+	/**
+	 * Returns the mapped file.
+	 * @return The File of this MappedFile.
+	 */
+	File getFile(){
+		return file;
+	}
+	
+	/**
+	 * Returns the number of bytes currently mapped.
+	 * @return The capacity of this MappedFile in bytes.
+	 */
+	long getCapacity(){
+		return capacity;
+	}
+	
+	/**
+	 * Grows the file so that at least {@code size} bytes are mapped.
+	 * New bytes are zero.
+	 * @param size The required capacity in bytes.
+	 * @throws IOException If the file cannot be grown or mapped.
+	 */
+	synchronized void ensureCapacity(long size) throws IOException{
+		if(capacity >= size){
+			return;
+		}
+		long target = Math.max(capacity, MIN_CAPACITY);
+		while(target < size){
+			target = target < CHUNK_SIZE ? target * 2 : target + CHUNK_SIZE;
+		}
+		if(target > CHUNK_SIZE){
+			//Files larger than a chunk are grown in whole chunks.
+			target = (target + CHUNK_SIZE - 1) / CHUNK_SIZE * CHUNK_SIZE;
+		}
+		if(access.length() < target){
+			access.setLength(target);
+		}
+		map(target);
+	}
+	
+	/**
+	 * Maps the first {@code size} bytes of the file. Full chunks that are already
+	 * mapped are kept; a partly mapped last chunk is mapped again at its new size.
+	 * Readers still using the old mapping of that chunk see the same file contents.
+	 * @param size The new capacity in bytes. It must not be smaller than the
+	 * current capacity or larger than the file.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	private void map(long size) throws IOException{
+		MappedByteBuffer[] current = chunks;
+		int needed = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+		int kept = (int) (capacity / CHUNK_SIZE);
+		MappedByteBuffer[] grown = new MappedByteBuffer[needed];
+		System.arraycopy(current, 0, grown, 0, kept);
+		for(int i = kept; i < needed; i++){
+			long start = (long) i * CHUNK_SIZE;
+			grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(CHUNK_SIZE, size - start));
+		}
+		chunks = grown;
+		capacity = size;
+	}
+	
+	/**
+	 * Returns the chunk containing {@code position}.
+	 * @param position A byte position in the file.
+	 * @return The mapped chunk.
+	 */
+	private MappedByteBuffer chunk(long position){
+		return chunks[(int) (position / CHUNK_SIZE)];
+	}
+	
+	/**
+	 * Reads a {@code long} value. The value must not cross a chunk boundary.
+	 * @param position The byte position of the value.
+	 * @return The value.
+	 */
+	long getLong(long position){
+		return chunk(position).getLong((int) (position % CHUNK_SIZE));
+	}
+	
+	/**
+	 * Writes a {@code long} value. The value must not cross a chunk boundary.
+	 * @param position The byte position of the value.
+	 * @param value The value to be written.
+	 * @throws IOException If the file cannot be grown.
+	 */
+	void putLong(long position, long value) throws IOException{
+		ensureCapacity(position + 8);
+		chunk(position).putLong((int) (position % CHUNK_SIZE), value);
+	}
+	
+	/**
+	 * Reads a single byte.
+	 * @param position The byte position.
+	 * @return The byte.
+	 */
+	byte getByte(long position){
+		return chunk(position).get((int) (position % CHUNK_SIZE));
+	}
+	
+	/**
+	 * Writes a single byte.
+	 * @param position The byte position.
+	 * @param value The byte to be written.
+	 * @throws IOException If the file cannot be grown.
+	 */
+	void putByte(long position, byte value) throws IOException{
+		ensureCapacity(position + 1);
+		chunk(position).put((int) (position % CHUNK_SIZE), value);
+	}
+	
+	/**
+	 * Reads {@code length} bytes, which may cross chunk boundaries.
+	 * @param position The byte position of the first byte.
+	 * @param length The number of bytes to be read.
+	 * @return A new array containing the bytes.
+	 */
+	byte[] getBytes(long position, int length){
+		byte[] bytes = new byte[length];
+		getBytes(position, bytes, 0, length);
+		return bytes;
+	}
+	
+	/**
+	 * Reads {@code length} bytes into an array. The bytes may cross chunk boundaries.
+	 * @param position The byte position of the first byte.
+	 * @param bytes The array receiving the bytes.
+	 * @param start The index in {@code bytes} of the first byte.
+	 * @param length The number of bytes to be read.
+	 */
+	void getBytes(long position, byte[] bytes, int start, int length){
+		int done = 0;
+		while(done < length){
+			long current = position + done;
+			int offset = (int) (current % CHUNK_SIZE);
+			int size = Math.min(length - done, CHUNK_SIZE - offset);
+			ByteBuffer view = chunk(current).duplicate();
+			view.position(offset);
+			view.get(bytes, start + done, size);
+			done += size;
+		}
+	}
+	
+	/**
+	 * Writes bytes, which may cross chunk boundaries.
+	 * @param position The byte position of the first byte.
+	 * @param bytes The bytes to be written.
+	 * @throws IOException If the file cannot be grown.
+	 */
+	void putBytes(long position, byte[] bytes) throws IOException{
+		putBytes(position, bytes, 0, bytes.length);
+	}
+	
+	/**
+	 * Writes part of an array. The bytes may cross chunk boundaries.
+	 * @param position The byte position of the first byte.
+	 * @param bytes The array holding the bytes.
+	 * @param start The index in {@code bytes} of the first byte.
+	 * @param length The number of bytes to be written.
+	 * @throws IOException If the file cannot be grown.
+	 */
+	void putBytes(long position, byte[] bytes, int start, int length) throws IOException{
+		ensureCapacity(position + length);
+		int done = 0;
+		while(done < length){
+			long current = position + done;
+			int offset = (int) (current % CHUNK_SIZE);
+			int size = Math.min(length - done, CHUNK_SIZE - offset);
+			ByteBuffer view = chunk(current).duplicate();
+			view.position(offset);
+			view.put(bytes, start + done, size);
+			done += size;
+		}
+	}
+	
+	/**
+	 * Forces every mapped chunk to stable storage.
+	 */
+	void force(){
+		for(MappedByteBuffer buffer : chunks){
+			buffer.force();
+		}
+	}
+	
+	/**
+	 * Forces and closes this file. The mapped chunks are released
+	 * when they are garbage-collected.
+	 * @throws IOException If the file cannot be closed.
+	 */
+	public void close() throws IOException{
+		force();
+		chunks = new MappedByteBuffer[0];
+		capacity = 0;
+		access.close();
+	}
+	
+	/**
+	 * Closes and deletes this file without forcing it, for files that only
+	 * hold data that can be rebuilt.
+	 * @throws IOException If the file cannot be closed or deleted.
+	 */
+	void delete() throws IOException{
+		chunks = new MappedByteBuffer[0];
+		capacity = 0;
+		access.close();
+		if(file.exists() && !file.delete()){
+			throw new IOException("Cannot delete "+file+".");
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class maps primary key values to row slots through a hash table stored in
+ * a {@link MappedFile}, so the index of a {@link MappedColumnTable} lives in the
+ * page cache instead of on the Java heap.
+ * <br/>
+ * The table uses open addressing with linear probing. Each entry is 16 bytes: the
+ * key followed by the slot plus one, so that the zero bytes of a new file mark
+ * empty entries. The table is kept at most half full and is doubled into a new
+ * file when it fills up. Entries are never removed. Putting a key that is already
+ * present replaces its slot, and callers must check that a returned slot still
+ * holds the key (for example that it has not been deleted).
+ * <br/>
+ * The index files only hold data that can be rebuilt, so they are not synced and
+ * are deleted by {@link #close()}.
+ * <br/>
+ * Lookups may run concurrently with each other and with a single writer.
+ * Writers must be serialized by the caller.
+ */
+final class MappedKeyIndex implements Closeable {
+	/**
+	 * The smallest number of entries of the hash table (4 KiB of entries).
+	 */
+	static final long MIN_CAPACITY = 1 << 8;
+	
+	private static final int ENTRY_SIZE = 16;
+	
+	private final File directory;
+	private final String name;
+	private final ReadWriteLock swapLock;
+	private MappedFile file;
+	private long capacity;
+	private volatile long size;
+	private int generation;
+	
+	/**
+	 * Creates a new, empty index. Existing index files are replaced.
+	 * @param directory The directory of the index files.
+	 * @param name The name of the index files. A generation number is appended to it.
+	 * @param expectedSize The number of keys that will be put right away.
+	 * @throws IOException If the index file cannot be created.
+	 */
+	MappedKeyIndex(File directory, String name, long expectedSize) throws IOException{
+		this.directory = directory;
+		this.name = name;
+		this.swapLock = new ReentrantReadWriteLock();
+		long initial = MIN_CAPACITY;
+		while(initial < 2 * expectedSize){
+			initial *= 2;
+		}
+		new File(directory, name+1).delete();
+		this.generation = 0;
+		this.file = createFile(generation, initial);
+		this.capacity = initial;
+		this.size = 0;
+	}
+	
+	/**
+	 * Returns the number of distinct keys put into this index.
+	 * @return The number of entries.
+	 */
+	long size(){
+		return size;
+	}
+	
+	/**
+	 * Returns the slot most recently put for a key.
+	 * @param key The key to be found.
+	 * @return The slot or {@code -1} if the key was never put.
+	 */
+	int get(long key){
+		swapLock.readLock().lock();
+		try{
+			long mask = capacity - 1;
+			for(long entry = hash(key) & mask; ; entry = (entry + 1) & mask){
+				long slot = file.getLong(entry * ENTRY_SIZE + 8);
+				if(slot == 0){
+					return -1;
+				}
+				if(file.getLong(entry * ENTRY_SIZE) == key){
+					return (int) (slot - 1);
+				}
+			}
+		}finally{
+			swapLock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Maps a key to a slot, replacing the slot it was mapped to before.
+	 * @param key The key.
+	 * @param slot The non-negative slot of the key.
+	 * @throws IOException If the index cannot be grown.
+	 */
+	void put(long key, int slot) throws IOException{
+		if(2 * (size + 1) > capacity){
+			grow();
+		}
+		if(insert(file, capacity, key, slot + 1L)){
+			size++;
+		}
+	}
+	
+	/**
+	 * Closes and deletes the index file.
+	 * @throws IOException If the file cannot be deleted.
+	 */
+	public void close() throws IOException{
+		swapLock.writeLock().lock();
+		try{
+			file.delete();
+		}finally{
+			swapLock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Copies every entry into a hash table of twice the capacity in the other
+	 * index file. Lookups keep using the old table until the new one is complete.
+	 * @throws IOException If the new file cannot be created.
+	 */
+	private void grow() throws IOException{
+		int next = 1 - generation;
+		long grownCapacity = capacity * 2;
+		MappedFile grown = createFile(next, grownCapacity);
+		for(long entry = 0; entry < capacity; entry++){
+			long slot = file.getLong(entry * ENTRY_SIZE + 8);
+			if(slot != 0){
+				insert(grown, grownCapacity, file.getLong(entry * ENTRY_SIZE), slot);
+			}
+		}
+		MappedFile old;
+		swapLock.writeLock().lock();
+		try{
+			old = file;
+			file = grown;
+			capacity = grownCapacity;
+			generation = next;
+		}finally{
+			swapLock.writeLock().unlock();
+		}
+		old.delete();
+	}
+	
+	/**
+	 * Creates an empty index file.
+	 * @param fileGeneration The generation number of the file.
+	 * @param entries The capacity of the hash table.
+	 * @return The mapped file.
+	 * @throws IOException If the file cannot be created.
+	 */
+	private MappedFile createFile(int fileGeneration, long entries) throws IOException{
+		File indexFile = new File(directory, name+fileGeneration);
+		if(indexFile.exists() && !indexFile.delete()){
+			throw new IOException("Cannot delete the old index file "+indexFile+".");
+		}
+		MappedFile mapped = new MappedFile(indexFile);
+		mapped.ensureCapacity(entries * ENTRY_SIZE);
+		return mapped;
+	}
+	
+	/**
+	 * Stores an entry in a hash table.
+	 * @param target The file of the hash table.
+	 * @param entries The capacity of the hash table.
+	 * @param key The key.
+	 * @param storedSlot The slot plus one.
+	 * @return {@code true} if the key was added, {@code false} if its slot was replaced.
+	 * @throws IOException If the entry cannot be written.
+	 */
+	private static boolean insert(MappedFile target, long entries, long key, long storedSlot) throws IOException{
+		long mask = entries - 1;
+		for(long entry = hash(key) & mask; ; entry = (entry + 1) & mask){
+			long position = entry * ENTRY_SIZE;
+			if(target.getLong(position + 8) == 0){
+				//The key is written first, so a lookup never sees a slot without it.
+				target.putLong(position, key);
+				target.putLong(position + 8, storedSlot);
+				return true;
+			}
+			if(target.getLong(position) == key){
+				target.putLong(position + 8, storedSlot);
+				return false;
+			}
+		}
+	}
+	
+	/**
+	 * Spreads the bits of a key over the whole {@code long}.
+	 * @param key The key.
+	 * @return The hash of the key.
+	 */
+	private static long hash(long key){
+		long h = key * 0x9e3779b97f4a7c15L;
+		return h ^ (h >>> 32);
+	}
+}
@@ -0,0 +1,144 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.queries.JoinType;
+import com.edinarobotics.scouting.definitions.database.types.Boolean;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+/**
+ * This {@link JoinOperator} sorts both inputs by their join values and
+ * merges them in a single pass (sort-merge join).
+ * <br/>
+ * It needs no hash table, so it uses less memory than {@link HashJoin} when
+ * both inputs are large, and its output is ordered by the join values.
+ * It can only join columns whose values can be ordered (see
+ * {@link #canJoin(Column)}).
+ */
+class MergeJoin extends JoinOperator {
+	
+	/**
+	 * Orders {@link Data} values for merging. Numbers are ordered by value,
+	 * {@link Text} by its {@code String} value and {@link Boolean} values
+	 * with {@code false} first. Values of different kinds are ordered by kind.
+	 */
+	private static final Comparator<Data> KEY_ORDER = new Comparator<Data>(){
+		public int compare(Data a, Data b){
+			int kindA = kind(a);
+			int kindB = kind(b);
+			if(kindA != kindB){
+				return kindA < kindB ? -1 : 1;
+			}
+			if(a instanceof Real){
+				return ((Real) a).compareTo((Real) b);
+			}
+			if(a instanceof Text){
+				String valueA = ((Text) a).getValue();
+				String valueB = ((Text) b).getValue();
+				if(valueA == null || valueB == null){
+					return valueA == null ? (valueB == null ? 0 : -1) : 1;
+				}
+				return valueA.compareTo(valueB);
+			}
+			boolean valueA = ((Boolean) a).getValue();
+			return valueA == ((Boolean) b).getValue() ? 0 : (valueA ? 1 : -1);
+		}
+	};
+	
+	/**
+	 * Determines whether or not the values of a {@link Column} can be merged.
+	 * @param column The join Column.
+	 * @return {@code true} if the values of {@code column} can be ordered,
+	 * {@code false} otherwise.
+	 */
+	static boolean canJoin(Column column){
+		Class<? extends Data> type = column.getType();
+		return Real.class.isAssignableFrom(type) || Text.class.equals(type) || Boolean.class.equals(type);
+	}
+	
+	/**
+	 * Returns the rank of the kind of a {@link Data} value in {@link #KEY_ORDER}.
+	 * @param value A non-{@code null} join value.
+	 * @return The rank of the kind of {@code value}.
+	 */
+	private static int kind(Data value){
+		if(value instanceof Real){
+			return 0;
+		}
+		return value instanceof Text ? 1 : 2;
+	}
+	
+	List<Map<Column, Data>> join(List<Map<Column, Data>> left, Column leftKey,
+			List<Map<Column, Data>> right, Column rightKey, JoinType type, Set<Column> rightColumns){
+		List<Map<Column, Data>> result = new ArrayList<Map<Column, Data>>();
+		List<Map<Column, Data>> sortedLeft = sort(left, leftKey, type == JoinType.LEFT ? result : null, rightColumns);
+		List<Map<Column, Data>> sortedRight = sort(right, rightKey, null, rightColumns);
+		int i = 0;
+		int j = 0;
+		while(i < sortedLeft.size()){
+			Data leftValue = sortedLeft.get(i).get(leftKey);
+			while(j < sortedRight.size() && KEY_ORDER.compare(sortedRight.get(j).get(rightKey), leftValue) < 0){
+				j++;
+			}
+			int groupEnd = j;
+			while(groupEnd < sortedRight.size() && KEY_ORDER.compare(sortedRight.get(groupEnd).get(rightKey), leftValue) == 0){
+				groupEnd++;
+			}
+			//Every left row with this value is merged with the same group of right rows.
+			do{
+				Map<Column, Data> row = sortedLeft.get(i);
+				boolean matched = false;
+				for(int k = j; k < groupEnd; k++){
+					Map<Column, Data> match = sortedRight.get(k);
+					//Ordering may treat values as equal that are not equal, such as NaN.
+					if(match.get(rightKey).equals(leftValue)){
+						result.add(combine(row, match));
+						matched = true;
+					}
+				}
+				if(!matched && type == JoinType.LEFT){
+					result.add(pad(row, rightColumns));
+				}
+				i++;
+			}while(i < sortedLeft.size() && KEY_ORDER.compare(sortedLeft.get(i).get(leftKey), leftValue) == 0);
+			j = groupEnd;
+		}
+		return result;
+	}
+	
+	/**
+	 * Sorts rows by their join values.
+	 * Rows with a {@code null} join value never match and are left out.
+	 * @param rows The rows to be sorted.
+	 * @param key The join {@link Column} of {@code rows}.
+	 * @param unmatched The List receiving the left out rows, extended with {@code null}
+	 * right columns, or {@code null} if they should be dropped.
+	 * @param rightColumns The Column objects of the right side of the join.
+	 * @return A new List of the rows with join values, in order.
+	 */
+	private static List<Map<Column, Data>> sort(List<Map<Column, Data>> rows, final Column key,
+			List<Map<Column, Data>> unmatched, Set<Column> rightColumns){
+		List<Map<Column, Data>> sorted = new ArrayList<Map<Column, Data>>(rows.size());
+		for(Map<Column, Data> row : rows){
+			if(row.get(key) != null){
+				sorted.add(row);
+			}
+			else if(unmatched != null){
+				unmatched.add(pad(row, rightColumns));
+			}
+		}
+		Collections.sort(sorted, new Comparator<Map<Column, Data>>(){
+			public int compare(Map<Column, Data> a, Map<Column, Data> b){
+				return KEY_ORDER.compare(a.get(key), b.get(key));
+			}
+		});
+		return sorted;
+	}
+}
@@ -0,0 +1,507 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.InvalidSchemaException;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.VersionConflictException;
+import com.edinarobotics.scouting.definitions.database.queries.JoinQuery;
+import com.edinarobotics.scouting.definitions.database.queries.PreparedQuery;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+
+/**
+ * This class provides multi-version concurrency control (MVCC) storage that
+ * {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * implementations can use to isolate queries from transactions.
+ * <br/>
+ * Every committed {@link Write} is given a new commit version and every row it
+ * touches gets a new {@link RowVersion} instead of being overwritten in place.
+ * Queries read through a {@link Snapshot}, which sees the store exactly as it was
+ * when the Snapshot was opened. Readers never take locks and are never blocked by
+ * writers. Writers only serialize with each other, for the short time it takes to
+ * install their row versions.
+ * <br/>
+ * Old row versions are discarded by {@link #collectGarbage()} once no open
+ * Snapshot can see them. Database implementations should call it periodically,
+ * for example after each transaction or on a timer.
+ * <br/>
+ * A {@link QueryResultCache} set by {@link #setQueryResultCache(QueryResultCache)}
+ * is invalidated on the commit path: every table changed by a Write is invalidated
+ * after the Write becomes visible and before {@link Write#commit()} returns, so
+ * a query issued after a commit never sees a cached result from before it.
+ */
+public class MultiVersionStore {
+	/**
+	 * Marks a {@link Write} operation that does not check the row version.
+	 */
+	private static final long ANY_VERSION = Long.MIN_VALUE;
+	
+	private final ConcurrentMap<TableReference, MultiVersionTable> tables;
+	private final Set<Snapshot> activeSnapshots;
+	private final Lock commitLock;
+	private volatile long committedVersion;
+	private volatile long garbageHorizon;
+	private final Map<PreparedQuery, QueryPlan> plans;
+	private final QueryPlanner planner;
+	private volatile QueryResultCache resultCache;
+	
+	/**
+	 * Constructs a new, empty MultiVersionStore.
+	 */
+	public MultiVersionStore(){
+		tables = new ConcurrentHashMap<TableReference, MultiVersionTable>();
+		activeSnapshots = Collections.newSetFromMap(new ConcurrentHashMap<Snapshot, Boolean>());
+		commitLock = new ReentrantLock();
+		committedVersion = 0;
+		garbageHorizon = 0;
+		//Plans are dropped with their PreparedQuery objects.
+		plans = Collections.synchronizedMap(new WeakHashMap<PreparedQuery, QueryPlan>());
+		planner = new QueryPlanner(this);
+	}
+	
+	/**
+	 * Creates a new, empty table in this store.
+	 * @param tableRef The {@link TableReference} naming the new table.
+	 * @param columns The {@link Column} objects of the new table.
+	 * @param primaryKeyColumn The primary key Column of the new table.
+	 * @return The newly created {@link MultiVersionTable}.
+	 * @throws InvalidSchemaException If a table named {@code tableRef} already exists.
+	 */
+	public MultiVersionTable createTable(TableReference tableRef, Set<Column> columns, Column primaryKeyColumn) throws InvalidSchemaException{
+		MultiVersionTable table = new MultiVersionTable(tableRef, columns, primaryKeyColumn);
+		if(tables.putIfAbsent(tableRef, table) != null){
+			throw new InvalidSchemaException("The table \""+tableRef.getTableName()+"\" already exists.");
+		}
+		QueryResultCache cache = resultCache;
+		if(cache != null){
+			cache.invalidateSchema(tableRef);
+		}
+		return table;
+	}
+	
+	/**
+	 * Removes a table from this store. Readers that are already using the
+	 * table may finish reading it.
+	 * @param tableRef The {@link TableReference} naming the table to be removed.
+	 * @throws InvalidTargetException If no table named {@code tableRef} exists.
+	 */
+	public void dropTable(TableReference tableRef) throws InvalidTargetException{
+		if(tables.remove(tableRef) == null){
+			throw new InvalidTargetException("The table \""+tableRef.getTableName()+"\" does not exist.");
+		}
+		QueryResultCache cache = resultCache;
+		if(cache != null){
+			cache.invalidateSchema(tableRef);
+		}
+	}
+	
+	/**
+	 * Returns the table named by {@code tableRef}.
+	 * @param tableRef The {@link TableReference} naming the requested table.
+	 * @return The requested {@link MultiVersionTable} or {@code null} if
+	 * it does not exist.
+	 */
+	public MultiVersionTable getTable(TableReference tableRef){
+		return tables.get(tableRef);
+	}
+	
+	/**
+	 * Returns the {@link TableReference} objects of every table in this store.
+	 * @return An unmodifiable Set of the names of all tables.
+	 */
+	public Set<TableReference> getTableReferences(){
+		return Collections.unmodifiableSet(tables.keySet());
+	}
+	
+	/**
+	 * Sets the {@link QueryResultCache} that is invalidated whenever this store changes.
+	 * The cache is invalidated synchronously by {@link Write#commit()},
+	 * {@link #createTable(TableReference, Set, Column)} and {@link #dropTable(TableReference)}.
+	 * @param resultCache The QueryResultCache holding results read from this store
+	 * or {@code null} for none.
+	 */
+	public void setQueryResultCache(QueryResultCache resultCache){
+		this.resultCache = resultCache;
+	}
+	
+	/**
+	 * Returns the {@link QueryResultCache} that is invalidated whenever this store changes.
+	 * @return The QueryResultCache of this store or {@code null} if it has none.
+	 */
+	public QueryResultCache getQueryResultCache(){
+		return resultCache;
+	}
+	
+	/**
+	 * Returns the {@link QueryPlanner} that plans the queries executed by this store.
+	 * It can be used to explain how a query is executed.
+	 * @return The QueryPlanner of this store.
+	 */
+	public QueryPlanner getQueryPlanner(){
+		return planner;
+	}
+	
+	/**
+	 * Returns the version of the most recently committed {@link Write}.
+	 * @return The latest commit version.
+	 */
+	public long getCommittedVersion(){
+		return committedVersion;
+	}
+	
+	/**
+	 * Opens a new {@link Snapshot} of this store at the latest commit version.
+	 * The returned Snapshot must be released once it is no longer needed.
+	 * @return A new Snapshot.
+	 * @see Snapshot#release()
+	 */
+	public Snapshot openSnapshot(){
+		while(true){
+			Snapshot snapshot = new Snapshot(this, committedVersion);
+			activeSnapshots.add(snapshot);
+			//If garbage collection passed this version before the snapshot
+			//was registered, its rows may be gone. Retry at a newer version.
+			if(snapshot.getVersion() >= garbageHorizon){
+				return snapshot;
+			}
+			activeSnapshots.remove(snapshot);
+		}
+	}
+	
+	/**
+	 * Removes a released {@link Snapshot} from the set of active Snapshots.
+	 * This method is called by {@link Snapshot#release()}.
+	 * @param snapshot The released Snapshot.
+	 */
+	void releaseSnapshot(Snapshot snapshot){
+		activeSnapshots.remove(snapshot);
+	}
+	
+	/**
+	 * Executes a {@link Query} against a new {@link Snapshot}
+	 * of this store. The Snapshot is released before this method returns.
+	 * @param query The Query to execute.
+	 * @return A Set containing every {@link Row} satisfying {@code query}.
+	 * @throws InvalidTargetException If the table targeted by {@code query}
+	 * does not exist.
+	 */
+	public Set<Row> executeQuery(Query query) throws InvalidTargetException{
+		Snapshot snapshot = openSnapshot();
+		try{
+			return executeQuery(query, snapshot);
+		}finally{
+			snapshot.release();
+		}
+	}
+	
+	/**
+	 * Executes a {@link Query} through the given {@link Snapshot}.
+	 * The Query is planned by the {@link QueryPlanner} of this store.
+	 * @param query The Query to execute.
+	 * @param snapshot The Snapshot through which rows are read.
+	 * @return A Set containing every {@link Row} satisfying {@code query}.
+	 * @throws InvalidTargetException If the table targeted by {@code query}
+	 * does not exist.
+	 */
+	public Set<Row> executeQuery(Query query, Snapshot snapshot) throws InvalidTargetException{
+		return planner.plan(query).execute(snapshot);
+	}
+	
+	/**
+	 * Executes a {@link JoinQuery} against a new {@link Snapshot}
+	 * of this store. The Snapshot is released before this method returns.
+	 * @param query The JoinQuery to execute.
+	 * @return A Set containing every combined {@link Row} produced by {@code query}.
+	 * @throws InvalidTargetException If a table or join column of {@code query}
+	 * does not exist.
+	 */
+	public Set<Row> executeJoin(JoinQuery query) throws InvalidTargetException{
+		Snapshot snapshot = openSnapshot();
+		try{
+			return executeJoin(query, snapshot);
+		}finally{
+			snapshot.release();
+		}
+	}
+	
+	/**
+	 * Executes a {@link JoinQuery} through the given {@link Snapshot}.
+	 * Every table is read through the same Snapshot, so the joined rows are
+	 * consistent with each other. The JoinQuery is planned by the
+	 * {@link QueryPlanner} of this store.
+	 * @param query The JoinQuery to execute.
+	 * @param snapshot The Snapshot through which rows are read.
+	 * @return A Set containing every combined {@link Row} produced by {@code query}.
+	 * @throws InvalidTargetException If a table or join column of {@code query}
+	 * does not exist.
+	 */
+	public Set<Row> executeJoin(JoinQuery query, Snapshot snapshot) throws InvalidTargetException{
+		return planner.plan(query).execute(snapshot);
+	}
+	
+	/**
+	 * Executes a {@link PreparedQuery} with bound parameter values against
+	 * the state of this store at {@code snapshot}.
+	 * The {@link QueryPlan} of each PreparedQuery is compiled by the
+	 * {@link QueryPlanner} of this store on its first execution and reused
+	 * until the schema of its table changes.
+	 * @param query The PreparedQuery to be executed.
+	 * @param snapshot The {@link Snapshot} through which the rows are read.
+	 * @param values The values of the parameters of {@code query}, in order.
+	 * @return A new Set containing every visible {@link Row} that satisfies {@code query}
+	 * with the bound values.
+	 * @throws InvalidTargetException If the table targeted by {@code query} does not exist.
+	 * @throws IllegalArgumentException If the number of values does not match the
+	 * number of parameters of {@code query}.
+	 */
+	public Set<Row> executeQuery(PreparedQuery query, Snapshot snapshot, Data... values) throws InvalidTargetException{
+		MultiVersionTable table = getTable(query.getTableReference());
+		if(table == null){
+			throw new InvalidTargetException("The table \""+query.getTableReference().getTableName()+"\" does not exist.");
+		}
+		QueryPlan plan = plans.get(query);
+		if(plan == null || !plan.isValidFor(table)){
+			plan = planner.plan(query);
+			plans.put(query, plan);
+		}
+		return plan.execute(snapshot, values);
+	}
+	
+	/**
+	 * Begins a new {@link Write} to this store. Nothing is visible to
+	 * readers until {@link Write#commit()} is called.
+	 * @return A new, empty Write.
+	 */
+	public Write beginWrite(){
+		return new Write();
+	}
+	
+	/**
+	 * Installs restored rows with the versions they carry and advances the
+	 * committed version of this store to {@code version}. This is used by
+	 * {@link Checkpoint#restore(MultiVersionStore)} so that row versions stay
+	 * the same across a restart. It must only be called before the store is used.
+	 * @param restored The rows of each table, each carrying its saved version
+	 * (see {@link Row#getVersion()}).
+	 * @param version The commit version of the restored state. No row may have
+	 * a larger version.
+	 * @throws InvalidTargetException If a table of {@code restored} does not exist.
+	 */
+	void restore(Map<TableReference, List<Row>> restored, long version) throws InvalidTargetException{
+		commitLock.lock();
+		try{
+			for(Map.Entry<TableReference, List<Row>> entry : restored.entrySet()){
+				MultiVersionTable table = getTable(entry.getKey());
+				if(table == null){
+					throw new InvalidTargetException("The table \""+entry.getKey().getTableName()+"\" does not exist.");
+				}
+				for(Row row : entry.getValue()){
+					table.install(row.getPrimaryKeyValue().longValue(), row, row.getVersion());
+				}
+			}
+			committedVersion = Math.max(committedVersion, version);
+			QueryResultCache cache = resultCache;
+			if(cache != null){
+				cache.invalidateAll();
+			}
+		}finally{
+			commitLock.unlock();
+		}
+	}
+	
+	/**
+	 * Discards every row version that cannot be seen by any open {@link Snapshot}
+	 * or by any Snapshot opened in the future.
+	 * @return The number of row versions discarded.
+	 */
+	public int collectGarbage(){
+		long horizon = committedVersion;
+		for(Snapshot snapshot : activeSnapshots){
+			horizon = Math.min(horizon, snapshot.getVersion());
+		}
+		garbageHorizon = Math.max(garbageHorizon, horizon);
+		//A snapshot registered while the horizon was computed either sees the
+		//new garbageHorizon and retries, or is seen by this second pass.
+		for(Snapshot snapshot : activeSnapshots){
+			horizon = Math.min(horizon, snapshot.getVersion());
+		}
+		int discarded = 0;
+		for(MultiVersionTable table : tables.values()){
+			discarded += table.collectGarbage(horizon);
+		}
+		return discarded;
+	}
+	
+	/**
+	 * A Write collects row insertions, replacements and deletions and
+	 * applies them to a {@link MultiVersionStore} atomically with
+	 * {@link #commit()}. A Write is not thread-safe and can only be
+	 * committed once.
+	 * <br/>
+	 * Operations may state the row version they expect to replace
+	 * (optimistic concurrency). These expectations are checked by
+	 * {@link #commit()} and no rows are locked while the Write is built.
+	 */
+	public class Write {
+		private final List<TableReference> targetTables;
+		private final List<Long> primaryKeys;
+		private final List<Row> newRows;
+		private final List<Long> expectedVersions;
+		private boolean committed;
+		
+		/**
+		 * Constructs a new, empty Write. Writes are created by
+		 * {@link MultiVersionStore#beginWrite()}.
+		 */
+		Write(){
+			targetTables = new ArrayList<TableReference>();
+			primaryKeys = new ArrayList<Long>();
+			newRows = new ArrayList<Row>();
+			expectedVersions = new ArrayList<Long>();
+			committed = false;
+		}
+		
+		/**
+		 * Inserts or replaces a row. The row is identified by its primary key value.
+		 * @param tableRef The {@link TableReference} of the table containing the row.
+		 * @param row The new state of the {@link Row}.
+		 */
+		public void put(TableReference tableRef, Row row){
+			add(tableRef, row.getPrimaryKeyValue().longValue(), row, ANY_VERSION);
+		}
+		
+		/**
+		 * Replaces a row only if it is still at {@code expectedVersion}
+		 * when this Write is committed.
+		 * @param tableRef The {@link TableReference} of the table containing the row.
+		 * @param row The new state of the {@link Row}.
+		 * @param expectedVersion The version of the row being replaced
+		 * (see {@link Row#getVersion()}).
+		 */
+		public void put(TableReference tableRef, Row row, long expectedVersion){
+			add(tableRef, row.getPrimaryKeyValue().longValue(), row, expectedVersion);
+		}
+		
+		/**
+		 * Inserts a row only if no row with the same primary key value exists
+		 * when this Write is committed.
+		 * @param tableRef The {@link TableReference} of the table that will contain the row.
+		 * @param row The new {@link Row}.
+		 */
+		public void insert(TableReference tableRef, Row row){
+			add(tableRef, row.getPrimaryKeyValue().longValue(), row, Row.NO_VERSION);
+		}
+		
+		/**
+		 * Deletes a row.
+		 * @param tableRef The {@link TableReference} of the table containing the row.
+		 * @param primaryKey The primary key value of the row to be deleted.
+		 */
+		public void delete(TableReference tableRef, long primaryKey){
+			add(tableRef, primaryKey, null, ANY_VERSION);
+		}
+		
+		/**
+		 * Deletes a row only if it is still at {@code expectedVersion}
+		 * when this Write is committed.
+		 * @param tableRef The {@link TableReference} of the table containing the row.
+		 * @param primaryKey The primary key value of the row to be deleted.
+		 * @param expectedVersion The version of the row being deleted
+		 * (see {@link Row#getVersion()}).
+		 */
+		public void delete(TableReference tableRef, long primaryKey, long expectedVersion){
+			add(tableRef, primaryKey, null, expectedVersion);
+		}
+		
+		/**
+		 * Records a single operation of this Write.
+		 * @param tableRef The {@link TableReference} of the table containing the row.
+		 * @param primaryKey The primary key value of the row.
+		 * @param row The new state of the row or {@code null} for a deletion.
+		 * @param expectedVersion The expected version of the row, {@link Row#NO_VERSION}
+		 * if the row must not exist or {@code ANY_VERSION} to skip the check.
+		 */
+		private void add(TableReference tableRef, long primaryKey, Row row, long expectedVersion){
+			targetTables.add(tableRef);
+			primaryKeys.add(primaryKey);
+			newRows.add(row);
+			expectedVersions.add(expectedVersion);
+		}
+		
+		/**
+		 * Returns the number of operations in this Write.
+		 * @return The number of puts and deletions in this Write.
+		 */
+		public int size(){
+			return newRows.size();
+		}
+		
+		/**
+		 * Atomically applies every operation in this Write. Snapshots opened
+		 * after this method returns see all of the operations and Snapshots opened
+		 * before it returns see none of them. The changed tables are invalidated in
+		 * the {@link QueryResultCache} of the store before this method returns.
+		 * @return The commit version assigned to this Write.
+		 * @throws InvalidTargetException If a table targeted by this Write does not
+		 * exist. No operations are applied in this case.
+		 * @throws VersionConflictException If a row is not at the version expected
+		 * by an operation of this Write. No operations are applied in this case.
+		 * @throws IllegalStateException If this Write has already been committed.
+		 */
+		public long commit() throws InvalidTargetException, VersionConflictException{
+			if(committed){
+				throw new IllegalStateException("This Write has already been committed.");
+			}
+			commitLock.lock();
+			try{
+				List<MultiVersionTable> resolved = new ArrayList<MultiVersionTable>(targetTables.size());
+				for(TableReference tableRef : targetTables){
+					MultiVersionTable table = getTable(tableRef);
+					if(table == null){
+						throw new InvalidTargetException("The table \""+tableRef.getTableName()+"\" does not exist.");
+					}
+					resolved.add(table);
+				}
+				for(int i = 0; i < resolved.size(); i++){
+					long expected = expectedVersions.get(i);
+					long actual = resolved.get(i).getLatestVersion(primaryKeys.get(i));
+					if(expected != ANY_VERSION && expected != actual){
+						throw new VersionConflictException("Row "+primaryKeys.get(i)+" of table \""+targetTables.get(i).getTableName()+
+								"\" is at version "+actual+", expected "+expected+".");
+					}
+				}
+				long version = committedVersion + 1;
+				for(int i = 0; i < resolved.size(); i++){
+					resolved.get(i).install(primaryKeys.get(i), newRows.get(i), version);
+				}
+				//Publishing the new version makes every installed row visible at once.
+				committedVersion = version;
+				committed = true;
+				//Invalidate after publishing, so that a query that read the old
+				//rows cannot cache them under the new generation.
+				QueryResultCache cache = resultCache;
+				if(cache != null){
+					for(TableReference tableRef : new HashSet<TableReference>(targetTables)){
+						cache.invalidate(tableRef);
+					}
+				}
+				return version;
+			}finally{
+				commitLock.unlock();
+			}
+		}
+	}
+}
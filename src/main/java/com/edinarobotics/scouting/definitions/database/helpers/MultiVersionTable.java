@@ -0,0 +1,256 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.NoSuchColumnException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.Constraint;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+
+/**
+ * This class stores the rows of a single table of a {@link MultiVersionStore}.
+ * Every row is stored as a chain of {@link RowVersion} objects, newest first,
+ * keyed by its primary key value. Every stored {@link Row} carries the commit
+ * version that wrote it (see {@link Row#getVersion()}).
+ * <br/>
+ * Reads never take locks. A reader walks each chain to the newest version
+ * visible to its {@link Snapshot}, so versions installed by concurrent
+ * writers are simply skipped. Writes are made through
+ * {@link MultiVersionStore.Write} objects.
+ * <br/>
+ * The schema of a table ({@link #getColumns()}) is not versioned. Neither are
+ * its statistics ({@link #getStatistics()}), which describe its newest state.
+ */
+public class MultiVersionTable {
+	private final TableReference tableRef;
+	private final Column primaryKeyColumn;
+	private volatile Set<Column> columns;
+	private final ConcurrentMap<Long, RowVersion> rows;
+	private final TableStatistics statistics;
+	
+	/**
+	 * Constructs a new, empty MultiVersionTable.
+	 * Tables are created by {@link MultiVersionStore#createTable(TableReference, Set, Column)}.
+	 * @param tableRef The {@link TableReference} naming this table.
+	 * @param columns The {@link Column} objects of this table.
+	 * @param primaryKeyColumn The primary key Column of this table.
+	 */
+	MultiVersionTable(TableReference tableRef, Set<Column> columns, Column primaryKeyColumn){
+		this.tableRef = tableRef;
+		this.columns = Collections.unmodifiableSet(new HashSet<Column>(columns));
+		this.primaryKeyColumn = primaryKeyColumn;
+		this.rows = new ConcurrentHashMap<Long, RowVersion>();
+		this.statistics = new TableStatistics();
+	}
+	
+	/**
+	 * Returns the {@link TableReference} naming this table.
+	 * @return The TableReference of this table.
+	 */
+	public TableReference getTableReference(){
+		return tableRef;
+	}
+	
+	/**
+	 * Returns the primary key {@link Column} of this table.
+	 * @return The primary key Column.
+	 */
+	public Column getPrimaryKeyColumn(){
+		return primaryKeyColumn;
+	}
+	
+	/**
+	 * Returns the current {@link Column} objects of this table.
+	 * This Set cannot be modified.
+	 * @return A Set of the Columns of this table.
+	 */
+	public Set<Column> getColumns(){
+		return columns;
+	}
+	
+	/**
+	 * Replaces the schema of this table. Existing row versions are not
+	 * rewritten. It is the responsibility of the Database implementation
+	 * to write new row versions if the stored rows must change.
+	 * @param newColumns The new Column objects of this table.
+	 */
+	void setColumns(Set<Column> newColumns){
+		this.columns = Collections.unmodifiableSet(new HashSet<Column>(newColumns));
+		statistics.retainColumns(newColumns);
+	}
+	
+	/**
+	 * Returns the statistics of this table. They are updated as rows are written.
+	 * @return The {@link TableStatistics} of this table.
+	 */
+	public TableStatistics getStatistics(){
+		return statistics;
+	}
+	
+	/**
+	 * Returns the row with the given primary key value as seen by {@code snapshot}.
+	 * @param primaryKey The primary key value of the requested row.
+	 * @param snapshot The {@link Snapshot} through which the row is read.
+	 * @return The visible {@link Row} or {@code null} if the row did not exist
+	 * at the version of {@code snapshot}.
+	 */
+	public Row getRow(long primaryKey, Snapshot snapshot){
+		RowVersion head = rows.get(primaryKey);
+		if(head == null){
+			return null;
+		}
+		RowVersion visible = head.visibleAt(snapshot.getVersion());
+		return visible == null ? null : visible.getRow();
+	}
+	
+	/**
+	 * Returns the number of rows stored in this table. Rows deleted after the
+	 * oldest open {@link Snapshot} are still counted, so this is an estimate of
+	 * the number of rows visible to any one Snapshot.
+	 * @return The number of stored rows.
+	 */
+	int size(){
+		return rows.size();
+	}
+	
+	/**
+	 * Returns all rows of this table as seen by {@code snapshot}.
+	 * @param snapshot The {@link Snapshot} through which the rows are read.
+	 * @return A new Set containing every visible {@link Row}.
+	 */
+	public Set<Row> getRows(Snapshot snapshot){
+		Set<Row> result = new HashSet<Row>();
+		for(RowVersion head : rows.values()){
+			RowVersion visible = head.visibleAt(snapshot.getVersion());
+			if(visible != null && visible.getRow() != null){
+				result.add(visible.getRow());
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the rows of this table that satisfy {@code query} as seen by
+	 * {@code snapshot}. {@code query} is assumed to target this table.
+	 * @param query The {@link Query} that the rows must satisfy.
+	 * @param snapshot The {@link Snapshot} through which the rows are read.
+	 * @return A new Set containing every visible {@link Row} that satisfies {@code query}.
+	 * @see Query#satisfiesQuery(Row)
+	 */
+	public Set<Row> executeQuery(Query query, Snapshot snapshot){
+		Set<Row> result = new HashSet<Row>();
+		for(RowVersion head : rows.values()){
+			RowVersion visible = head.visibleAt(snapshot.getVersion());
+			if(visible != null && visible.getRow() != null && query.satisfiesQuery(visible.getRow())){
+				result.add(visible.getRow());
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the rows of this table that satisfy every {@link Constraint} as
+	 * seen by {@code snapshot}. The constraints are tested in order, so the
+	 * most selective constraint should come first.
+	 * @param constraints The Constraint objects that the rows must satisfy.
+	 * @param snapshot The {@link Snapshot} through which the rows are read.
+	 * @return A new Set containing every visible {@link Row} that satisfies
+	 * {@code constraints}.
+	 */
+	Set<Row> scan(Constraint[] constraints, Snapshot snapshot){
+		Set<Row> result = new HashSet<Row>();
+		for(RowVersion head : rows.values()){
+			RowVersion visible = head.visibleAt(snapshot.getVersion());
+			if(visible != null && visible.getRow() != null && TablePlan.satisfiesAll(visible.getRow(), constraints)){
+				result.add(visible.getRow());
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Installs a new version of a row. This method must only be called
+	 * by {@link MultiVersionStore} while it holds its commit lock.
+	 * @param primaryKey The primary key value of the row.
+	 * @param row The new state of the row or {@code null} to record its deletion.
+	 * @param version The commit version being written.
+	 */
+	void install(long primaryKey, Row row, long version){
+		Row stamped = null;
+		if(row != null){
+			try{
+				stamped = new Row(row.getValues(), row.getPrimaryKeyColumn(), version);
+			}catch(NoSuchColumnException e){
+				//This should never happen. The primary key column came from the row.
+				e.printStackTrace();
+				stamped = row;
+			}
+		}
+		RowVersion previous = rows.get(primaryKey);
+		if(previous != null && previous.getRow() != null){
+			statistics.remove(previous.getRow());
+		}
+		if(stamped != null){
+			statistics.add(stamped);
+		}
+		rows.put(primaryKey, new RowVersion(stamped, version, previous));
+	}
+	
+	/**
+	 * Returns the newest, possibly uncommitted state of a row.
+	 * This method is used by writers while they hold the commit lock.
+	 * @param primaryKey The primary key value of the row.
+	 * @return The newest Row or {@code null} if the row does not exist.
+	 */
+	Row getLatestRow(long primaryKey){
+		RowVersion head = rows.get(primaryKey);
+		return head == null ? null : head.getRow();
+	}
+	
+	/**
+	 * Returns the version of the newest state of a row.
+	 * This method is used by writers while they hold the commit lock.
+	 * @param primaryKey The primary key value of the row.
+	 * @return The version of the newest Row or {@link Row#NO_VERSION} if
+	 * the row does not exist.
+	 */
+	long getLatestVersion(long primaryKey){
+		Row latest = getLatestRow(primaryKey);
+		return latest == null ? Row.NO_VERSION : latest.getVersion();
+	}
+	
+	/**
+	 * Discards every row version that is not visible to any reader at or
+	 * after {@code horizon}. For each row, the newest version not newer than
+	 * {@code horizon} is kept and all older versions are dropped. Rows whose
+	 * only remaining version is a deletion are removed entirely.
+	 * @param horizon The oldest commit version that may still be read.
+	 * @return The number of row versions discarded.
+	 */
+	int collectGarbage(long horizon){
+		int discarded = 0;
+		for(Map.Entry<Long, RowVersion> entry : rows.entrySet()){
+			RowVersion head = entry.getValue();
+			RowVersion keep = head.visibleAt(horizon);
+			if(keep == null){
+				continue;
+			}
+			RowVersion dropped = keep.getPrevious();
+			while(dropped != null){
+				discarded++;
+				dropped = dropped.getPrevious();
+			}
+			keep.truncate();
+			if(keep == head && head.getRow() == null && rows.remove(entry.getKey(), head)){
+				discarded++;
+			}
+		}
+		return discarded;
+	}
+}
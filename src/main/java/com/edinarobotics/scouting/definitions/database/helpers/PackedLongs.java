@@ -0,0 +1,111 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+/**
+ * This class stores non-negative {@code long} values using a fixed number
+ * of bits for each value. Values are packed end to end into an array of
+ * {@code long} words and may span two words.
+ */
+final class PackedLongs {
+	private final long[] words;
+	private final int width;
+	private final long mask;
+	private final int size;
+	
+	/**
+	 * Packs {@code values[i] - base} for the first {@code count} values.
+	 * @param values The values to be packed.
+	 * @param count The number of values to be packed.
+	 * @param base The value subtracted from every value before packing.
+	 * @param width The number of bits used for each packed value. Every
+	 * packed value must fit in {@code width} bits.
+	 */
+	PackedLongs(long[] values, int count, long base, int width){
+		this.width = width;
+		this.mask = width == 64 ? -1L : (1L << width) - 1;
+		this.size = count;
+		this.words = new long[(int) (((long) count * width + 63) / 64)];
+		for(int i = 0; i < count; i++){
+			set(i, values[i] - base);
+		}
+	}
+	
+	/**
+	 * Returns the number of bits needed to store {@code value} as an unsigned number.
+	 * @param value The value to be stored.
+	 * @return The number of bits needed, {@code 0} for the value {@code 0}.
+	 */
+	static int bitsRequired(long value){
+		return 64 - Long.numberOfLeadingZeros(value);
+	}
+	
+	/**
+	 * Returns the number of bytes used by {@code count} values of {@code width} bits.
+	 * @param count The number of values.
+	 * @param width The number of bits of each value.
+	 * @return The number of bytes of packed words.
+	 */
+	static long packedBytes(int count, int width){
+		return ((long) count * width + 63) / 64 * 8;
+	}
+	
+	/**
+	 * Writes a packed value.
+	 * @param index The index of the value.
+	 * @param value The value, which must fit in {@link #getWidth()} bits.
+	 */
+	private void set(int index, long value){
+		if(width == 0){
+			return;
+		}
+		long bit = (long) index * width;
+		int word = (int) (bit >>> 6);
+		int shift = (int) (bit & 63);
+		words[word] |= (value & mask) << shift;
+		if(shift + width > 64){
+			words[word + 1] |= (value & mask) >>> (64 - shift);
+		}
+	}
+	
+	/**
+	 * Reads a packed value.
+	 * @param index The index of the value.
+	 * @return The packed value, without the base added back.
+	 */
+	long get(int index){
+		if(width == 0){
+			return 0;
+		}
+		long bit = (long) index * width;
+		int word = (int) (bit >>> 6);
+		int shift = (int) (bit & 63);
+		long value = words[word] >>> shift;
+		if(shift + width > 64){
+			value |= words[word + 1] << (64 - shift);
+		}
+		return value & mask;
+	}
+	
+	/**
+	 * Returns the number of packed values.
+	 * @return The number of values.
+	 */
+	int size(){
+		return size;
+	}
+	
+	/**
+	 * Returns the number of bits used for each value.
+	 * @return The width of each value in bits.
+	 */
+	int getWidth(){
+		return width;
+	}
+	
+	/**
+	 * Returns the number of bytes used by the packed words.
+	 * @return The size of the packed words in bytes.
+	 */
+	long getEncodedBytes(){
+		return (long) words.length * 8;
+	}
+}
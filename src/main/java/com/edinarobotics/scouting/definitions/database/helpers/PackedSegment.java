@@ -0,0 +1,64 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.BitSet;
+
+/**
+ * This {@link LongSegment} stores each value as a bit-packed offset from a
+ * base value. With a base of {@code 0} this is plain bit-packing; otherwise
+ * the base is the smallest value in the segment. Range tests compare the
+ * packed offsets directly.
+ * @see ColumnEncoding#BIT_PACKED
+ * @see ColumnEncoding#FRAME_OF_REFERENCE
+ */
+final class PackedSegment extends LongSegment {
+	private final long base;
+	private final long span;
+	private final PackedLongs offsets;
+	
+	/**
+	 * Constructs a new PackedSegment.
+	 * @param values The values to be stored.
+	 * @param count The number of values to be stored.
+	 * @param base The base value. Every value must be at least {@code base}.
+	 * @param span The largest value minus {@code base}. This must not be negative.
+	 */
+	PackedSegment(long[] values, int count, long base, long span){
+		this.base = base;
+		this.span = span;
+		this.offsets = new PackedLongs(values, count, base, PackedLongs.bitsRequired(span));
+	}
+	
+	int size(){
+		return offsets.size();
+	}
+	
+	long get(int index){
+		return base + offsets.get(index);
+	}
+	
+	ColumnEncoding getEncoding(){
+		return base == 0 ? ColumnEncoding.BIT_PACKED : ColumnEncoding.FRAME_OF_REFERENCE;
+	}
+	
+	long getEncodedBytes(){
+		return offsets.getEncodedBytes() + 8;
+	}
+	
+	void retainRange(long min, long max, BitSet candidates){
+		if(max < base || min > base + span){
+			candidates.clear(0, size());
+			return;
+		}
+		long low = Math.max(min, base) - base;
+		long high = Math.min(max, base + span) - base;
+		if(low == 0 && high == span){
+			return;
+		}
+		for(int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)){
+			long offset = offsets.get(i);
+			if(offset < low || offset > high){
+				candidates.clear(i);
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+/**
+ * This {@link LongSegment} stores its values uncompressed.
+ * @see ColumnEncoding#PLAIN
+ */
+final class PlainSegment extends LongSegment {
+	private final long[] values;
+	
+	/**
+	 * Constructs a new PlainSegment.
+	 * @param values The values to be stored.
+	 * @param count The number of values to be stored.
+	 */
+	PlainSegment(long[] values, int count){
+		this.values = new long[count];
+		System.arraycopy(values, 0, this.values, 0, count);
+	}
+	
+	int size(){
+		return values.length;
+	}
+	
+	long get(int index){
+		return values[index];
+	}
+	
+	ColumnEncoding getEncoding(){
+		return ColumnEncoding.PLAIN;
+	}
+	
+	long getEncodedBytes(){
+		return (long) values.length * 8;
+	}
+}
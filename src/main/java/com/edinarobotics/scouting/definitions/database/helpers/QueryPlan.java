@@ -0,0 +1,185 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.HashSet;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.NoSuchColumnException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.PreparedQuery;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+
+/**
+ * A QueryPlan is a {@link PreparedQuery} compiled by the {@link QueryPlanner}
+ * against the schema of a {@link MultiVersionTable}. Compiling resolves every
+ * parameter to its {@link Column} object and chooses how the table is read:
+ * <ul>
+ * <li>If a parameter names the primary key column, each execution reads the
+ * single row with the bound primary key value.</li>
+ * <li>Otherwise each execution runs the {@link TablePlan} of the fixed
+ * constraints of the PreparedQuery, which the QueryPlanner chose like the
+ * plan of any other {@link com.edinarobotics.scouting.definitions.database.queries.Query Query}.</li>
+ * </ul>
+ * Parameter values are compared with the row values of their resolved
+ * columns directly, without looking columns up by name for every row.
+ * <br/>
+ * A QueryPlan stays valid until the schema of its table changes
+ * (see {@link #isValidFor(MultiVersionTable)}). Its {@link AccessMethod}
+ * reflects the statistics of the table when it was compiled. QueryPlan
+ * objects are immutable and may be shared between threads. A QueryPlan does
+ * not refer to its PreparedQuery, so plans can be cached in a
+ * {@link java.util.WeakHashMap WeakHashMap} keyed by PreparedQuery.
+ * @see QueryPlanner#plan(PreparedQuery)
+ * @see MultiVersionStore#executeQuery(PreparedQuery, Snapshot, Data...)
+ */
+public final class QueryPlan {
+	private final TablePlan template;
+	private final Set<Column> columns;
+	private final Column[] parameterColumns;
+	private final int primaryKeyParameter;
+	private final boolean alwaysEmpty;
+	
+	/**
+	 * Constructs a new QueryPlan.
+	 * QueryPlan objects are created by {@link QueryPlanner#plan(PreparedQuery)}.
+	 * @param template The {@link TablePlan} of the fixed constraints of the PreparedQuery.
+	 * @param parameterColumns The resolved Column of each parameter, or {@code null}
+	 * for a parameter whose column is not part of the table.
+	 * @param primaryKeyParameter The index of the first parameter naming the primary
+	 * key column or {@code -1} if there is none.
+	 */
+	QueryPlan(TablePlan template, Column[] parameterColumns, int primaryKeyParameter){
+		this.template = template;
+		this.columns = template.getTable().getColumns();
+		this.parameterColumns = parameterColumns;
+		this.primaryKeyParameter = primaryKeyParameter;
+		boolean empty = false;
+		for(Column column : parameterColumns){
+			//No row contains a missing column, so no row can be equal to its parameter.
+			empty |= column == null;
+		}
+		this.alwaysEmpty = empty;
+	}
+	
+	/**
+	 * Returns the {@link AccessMethod} reading the rows of the table.
+	 * @return {@link AccessMethod#PRIMARY_KEY_LOOKUP} if a parameter names the
+	 * primary key column, the AccessMethod of the fixed constraints otherwise.
+	 */
+	public AccessMethod getAccessMethod(){
+		return primaryKeyParameter >= 0 ? AccessMethod.PRIMARY_KEY_LOOKUP : template.getAccessMethod();
+	}
+	
+	/**
+	 * Indicates whether this QueryPlan reads single rows by primary key
+	 * instead of scanning its table.
+	 * @return {@code true} if a parameter names the primary key column.
+	 */
+	public boolean isPrimaryKeyLookup(){
+		return primaryKeyParameter >= 0;
+	}
+	
+	/**
+	 * Determines whether this QueryPlan may still be used with a table.
+	 * A plan becomes invalid when the schema of its table is replaced.
+	 * @param table The {@link MultiVersionTable} to be queried.
+	 * @return {@code true} if this plan was compiled against the current schema of {@code table}.
+	 */
+	public boolean isValidFor(MultiVersionTable table){
+		return table.getColumns() == columns && table.getTableReference().equals(template.getTableReference());
+	}
+	
+	/**
+	 * Executes this QueryPlan with bound parameter values.
+	 * @param snapshot The {@link Snapshot} through which the rows are read.
+	 * @param values The values of the parameters, in order.
+	 * @return A new Set containing every visible {@link Row} that satisfies the
+	 * PreparedQuery with the bound values.
+	 * @throws IllegalArgumentException If the number of values does not match the
+	 * number of parameters.
+	 */
+	public Set<Row> execute(Snapshot snapshot, Data... values){
+		if(values.length != parameterColumns.length){
+			throw new IllegalArgumentException("Expected "+parameterColumns.length+" parameter values but received "+values.length+".");
+		}
+		Set<Row> result = new HashSet<Row>();
+		if(alwaysEmpty){
+			return result;
+		}
+		if(primaryKeyParameter >= 0){
+			Long primaryKey = toPrimaryKey(values[primaryKeyParameter]);
+			if(primaryKey == null){
+				return result;
+			}
+			Row row = template.getTable().getRow(primaryKey, snapshot);
+			if(row != null && matches(row, values) && template.matches(row)){
+				result.add(row);
+			}
+			return result;
+		}
+		for(Row row : template.execute(snapshot)){
+			if(matches(row, values)){
+				result.add(row);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Converts a value compared with a primary key column to a primary key.
+	 * @param key The value compared with the primary key column.
+	 * @return The primary key equal to {@code key} or {@code null} if no
+	 * primary key can be equal to {@code key}.
+	 */
+	static Long toPrimaryKey(Data key){
+		if(!(key instanceof Real)){
+			return null;
+		}
+		if(key instanceof Integer){
+			return ((Integer) key).longValue();
+		}
+		double number = ((Real) key).doubleValue();
+		if(number != Math.floor(number)){
+			return null;
+		}
+		return (long) number;
+	}
+	
+	/**
+	 * Tests a row against the bound parameters.
+	 * @param row The row to be tested.
+	 * @param values The values of the parameters.
+	 * @return {@code true} if every parameter column of {@code row} is equal to its value.
+	 */
+	private boolean matches(Row row, Data[] values){
+		for(int i = 0; i < values.length; i++){
+			Data rowValue;
+			try{
+				rowValue = row.getColumnValue(parameterColumns[i]);
+			}catch(NoSuchColumnException e){
+				return false;
+			}
+			if(values[i] == null ? rowValue != null : !values[i].equals(rowValue)){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Finds the {@link Column} referenced by a {@link ColumnReference}.
+	 * @param columns The columns of the table.
+	 * @param reference The ColumnReference.
+	 * @return The referenced Column or {@code null} if it is not part of the table.
+	 */
+	static Column findColumn(Set<Column> columns, ColumnReference reference){
+		for(Column column : columns){
+			if(column.getReference().equals(reference)){
+				return column;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,358 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.queries.Join;
+import com.edinarobotics.scouting.definitions.database.queries.JoinQuery;
+import com.edinarobotics.scouting.definitions.database.queries.JoinType;
+import com.edinarobotics.scouting.definitions.database.queries.PreparedQuery;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.Constraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.RangeConstraint;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+
+/**
+ * This class plans the execution of {@link Query}, {@link PreparedQuery} and
+ * {@link JoinQuery} objects against a {@link MultiVersionStore}. Plans are chosen by their estimated cost,
+ * which is computed from the {@link TableStatistics} of every table.
+ * <br/>
+ * For a Query the planner chooses:
+ * <ul>
+ * <li>the {@link AccessMethod}: a primary key lookup if the Query limits the
+ * primary key column to fewer values than a table scan would read, and
+ * a table scan otherwise,</li>
+ * <li>the order in which {@link Constraint} objects are tested: the most
+ * selective Constraint first.</li>
+ * </ul>
+ * A PreparedQuery is compiled to a {@link QueryPlan}: a primary key lookup if
+ * a parameter names the primary key column, and the plan of its fixed
+ * constraints otherwise.
+ * <br/>
+ * For a JoinQuery the planner also chooses the order of the joins and the
+ * {@link JoinMethod} of each join (see {@link JoinPlan}). A hash join costs one
+ * read of both inputs plus one insertion per row of its hash table, and a cache
+ * miss per row once the hash table outgrows {@link #HASH_CACHE_ROWS}. A merge join
+ * costs one read of both inputs plus the comparisons of sorting them. The cheaper
+ * of the two is chosen.
+ * <br/>
+ * {@link #explain(Query)} and {@link #explain(JoinQuery)} describe the
+ * chosen plan and its estimates, which shows why a query is slow.
+ * QueryPlanner objects are thread-safe.
+ * @see MultiVersionStore#getQueryPlanner()
+ */
+public final class QueryPlanner {
+	/**
+	 * The cost of looking up one primary key value, relative to the cost of
+	 * reading one row in a table scan.
+	 */
+	static final double LOOKUP_COST = 2;
+	
+	/**
+	 * The number of rows of the largest hash table that is expected to fit in
+	 * the processor caches.
+	 */
+	static final int HASH_CACHE_ROWS = 65536;
+	
+	/**
+	 * The cost of a cache miss, relative to the cost of reading one row in a
+	 * table scan. Building and probing a hash table larger than
+	 * {@link #HASH_CACHE_ROWS} rows costs one cache miss per row.
+	 */
+	static final double CACHE_MISS_COST = 32;
+	
+	private final MultiVersionStore store;
+	
+	/**
+	 * Constructs a new QueryPlanner for the tables of a {@link MultiVersionStore}.
+	 * @param store The MultiVersionStore whose queries are planned.
+	 */
+	public QueryPlanner(MultiVersionStore store){
+		this.store = store;
+	}
+	
+	/**
+	 * Plans the execution of a {@link Query}.
+	 * @param query The Query to be planned.
+	 * @return The chosen {@link TablePlan}.
+	 * @throws InvalidTargetException If the table targeted by {@code query} does not exist.
+	 */
+	public TablePlan plan(Query query) throws InvalidTargetException{
+		return plan(getTable(query.getTableReference()), query);
+	}
+	
+	/**
+	 * Compiles a {@link PreparedQuery} against the current schema and
+	 * statistics of its table.
+	 * @param query The PreparedQuery to be compiled.
+	 * @return The compiled {@link QueryPlan}.
+	 * @throws InvalidTargetException If the table targeted by {@code query} does not exist.
+	 */
+	public QueryPlan plan(PreparedQuery query) throws InvalidTargetException{
+		MultiVersionTable table = getTable(query.getTableReference());
+		Column[] parameterColumns = new Column[query.getParameterCount()];
+		int primaryKey = -1;
+		for(int i = 0; i < parameterColumns.length; i++){
+			parameterColumns[i] = QueryPlan.findColumn(table.getColumns(), query.getParameters().get(i));
+			if(primaryKey < 0 && table.getPrimaryKeyColumn().equals(parameterColumns[i])){
+				primaryKey = i;
+			}
+		}
+		return new QueryPlan(plan(table, query.getTemplate()), parameterColumns, primaryKey);
+	}
+	
+	/**
+	 * Plans the execution of a {@link JoinQuery}.
+	 * @param query The JoinQuery to be planned.
+	 * @return The chosen {@link JoinPlan}.
+	 * @throws InvalidTargetException If a table or join column of {@code query} does not exist.
+	 */
+	public JoinPlan plan(JoinQuery query) throws InvalidTargetException{
+		TablePlan base = plan(query.getBaseQuery());
+		Set<TableReference> joined = new HashSet<TableReference>();
+		joined.add(base.getTableReference());
+		Set<Column> columns = new HashSet<Column>(base.getTable().getColumns());
+		List<Join> pending = new ArrayList<Join>(query.getJoins());
+		List<JoinPlan.Step> steps = new ArrayList<JoinPlan.Step>();
+		double rows = base.getEstimatedRows();
+		while(!pending.isEmpty()){
+			JoinPlan.Step best = null;
+			int bestIndex = -1;
+			for(int i = 0; i < pending.size(); i++){
+				if(!joined.contains(pending.get(i).getLeftColumn().getTableReference())){
+					continue;
+				}
+				JoinPlan.Step step = plan(pending.get(i), rows, columns);
+				if(best == null || step.getEstimatedRows() < best.getEstimatedRows()){
+					best = step;
+					bestIndex = i;
+				}
+			}
+			//JoinQuery only accepts left columns of tables joined before, so a Join is always ready.
+			pending.remove(bestIndex);
+			steps.add(best);
+			joined.add(best.getJoin().getTableReference());
+			columns.addAll(best.getTablePlan().getTable().getColumns());
+			rows = best.getEstimatedRows();
+		}
+		return new JoinPlan(base, steps);
+	}
+	
+	/**
+	 * Returns a description of the plan of a {@link Query}.
+	 * @param query The Query to be explained.
+	 * @return The result of {@link TablePlan#explain()} for the plan of {@code query}.
+	 * @throws InvalidTargetException If the table targeted by {@code query} does not exist.
+	 */
+	public String explain(Query query) throws InvalidTargetException{
+		return plan(query).explain();
+	}
+	
+	/**
+	 * Returns a description of the plan of a {@link JoinQuery}.
+	 * @param query The JoinQuery to be explained.
+	 * @return The result of {@link JoinPlan#explain()} for the plan of {@code query}.
+	 * @throws InvalidTargetException If a table or join column of {@code query} does not exist.
+	 */
+	public String explain(JoinQuery query) throws InvalidTargetException{
+		return plan(query).explain();
+	}
+	
+	/**
+	 * Plans the execution of a {@link Query} on a table.
+	 * @param table The table targeted by {@code query}.
+	 * @param query The Query to be planned.
+	 * @return The chosen {@link TablePlan}.
+	 */
+	private TablePlan plan(MultiVersionTable table, Query query){
+		TableStatistics statistics = table.getStatistics();
+		final Constraint[] constraints = query.getConstraints().toArray(new Constraint[0]);
+		final double[] selectivities = new double[constraints.length];
+		Integer[] order = new Integer[constraints.length];
+		double estimatedRows = statistics.getRowCount();
+		for(int i = 0; i < constraints.length; i++){
+			selectivities[i] = statistics.estimateSelectivity(constraints[i]);
+			estimatedRows *= selectivities[i];
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>(){
+			public int compare(Integer a, Integer b){
+				return Double.compare(selectivities[a], selectivities[b]);
+			}
+		});
+		Constraint[] orderedConstraints = new Constraint[constraints.length];
+		double[] orderedSelectivities = new double[constraints.length];
+		for(int i = 0; i < order.length; i++){
+			orderedConstraints[i] = constraints[order[i]];
+			orderedSelectivities[i] = selectivities[order[i]];
+		}
+		long firstKey = Long.MIN_VALUE;
+		long lastKey = Long.MAX_VALUE;
+		ColumnReference primaryKey = table.getPrimaryKeyColumn().getReference();
+		for(Constraint constraint : constraints){
+			if(!constraint.getColumnReference().equals(primaryKey)){
+				continue;
+			}
+			if(constraint instanceof EqualsConstraint){
+				Long key = QueryPlan.toPrimaryKey(((EqualsConstraint) constraint).getValue());
+				if(key == null){
+					//No primary key can be equal to the value.
+					return new TablePlan(table, AccessMethod.PRIMARY_KEY_LOOKUP, 1, 0, orderedConstraints, orderedSelectivities, 0, 0);
+				}
+				firstKey = Math.max(firstKey, key);
+				lastKey = Math.min(lastKey, key);
+			}
+			else if(constraint instanceof RangeConstraint){
+				RangeConstraint range = (RangeConstraint) constraint;
+				firstKey = Math.max(firstKey, lowestKey(range.getLowerBound(), range.isLowerInclusive()));
+				lastKey = Math.min(lastKey, highestKey(range.getUpperBound(), range.isUpperInclusive()));
+			}
+		}
+		double scanCost = table.size();
+		if(firstKey > lastKey){
+			return new TablePlan(table, AccessMethod.PRIMARY_KEY_LOOKUP, 1, 0, orderedConstraints, orderedSelectivities, 0, 0);
+		}
+		if(firstKey != Long.MIN_VALUE && lastKey != Long.MAX_VALUE){
+			double keys = (double) lastKey - firstKey + 1;
+			if(keys * LOOKUP_COST < scanCost){
+				AccessMethod method = keys == 1 ? AccessMethod.PRIMARY_KEY_LOOKUP : AccessMethod.PRIMARY_KEY_RANGE;
+				return new TablePlan(table, method, firstKey, lastKey, orderedConstraints, orderedSelectivities,
+						Math.min(estimatedRows, keys), keys * LOOKUP_COST);
+			}
+		}
+		return new TablePlan(table, AccessMethod.TABLE_SCAN, firstKey, lastKey, orderedConstraints, orderedSelectivities, estimatedRows, scanCost);
+	}
+	
+	/**
+	 * Plans one {@link Join} of a {@link JoinQuery}.
+	 * @param join The Join to be planned.
+	 * @param leftRows The estimated number of rows on the left side.
+	 * @param leftColumns The {@link Column} objects of the tables joined so far.
+	 * @return The planned {@link JoinPlan.Step}.
+	 * @throws InvalidTargetException If the joined table or a join column does not exist.
+	 */
+	private JoinPlan.Step plan(Join join, double leftRows, Set<Column> leftColumns) throws InvalidTargetException{
+		MultiVersionTable table = getTable(join.getTableReference());
+		Column leftKey = getColumn(leftColumns, join.getLeftColumn());
+		Column rightKey = getColumn(table.getColumns(), join.getRightColumn());
+		TablePlan right = plan(table, join.getQuery());
+		double rightRows = right.getEstimatedRows();
+		double distinct = Math.max(1, Math.max(getDistinctCount(leftKey), getDistinctCount(rightKey)));
+		double estimatedRows = leftRows * rightRows / distinct;
+		if(join.getType() == JoinType.LEFT){
+			estimatedRows = Math.max(estimatedRows, leftRows);
+		}
+		double lookupCost = leftRows * LOOKUP_COST;
+		double readCost = right.getCost() + leftRows + rightRows;
+		if(rightKey.equals(table.getPrimaryKeyColumn()) && lookupCost < readCost){
+			return new JoinPlan.Step(join, right, JoinMethod.INDEX_LOOKUP, leftKey, rightKey, estimatedRows, lookupCost);
+		}
+		//HashJoin builds on the smaller input, except for left joins.
+		double buildRows = join.getType() == JoinType.LEFT ? rightRows : Math.min(leftRows, rightRows);
+		double hashCost = readCost + buildRows;
+		if(buildRows > HASH_CACHE_ROWS){
+			hashCost += (leftRows + rightRows) * CACHE_MISS_COST;
+		}
+		if(MergeJoin.canJoin(leftKey) && MergeJoin.canJoin(rightKey)){
+			double sortCost = leftRows * log2(leftRows) + rightRows * log2(rightRows);
+			if(readCost + sortCost < hashCost){
+				return new JoinPlan.Step(join, right, JoinMethod.MERGE_JOIN, leftKey, rightKey, estimatedRows, readCost + sortCost);
+			}
+		}
+		return new JoinPlan.Step(join, right, JoinMethod.HASH_JOIN, leftKey, rightKey, estimatedRows, hashCost);
+	}
+	
+	/**
+	 * Returns the first primary key value allowed by a lower bound.
+	 * @param bound The lower bound or {@code null} if there is none.
+	 * @param inclusive Whether or not the bound itself is allowed.
+	 * @return The lowest allowed primary key value.
+	 */
+	private static long lowestKey(Real bound, boolean inclusive){
+		if(bound == null){
+			return Long.MIN_VALUE;
+		}
+		double value = bound.doubleValue();
+		if(Double.isNaN(value)){
+			return Long.MAX_VALUE;
+		}
+		long key = (long) Math.ceil(value);
+		return !inclusive && key == value && key != Long.MAX_VALUE ? key + 1 : key;
+	}
+	
+	/**
+	 * Returns the last primary key value allowed by an upper bound.
+	 * @param bound The upper bound or {@code null} if there is none.
+	 * @param inclusive Whether or not the bound itself is allowed.
+	 * @return The highest allowed primary key value.
+	 */
+	private static long highestKey(Real bound, boolean inclusive){
+		if(bound == null){
+			return Long.MAX_VALUE;
+		}
+		double value = bound.doubleValue();
+		if(Double.isNaN(value)){
+			return Long.MIN_VALUE;
+		}
+		long key = (long) Math.floor(value);
+		return !inclusive && key == value && key != Long.MIN_VALUE ? key - 1 : key;
+	}
+	
+	/**
+	 * Returns the estimated number of distinct values of a {@link Column}.
+	 * @param column The Column.
+	 * @return The estimated number of distinct values or {@code 0} if the
+	 * Column has no statistics.
+	 */
+	private double getDistinctCount(Column column){
+		MultiVersionTable table = store.getTable(column.getReference().getTableReference());
+		ColumnStatistics statistics = table == null ? null : table.getStatistics().getColumnStatistics(column);
+		return statistics == null ? 0 : statistics.getDistinctCount();
+	}
+	
+	/**
+	 * Returns the base 2 logarithm of a number of rows.
+	 * @param rows The number of rows.
+	 * @return The logarithm of {@code rows}, or {@code 0} for fewer than two rows.
+	 */
+	private static double log2(double rows){
+		return rows < 2 ? 0 : Math.log(rows) / Math.log(2);
+	}
+	
+	/**
+	 * Returns a table of the {@link MultiVersionStore}.
+	 * @param tableRef The {@link TableReference} of the table.
+	 * @return The table named by {@code tableRef}.
+	 * @throws InvalidTargetException If the table does not exist.
+	 */
+	private MultiVersionTable getTable(TableReference tableRef) throws InvalidTargetException{
+		MultiVersionTable table = store.getTable(tableRef);
+		if(table == null){
+			throw new InvalidTargetException("The table \""+tableRef.getTableName()+"\" does not exist.");
+		}
+		return table;
+	}
+	
+	/**
+	 * Returns a join {@link Column}.
+	 * @param columns The Column objects that may contain the join column.
+	 * @param reference The {@link ColumnReference} of the join column.
+	 * @return The Column referenced by {@code reference}.
+	 * @throws InvalidTargetException If {@code columns} does not contain the join column.
+	 */
+	private static Column getColumn(Set<Column> columns, ColumnReference reference) throws InvalidTargetException{
+		Column column = QueryPlan.findColumn(columns, reference);
+		if(column == null){
+			throw new InvalidTargetException("The column \""+reference+"\" does not exist.");
+		}
+		return column;
+	}
+}
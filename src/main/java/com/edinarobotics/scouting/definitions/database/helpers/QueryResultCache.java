@@ -0,0 +1,321 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.database.RowSet;
+import com.edinarobotics.scouting.definitions.database.changes.Change;
+import com.edinarobotics.scouting.definitions.database.changes.ColumnDeletionChange;
+import com.edinarobotics.scouting.definitions.database.changes.ColumnInsertionChange;
+import com.edinarobotics.scouting.definitions.database.changes.TableCreationChange;
+import com.edinarobotics.scouting.definitions.database.changes.TableDeletionChange;
+import com.edinarobotics.scouting.definitions.database.events.DatabaseChangeEvent;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.references.InvalidReferenceException;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.event.EventMonitor;
+import com.edinarobotics.scouting.definitions.event.Listener;
+import com.edinarobotics.scouting.definitions.event.Result;
+
+/**
+ * This class caches the {@link RowSet} results of {@link Query} objects.
+ * Query objects are compared by value (see {@link Query#equals(Object)}), so
+ * identical queries issued by different clients share a single entry.
+ * <br/>
+ * The cache is bounded by weight. Each entry weighs one more than the number
+ * of rows in its result. When the total weight exceeds the limit, the least
+ * recently used entries are evicted.
+ * <h3>Invalidation</h3>
+ * Entries are invalidated per table: a change to a table removes only the
+ * entries of Query objects that target it. Changes to the schema of a table
+ * also invalidate the {@code @tables} and {@code @schema} metatables.
+ * <br/>
+ * A Database implementation must invalidate the tables a transaction changes
+ * after the change becomes visible to queries and before the transaction is
+ * reported as committed. A Database built on a {@link MultiVersionStore} does
+ * this by passing the cache to {@link MultiVersionStore#setQueryResultCache(QueryResultCache)},
+ * which invalidates every table changed by a {@link MultiVersionStore.Write}
+ * before {@link MultiVersionStore.Write#commit()} returns. Other implementations
+ * must call {@link #invalidate(TableReference)} or {@link #invalidate(Change)}
+ * on their commit path.
+ * <br/>
+ * The cache is also a {@link Listener}, which invalidates tables as it is notified
+ * of every {@link DatabaseChangeEvent}. Event monitors are notified asynchronously,
+ * so the listener alone may serve stale results for a short time after a
+ * transaction has committed. It is only a fallback for changes made outside the
+ * commit path.
+ * <br/>
+ * Every table has a generation number that is increased by each invalidation.
+ * A query must read the generation of its table before it runs and pass it to
+ * {@link #put(Query, RowSet, long)}. If the table was invalidated while the
+ * query ran, the result is not cached. This keeps a slow query from caching
+ * a result that is already stale.
+ * <br/>
+ * A typical lookup looks like this:
+ * <pre>
+ * RowSet result = cache.get(query);
+ * if(result == null){
+ *     long generation = cache.getGeneration(query.getTableReference());
+ *     result = runQuery(query);
+ *     cache.put(query, result, generation);
+ * }
+ * </pre>
+ * This class is thread-safe.
+ */
+public class QueryResultCache implements Listener {
+	/**
+	 * The default maximum weight, about the size of a full season of match data.
+	 */
+	public static final long DEFAULT_MAX_WEIGHT = 100000;
+	
+	private final long maxWeight;
+	private final LinkedHashMap<Query, RowSet> entries;
+	private final Map<TableReference, Set<Query>> queriesByTable;
+	private final Map<TableReference, Long> generations;
+	private long weight;
+	private long hits;
+	private long misses;
+	private long evictions;
+	
+	/**
+	 * Constructs a new, empty QueryResultCache with a maximum weight
+	 * of {@link #DEFAULT_MAX_WEIGHT}.
+	 */
+	public QueryResultCache(){
+		this(DEFAULT_MAX_WEIGHT);
+	}
+	
+	/**
+	 * Constructs a new, empty QueryResultCache.
+	 * @param maxWeight The largest total weight of the cached entries.
+	 * @throws IllegalArgumentException If {@code maxWeight} is not positive.
+	 */
+	public QueryResultCache(long maxWeight){
+		if(maxWeight <= 0){
+			throw new IllegalArgumentException("The maximum weight must be positive.");
+		}
+		this.maxWeight = maxWeight;
+		this.entries = new LinkedHashMap<Query, RowSet>(16, 0.75f, true);
+		this.queriesByTable = new HashMap<TableReference, Set<Query>>();
+		this.generations = new HashMap<TableReference, Long>();
+	}
+	
+	/**
+	 * Returns the cached result of a {@link Query}.
+	 * @param query The Query whose result is requested.
+	 * @return The cached {@link RowSet} or {@code null} if the result of
+	 * {@code query} is not cached.
+	 */
+	public synchronized RowSet get(Query query){
+		RowSet result = entries.get(query);
+		if(result == null){
+			misses++;
+		}
+		else{
+			hits++;
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the generation number of a table. It must be read before a
+	 * query runs and passed to {@link #put(Query, RowSet, long)} with its result.
+	 * @param tableRef The {@link TableReference} of the table.
+	 * @return The current generation number of the table.
+	 */
+	public synchronized long getGeneration(TableReference tableRef){
+		Long generation = generations.get(tableRef);
+		return generation == null ? 0 : generation;
+	}
+	
+	/**
+	 * Caches the result of a {@link Query}. The result is not cached if the
+	 * table targeted by {@code query} was invalidated after {@code generation}
+	 * was read or if the result alone is heavier than the maximum weight.
+	 * @param query The Query that produced {@code result}.
+	 * @param result The {@link RowSet} produced by {@code query}. It must not be modified afterwards.
+	 * @param generation The generation of the table targeted by {@code query},
+	 * read by {@link #getGeneration(TableReference)} before the query ran.
+	 * @return {@code true} if the result was cached, {@code false} otherwise.
+	 */
+	public synchronized boolean put(Query query, RowSet result, long generation){
+		TableReference tableRef = query.getTableReference();
+		long entryWeight = weigh(result);
+		if(generation != getGeneration(tableRef) || entryWeight > maxWeight){
+			return false;
+		}
+		RowSet previous = entries.put(query, result);
+		if(previous != null){
+			weight -= weigh(previous);
+		}
+		weight += entryWeight;
+		Set<Query> queries = queriesByTable.get(tableRef);
+		if(queries == null){
+			queries = new HashSet<Query>();
+			queriesByTable.put(tableRef, queries);
+		}
+		queries.add(query);
+		evict();
+		return true;
+	}
+	
+	/**
+	 * Removes every cached result of queries targeting a table and
+	 * increases the generation number of the table.
+	 * @param tableRef The {@link TableReference} of the changed table.
+	 */
+	public synchronized void invalidate(TableReference tableRef){
+		generations.put(tableRef, getGeneration(tableRef) + 1);
+		Set<Query> queries = queriesByTable.remove(tableRef);
+		if(queries == null){
+			return;
+		}
+		for(Query query : queries){
+			RowSet removed = entries.remove(query);
+			if(removed != null){
+				weight -= weigh(removed);
+			}
+		}
+	}
+	
+	/**
+	 * Removes every cached result and increases the generation number of every table.
+	 */
+	public synchronized void invalidateAll(){
+		Set<TableReference> tables = new HashSet<TableReference>(generations.keySet());
+		tables.addAll(queriesByTable.keySet());
+		for(TableReference tableRef : tables){
+			generations.put(tableRef, getGeneration(tableRef) + 1);
+		}
+		entries.clear();
+		queriesByTable.clear();
+		weight = 0;
+	}
+	
+	/**
+	 * Invalidates the tables modified by a {@link Change}.
+	 * Schema changes also invalidate the {@code @tables} and {@code @schema} metatables.
+	 * @param change The Change that was applied.
+	 */
+	public void invalidate(Change change){
+		if(change instanceof TableCreationChange || change instanceof TableDeletionChange ||
+				change instanceof ColumnInsertionChange || change instanceof ColumnDeletionChange){
+			invalidateSchema(change.getTargetTableReference());
+		}
+		else{
+			invalidate(change.getTargetTableReference());
+		}
+	}
+	
+	/**
+	 * Invalidates a table whose schema changed, along with the {@code @tables}
+	 * and {@code @schema} metatables.
+	 * @param tableRef The {@link TableReference} of the table that was created,
+	 * removed or altered.
+	 */
+	public void invalidateSchema(TableReference tableRef){
+		invalidate(tableRef);
+		try{
+			invalidate(new TableReference("@tables"));
+			invalidate(new TableReference("@schema"));
+		}catch(InvalidReferenceException e){
+			//This should never happen. The metatable names are valid references.
+			e.printStackTrace();
+			invalidateAll();
+		}
+	}
+	
+	/**
+	 * Invalidates the table changed by a {@link DatabaseChangeEvent}.
+	 * Cancelled changes were never applied, so they are ignored.
+	 * @param event The DatabaseChangeEvent describing the change.
+	 * @param result The {@link Result} of the change.
+	 */
+	@EventMonitor
+	public void onDatabaseChange(DatabaseChangeEvent event, Result result){
+		if(result != Result.CANCELLED){
+			invalidate(event.getChange());
+		}
+	}
+	
+	/**
+	 * Returns the number of cached results.
+	 * @return The number of entries in this cache.
+	 */
+	public synchronized int size(){
+		return entries.size();
+	}
+	
+	/**
+	 * Returns the total weight of the cached results.
+	 * @return The current weight of this cache.
+	 */
+	public synchronized long getWeight(){
+		return weight;
+	}
+	
+	/**
+	 * Returns the maximum total weight of the cached results.
+	 * @return The maximum weight of this cache.
+	 */
+	public long getMaxWeight(){
+		return maxWeight;
+	}
+	
+	/**
+	 * Returns the number of calls to {@link #get(Query)} that found a cached result.
+	 * @return The number of cache hits.
+	 */
+	public synchronized long getHitCount(){
+		return hits;
+	}
+	
+	/**
+	 * Returns the number of calls to {@link #get(Query)} that found no cached result.
+	 * @return The number of cache misses.
+	 */
+	public synchronized long getMissCount(){
+		return misses;
+	}
+	
+	/**
+	 * Returns the number of entries evicted to stay within the maximum weight.
+	 * @return The number of evictions.
+	 */
+	public synchronized long getEvictionCount(){
+		return evictions;
+	}
+	
+	/**
+	 * Evicts the least recently used entries until the weight of
+	 * this cache is at most its maximum weight.
+	 */
+	private void evict(){
+		Iterator<Map.Entry<Query, RowSet>> iterator = entries.entrySet().iterator();
+		while(weight > maxWeight && iterator.hasNext()){
+			Map.Entry<Query, RowSet> eldest = iterator.next();
+			iterator.remove();
+			weight -= weigh(eldest.getValue());
+			evictions++;
+			Set<Query> queries = queriesByTable.get(eldest.getKey().getTableReference());
+			if(queries != null){
+				queries.remove(eldest.getKey());
+				if(queries.isEmpty()){
+					queriesByTable.remove(eldest.getKey().getTableReference());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the weight of a cached result.
+	 * @param result The result.
+	 * @return One more than the number of rows in {@code result}.
+	 */
+	private static long weigh(RowSet result){
+		return result.size() + 1L;
+	}
+}
@@ -0,0 +1,80 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import com.edinarobotics.scouting.definitions.database.Row;
+
+/**
+ * This class is a single entry in the version chain of a row
+ * stored in a {@link MultiVersionTable}.
+ * Each RowVersion records the state of a row as of a commit version
+ * and links to the next older RowVersion of the same row.
+ * A RowVersion with a {@code null} Row records the deletion of the row.
+ */
+final class RowVersion {
+	private final Row row;
+	private final long version;
+	private volatile RowVersion previous;
+	
+	/**
+	 * Constructs a new RowVersion.
+	 * @param row The state of the row as of {@code version}, or
+	 * {@code null} if the row was deleted in {@code version}.
+	 * @param version The commit version that created this RowVersion.
+	 * @param previous The next older RowVersion of the same row, or
+	 * {@code null} if there is none.
+	 */
+	RowVersion(Row row, long version, RowVersion previous){
+		this.row = row;
+		this.version = version;
+		this.previous = previous;
+	}
+	
+	/**
+	 * Returns the state of the row stored in this RowVersion.
+	 * @return The Row, or {@code null} if this RowVersion records a deletion.
+	 */
+	Row getRow(){
+		return row;
+	}
+	
+	/**
+	 * Returns the commit version that created this RowVersion.
+	 * @return The commit version of this RowVersion.
+	 */
+	long getVersion(){
+		return version;
+	}
+	
+	/**
+	 * Returns the next older RowVersion of the same row.
+	 * @return The next older RowVersion, or {@code null} if there is
+	 * none or if it has been garbage-collected.
+	 */
+	RowVersion getPrevious(){
+		return previous;
+	}
+	
+	/**
+	 * Discards all RowVersion objects older than this one.
+	 * This is used by garbage collection once no reader can
+	 * see the older versions.
+	 */
+	void truncate(){
+		previous = null;
+	}
+	
+	/**
+	 * Finds the RowVersion visible to a reader at the given commit version.
+	 * This is the newest RowVersion in the chain starting at this RowVersion
+	 * whose version is not greater than {@code readVersion}.
+	 * @param readVersion The commit version being read.
+	 * @return The visible RowVersion or {@code null} if no RowVersion
+	 * in the chain is old enough.
+	 */
+	RowVersion visibleAt(long readVersion){
+		RowVersion current = this;
+		while(current != null && current.getVersion() > readVersion){
+			current = current.getPrevious();
+		}
+		return current;
+	}
+}
@@ -0,0 +1,61 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This {@link LongSegment} stores each run of equal values once,
+ * together with the index at which the run ends. Range tests are
+ * made once per run.
+ * @see ColumnEncoding#RUN_LENGTH
+ */
+final class RunLengthSegment extends LongSegment {
+	private final long[] runValues;
+	private final int[] runEnds;
+	
+	/**
+	 * Constructs a new RunLengthSegment.
+	 * @param values The values to be stored.
+	 * @param count The number of values to be stored.
+	 * @param runs The number of runs of equal values in {@code values}.
+	 */
+	RunLengthSegment(long[] values, int count, int runs){
+		this.runValues = new long[runs];
+		this.runEnds = new int[runs];
+		int run = -1;
+		for(int i = 0; i < count; i++){
+			if(run < 0 || values[i] != runValues[run]){
+				run++;
+				runValues[run] = values[i];
+			}
+			runEnds[run] = i + 1;
+		}
+	}
+	
+	int size(){
+		return runEnds.length == 0 ? 0 : runEnds[runEnds.length - 1];
+	}
+	
+	long get(int index){
+		int run = Arrays.binarySearch(runEnds, index + 1);
+		return runValues[run < 0 ? -run - 1 : run];
+	}
+	
+	ColumnEncoding getEncoding(){
+		return ColumnEncoding.RUN_LENGTH;
+	}
+	
+	long getEncodedBytes(){
+		return (long) runValues.length * 12;
+	}
+	
+	void retainRange(long min, long max, BitSet candidates){
+		int start = 0;
+		for(int run = 0; run < runValues.length; run++){
+			if(runValues[run] < min || runValues[run] > max){
+				candidates.clear(start, runEnds[run]);
+			}
+			start = runEnds[run];
+		}
+	}
+}
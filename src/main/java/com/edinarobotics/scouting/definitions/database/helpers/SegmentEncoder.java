@@ -0,0 +1,123 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This class chooses and builds the {@link LongSegment} for a block of values.
+ * It gathers statistics about the values in a single pass, estimates the size
+ * of every applicable encoding and builds the smallest one. When two
+ * encodings have the same size, the one that is cheaper to scan is chosen.
+ */
+final class SegmentEncoder {
+	/**
+	 * The largest number of distinct values for which
+	 * {@link ColumnEncoding#DICTIONARY} is considered.
+	 */
+	static final int MAX_DICTIONARY_SIZE = 1 << 12;
+	
+	/**
+	 * This class is not meant to be instantiated.
+	 */
+	private SegmentEncoder(){
+	}
+	
+	/**
+	 * Encodes a block of values with the smallest applicable encoding.
+	 * @param values The values to be encoded.
+	 * @param count The number of values to be encoded. This must be at least 1.
+	 * @return A LongSegment holding the first {@code count} values.
+	 */
+	static LongSegment encode(long[] values, int count){
+		long min = values[0];
+		long max = values[0];
+		int runs = 1;
+		long minDelta = 0;
+		long maxDelta = 0;
+		boolean deltaOverflow = false;
+		Set<Long> distinct = new HashSet<Long>();
+		distinct.add(values[0]);
+		for(int i = 1; i < count; i++){
+			long value = values[i];
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+			if(value != values[i - 1]){
+				runs++;
+			}
+			long delta = value - values[i - 1];
+			//The difference overflows if the operands have different signs and the result has the sign of the subtrahend.
+			if(((value ^ values[i - 1]) & (value ^ delta)) < 0){
+				deltaOverflow = true;
+			}
+			if(i == 1){
+				minDelta = delta;
+				maxDelta = delta;
+			}
+			else{
+				minDelta = Math.min(minDelta, delta);
+				maxDelta = Math.max(maxDelta, delta);
+			}
+			if(distinct.size() <= MAX_DICTIONARY_SIZE){
+				distinct.add(value);
+			}
+		}
+		long span = max - min;
+		long deltaSpan = maxDelta - minDelta;
+		ColumnEncoding best = ColumnEncoding.PLAIN;
+		long bestSize = (long) count * 8;
+		long size = (long) runs * 12;
+		if(size < bestSize){
+			best = ColumnEncoding.RUN_LENGTH;
+			bestSize = size;
+		}
+		if(min >= 0){
+			size = PackedLongs.packedBytes(count, PackedLongs.bitsRequired(max)) + 8;
+			if(size < bestSize){
+				best = ColumnEncoding.BIT_PACKED;
+				bestSize = size;
+			}
+		}
+		if(span >= 0){
+			size = PackedLongs.packedBytes(count, PackedLongs.bitsRequired(span)) + 8;
+			if(size < bestSize){
+				best = ColumnEncoding.FRAME_OF_REFERENCE;
+				bestSize = size;
+			}
+		}
+		if(!deltaOverflow && deltaSpan >= 0){
+			size = PackedLongs.packedBytes(count, PackedLongs.bitsRequired(deltaSpan)) + (count + DeltaSegment.SAMPLE_INTERVAL - 1) / DeltaSegment.SAMPLE_INTERVAL * 8 + 8;
+			if(size < bestSize){
+				best = ColumnEncoding.DELTA;
+				bestSize = size;
+			}
+		}
+		if(distinct.size() <= MAX_DICTIONARY_SIZE){
+			size = PackedLongs.packedBytes(count, PackedLongs.bitsRequired(distinct.size() - 1)) + (long) distinct.size() * 8;
+			if(size < bestSize){
+				best = ColumnEncoding.DICTIONARY;
+				bestSize = size;
+			}
+		}
+		switch(best){
+		case RUN_LENGTH:
+			return new RunLengthSegment(values, count, runs);
+		case BIT_PACKED:
+			return new PackedSegment(values, count, 0, max);
+		case FRAME_OF_REFERENCE:
+			return new PackedSegment(values, count, min, span);
+		case DELTA:
+			return new DeltaSegment(values, count, minDelta, deltaSpan);
+		case DICTIONARY:
+			long[] dictionary = new long[distinct.size()];
+			int i = 0;
+			for(Long value : distinct){
+				dictionary[i++] = value;
+			}
+			Arrays.sort(dictionary);
+			return new DictionarySegment(values, count, dictionary);
+		default:
+			return new PlainSegment(values, count);
+		}
+	}
+}
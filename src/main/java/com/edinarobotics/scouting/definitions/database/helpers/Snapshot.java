@@ -0,0 +1,57 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+/**
+ * A Snapshot is a consistent, read-only view of a {@link MultiVersionStore}
+ * as of a single commit version.
+ * Reads made through a Snapshot see every transaction committed at or before
+ * its version and nothing committed afterwards, no matter how long the reads take.
+ * <br/>
+ * Snapshots must be released with {@link #release()} once they are no longer
+ * needed. The row versions visible to an unreleased Snapshot cannot be
+ * garbage-collected.
+ */
+public final class Snapshot {
+	private final MultiVersionStore store;
+	private final long version;
+	private volatile boolean released = false;
+	
+	/**
+	 * Constructs a new Snapshot of {@code store} at {@code version}.
+	 * Snapshots are created by {@link MultiVersionStore#openSnapshot()}.
+	 * @param store The MultiVersionStore that created this Snapshot.
+	 * @param version The commit version seen by this Snapshot.
+	 */
+	Snapshot(MultiVersionStore store, long version){
+		this.store = store;
+		this.version = version;
+	}
+	
+	/**
+	 * Returns the commit version seen by this Snapshot.
+	 * @return The commit version of this Snapshot.
+	 */
+	public long getVersion(){
+		return version;
+	}
+	
+	/**
+	 * Indicates whether or not this Snapshot has been released.
+	 * @return {@code true} if {@link #release()} has been called,
+	 * {@code false} otherwise.
+	 */
+	public boolean isReleased(){
+		return released;
+	}
+	
+	/**
+	 * Releases this Snapshot, allowing the row versions that only it can see
+	 * to be garbage-collected. Calling this method more than once has no
+	 * further effect.
+	 */
+	public void release(){
+		if(!released){
+			released = true;
+			store.releaseSnapshot(this);
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+/**
+ * The values in this enum control when a {@link WriteAheadLog} forces
+ * appended records to stable storage (fsync).
+ */
+public enum SyncPolicy {
+	
+	/**
+	 * Every append is on stable storage before
+	 * {@link WriteAheadLog#append(com.edinarobotics.scouting.definitions.database.changes.Transaction)}
+	 * returns. Concurrent appends share a single sync (group commit), so the
+	 * cost of a sync is spread over every transaction waiting for it.
+	 */
+	ALWAYS,
+	
+	/**
+	 * Appends are synced at most once per sync interval, by a later append
+	 * or by a background thread of the log if appends stop. A crash may lose
+	 * the transactions appended during the last interval.
+	 */
+	INTERVAL,
+	
+	/**
+	 * Appends are only synced by {@link WriteAheadLog#sync()}, on segment
+	 * rollover and when the log is closed. The operating system decides when
+	 * other data reaches the disk.
+	 */
+	NEVER
+}
@@ -0,0 +1,213 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.Constraint;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+
+/**
+ * A TablePlan describes how the {@link QueryPlanner} executes a {@link Query}
+ * on a single {@link MultiVersionTable}: which {@link AccessMethod} reads the
+ * rows and in which order the {@link Constraint} objects are tested. The most
+ * selective Constraint is tested first, so most rows are rejected by a single test.
+ * <br/>
+ * A TablePlan also records the estimates it was chosen by. They are printed
+ * by {@link #explain()}. TablePlan objects are immutable and reflect the
+ * statistics of their table at the time they were planned.
+ */
+public final class TablePlan {
+	private final MultiVersionTable table;
+	private final AccessMethod accessMethod;
+	private final long firstKey;
+	private final long lastKey;
+	private final Constraint[] constraints;
+	private final double[] selectivities;
+	private final double estimatedRows;
+	private final double cost;
+	
+	/**
+	 * Constructs a new TablePlan.
+	 * TablePlan objects are created by {@link QueryPlanner#plan(Query)}.
+	 * @param table The table to be read.
+	 * @param accessMethod The {@link AccessMethod} reading the rows.
+	 * @param firstKey The first primary key value looked up by a primary key access method.
+	 * @param lastKey The last primary key value looked up by a primary key access method.
+	 * @param constraints The {@link Constraint} objects of the Query in the order they are tested.
+	 * @param selectivities The estimated selectivity of each Constraint.
+	 * @param estimatedRows The estimated number of result rows.
+	 * @param cost The estimated cost of reading the rows.
+	 */
+	TablePlan(MultiVersionTable table, AccessMethod accessMethod, long firstKey, long lastKey,
+			Constraint[] constraints, double[] selectivities, double estimatedRows, double cost){
+		this.table = table;
+		this.accessMethod = accessMethod;
+		this.firstKey = firstKey;
+		this.lastKey = lastKey;
+		this.constraints = constraints;
+		this.selectivities = selectivities;
+		this.estimatedRows = estimatedRows;
+		this.cost = cost;
+	}
+	
+	/**
+	 * Returns the table read by this TablePlan.
+	 * @return The {@link MultiVersionTable} read by this plan.
+	 */
+	public MultiVersionTable getTable(){
+		return table;
+	}
+	
+	/**
+	 * Returns the {@link TableReference} of the table read by this TablePlan.
+	 * @return The TableReference of the table.
+	 */
+	public TableReference getTableReference(){
+		return table.getTableReference();
+	}
+	
+	/**
+	 * Returns the {@link AccessMethod} reading the rows of the table.
+	 * @return The AccessMethod of this plan.
+	 */
+	public AccessMethod getAccessMethod(){
+		return accessMethod;
+	}
+	
+	/**
+	 * Returns the {@link Constraint} objects of the planned Query in the
+	 * order in which they are tested. This List cannot be modified.
+	 * @return The ordered Constraint objects.
+	 */
+	public List<Constraint> getConstraints(){
+		return Collections.unmodifiableList(Arrays.asList(constraints));
+	}
+	
+	/**
+	 * Returns the estimated number of rows returned by this TablePlan.
+	 * @return The estimated number of result rows.
+	 */
+	public double getEstimatedRows(){
+		return estimatedRows;
+	}
+	
+	/**
+	 * Returns the estimated cost of this TablePlan. The cost of reading
+	 * one row in a table scan is {@code 1}.
+	 * @return The estimated cost.
+	 */
+	public double getCost(){
+		return cost;
+	}
+	
+	/**
+	 * Executes this TablePlan.
+	 * @param snapshot The {@link Snapshot} through which the rows are read.
+	 * @return A new Set containing every visible {@link Row} that satisfies
+	 * the planned Query.
+	 */
+	public Set<Row> execute(Snapshot snapshot){
+		if(accessMethod == AccessMethod.TABLE_SCAN){
+			return table.scan(constraints, snapshot);
+		}
+		Set<Row> result = new HashSet<Row>();
+		for(long key = firstKey; key <= lastKey; key++){
+			Row row = table.getRow(key, snapshot);
+			if(row != null && satisfiesAll(row, constraints)){
+				result.add(row);
+			}
+			if(key == Long.MAX_VALUE){
+				break;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Determines whether or not a {@link Row} of the table satisfies the planned Query.
+	 * @param row The Row to be tested.
+	 * @return {@code true} if {@code row} satisfies every Constraint of the
+	 * planned Query, {@code false} otherwise.
+	 */
+	boolean matches(Row row){
+		return satisfiesAll(row, constraints);
+	}
+	
+	/**
+	 * Tests a {@link Row} against {@link Constraint} objects in order.
+	 * @param row The Row to be tested.
+	 * @param constraints The Constraint objects.
+	 * @return {@code true} if {@code row} satisfies every Constraint,
+	 * {@code false} otherwise.
+	 */
+	static boolean satisfiesAll(Row row, Constraint[] constraints){
+		for(Constraint constraint : constraints){
+			if(!constraint.satisfiesConstraint(row)){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns a description of this TablePlan and the estimates it was chosen by.
+	 * @return A multi-line description of this plan.
+	 */
+	public String explain(){
+		StringBuilder out = new StringBuilder();
+		explain(out, "");
+		return out.toString();
+	}
+	
+	/**
+	 * Appends a description of this TablePlan.
+	 * @param out The StringBuilder receiving the description.
+	 * @param indent The indentation of every line.
+	 */
+	void explain(StringBuilder out, String indent){
+		out.append(indent).append(accessMethod.name().replace('_', ' ')).append(' ').append(getTableReference().getTableName());
+		if(accessMethod == AccessMethod.PRIMARY_KEY_LOOKUP){
+			out.append(firstKey > lastKey ? " (no key)" : " key "+firstKey);
+		}
+		else if(accessMethod == AccessMethod.PRIMARY_KEY_RANGE){
+			out.append(" keys ").append(firstKey).append(" to ").append(lastKey);
+		}
+		out.append(" (cost=").append(format(cost)).append(", rows=").append(format(estimatedRows)).append(")\n");
+		explainConstraints(out, indent + "  ");
+	}
+	
+	/**
+	 * Appends a line for every {@link Constraint} in the order they are tested.
+	 * @param out The StringBuilder receiving the description.
+	 * @param indent The indentation of every line.
+	 */
+	void explainConstraints(StringBuilder out, String indent){
+		for(int i = 0; i < constraints.length; i++){
+			out.append(indent).append("filter ").append(constraints[i].getClass().getSimpleName()).append(" on ")
+					.append(constraints[i].getColumnReference()).append(" (selectivity=")
+					.append(String.format(Locale.ENGLISH, "%.3f", selectivities[i])).append(")\n");
+		}
+	}
+	
+	/**
+	 * Formats an estimate for {@link #explain()}.
+	 * @param estimate The estimate.
+	 * @return The estimate rounded to a whole number.
+	 */
+	static String format(double estimate){
+		return Long.toString(Math.round(estimate));
+	}
+	
+	/**
+	 * Returns the description of this TablePlan.
+	 * @return The result of {@link #explain()}.
+	 */
+	public String toString(){
+		return explain();
+	}
+}
@@ -0,0 +1,138 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.Constraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.RangeConstraint;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+
+/**
+ * This class holds the statistics of a {@link MultiVersionTable}: its number
+ * of rows and a {@link ColumnStatistics} object for every {@link Column}.
+ * <br/>
+ * Statistics are updated incrementally as each row version is installed, so
+ * every applied {@link com.edinarobotics.scouting.definitions.database.changes.Change Change}
+ * is reflected without rescanning the table. The {@link QueryPlanner} uses them
+ * to estimate how many rows each {@link Constraint} selects.
+ * <br/>
+ * TableStatistics objects are thread-safe. Readers may see the statistics of a
+ * write that is still being committed.
+ */
+public final class TableStatistics {
+	/**
+	 * The estimated selectivity of a {@link Constraint} whose selectivity cannot
+	 * be derived from the statistics.
+	 */
+	public static final double DEFAULT_SELECTIVITY = 1.0 / 3;
+	
+	/**
+	 * The estimated selectivity of an {@link EqualsConstraint} on a column
+	 * without statistics.
+	 */
+	public static final double DEFAULT_EQUALS_SELECTIVITY = 0.1;
+	
+	private final AtomicLong rowCount;
+	private final ConcurrentMap<Column, ColumnStatistics> columns;
+	
+	/**
+	 * Constructs empty statistics for a new table.
+	 */
+	TableStatistics(){
+		rowCount = new AtomicLong();
+		columns = new ConcurrentHashMap<Column, ColumnStatistics>();
+	}
+	
+	/**
+	 * Counts a row written to the table.
+	 * @param row The new {@link Row}.
+	 */
+	void add(Row row){
+		rowCount.incrementAndGet();
+		for(Map.Entry<Column, Data> entry : row.getValues().entrySet()){
+			ColumnStatistics statistics = columns.get(entry.getKey());
+			if(statistics == null){
+				ColumnStatistics created = new ColumnStatistics(entry.getKey());
+				statistics = columns.putIfAbsent(entry.getKey(), created);
+				if(statistics == null){
+					statistics = created;
+				}
+			}
+			statistics.add(entry.getValue());
+		}
+	}
+	
+	/**
+	 * Removes a row that was replaced or deleted from the statistics.
+	 * @param row The removed {@link Row}.
+	 */
+	void remove(Row row){
+		rowCount.decrementAndGet();
+		for(Map.Entry<Column, Data> entry : row.getValues().entrySet()){
+			ColumnStatistics statistics = columns.get(entry.getKey());
+			if(statistics != null){
+				statistics.remove(entry.getValue());
+			}
+		}
+	}
+	
+	/**
+	 * Discards the statistics of columns that were removed from the table.
+	 * @param remaining The current {@link Column} objects of the table.
+	 */
+	void retainColumns(Set<Column> remaining){
+		columns.keySet().retainAll(remaining);
+	}
+	
+	/**
+	 * Returns the number of rows in the table.
+	 * @return The number of rows in the newest state of the table.
+	 */
+	public long getRowCount(){
+		return Math.max(0, rowCount.get());
+	}
+	
+	/**
+	 * Returns the statistics of a {@link Column}.
+	 * @param column The Column.
+	 * @return The {@link ColumnStatistics} of {@code column} or {@code null}
+	 * if no value has been written to it.
+	 */
+	public ColumnStatistics getColumnStatistics(Column column){
+		return columns.get(column);
+	}
+	
+	/**
+	 * Estimates the fraction of the rows of the table that satisfy a {@link Constraint}.
+	 * {@link EqualsConstraint} and {@link RangeConstraint} objects are estimated
+	 * from the statistics of their column. Other constraints are assumed to select
+	 * {@link #DEFAULT_SELECTIVITY} of the rows.
+	 * @param constraint The Constraint.
+	 * @return The estimated selectivity, between {@code 0} and {@code 1}.
+	 */
+	public double estimateSelectivity(Constraint constraint){
+		ColumnStatistics statistics = null;
+		for(ColumnStatistics candidate : columns.values()){
+			if(candidate.getColumn().getReference().equals(constraint.getColumnReference())){
+				statistics = candidate;
+				break;
+			}
+		}
+		if(constraint instanceof EqualsConstraint){
+			if(statistics == null){
+				return getRowCount() == 0 ? 0 : DEFAULT_EQUALS_SELECTIVITY;
+			}
+			return statistics.estimateEquals(((EqualsConstraint) constraint).getValue());
+		}
+		if(constraint instanceof RangeConstraint && statistics != null){
+			RangeConstraint range = (RangeConstraint) constraint;
+			return statistics.estimateRange(range.getLowerBound(), range.getUpperBound(), DEFAULT_SELECTIVITY);
+		}
+		return DEFAULT_SELECTIVITY;
+	}
+}
@@ -0,0 +1,93 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import javax.sql.rowset.serial.SerialBlob;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.types.Blob;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+/**
+ * This {@link MappedColumn} stores {@link Text} and {@link Blob} values.
+ * The bytes of every value are appended to a data file. An offset file holds
+ * a 16 byte slot for each row containing the position and length of its value
+ * in the data file. Rewriting a value appends its new bytes; the old bytes are
+ * left in place.
+ */
+final class VariableWidthColumn extends MappedColumn {
+	private static final int SLOT_WIDTH = 16;
+	
+	private final MappedFile offsets;
+	private final MappedFile data;
+	private long dataEnd;
+	
+	/**
+	 * Opens a variable-width column.
+	 * @param column The {@link Column} stored by this column.
+	 * @param nullFile The file of the null bitmap.
+	 * @param offsetFile The file of the value positions and lengths.
+	 * @param dataFile The file of the value bytes.
+	 * @throws IOException If a file cannot be opened.
+	 */
+	VariableWidthColumn(Column column, File nullFile, File offsetFile, File dataFile) throws IOException{
+		super(column, nullFile);
+		this.offsets = new MappedFile(offsetFile);
+		this.data = new MappedFile(dataFile);
+		//The first 8 bytes of the data file hold the end of the written data.
+		this.dataEnd = Math.max(8, data.getCapacity() >= 8 ? data.getLong(0) : 0);
+	}
+	
+	Data read(int row) throws IOException{
+		long slot = (long) row * SLOT_WIDTH;
+		long position = offsets.getLong(slot);
+		int length = (int) offsets.getLong(slot + 8);
+		byte[] bytes = data.getBytes(position, length);
+		if(getColumn().getType().equals(Text.class)){
+			return new Text(new String(bytes, "UTF-8"));
+		}
+		try{
+			return new Blob(new SerialBlob(bytes));
+		}catch(SQLException e){
+			throw new IOException("Cannot create blob value.", e);
+		}
+	}
+	
+	void write(int row, Data value) throws IOException{
+		byte[] bytes;
+		if(value instanceof Text){
+			bytes = ((Text) value).getValue().getBytes("UTF-8");
+		}
+		else if(value instanceof Blob){
+			try{
+				java.sql.Blob blob = ((Blob) value).getValue();
+				bytes = blob.getBytes(1, (int) blob.length());
+			}catch(SQLException e){
+				throw new IOException("Cannot read blob value.", e);
+			}
+		}
+		else{
+			throw new IOException("Cannot store data of type "+value.getClass().getName()+" in a variable-width column.");
+		}
+		long position = dataEnd;
+		data.putBytes(position, bytes);
+		dataEnd = position + bytes.length;
+		data.putLong(0, dataEnd);
+		long slot = (long) row * SLOT_WIDTH;
+		offsets.putLong(slot, position);
+		offsets.putLong(slot + 8, bytes.length);
+	}
+	
+	void force(){
+		super.force();
+		data.force();
+		offsets.force();
+	}
+	
+	public void close() throws IOException{
+		super.close();
+		offsets.close();
+		data.close();
+	}
+}
@@ -0,0 +1,649 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import com.edinarobotics.scouting.definitions.database.changes.Change;
+import com.edinarobotics.scouting.definitions.database.changes.Transaction;
+
+/**
+ * This class is an append-only write-ahead log of {@link Transaction} objects.
+ * {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * implementations append each Transaction before applying it and replay the log
+ * when they start, so that committed transactions survive a crash or power loss.
+ * Making a transaction durable costs one sequential append instead of a rewrite
+ * of the stored data.
+ * <h3>Format</h3>
+ * The log is a directory of segment files named after the sequence number of
+ * their first record. Each segment starts with an 8 byte header and contains
+ * records of the form:
+ * <pre>
+ * int  payload length
+ * int  CRC-32 of the sequence number and payload
+ * long sequence number
+ * byte[] payload (the Transaction encoded by {@link ChangeCodec})
+ * </pre>
+ * When a segment grows past the maximum segment size, it is synced and
+ * a new segment is started (rollover). Segments that are no longer needed,
+ * for example after a checkpoint, can be removed with {@link #truncateBefore(long)}.
+ * <h3>Recovery</h3>
+ * When a WriteAheadLog is opened, every segment is checked. A record at the end
+ * of the last segment that is incomplete or fails its checksum was being written
+ * during a crash and was never acknowledged; it is cut off so that new records
+ * follow the last valid record. Damage anywhere else is reported as an
+ * {@link IOException}.
+ * <h3>Syncing</h3>
+ * The {@link SyncPolicy} decides when appended records are forced to disk.
+ * Threads appending at the same time share syncs, so under load many
+ * transactions are made durable by a single sync.
+ * <br/>
+ * With {@link SyncPolicy#INTERVAL}, an append syncs the log if the sync interval
+ * has passed since the last sync. A log using this policy also runs a daemon
+ * thread that syncs records left unsynced for a whole interval, so records
+ * reach the disk even if appends stop. The thread is stopped by {@link #close()}.
+ * <br/>
+ * If a sync fails, the records written since the last successful sync may be lost
+ * and syncing again cannot be relied upon to write them. The failure is therefore
+ * remembered: every later {@link #append(Transaction)}, {@link #sync()} and
+ * {@link #close()} throws an IOException caused by it, including after a failed
+ * sync of the background thread. The log must be reopened to recover.
+ * <br/>
+ * Creating a segment also syncs the log directory, so that a new segment and the
+ * records synced to it cannot disappear in a crash.
+ */
+public class WriteAheadLog implements Closeable {
+	/**
+	 * The maximum size of a segment used by {@link #WriteAheadLog(File, SyncPolicy)}
+	 * (16 MiB).
+	 */
+	public static final long DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+	
+	/**
+	 * The sync interval used by {@link #WriteAheadLog(File, SyncPolicy)}
+	 * in milliseconds.
+	 */
+	public static final long DEFAULT_SYNC_INTERVAL = 100;
+	
+	private static final int MAGIC = 0x5357414c;
+	private static final int FORMAT_VERSION = 1;
+	private static final int SEGMENT_HEADER_SIZE = 8;
+	private static final int RECORD_HEADER_SIZE = 16;
+	private static final String SEGMENT_SUFFIX = ".wal";
+	
+	private final File directory;
+	private final SyncPolicy syncPolicy;
+	private final long maxSegmentSize;
+	private final long syncIntervalNanos;
+	private final Lock appendLock;
+	private final Lock syncLock;
+	private final List<Long> segmentStarts;
+	private FileChannel channel;
+	private long segmentSize;
+	private long nextSequence;
+	private volatile long writtenSequence;
+	private volatile long syncedSequence;
+	private volatile long lastSyncTime;
+	private volatile boolean closed;
+	private final AtomicReference<IOException> syncFailure;
+	private ScheduledExecutorService flusher;
+	
+	/**
+	 * Opens the write-ahead log stored in {@code directory} using
+	 * {@link #DEFAULT_SEGMENT_SIZE} and {@link #DEFAULT_SYNC_INTERVAL}.
+	 * @param directory The directory containing the log segments. It is created
+	 * if it does not exist.
+	 * @param syncPolicy The {@link SyncPolicy} deciding when records are synced.
+	 * @throws IOException If the log cannot be opened or is damaged.
+	 * @see #WriteAheadLog(File, SyncPolicy, long, long)
+	 */
+	public WriteAheadLog(File directory, SyncPolicy syncPolicy) throws IOException{
+		this(directory, syncPolicy, DEFAULT_SEGMENT_SIZE, DEFAULT_SYNC_INTERVAL);
+	}
+	
+	/**
+	 * Opens the write-ahead log stored in {@code directory}. The log is checked and an
+	 * incomplete record at its end is removed (see {@link WriteAheadLog}).
+	 * @param directory The directory containing the log segments. It is created
+	 * if it does not exist.
+	 * @param syncPolicy The {@link SyncPolicy} deciding when records are synced.
+	 * @param maxSegmentSize The size in bytes after which a new segment is started.
+	 * @param syncInterval The time between syncs in milliseconds when
+	 * {@code syncPolicy} is {@link SyncPolicy#INTERVAL}.
+	 * @throws IOException If the log cannot be opened or is damaged.
+	 */
+	public WriteAheadLog(File directory, SyncPolicy syncPolicy, long maxSegmentSize, long syncInterval) throws IOException{
+		if(!directory.isDirectory() && !directory.mkdirs()){
+			throw new IOException("Cannot create log directory "+directory+".");
+		}
+		this.directory = directory;
+		this.syncPolicy = syncPolicy;
+		this.maxSegmentSize = maxSegmentSize;
+		this.syncIntervalNanos = syncInterval * 1000000L;
+		this.appendLock = new ReentrantLock();
+		this.syncLock = new ReentrantLock();
+		this.syncFailure = new AtomicReference<IOException>();
+		this.segmentStarts = findSegments(directory);
+		this.nextSequence = 1;
+		for(int i = 0; i < segmentStarts.size(); i++){
+			File segment = getSegmentFile(segmentStarts.get(i));
+			SegmentScan scan = scanSegment(segment, Long.MAX_VALUE, null);
+			boolean last = i == segmentStarts.size() - 1;
+			if(scan.torn && !last){
+				throw new IOException("Log segment "+segment+" is damaged.");
+			}
+			nextSequence = scan.lastSequence > 0 ? scan.lastSequence + 1 : segmentStarts.get(i);
+			if(last){
+				openSegment(segment, scan.validBytes);
+			}
+		}
+		if(channel == null){
+			startSegment();
+		}
+		this.writtenSequence = nextSequence - 1;
+		this.syncedSequence = writtenSequence;
+		this.lastSyncTime = System.nanoTime();
+		this.closed = false;
+		if(syncPolicy == SyncPolicy.INTERVAL){
+			startFlusher();
+		}
+	}
+	
+	/**
+	 * Starts the daemon thread that syncs records appended during
+	 * an interval if no later append has synced them.
+	 */
+	private void startFlusher(){
+		flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory(){
+			public Thread newThread(Runnable runnable){
+				Thread thread = new Thread(runnable, "wal-flusher-"+directory.getName());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), syncIntervalNanos);
+		flusher.scheduleWithFixedDelay(new Runnable(){
+			public void run(){
+				if(closed || syncedSequence >= writtenSequence || System.nanoTime() - lastSyncTime < syncIntervalNanos){
+					return;
+				}
+				try{
+					sync();
+				}catch(IOException e){
+					//syncTo() recorded the failure for the next append or sync, and
+					//a sync racing with close() fails harmlessly. Never let an
+					//exception end the scheduled syncs.
+				}
+			}
+		}, period, period, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Returns the directory containing the segments of this log.
+	 * @return The log directory.
+	 */
+	public File getDirectory(){
+		return directory;
+	}
+	
+	/**
+	 * Returns the {@link SyncPolicy} of this log.
+	 * @return The SyncPolicy deciding when records are synced.
+	 */
+	public SyncPolicy getSyncPolicy(){
+		return syncPolicy;
+	}
+	
+	/**
+	 * Returns the sequence number of the most recently appended {@link Transaction}.
+	 * @return The last sequence number or {@code 0} if the log has always been empty.
+	 */
+	public long getLastSequenceNumber(){
+		return writtenSequence;
+	}
+	
+	/**
+	 * Returns the sequence number of the most recently synced {@link Transaction}.
+	 * All Transactions up to this sequence number are on stable storage.
+	 * @return The last synced sequence number.
+	 */
+	public long getSyncedSequenceNumber(){
+		return syncedSequence;
+	}
+	
+	/**
+	 * Appends a {@link Transaction} to this log. Depending on the {@link SyncPolicy},
+	 * the Transaction is on stable storage when this method returns.
+	 * @param transaction The Transaction to be logged.
+	 * @return The sequence number assigned to {@code transaction}.
+	 * @throws IOException If the Transaction cannot be encoded (see {@link ChangeCodec})
+	 * or written, if this log is closed or if an earlier sync failed.
+	 */
+	public long append(Transaction transaction) throws IOException{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		ChangeCodec.writeTransaction(out, transaction);
+		out.flush();
+		byte[] payload = bytes.toByteArray();
+		long sequence;
+		appendLock.lock();
+		try{
+			if(closed){
+				throw new IOException("The write-ahead log is closed.");
+			}
+			checkSyncFailure();
+			if(segmentSize > SEGMENT_HEADER_SIZE && segmentSize + RECORD_HEADER_SIZE + payload.length > maxSegmentSize){
+				rollover();
+			}
+			sequence = nextSequence;
+			ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+			record.putInt(payload.length);
+			record.putInt(checksum(sequence, payload));
+			record.putLong(sequence);
+			record.put(payload);
+			record.flip();
+			while(record.hasRemaining()){
+				channel.write(record);
+			}
+			segmentSize += RECORD_HEADER_SIZE + payload.length;
+			nextSequence++;
+			writtenSequence = sequence;
+		}finally{
+			appendLock.unlock();
+		}
+		if(syncPolicy == SyncPolicy.ALWAYS){
+			syncTo(sequence);
+		}
+		else if(syncPolicy == SyncPolicy.INTERVAL && System.nanoTime() - lastSyncTime >= syncIntervalNanos){
+			syncTo(sequence);
+		}
+		return sequence;
+	}
+	
+	/**
+	 * Forces every appended record to stable storage.
+	 * @throws IOException If syncing fails now or failed before.
+	 */
+	public void sync() throws IOException{
+		syncTo(writtenSequence);
+	}
+	
+	/**
+	 * Forces every record up to {@code sequence} to stable storage.
+	 * If another thread is already syncing, this thread waits for it and
+	 * then only syncs if its record was not covered (group commit).
+	 * @param sequence The sequence number that must be synced.
+	 * @throws IOException If syncing fails now or failed before.
+	 */
+	private void syncTo(long sequence) throws IOException{
+		checkSyncFailure();
+		if(syncedSequence >= sequence){
+			return;
+		}
+		syncLock.lock();
+		try{
+			while(syncedSequence < sequence){
+				checkSyncFailure();
+				long target;
+				FileChannel current;
+				appendLock.lock();
+				try{
+					target = writtenSequence;
+					current = channel;
+				}finally{
+					appendLock.unlock();
+				}
+				try{
+					current.force(false);
+				}catch(ClosedChannelException e){
+					//A rollover or close synced and closed this segment. Check again.
+					if(closed){
+						throw e;
+					}
+					if(isCurrentChannel(current)){
+						//The segment was closed by something else, such as an interrupt.
+						throw recordSyncFailure(e);
+					}
+					continue;
+				}catch(IOException e){
+					throw recordSyncFailure(e);
+				}
+				syncedSequence = Math.max(syncedSequence, target);
+				lastSyncTime = System.nanoTime();
+			}
+		}finally{
+			syncLock.unlock();
+		}
+	}
+	
+	/**
+	 * Determines whether a channel is still the channel of the current segment.
+	 * @param candidate The channel to be checked.
+	 * @return {@code true} if no rollover replaced {@code candidate}.
+	 */
+	private boolean isCurrentChannel(FileChannel candidate){
+		appendLock.lock();
+		try{
+			return channel == candidate;
+		}finally{
+			appendLock.unlock();
+		}
+	}
+	
+	/**
+	 * Remembers the first failed sync of this log.
+	 * @param failure The IOException thrown by the sync.
+	 * @return {@code failure}, so that it can be thrown.
+	 */
+	private IOException recordSyncFailure(IOException failure){
+		syncFailure.compareAndSet(null, failure);
+		return failure;
+	}
+	
+	/**
+	 * Throws an IOException if a sync of this log has failed.
+	 * @throws IOException If a sync has failed. The cause is the first failure.
+	 */
+	private void checkSyncFailure() throws IOException{
+		IOException failure = syncFailure.get();
+		if(failure != null){
+			throw new IOException("An earlier sync of the write-ahead log failed.", failure);
+		}
+	}
+	
+	/**
+	 * Reads every {@link Transaction} in this log with a sequence number of at least
+	 * {@code fromSequence} and passes it to {@code handler}, in order.
+	 * Appends wait until the replay is finished.
+	 * @param fromSequence The first sequence number to be replayed. Use the sequence
+	 * number after the last checkpoint, or {@code 1} to replay the whole log.
+	 * @param handler The {@link LogReplayHandler} that applies each Transaction.
+	 * @return The sequence number of the last replayed Transaction or {@code fromSequence - 1}
+	 * if no Transaction was replayed.
+	 * @throws IOException If the log cannot be read, if a record cannot be decoded or if
+	 * {@code handler} throws an exception (which is the cause of the IOException).
+	 */
+	public long replay(long fromSequence, LogReplayHandler handler) throws IOException{
+		appendLock.lock();
+		try{
+			long last = fromSequence - 1;
+			for(int i = 0; i < segmentStarts.size(); i++){
+				boolean hasNext = i + 1 < segmentStarts.size();
+				if(hasNext && segmentStarts.get(i + 1) <= fromSequence){
+					continue;
+				}
+				SegmentScan scan = scanSegment(getSegmentFile(segmentStarts.get(i)), fromSequence, handler);
+				last = Math.max(last, scan.lastSequence);
+			}
+			return last;
+		}finally{
+			appendLock.unlock();
+		}
+	}
+	
+	/**
+	 * Deletes every segment that only contains records with sequence numbers
+	 * below {@code sequence}. The current segment is never deleted.
+	 * This is used once the effects of those records are stored elsewhere,
+	 * for example in a checkpoint.
+	 * @param sequence The first sequence number that must be kept.
+	 * @return The number of segments deleted.
+	 * @throws IOException If a segment cannot be deleted.
+	 */
+	public int truncateBefore(long sequence) throws IOException{
+		appendLock.lock();
+		try{
+			int deleted = 0;
+			while(segmentStarts.size() > 1 && segmentStarts.get(1) <= sequence){
+				File segment = getSegmentFile(segmentStarts.get(0));
+				if(!segment.delete()){
+					throw new IOException("Cannot delete log segment "+segment+".");
+				}
+				segmentStarts.remove(0);
+				deleted++;
+			}
+			return deleted;
+		}finally{
+			appendLock.unlock();
+		}
+	}
+	
+	/**
+	 * Syncs and closes this log and stops its sync thread, if any.
+	 * Further appends fail with an {@link IOException}.
+	 * Calling this method more than once has no further effect.
+	 * @throws IOException If the log cannot be synced or closed, or if an
+	 * earlier sync failed. The log is closed in every case.
+	 */
+	public void close() throws IOException{
+		if(flusher != null){
+			//The flusher is not interrupted; interrupting a sync would close the channel.
+			flusher.shutdown();
+			try{
+				flusher.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			}catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+		}
+		syncLock.lock();
+		appendLock.lock();
+		try{
+			if(closed){
+				return;
+			}
+			closed = true;
+			try{
+				checkSyncFailure();
+				channel.force(false);
+			}catch(IOException e){
+				throw recordSyncFailure(e);
+			}finally{
+				channel.close();
+			}
+			syncedSequence = writtenSequence;
+		}finally{
+			appendLock.unlock();
+			syncLock.unlock();
+		}
+	}
+	
+	/**
+	 * Syncs and closes the current segment and starts a new one.
+	 * Must be called while holding the append lock.
+	 * @throws IOException If the segments cannot be synced, closed or created.
+	 */
+	private void rollover() throws IOException{
+		try{
+			channel.force(false);
+		}catch(IOException e){
+			throw recordSyncFailure(e);
+		}
+		//syncTo() takes the sync lock before the append lock, so waiting for it here
+		//could deadlock. If a sync is running it will count these records itself.
+		if(syncLock.tryLock()){
+			try{
+				syncedSequence = Math.max(syncedSequence, writtenSequence);
+			}finally{
+				syncLock.unlock();
+			}
+		}
+		channel.close();
+		startSegment();
+	}
+	
+	/**
+	 * Creates a new segment starting at the next sequence number and makes it
+	 * the current segment. The segment and the log directory are synced.
+	 * @throws IOException If the segment cannot be created.
+	 */
+	private void startSegment() throws IOException{
+		File segment = getSegmentFile(nextSequence);
+		FileChannel newChannel = new RandomAccessFile(segment, "rw").getChannel();
+		newChannel.truncate(0);
+		ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.putInt(FORMAT_VERSION);
+		header.flip();
+		while(header.hasRemaining()){
+			newChannel.write(header);
+		}
+		newChannel.force(true);
+		FileSync.syncDirectory(directory);
+		channel = newChannel;
+		segmentSize = SEGMENT_HEADER_SIZE;
+		if(segmentStarts.isEmpty() || segmentStarts.get(segmentStarts.size() - 1) != nextSequence){
+			segmentStarts.add(nextSequence);
+		}
+	}
+	
+	/**
+	 * Opens an existing segment for appending, cutting off anything after
+	 * {@code validBytes}.
+	 * @param segment The segment file.
+	 * @param validBytes The length of the valid part of the segment.
+	 * @throws IOException If the segment cannot be opened or truncated.
+	 */
+	private void openSegment(File segment, long validBytes) throws IOException{
+		if(validBytes < SEGMENT_HEADER_SIZE){
+			//The segment was created during a crash, before its header was written.
+			startSegment();
+			return;
+		}
+		FileChannel existing = new RandomAccessFile(segment, "rw").getChannel();
+		if(existing.size() > validBytes){
+			existing.truncate(validBytes);
+			existing.force(true);
+		}
+		existing.position(validBytes);
+		channel = existing;
+		segmentSize = validBytes;
+	}
+	
+	/**
+	 * Returns the file of the segment whose first record has sequence number {@code start}.
+	 * @param start The first sequence number of the segment.
+	 * @return The segment file.
+	 */
+	private File getSegmentFile(long start){
+		return new File(directory, String.format("%020d", start)+SEGMENT_SUFFIX);
+	}
+	
+	/**
+	 * Lists the first sequence numbers of every segment in {@code directory}, in order.
+	 * @param directory The log directory.
+	 * @return A new List of segment start sequence numbers.
+	 */
+	private static List<Long> findSegments(File directory){
+		List<Long> starts = new ArrayList<Long>();
+		String[] names = directory.list();
+		if(names == null){
+			return starts;
+		}
+		Arrays.sort(names);
+		for(String name : names){
+			if(name.endsWith(SEGMENT_SUFFIX)){
+				try{
+					starts.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+				}catch(NumberFormatException e){
+					//Not a segment written by this class.
+				}
+			}
+		}
+		return starts;
+	}
+	
+	/**
+	 * Reads the records of a segment, checking their checksums and sequence numbers.
+	 * @param segment The segment file.
+	 * @param fromSequence The first sequence number passed to {@code handler}.
+	 * @param handler The {@link LogReplayHandler} receiving decoded records or
+	 * {@code null} to only check the segment.
+	 * @return The result of the scan.
+	 * @throws IOException If the segment cannot be read, has an invalid header,
+	 * contains a record that cannot be decoded, or if {@code handler} fails.
+	 */
+	private static SegmentScan scanSegment(File segment, long fromSequence, LogReplayHandler handler) throws IOException{
+		SegmentScan scan = new SegmentScan();
+		long length = segment.length();
+		if(length < SEGMENT_HEADER_SIZE){
+			scan.torn = length > 0;
+			return scan;
+		}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)));
+		try{
+			if(in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION){
+				throw new IOException(segment+" is not a write-ahead log segment.");
+			}
+			scan.validBytes = SEGMENT_HEADER_SIZE;
+			while(scan.validBytes + RECORD_HEADER_SIZE <= length){
+				int payloadLength = in.readInt();
+				int checksum = in.readInt();
+				long sequence = in.readLong();
+				if(payloadLength < 0 || scan.validBytes + RECORD_HEADER_SIZE + payloadLength > length){
+					break;
+				}
+				byte[] payload = new byte[payloadLength];
+				in.readFully(payload);
+				if(checksum != checksum(sequence, payload) || (scan.lastSequence > 0 && sequence != scan.lastSequence + 1)){
+					break;
+				}
+				if(handler != null && sequence >= fromSequence){
+					Transaction transaction = ChangeCodec.readTransaction(new DataInputStream(new ByteArrayInputStream(payload)));
+					try{
+						handler.replayTransaction(sequence, transaction);
+					}catch(Exception e){
+						throw new IOException("Replay of transaction "+sequence+" failed.", e);
+					}
+				}
+				scan.lastSequence = sequence;
+				scan.validBytes += RECORD_HEADER_SIZE + payloadLength;
+			}
+			scan.torn = scan.validBytes < length;
+			return scan;
+		}finally{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Computes the CRC-32 checksum of a record.
+	 * @param sequence The sequence number of the record.
+	 * @param payload The encoded {@link Change} objects of the record.
+	 * @return The checksum of {@code sequence} and {@code payload}.
+	 */
+	private static int checksum(long sequence, byte[] payload){
+		CRC32 crc = new CRC32();
+		crc.update(ByteBuffer.allocate(8).putLong(sequence).array());
+		crc.update(payload);
+		return (int) crc.getValue();
+	}
+	
+	/**
+	 * The result of checking a single segment.
+	 */
+	private static final class SegmentScan {
+		private long validBytes = 0;
+		private long lastSequence = 0;
+		private boolean torn = false;
+	}
+}
@@ -0,0 +1,280 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.IOException;
+import java.util.Arrays;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.Constraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.RangeConstraint;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+
+/**
+ * A ZoneMap keeps the smallest value, the largest value and the number of
+ * {@code null} values of every block of rows of a numeric column.
+ * Table scans use it to skip blocks that cannot contain a row satisfying
+ * a {@link Constraint} (see {@link #mayContain(int, Constraint)}).
+ * <br/>
+ * Values are kept as {@code double} values, the same values that
+ * {@link RangeConstraint} compares. When a value is replaced or a row is
+ * deleted the bounds of its block are not narrowed, so they may become wider
+ * than the values actually stored. This never causes a matching block to be
+ * skipped.
+ * <br/>
+ * The statistics are kept in a {@code long} array on the heap, or in a
+ * {@link MappedFile} if one is given, so that the zone maps of a table stored
+ * in mapped files do not grow the heap with the number of rows. Each block
+ * takes 32 bytes: its bounds as {@code double} bits, its number of numeric values
+ * and its number of {@code null} values.
+ */
+final class ZoneMap {
+	/**
+	 * The number of rows in each block unless another size is given.
+	 */
+	static final int DEFAULT_BLOCK_SIZE = 4096;
+	
+	private static final int MIN = 0;
+	private static final int MAX = 1;
+	private static final int VALUE_COUNT = 2;
+	private static final int NULL_COUNT = 3;
+	private static final int FIELDS = 4;
+	
+	private final int blockSize;
+	private final MappedFile file;
+	private long[] stats;
+	private int blocks;
+	
+	/**
+	 * Constructs a new, empty ZoneMap on the heap.
+	 * @param blockSize The number of rows in each block.
+	 */
+	ZoneMap(int blockSize){
+		this.blockSize = blockSize;
+		this.file = null;
+		this.stats = new long[0];
+	}
+	
+	/**
+	 * Constructs a new, empty ZoneMap stored in a mapped file.
+	 * @param blockSize The number of rows in each block.
+	 * @param file The empty MappedFile holding the statistics. It is owned by
+	 * this ZoneMap and deleted by {@link #delete()}.
+	 */
+	ZoneMap(int blockSize, MappedFile file){
+		this.blockSize = blockSize;
+		this.file = file;
+		this.stats = null;
+	}
+	
+	/**
+	 * Returns the number of rows in each block.
+	 * @return The block size.
+	 */
+	int getBlockSize(){
+		return blockSize;
+	}
+	
+	/**
+	 * Returns the number of blocks that contain at least one row.
+	 * @return The number of blocks.
+	 */
+	synchronized int getBlockCount(){
+		return blocks;
+	}
+	
+	/**
+	 * Returns the smallest numeric value of a block.
+	 * @param block The index of the block.
+	 * @return The smallest value, or {@link Double#POSITIVE_INFINITY} if the
+	 * block has no numeric values.
+	 */
+	synchronized double getMin(int block){
+		return block < blocks ? Double.longBitsToDouble(read(block, MIN)) : Double.POSITIVE_INFINITY;
+	}
+	
+	/**
+	 * Returns the largest numeric value of a block.
+	 * @param block The index of the block.
+	 * @return The largest value, or {@link Double#NEGATIVE_INFINITY} if the
+	 * block has no numeric values.
+	 */
+	synchronized double getMax(int block){
+		return block < blocks ? Double.longBitsToDouble(read(block, MAX)) : Double.NEGATIVE_INFINITY;
+	}
+	
+	/**
+	 * Returns the number of {@code null} values of a block.
+	 * @param block The index of the block.
+	 * @return The number of {@code null} values.
+	 */
+	synchronized int getNullCount(int block){
+		return block < blocks ? (int) read(block, NULL_COUNT) : 0;
+	}
+	
+	/**
+	 * Records the value of a new row.
+	 * @param row The index of the row.
+	 * @param value The value of the row or {@code null}.
+	 * @throws IOException If the mapped file cannot be grown.
+	 */
+	synchronized void add(int row, Data value) throws IOException{
+		int block = row / blockSize;
+		grow(block);
+		include(block, value);
+	}
+	
+	/**
+	 * Records a change to the value of an existing row.
+	 * @param row The index of the row.
+	 * @param oldValue The previous value of the row or {@code null}.
+	 * @param newValue The new value of the row or {@code null}.
+	 * @throws IOException If the mapped file cannot be grown.
+	 */
+	synchronized void update(int row, Data oldValue, Data newValue) throws IOException{
+		int block = row / blockSize;
+		grow(block);
+		if(oldValue == null){
+			write(block, NULL_COUNT, read(block, NULL_COUNT) - 1);
+		}
+		else if(isNumber(oldValue)){
+			write(block, VALUE_COUNT, read(block, VALUE_COUNT) - 1);
+		}
+		include(block, newValue);
+	}
+	
+	/**
+	 * Deletes the mapped file of this ZoneMap, if it has one.
+	 * @throws IOException If the file cannot be deleted.
+	 */
+	synchronized void delete() throws IOException{
+		if(file != null){
+			file.delete();
+		}
+	}
+	
+	/**
+	 * Determines whether a block may contain a row that satisfies {@code constraint}.
+	 * {@link EqualsConstraint} and {@link RangeConstraint} objects are checked
+	 * against the bounds and {@code null} count of the block. Any other
+	 * Constraint may always be satisfied.
+	 * @param block The index of the block.
+	 * @param constraint A Constraint on the column described by this ZoneMap.
+	 * @return {@code false} if no row of the block can satisfy {@code constraint},
+	 * {@code true} otherwise.
+	 */
+	synchronized boolean mayContain(int block, Constraint constraint){
+		if(block >= blocks){
+			return false;
+		}
+		if(constraint instanceof EqualsConstraint){
+			Data value = ((EqualsConstraint) constraint).getValue();
+			if(value == null){
+				return read(block, NULL_COUNT) > 0;
+			}
+			if(!(value instanceof Real) || read(block, VALUE_COUNT) <= 0){
+				return false;
+			}
+			double number = ((Real) value).doubleValue();
+			return number >= getMin(block) && number <= getMax(block);
+		}
+		if(constraint instanceof RangeConstraint){
+			if(read(block, VALUE_COUNT) <= 0){
+				return false;
+			}
+			RangeConstraint range = (RangeConstraint) constraint;
+			double min = getMin(block);
+			double max = getMax(block);
+			if(range.getLowerBound() != null){
+				double lower = range.getLowerBound().doubleValue();
+				if(range.isLowerInclusive() ? !(max >= lower) : !(max > lower)){
+					return false;
+				}
+			}
+			if(range.getUpperBound() != null){
+				double upper = range.getUpperBound().doubleValue();
+				if(range.isUpperInclusive() ? !(min <= upper) : !(min < upper)){
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Widens the statistics of a block to include a value.
+	 * @param block The index of the block.
+	 * @param value The value or {@code null}.
+	 * @throws IOException If the mapped file cannot be written.
+	 */
+	private void include(int block, Data value) throws IOException{
+		if(value == null){
+			write(block, NULL_COUNT, read(block, NULL_COUNT) + 1);
+			return;
+		}
+		if(!isNumber(value)){
+			return;
+		}
+		double number = ((Real) value).doubleValue();
+		write(block, VALUE_COUNT, read(block, VALUE_COUNT) + 1);
+		write(block, MIN, Double.doubleToLongBits(Math.min(getMin(block), number)));
+		write(block, MAX, Double.doubleToLongBits(Math.max(getMax(block), number)));
+	}
+	
+	/**
+	 * Indicates whether a value is counted by the bounds of a block.
+	 * {@code NaN} values never satisfy a comparison, so they are ignored.
+	 * @param value A non-null value.
+	 * @return {@code true} if the value is a number other than {@code NaN}.
+	 */
+	private static boolean isNumber(Data value){
+		return value instanceof Real && !Double.isNaN(((Real) value).doubleValue());
+	}
+	
+	/**
+	 * Makes room for the statistics of a block.
+	 * @param block The index of the block.
+	 * @throws IOException If the mapped file cannot be grown.
+	 */
+	private void grow(int block) throws IOException{
+		if(block < blocks){
+			return;
+		}
+		if(file == null && (block + 1) * FIELDS > stats.length){
+			stats = Arrays.copyOf(stats, Math.max(block + 1, stats.length / FIELDS * 2) * FIELDS);
+		}
+		for(int i = blocks; i <= block; i++){
+			write(i, MIN, Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+			write(i, MAX, Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+			write(i, VALUE_COUNT, 0);
+			write(i, NULL_COUNT, 0);
+		}
+		blocks = block + 1;
+	}
+	
+	/**
+	 * Reads a statistic of a block.
+	 * @param block The index of the block.
+	 * @param field The statistic, such as {@link #MIN}.
+	 * @return The stored value.
+	 */
+	private long read(int block, int field){
+		int index = block * FIELDS + field;
+		return file == null ? stats[index] : file.getLong(index * 8L);
+	}
+	
+	/**
+	 * Writes a statistic of a block.
+	 * @param block The index of the block.
+	 * @param field The statistic, such as {@link #MIN}.
+	 * @param value The value to be stored.
+	 * @throws IOException If the mapped file cannot be grown.
+	 */
+	private void write(int block, int field, long value) throws IOException{
+		int index = block * FIELDS + field;
+		if(file == null){
+			stats[index] = value;
+		}
+		else{
+			file.putLong(index * 8L, value);
+		}
+	}
+}
@@ -0,0 +1,323 @@
+package com.edinarobotics.scouting.definitions.database.queries;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.Constraint;
+
+/**
+ * This class is an immutable {@link java.util.Set Set} of {@link Constraint}
+ * objects used by {@link Query}. It is a hash array mapped trie: adding a
+ * Constraint copies only the path from the root to the changed node, so
+ * the new set shares every other node with the old one. Adding to a set of
+ * {@code n} constraints takes O(log n) time and memory.
+ * <br/>
+ * The hash code of the set is computed incrementally and cached, so
+ * Query objects can be used as hash keys cheaply.
+ * <br/>
+ * Methods that would modify a ConstraintSet throw
+ * {@link UnsupportedOperationException}. Use {@link #with(Constraint)} instead.
+ */
+final class ConstraintSet extends AbstractSet<Constraint> {
+	/**
+	 * The empty ConstraintSet.
+	 */
+	static final ConstraintSet EMPTY = new ConstraintSet(null, 0, 0);
+	
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+	//ceil(32 / BITS) levels use up every bit of the hash code.
+	private static final int MAX_DEPTH = 7;
+	
+	private final Node root;
+	private final int size;
+	private final int hash;
+	
+	/**
+	 * Constructs a new ConstraintSet.
+	 * ConstraintSet objects are created from {@link #EMPTY} by {@link #with(Constraint)}.
+	 * @param root The root node or {@code null} if the set is empty.
+	 * @param size The number of Constraint objects in the set.
+	 * @param hash The sum of the hash codes of the Constraint objects in the set.
+	 */
+	private ConstraintSet(Node root, int size, int hash){
+		this.root = root;
+		this.size = size;
+		this.hash = hash;
+	}
+	
+	/**
+	 * Returns a ConstraintSet containing the given Constraint objects.
+	 * @param constraints The Constraint objects to be contained.
+	 * @return {@code constraints} itself if it is a ConstraintSet, otherwise
+	 * a new ConstraintSet containing the same elements.
+	 */
+	static ConstraintSet of(Collection<Constraint> constraints){
+		if(constraints instanceof ConstraintSet){
+			return (ConstraintSet) constraints;
+		}
+		ConstraintSet set = EMPTY;
+		for(Constraint constraint : constraints){
+			set = set.with(constraint);
+		}
+		return set;
+	}
+	
+	/**
+	 * Returns a ConstraintSet containing every element of this set and {@code constraint}.
+	 * This set is not changed.
+	 * @param constraint The Constraint to be added.
+	 * @return A ConstraintSet sharing the unchanged nodes of this set, or this set
+	 * if it already contains {@code constraint}.
+	 */
+	ConstraintSet with(Constraint constraint){
+		int constraintHash = constraint.hashCode();
+		if(root == null){
+			return new ConstraintSet(new Node(1 << (constraintHash & MASK), new Object[]{constraint}), 1, constraintHash);
+		}
+		if(root.contains(constraint, constraintHash, 0)){
+			return this;
+		}
+		return new ConstraintSet(root.with(constraint, constraintHash, 0), size + 1, hash + constraintHash);
+	}
+	
+	/**
+	 * Determines whether or not this set contains an object.
+	 * @param obj The object to be found.
+	 * @return {@code true} if an equal object is in this set, {@code false} otherwise.
+	 */
+	public boolean contains(Object obj){
+		if(root == null || !(obj instanceof Constraint)){
+			return false;
+		}
+		return root.contains(obj, obj.hashCode(), 0);
+	}
+	
+	/**
+	 * Returns the number of Constraint objects in this set.
+	 * @return The size of this set.
+	 */
+	public int size(){
+		return size;
+	}
+	
+	/**
+	 * Returns an {@link Iterator} over the Constraint objects in this set.
+	 * The Iterator does not support {@link Iterator#remove()}.
+	 * @return An Iterator over this set.
+	 */
+	public Iterator<Constraint> iterator(){
+		return new TrieIterator(root);
+	}
+	
+	/**
+	 * Returns the cached hash code of this set as defined in {@link java.util.Set#hashCode()}.
+	 * @return A hash code value for this object.
+	 */
+	public int hashCode(){
+		return hash;
+	}
+	
+	/**
+	 * Determines whether or not some object is equal to this set as defined in
+	 * {@link java.util.Set#equals(Object)}. Two ConstraintSet objects with different
+	 * sizes or hash codes are known to differ without comparing their elements.
+	 * @param obj The object to be tested for equality against this one.
+	 * @return {@code true} if the objects are equal, {@code false} otherwise.
+	 */
+	public boolean equals(Object obj){
+		if(obj == this){
+			return true;
+		}
+		if(obj instanceof ConstraintSet){
+			ConstraintSet other = (ConstraintSet) obj;
+			if(other.size != size || other.hash != hash){
+				return false;
+			}
+		}
+		return super.equals(obj);
+	}
+	
+	/**
+	 * This class is a node of the trie. Below the maximum depth each node holds
+	 * up to 32 entries selected by 5 bits of the hash code; {@code bitmap}
+	 * indicates which are present and {@code entries} holds them in order.
+	 * Each entry is either a {@link Constraint} or a child Node. At the maximum
+	 * depth all hash bits are used up and a node holds a plain list of
+	 * Constraint objects whose hash codes are equal.
+	 */
+	private static final class Node {
+		private final int bitmap;
+		private final Object[] entries;
+		
+		/**
+		 * Constructs a new Node.
+		 * @param bitmap The bitmap of present entries. Unused at the maximum depth.
+		 * @param entries The entries of this node. This array is not copied.
+		 */
+		Node(int bitmap, Object[] entries){
+			this.bitmap = bitmap;
+			this.entries = entries;
+		}
+		
+		/**
+		 * Determines whether or not the subtree of this node contains an object.
+		 * @param obj The object to be found.
+		 * @param objHash The hash code of {@code obj}.
+		 * @param depth The depth of this node.
+		 * @return {@code true} if an equal object is found.
+		 */
+		boolean contains(Object obj, int objHash, int depth){
+			if(depth >= MAX_DEPTH){
+				for(Object entry : entries){
+					if(entry.equals(obj)){
+						return true;
+					}
+				}
+				return false;
+			}
+			int bit = 1 << ((objHash >>> (depth * BITS)) & MASK);
+			if((bitmap & bit) == 0){
+				return false;
+			}
+			Object entry = entries[Integer.bitCount(bitmap & (bit - 1))];
+			if(entry instanceof Node){
+				return ((Node) entry).contains(obj, objHash, depth + 1);
+			}
+			return entry.equals(obj);
+		}
+		
+		/**
+		 * Returns a copy of this node's subtree with a Constraint added.
+		 * The Constraint must not already be present.
+		 * @param constraint The Constraint to be added.
+		 * @param constraintHash The hash code of {@code constraint}.
+		 * @param depth The depth of this node.
+		 * @return The new node. Unchanged children are shared with this node.
+		 */
+		Node with(Constraint constraint, int constraintHash, int depth){
+			if(depth >= MAX_DEPTH){
+				return new Node(0, insert(entries, entries.length, constraint));
+			}
+			int bit = 1 << ((constraintHash >>> (depth * BITS)) & MASK);
+			int position = Integer.bitCount(bitmap & (bit - 1));
+			if((bitmap & bit) == 0){
+				return new Node(bitmap | bit, insert(entries, position, constraint));
+			}
+			Object entry = entries[position];
+			Node child;
+			if(entry instanceof Node){
+				child = ((Node) entry).with(constraint, constraintHash, depth + 1);
+			}
+			else{
+				child = pair((Constraint) entry, constraint, constraintHash, depth + 1);
+			}
+			Object[] copy = entries.clone();
+			copy[position] = child;
+			return new Node(bitmap, copy);
+		}
+		
+		/**
+		 * Creates a node holding two Constraint objects whose hash codes
+		 * agree up to {@code depth}.
+		 * @param existing The Constraint already in the trie.
+		 * @param added The Constraint being added.
+		 * @param addedHash The hash code of {@code added}.
+		 * @param depth The depth of the new node.
+		 * @return The new node.
+		 */
+		private static Node pair(Constraint existing, Constraint added, int addedHash, int depth){
+			int existingHash = existing.hashCode();
+			if(depth >= MAX_DEPTH){
+				return new Node(0, new Object[]{existing, added});
+			}
+			int existingIndex = (existingHash >>> (depth * BITS)) & MASK;
+			int addedIndex = (addedHash >>> (depth * BITS)) & MASK;
+			if(existingIndex == addedIndex){
+				return new Node(1 << existingIndex, new Object[]{pair(existing, added, addedHash, depth + 1)});
+			}
+			Object[] pairEntries = existingIndex < addedIndex ? new Object[]{existing, added} : new Object[]{added, existing};
+			return new Node((1 << existingIndex) | (1 << addedIndex), pairEntries);
+		}
+		
+		/**
+		 * Copies an array with one element inserted.
+		 * @param array The array to be copied.
+		 * @param position The position of the new element.
+		 * @param element The new element.
+		 * @return A new array one element longer than {@code array}.
+		 */
+		private static Object[] insert(Object[] array, int position, Object element){
+			Object[] copy = new Object[array.length + 1];
+			System.arraycopy(array, 0, copy, 0, position);
+			copy[position] = element;
+			System.arraycopy(array, position, copy, position + 1, array.length - position);
+			return copy;
+		}
+	}
+	
+	/**
+	 * This Iterator walks the trie depth-first with an explicit stack.
+	 */
+	private static final class TrieIterator implements Iterator<Constraint> {
+		private final Object[][] stack;
+		private final int[] positions;
+		private int depth;
+		private Constraint next;
+		
+		/**
+		 * Constructs a new TrieIterator.
+		 * @param root The root node or {@code null} for an empty set.
+		 */
+		TrieIterator(Node root){
+			stack = new Object[MAX_DEPTH + 1][];
+			positions = new int[MAX_DEPTH + 1];
+			depth = root == null ? -1 : 0;
+			if(root != null){
+				stack[0] = root.entries;
+			}
+			advance();
+		}
+		
+		/**
+		 * Finds the next Constraint and stores it in {@code next}.
+		 */
+		private void advance(){
+			next = null;
+			while(depth >= 0){
+				if(positions[depth] >= stack[depth].length){
+					depth--;
+					continue;
+				}
+				Object entry = stack[depth][positions[depth]++];
+				if(entry instanceof Node){
+					depth++;
+					stack[depth] = ((Node) entry).entries;
+					positions[depth] = 0;
+				}
+				else{
+					next = (Constraint) entry;
+					return;
+				}
+			}
+		}
+		
+		public boolean hasNext(){
+			return next != null;
+		}
+		
+		public Constraint next(){
+			if(next == null){
+				throw new NoSuchElementException();
+			}
+			Constraint current = next;
+			advance();
+			return current;
+		}
+		
+		public void remove(){
+			throw new UnsupportedOperationException("ConstraintSet objects cannot be modified.");
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.edinarobotics.scouting.definitions.database.queries;
+
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+
+/**
+ * A Join is one step of a {@link JoinQuery}. It adds the rows of one table,
+ * selected by a {@link Query}, to the rows already produced by the JoinQuery.
+ * Rows are combined where the value in the left column is equal to the value
+ * in the right column.
+ * <br/>
+ * Join objects are created by {@link JoinQuery#join(JoinType, Query, ColumnReference, ColumnReference)}
+ * and are immutable.
+ */
+public final class Join {
+	private final JoinType type;
+	private final Query query;
+	private final ColumnReference leftColumn;
+	private final ColumnReference rightColumn;
+	
+	/**
+	 * Constructs a new Join.
+	 * @param type The {@link JoinType} of this Join.
+	 * @param query The Query selecting the rows of the joined table.
+	 * @param leftColumn The {@link ColumnReference} for the join column in a table
+	 * that is already part of the JoinQuery.
+	 * @param rightColumn The ColumnReference for the join column in the table
+	 * of {@code query}.
+	 */
+	Join(JoinType type, Query query, ColumnReference leftColumn, ColumnReference rightColumn){
+		this.type = type;
+		this.query = query;
+		this.leftColumn = leftColumn;
+		this.rightColumn = rightColumn;
+	}
+	
+	/**
+	 * Returns the {@link JoinType} of this Join.
+	 * @return The JoinType of this Join.
+	 */
+	public JoinType getType(){
+		return type;
+	}
+	
+	/**
+	 * Returns the {@link Query} selecting the rows of the joined table.
+	 * Its constraints are applied before the rows are joined.
+	 * @return The Query of the joined table.
+	 */
+	public Query getQuery(){
+		return query;
+	}
+	
+	/**
+	 * Returns the {@link TableReference} of the joined table.
+	 * @return The TableReference of the table on the right side of this Join.
+	 */
+	public TableReference getTableReference(){
+		return query.getTableReference();
+	}
+	
+	/**
+	 * Returns the {@link ColumnReference} for the join column on the left side
+	 * of this Join.
+	 * @return The left join column.
+	 */
+	public ColumnReference getLeftColumn(){
+		return leftColumn;
+	}
+	
+	/**
+	 * Returns the {@link ColumnReference} for the join column in the joined table.
+	 * @return The right join column.
+	 */
+	public ColumnReference getRightColumn(){
+		return rightColumn;
+	}
+	
+	/**
+	 * Returns a hash code value for this Join as defined
+	 * in {@link Object#hashCode()}.
+	 * @return A hash code value for this object.
+	 */
+	public int hashCode(){
+		return ((type.hashCode() * 31 + query.hashCode()) * 31 + leftColumn.hashCode()) * 31 + rightColumn.hashCode();
+	}
+	
+	/**
+	 * Determines whether or not some object is equal to this Join.
+	 * An {@code Object} is equal to this Join if it is also a Join with the
+	 * same {@link JoinType}, an equal {@link Query} and equal join columns.
+	 * @param obj The object to be tested for equality against this one.
+	 * @return {@code true} if the objects are equal as defined above,
+	 * {@code false} otherwise.
+	 */
+	public boolean equals(Object obj){
+		if(obj instanceof Join){
+			Join otherJoin = (Join) obj;
+			return otherJoin.getType() == type && otherJoin.getQuery().equals(query) &&
+					otherJoin.getLeftColumn().equals(leftColumn) && otherJoin.getRightColumn().equals(rightColumn);
+		}
+		return false;
+	}
+}
@@ -0,0 +1,168 @@
+package com.edinarobotics.scouting.definitions.database.queries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.InvalidReferenceException;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+
+/**
+ * A JoinQuery combines the rows of several tables on equal column values.
+ * It starts with a base {@link Query} and adds one {@link Join} for every
+ * further table. Each Join combines the rows produced so far with the rows
+ * of its own Query.
+ * <br/>
+ * For example, a report of the pit data of every team in every match joins
+ * three tables:
+ * <pre>
+ * JoinQuery report = new JoinQuery(new Query("Match"))
+ *         .join(JoinType.INNER, new Query("Performance"), "Match.id", "Performance.match")
+ *         .join(JoinType.LEFT, new Query("Pit"), "Performance.team", "Pit.id");
+ * </pre>
+ * The result of a JoinQuery is a set of {@link Row} objects containing the
+ * columns of every joined table. Because {@link ColumnReference} objects
+ * include the table name, columns of different tables never collide. The
+ * primary key column of every result Row is the primary key column of the
+ * base table.
+ * <br/>
+ * JoinQuery objects are executed by a
+ * {@link com.edinarobotics.scouting.definitions.database.JoinCapableDatabase JoinCapableDatabase}.
+ * <br/>
+ * JoinQuery objects are immutable.
+ */
+public final class JoinQuery {
+	private final Query base;
+	private final List<Join> joins;
+	
+	/**
+	 * Constructs a new JoinQuery that returns the rows selected by
+	 * {@code base}. Tables are added with
+	 * {@link #join(JoinType, Query, ColumnReference, ColumnReference)}.
+	 * @param base The Query selecting the rows of the first table.
+	 */
+	public JoinQuery(Query base){
+		this(base, Collections.<Join>emptyList());
+	}
+	
+	/**
+	 * This constructor is used internally to create new JoinQuery objects
+	 * with additional {@link Join} objects.
+	 * @param base The Query selecting the rows of the first table.
+	 * @param joins The Join objects of the new JoinQuery, in order.
+	 */
+	private JoinQuery(Query base, List<Join> joins){
+		this.base = base;
+		this.joins = joins;
+	}
+	
+	/**
+	 * Adds a table to this JoinQuery. A JoinQuery including the new {@link Join}
+	 * is created and returned by this method.
+	 * @param type The {@link JoinType} of the new Join.
+	 * @param query The Query selecting the rows of the joined table.
+	 * @param leftColumn The {@link ColumnReference} for the join column in
+	 * a table that is already part of this JoinQuery.
+	 * @param rightColumn The ColumnReference for the join column in the table
+	 * of {@code query}.
+	 * @return A new JoinQuery object adding the table of {@code query}.
+	 * @throws InvalidTargetException If {@code leftColumn} is not in a table of
+	 * this JoinQuery, if {@code rightColumn} is not in the table of {@code query}
+	 * or if the table of {@code query} is already part of this JoinQuery.
+	 */
+	public JoinQuery join(JoinType type, Query query, ColumnReference leftColumn, ColumnReference rightColumn) throws InvalidTargetException{
+		List<TableReference> tables = getTableReferences();
+		if(!tables.contains(leftColumn.getTableReference())){
+			throw new InvalidTargetException("Invalid join column. The table "+leftColumn.getTableName()+" is not part of this join.");
+		}
+		if(!rightColumn.getTableReference().equals(query.getTableReference())){
+			throw new InvalidTargetException("Invalid join column. The table "+rightColumn.getTableName()+" does not match "+query.getTableName()+".");
+		}
+		if(tables.contains(query.getTableReference())){
+			throw new InvalidTargetException("Invalid join. The table "+query.getTableName()+" is already part of this join.");
+		}
+		List<Join> newJoins = new ArrayList<Join>(joins.size() + 1);
+		newJoins.addAll(joins);
+		newJoins.add(new Join(type, query, leftColumn, rightColumn));
+		return new JoinQuery(base, Collections.unmodifiableList(newJoins));
+	}
+	
+	/**
+	 * Adds a table to this JoinQuery. The join columns are given by column
+	 * reference {@code String} values.
+	 * @param type The {@link JoinType} of the new Join.
+	 * @param query The Query selecting the rows of the joined table.
+	 * @param leftColumn The column reference {@code String} for the join column
+	 * in a table that is already part of this JoinQuery.
+	 * @param rightColumn The column reference String for the join column in the
+	 * table of {@code query}.
+	 * @return A new JoinQuery object adding the table of {@code query}.
+	 * @throws InvalidReferenceException If a join column is not a valid column
+	 * reference {@code String}.
+	 * @throws InvalidTargetException If the join columns do not belong to the
+	 * joined tables, as described in
+	 * {@link #join(JoinType, Query, ColumnReference, ColumnReference)}.
+	 */
+	public JoinQuery join(JoinType type, Query query, String leftColumn, String rightColumn) throws InvalidReferenceException, InvalidTargetException{
+		return join(type, query, new ColumnReference(leftColumn), new ColumnReference(rightColumn));
+	}
+	
+	/**
+	 * Returns the Query selecting the rows of the first table.
+	 * @return The base Query of this JoinQuery.
+	 */
+	public Query getBaseQuery(){
+		return base;
+	}
+	
+	/**
+	 * Returns the {@link Join} objects of this JoinQuery in the order in which
+	 * they were added. This List cannot be modified.
+	 * @return The Join objects of this JoinQuery.
+	 */
+	public List<Join> getJoins(){
+		return joins;
+	}
+	
+	/**
+	 * Returns the {@link TableReference} objects of every table in this
+	 * JoinQuery, starting with the table of the base Query.
+	 * @return A new List of the joined tables in order.
+	 */
+	public List<TableReference> getTableReferences(){
+		List<TableReference> tables = new ArrayList<TableReference>(joins.size() + 1);
+		tables.add(base.getTableReference());
+		for(Join join : joins){
+			tables.add(join.getTableReference());
+		}
+		return tables;
+	}
+	
+	/**
+	 * Returns a hash code value for this JoinQuery as defined
+	 * in {@link Object#hashCode()}.
+	 * @return A hash code value for this object.
+	 */
+	public int hashCode(){
+		return base.hashCode() * 31 + joins.hashCode();
+	}
+	
+	/**
+	 * Determines whether or not some object is equal to this JoinQuery.
+	 * An {@code Object} is equal to this JoinQuery if it is also a JoinQuery
+	 * with an equal base {@link Query} and equal {@link Join} objects in
+	 * the same order.
+	 * @param obj The object to be tested for equality against this one.
+	 * @return {@code true} if the objects are equal as defined above,
+	 * {@code false} otherwise.
+	 */
+	public boolean equals(Object obj){
+		if(obj instanceof JoinQuery){
+			JoinQuery otherQuery = (JoinQuery) obj;
+			return otherQuery.getBaseQuery().equals(base) && otherQuery.getJoins().equals(joins);
+		}
+		return false;
+	}
+}
@@ -0,0 +1,21 @@
+package com.edinarobotics.scouting.definitions.database.queries;
+
+/**
+ * The values in this enum select which rows a {@link Join} produces.
+ */
+public enum JoinType {
+	
+	/**
+	 * Produces a combined row for every pair of rows whose join columns
+	 * are equal. Rows without a match are dropped. {@code null} values
+	 * never match.
+	 */
+	INNER,
+	
+	/**
+	 * Produces the same rows as {@link #INNER} and also every row on the left
+	 * side that has no match. The columns of the right table are {@code null}
+	 * in these rows.
+	 */
+	LEFT
+}
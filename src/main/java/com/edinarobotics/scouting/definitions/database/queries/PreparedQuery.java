@@ -0,0 +1,153 @@
+package com.edinarobotics.scouting.definitions.database.queries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.Constraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.InvalidReferenceException;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+
+/**
+ * A PreparedQuery is a {@link Query} template with parameters. Each parameter
+ * names a column that must be equal to a value supplied when the PreparedQuery
+ * is bound (see {@link #bind(Data...)}).
+ * <br/>
+ * All references are parsed once, when the PreparedQuery is created. Binding
+ * adds the parameter constraints to the constraint set of the template without
+ * validating their tables again.
+ * {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * implementations can also plan a PreparedQuery once and reuse the plan for
+ * every set of bound values (see
+ * {@link com.edinarobotics.scouting.definitions.database.helpers.QueryPlan QueryPlan}).
+ * <br/>
+ * For example, a lookup of the matches of one team is prepared once:
+ * <pre>
+ * PreparedQuery teamMatches = new PreparedQuery(new Query("Match"), "Match.team");
+ * </pre>
+ * and bound for every team:
+ * <pre>
+ * Query query = teamMatches.bind(new Integer(254));
+ * </pre>
+ * PreparedQuery objects are immutable and may be shared between threads.
+ */
+public final class PreparedQuery {
+	private final Query template;
+	private final List<ColumnReference> parameters;
+	
+	/**
+	 * Constructs a new PreparedQuery.
+	 * @param template The Query containing the fixed {@link Constraint} objects.
+	 * @param parameters The {@link ColumnReference} objects for the columns
+	 * whose values are supplied by {@link #bind(Data...)}, in order.
+	 * @throws InvalidTargetException If a parameter column is not in the table
+	 * on which {@code template} operates.
+	 */
+	public PreparedQuery(Query template, ColumnReference... parameters) throws InvalidTargetException{
+		for(ColumnReference parameter : parameters){
+			if(!parameter.getTableReference().equals(template.getTableReference())){
+				throw new InvalidTargetException("Invalid parameter. The table "+parameter.getTableReference().getTableName()+" does not match "+template.getTableName()+".");
+			}
+		}
+		this.template = template;
+		List<ColumnReference> parameterList = new ArrayList<ColumnReference>(parameters.length);
+		Collections.addAll(parameterList, parameters);
+		this.parameters = Collections.unmodifiableList(parameterList);
+	}
+	
+	/**
+	 * Constructs a new PreparedQuery whose parameter columns are given
+	 * by column reference {@code String} values.
+	 * @param template The Query containing the fixed {@link Constraint} objects.
+	 * @param parameters The column reference {@code String} values for the columns
+	 * whose values are supplied by {@link #bind(Data...)}, in order.
+	 * @throws InvalidReferenceException If a parameter is not a valid column
+	 * reference {@code String}.
+	 * @throws InvalidTargetException If a parameter column is not in the table
+	 * on which {@code template} operates.
+	 */
+	public PreparedQuery(Query template, String... parameters) throws InvalidReferenceException, InvalidTargetException{
+		this(template, parseReferences(parameters));
+	}
+	
+	/**
+	 * Parses column reference {@code String} values.
+	 * @param references The column reference Strings.
+	 * @return The parsed {@link ColumnReference} objects.
+	 * @throws InvalidReferenceException If a String is not a valid column reference.
+	 */
+	private static ColumnReference[] parseReferences(String[] references) throws InvalidReferenceException{
+		ColumnReference[] parsed = new ColumnReference[references.length];
+		for(int i = 0; i < references.length; i++){
+			parsed[i] = new ColumnReference(references[i]);
+		}
+		return parsed;
+	}
+	
+	/**
+	 * Returns the Query containing the fixed {@link Constraint} objects of this PreparedQuery.
+	 * @return The template Query.
+	 */
+	public Query getTemplate(){
+		return template;
+	}
+	
+	/**
+	 * Returns the {@link TableReference} indicating the table on which
+	 * this PreparedQuery operates.
+	 * @return The TableReference of the queried table.
+	 */
+	public TableReference getTableReference(){
+		return template.getTableReference();
+	}
+	
+	/**
+	 * Returns the {@link ColumnReference} objects for the parameter columns, in order.
+	 * This List cannot be modified.
+	 * @return The parameter columns of this PreparedQuery.
+	 */
+	public List<ColumnReference> getParameters(){
+		return parameters;
+	}
+	
+	/**
+	 * Returns the number of values required by {@link #bind(Data...)}.
+	 * @return The number of parameters.
+	 */
+	public int getParameterCount(){
+		return parameters.size();
+	}
+	
+	/**
+	 * Binds values to the parameters of this PreparedQuery.
+	 * @param values The {@link Data} values of the parameters, in order.
+	 * A {@code null} value matches {@code null} column values.
+	 * @return A new Query containing the fixed constraints of the template and an
+	 * {@link EqualsConstraint} for every parameter.
+	 * @throws IllegalArgumentException If the number of values does not equal
+	 * {@link #getParameterCount()}.
+	 */
+	public Query bind(Data... values){
+		checkValues(values);
+		ConstraintSet constraints = template.constraints;
+		for(int i = 0; i < values.length; i++){
+			constraints = constraints.with(new EqualsConstraint(parameters.get(i), values[i]));
+		}
+		return new Query(template.getTableReference(), constraints);
+	}
+	
+	/**
+	 * Checks the number of values supplied for the parameters of this PreparedQuery.
+	 * @param values The values of the parameters.
+	 * @throws IllegalArgumentException If the number of values does not equal
+	 * {@link #getParameterCount()}.
+	 */
+	private void checkValues(Data[] values){
+		if(values.length != parameters.size()){
+			throw new IllegalArgumentException("Expected "+parameters.size()+" parameter values but received "+values.length+".");
+		}
+	}
+}
@@ -1,7 +1,5 @@
 package com.edinarobotics.scouting.definitions.database.queries;
 
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
 import com.edinarobotics.scouting.definitions.database.Row;
@@ -15,10 +13,15 @@ import com.edinarobotics.scouting.definitions.database.references.TableReference
  * implementation.
  * They can retrieve information from a table using {@link Constraint} objects
  * to dictate characteristics of the desired {@link Row} object results.
+ * <br/>
+ * Query objects are immutable. Their constraints are stored in a persistent
+ * set that is shared between a Query and the Query objects built from it by
+ * {@link #constrain(Constraint)}, and whose hash code is cached. Query objects
+ * can therefore be built, shared and used as cache keys cheaply.
  */
 public final class Query {
 	protected TableReference tableRef;
-	protected Set<Constraint> constraints;
+	protected ConstraintSet constraints;
 	
 	/**
 	 * Constructs a new Query that operates on the table indicated
@@ -44,27 +47,30 @@ public final class Query {
 	 */
 	public Query(TableReference tableReference){
 		this.tableRef = tableReference;
-		constraints = new HashSet<Constraint>();
+		constraints = ConstraintSet.EMPTY;
 	}
 	
 	/**
 	 * This constructor is used internally to create new Query objects
 	 * with additional {@link Constraint} objects.
-	 * This constructor is used by the {@link #constrain(Constraint)} method.
+	 * This constructor is used by the {@link #constrain(Constraint)} method
+	 * and by {@link PreparedQuery#bind(com.edinarobotics.scouting.definitions.database.types.Data...)}.
 	 * @param workingTable The {@link TableReference} indicating the
 	 * table to be queried.
 	 * @param currentConstraints The {@link Set} of Constraint objects
 	 * to be stored in the new Query. This Set includes the added
-	 * Constraint.
+	 * Constraint. It is copied unless it is a {@link ConstraintSet}.
 	 */
 	protected Query(TableReference workingTable, Set<Constraint> currentConstraints){
 		this.tableRef = workingTable;
-		this.constraints = currentConstraints;
+		this.constraints = ConstraintSet.of(currentConstraints);
 	}
 	
 	/**
 	 * This method adds a {@link Constraint} to an existing query.
 	 * A Query including the Constraint is created and returned by this method.
+	 * The new Query shares all but O(log n) of its constraint storage with this
+	 * one, so building a Query of {@code n} constraints takes O(n log n) time.
 	 * @param constraint The Constraint to be added to this Query.
 	 * @return A new Query object adding Constraint, {@code constraint}.
 	 * @throws InvalidTargetException If the table on which {@code constraint}
@@ -73,9 +79,7 @@ public final class Query {
 	 */
 	public Query constrain(Constraint constraint) throws InvalidTargetException{
 		if (constraint.getTableName() == null || constraint.getTableName().equals(getTableName())){
-			Set<Constraint> newConstraints = new HashSet<Constraint>(getConstraints());
-			newConstraints.add(constraint);
-			return new Query(getTableReference(), newConstraints);
+			return new Query(getTableReference(), constraints.with(constraint));
 		}
 		throw new InvalidTargetException("Invalid constraint. The table "+constraint.getTableName()+" does not match "+this.tableRef.getTableName()+".");
 	}
@@ -86,7 +90,7 @@ public final class Query {
 	 * @return A Set of the Constraint objects that affect this Query.
 	 */
 	public Set<Constraint> getConstraints(){
-		return Collections.unmodifiableSet(this.constraints);
+		return constraints;
 	}
 	
 	/**
@@ -0,0 +1,106 @@
+package com.edinarobotics.scouting.definitions.database.queries.constraints;
+
+import com.edinarobotics.scouting.definitions.database.NoSuchColumnException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.InvalidReferenceException;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+
+/**
+ * This {@link Constraint} is satisfied by {@link Row} objects whose
+ * value in a column is equal to a given {@link Data} value.
+ * <br/>
+ * Because it names a single column and a single value, this Constraint
+ * can be answered by
+ * {@link com.edinarobotics.scouting.definitions.database.Database Database}
+ * implementations with a lookup in an index on the column, if one exists,
+ * instead of with a scan of the whole table.
+ */
+public class EqualsConstraint extends Constraint{
+	private Data value;
+	
+	/**
+	 * Constructs a new EqualsConstraint that is satisfied by rows
+	 * whose value in the column referenced by {@code columnReference}
+	 * is equal to {@code value}.
+	 * @param columnReference The {@link ColumnReference} for the column
+	 * on which this Constraint operates.
+	 * @param value The {@link Data} value that the column must contain.
+	 */
+	public EqualsConstraint(ColumnReference columnReference, Data value){
+		super(columnReference);
+		this.value = value;
+	}
+	
+	/**
+	 * Constructs a new EqualsConstraint that is satisfied by rows
+	 * whose value in the column referenced by the column reference
+	 * {@code String}, {@code columnReference}, is equal to {@code value}.
+	 * @param columnReference The column reference {@code String} for the
+	 * column on which this Constraint operates.
+	 * @param value The {@link Data} value that the column must contain.
+	 * @throws InvalidReferenceException If {@code columnReference}
+	 * is not a valid column reference {@code String}.
+	 * @see ColumnReference#ColumnReference(String)
+	 */
+	public EqualsConstraint(String columnReference, Data value) throws InvalidReferenceException{
+		this(new ColumnReference(columnReference), value);
+	}
+	
+	/**
+	 * Returns the {@link Data} value that the column must contain
+	 * to satisfy this EqualsConstraint.
+	 * @return The value required by this EqualsConstraint.
+	 */
+	public Data getValue(){
+		return value;
+	}
+	
+	/**
+	 * Determines whether or not a {@link Row} satisfies this EqualsConstraint.
+	 * A Row satisfies this EqualsConstraint if it contains the column on which this
+	 * Constraint operates and if the value in that column is equal to {@link #getValue()}.
+	 * @param row The Row object to check against this Constraint.
+	 * @return {@code true} if the Row satisfies this Constraint,
+	 * {@code false} otherwise.
+	 */
+	public boolean satisfiesConstraint(Row row){
+		try{
+			Data rowValue = row.getColumnValue(getColumnName());
+			if(value == null){
+				return rowValue == null;
+			}
+			return value.equals(rowValue);
+		}catch(NoSuchColumnException e){
+			return false;
+		}
+	}
+	
+	/**
+	 * Returns a hash code value for this EqualsConstraint as defined in
+	 * {@link Object#hashCode()}.
+	 * @return A hash code value for this object.
+	 */
+	public int hashCode(){
+		return getColumnReference().hashCode() + (value == null ? 0 : value.hashCode());
+	}
+	
+	/**
+	 * Determines whether or not some object is equal to this EqualsConstraint.
+	 * An object is equal to this one if it is also an EqualsConstraint, if it
+	 * operates on the same column and if it requires an equal {@link Data} value.
+	 * @param obj The object to be tested for equality against this one.
+	 * @return {@code true} if the objects are equal as defined above,
+	 * {@code false} otherwise.
+	 */
+	public boolean equals(Object obj){
+		if(obj instanceof EqualsConstraint){
+			EqualsConstraint other = (EqualsConstraint) obj;
+			if(!other.getColumnReference().equals(getColumnReference())){
+				return false;
+			}
+			return value == null ? other.getValue() == null : value.equals(other.getValue());
+		}
+		return false;
+	}
+}
@@ -0,0 +1,199 @@
+package com.edinarobotics.scouting.definitions.database.queries.constraints;
+
+import com.edinarobotics.scouting.definitions.database.NoSuchColumnException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.InvalidReferenceException;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+
+/**
+ * This {@link Constraint} is satisfied by {@link Row} objects whose
+ * value in a numeric column lies between two bounds.
+ * Either bound may be {@code null}, in which case the range is
+ * unbounded on that side. For example, "auto score greater than 20"
+ * is a RangeConstraint with an exclusive lower bound of 20 and no
+ * upper bound.
+ * <br/>
+ * Values that are not {@link Real} (or
+ * {@link com.edinarobotics.scouting.definitions.database.types.Integer Integer})
+ * values never satisfy a RangeConstraint.
+ */
+public class RangeConstraint extends Constraint{
+	private Real lowerBound;
+	private boolean lowerInclusive;
+	private Real upperBound;
+	private boolean upperInclusive;
+	
+	/**
+	 * Constructs a new RangeConstraint that is satisfied by rows whose
+	 * value in the column referenced by {@code columnReference} lies
+	 * between {@code lowerBound} and {@code upperBound}.
+	 * @param columnReference The {@link ColumnReference} for the column
+	 * on which this Constraint operates.
+	 * @param lowerBound The lower bound of the range or {@code null} if
+	 * the range has no lower bound.
+	 * @param lowerInclusive {@code true} if values equal to {@code lowerBound}
+	 * satisfy this Constraint.
+	 * @param upperBound The upper bound of the range or {@code null} if
+	 * the range has no upper bound.
+	 * @param upperInclusive {@code true} if values equal to {@code upperBound}
+	 * satisfy this Constraint.
+	 */
+	public RangeConstraint(ColumnReference columnReference, Real lowerBound, boolean lowerInclusive, Real upperBound, boolean upperInclusive){
+		super(columnReference);
+		this.lowerBound = lowerBound;
+		this.lowerInclusive = lowerInclusive;
+		this.upperBound = upperBound;
+		this.upperInclusive = upperInclusive;
+	}
+	
+	/**
+	 * Constructs a new RangeConstraint that is satisfied by rows whose
+	 * value in the column referenced by the column reference {@code String},
+	 * {@code columnReference}, lies between {@code lowerBound} and {@code upperBound}.
+	 * @param columnReference The column reference {@code String} for the
+	 * column on which this Constraint operates.
+	 * @param lowerBound The lower bound of the range or {@code null} if
+	 * the range has no lower bound.
+	 * @param lowerInclusive {@code true} if values equal to {@code lowerBound}
+	 * satisfy this Constraint.
+	 * @param upperBound The upper bound of the range or {@code null} if
+	 * the range has no upper bound.
+	 * @param upperInclusive {@code true} if values equal to {@code upperBound}
+	 * satisfy this Constraint.
+	 * @throws InvalidReferenceException If {@code columnReference}
+	 * is not a valid column reference {@code String}.
+	 * @see ColumnReference#ColumnReference(String)
+	 */
+	public RangeConstraint(String columnReference, Real lowerBound, boolean lowerInclusive, Real upperBound, boolean upperInclusive) throws InvalidReferenceException{
+		this(new ColumnReference(columnReference), lowerBound, lowerInclusive, upperBound, upperInclusive);
+	}
+	
+	/**
+	 * Constructs a new RangeConstraint whose bounds are both inclusive.
+	 * @param columnReference The {@link ColumnReference} for the column
+	 * on which this Constraint operates.
+	 * @param lowerBound The lowest allowed value or {@code null}.
+	 * @param upperBound The highest allowed value or {@code null}.
+	 */
+	public RangeConstraint(ColumnReference columnReference, Real lowerBound, Real upperBound){
+		this(columnReference, lowerBound, true, upperBound, true);
+	}
+	
+	/**
+	 * Constructs a new RangeConstraint whose bounds are both inclusive.
+	 * @param columnReference The column reference {@code String} for the
+	 * column on which this Constraint operates.
+	 * @param lowerBound The lowest allowed value or {@code null}.
+	 * @param upperBound The highest allowed value or {@code null}.
+	 * @throws InvalidReferenceException If {@code columnReference}
+	 * is not a valid column reference {@code String}.
+	 * @see ColumnReference#ColumnReference(String)
+	 */
+	public RangeConstraint(String columnReference, Real lowerBound, Real upperBound) throws InvalidReferenceException{
+		this(new ColumnReference(columnReference), lowerBound, upperBound);
+	}
+	
+	/**
+	 * Returns the lower bound of this RangeConstraint.
+	 * @return The lower bound or {@code null} if the range has no lower bound.
+	 */
+	public Real getLowerBound(){
+		return lowerBound;
+	}
+	
+	/**
+	 * Indicates whether values equal to the lower bound satisfy this RangeConstraint.
+	 * @return {@code true} if the lower bound is inclusive, {@code false} otherwise.
+	 */
+	public boolean isLowerInclusive(){
+		return lowerInclusive;
+	}
+	
+	/**
+	 * Returns the upper bound of this RangeConstraint.
+	 * @return The upper bound or {@code null} if the range has no upper bound.
+	 */
+	public Real getUpperBound(){
+		return upperBound;
+	}
+	
+	/**
+	 * Indicates whether values equal to the upper bound satisfy this RangeConstraint.
+	 * @return {@code true} if the upper bound is inclusive, {@code false} otherwise.
+	 */
+	public boolean isUpperInclusive(){
+		return upperInclusive;
+	}
+	
+	/**
+	 * Determines whether or not a {@link Row} satisfies this RangeConstraint.
+	 * A Row satisfies this RangeConstraint if it contains the column on which this
+	 * Constraint operates and if the value in that column is a {@link Real} value
+	 * that lies within the bounds of this RangeConstraint.
+	 * @param row The Row object to check against this Constraint.
+	 * @return {@code true} if the Row satisfies this Constraint,
+	 * {@code false} otherwise.
+	 */
+	public boolean satisfiesConstraint(Row row){
+		try{
+			Data rowValue = row.getColumnValue(getColumnName());
+			if(!(rowValue instanceof Real)){
+				return false;
+			}
+			double value = ((Real) rowValue).doubleValue();
+			if(lowerBound != null){
+				double lower = lowerBound.doubleValue();
+				if(lowerInclusive ? !(value >= lower) : !(value > lower)){
+					return false;
+				}
+			}
+			if(upperBound != null){
+				double upper = upperBound.doubleValue();
+				if(upperInclusive ? !(value <= upper) : !(value < upper)){
+					return false;
+				}
+			}
+			return !Double.isNaN(value);
+		}catch(NoSuchColumnException e){
+			return false;
+		}
+	}
+	
+	/**
+	 * Returns a hash code value for this RangeConstraint as defined in
+	 * {@link Object#hashCode()}.
+	 * @return A hash code value for this object.
+	 */
+	public int hashCode(){
+		int hash = getColumnReference().hashCode();
+		hash = 31 * hash + (lowerBound == null ? 0 : lowerBound.hashCode()) + (lowerInclusive ? 1 : 0);
+		hash = 31 * hash + (upperBound == null ? 0 : upperBound.hashCode()) + (upperInclusive ? 1 : 0);
+		return hash;
+	}
+	
+	/**
+	 * Determines whether or not some object is equal to this RangeConstraint.
+	 * An object is equal to this one if it is also a RangeConstraint, if it
+	 * operates on the same column and if it has equal bounds.
+	 * @param obj The object to be tested for equality against this one.
+	 * @return {@code true} if the objects are equal as defined above,
+	 * {@code false} otherwise.
+	 */
+	public boolean equals(Object obj){
+		if(obj instanceof RangeConstraint){
+			RangeConstraint other = (RangeConstraint) obj;
+			if(!other.getColumnReference().equals(getColumnReference())){
+				return false;
+			}
+			if(other.isLowerInclusive() != lowerInclusive || other.isUpperInclusive() != upperInclusive){
+				return false;
+			}
+			boolean lowerEqual = lowerBound == null ? other.getLowerBound() == null : lowerBound.equals(other.getLowerBound());
+			boolean upperEqual = upperBound == null ? other.getUpperBound() == null : upperBound.equals(other.getUpperBound());
+			return lowerEqual && upperEqual;
+		}
+		return false;
+	}
+}
@@ -21,6 +21,9 @@ public class ColumnReference {
 	public ColumnReference(String columnRef) throws InvalidReferenceException{
 		Pattern columnRefPattern = Pattern.compile("^(@?[a-zA-Z0-9]+).([a-zA-Z0-9]+)$");
 		Matcher matcher = columnRefPattern.matcher(columnRef);
+		if (!matcher.matches()){
+			throw new InvalidReferenceException("Bad column reference: "+columnRef);
+		}
 		String tabName = matcher.group(1); //Get the table name
 		String colName = matcher.group(2); //Get the column name
 		if (!TableReference.isValid(matcher, tabName) || !TableReference.isValid(matcher, colName)){
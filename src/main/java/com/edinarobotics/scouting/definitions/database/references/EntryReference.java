@@ -26,6 +26,9 @@ public class EntryReference {
 	public EntryReference(String elementRef) throws InvalidReferenceException{
 		Pattern elementRefPattern = Pattern.compile("^(@?[a-zA-Z0-9]+).([a-zA-Z0-9]+)#(-?[0-9]+)$");
 		Matcher matcher = elementRefPattern.matcher(elementRef);
+		if (!matcher.matches()){
+			throw new InvalidReferenceException("Bad element reference: "+elementRef);
+		}
 		String tabName = matcher.group(1); //Get the table name
 		String columnName = matcher.group(2); //Get the column name
 		String rowName = matcher.group(3); //Get the primary key number
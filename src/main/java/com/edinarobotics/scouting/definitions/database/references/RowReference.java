@@ -22,6 +22,9 @@ public class RowReference {
 	public RowReference(String rowRef) throws InvalidReferenceException{
 		Pattern rowRefPattern = Pattern.compile("^(@?[a-zA-Z0-9]+)#(-?[0-9]+)$");
 		Matcher matcher = rowRefPattern.matcher(rowRef);
+		if (!matcher.matches()){
+			throw new InvalidReferenceException("Bad row reference: "+rowRef);
+		}
 		String tabName = matcher.group(1); //Get the table name
 		String rowName = matcher.group(2); //Get the primary key number
 		if (!TableReference.isValid(matcher, tabName) || !TableReference.isValid(matcher, rowName)){
@@ -20,6 +20,9 @@ public class TableReference {
 	public TableReference(String tableRef) throws InvalidReferenceException{
 		Pattern tableRefPattern = Pattern.compile("^(@?[a-zA-Z0-9]+)$");
 		Matcher matcher = tableRefPattern.matcher(tableRef);
+		if (!matcher.matches()){
+			throw new InvalidReferenceException("Bad table reference: "+tableRef);
+		}
 		String tabName = matcher.group(1); //Get the table name
 		if (!isValid(matcher, tabName)){
 			throw new InvalidReferenceException("Bad table reference: "+tableRef);
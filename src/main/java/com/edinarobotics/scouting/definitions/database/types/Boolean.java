@@ -65,9 +65,21 @@ public class Boolean implements Data
 	public boolean equals(Object obj)
 	{
 		if(obj instanceof Boolean)
-			return  (java.lang.Boolean) obj == value;
+			return ((Boolean) obj).getValue() == value;
 		else
-			return  false;
+			return false;
+	}
+	
+	/**
+	 * Returns a hash code value for this object as described
+	 * in {@link Object#hashCode()}. This method uses the
+	 * implementation in {@link java.lang.Boolean#hashCode()}.
+	 * @return A hash code value for this object.
+	 * @see java.lang.Boolean#hashCode()
+	 */
+	public int hashCode()
+	{
+		return value ? 1231 : 1237;
 	}
 	
 	/**
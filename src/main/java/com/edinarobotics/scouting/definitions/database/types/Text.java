@@ -43,7 +43,22 @@ public class Text implements Data{
 	 */
 	public boolean equals(Object obj)
 	{
-		return value == obj.toString();
+		if(obj instanceof Text)
+			return value == null ? ((Text) obj).getValue() == null : value.equals(((Text) obj).getValue());
+		else
+			return false;
+	}
+	
+	/**
+	 * Returns a hash code value for this object as described
+	 * in {@link Object#hashCode()}. This method uses the
+	 * implementation in {@link String#hashCode()}.
+	 * @return A hash code value for this object.
+	 * @see String#hashCode()
+	 */
+	public int hashCode()
+	{
+		return value == null ? 0 : value.hashCode();
 	}
 	
 	/**
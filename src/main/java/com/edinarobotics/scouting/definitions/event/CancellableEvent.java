@@ -3,14 +3,17 @@ package com.edinarobotics.scouting.definitions.event;
 /**
  * This class represents events that can be cancelled throughout the scouting system.
  * It makes implementing classes extending {@link Event} and implementing
- * {@link Cancellable} simpler.
+ * {@link Cancellable} simpler.<br/>
+ * The cancellation state of a CancellableEvent may be changed from several
+ * threads. A thread inside a {@link CancellationScope} containing the event
+ * reads and writes the state of the scope instead.
  */
 public abstract class CancellableEvent extends Event implements Cancellable {
-	private boolean cancelled = false;
+	private volatile boolean cancelled = false;
 	
 	/**
 	 * Constructs a new CancellableEvent. This constructor assigns
-	 * a random, unique ID value to this event.
+	 * a unique ID value to this event.
 	 * @see Event#Event()
 	 */
 	public CancellableEvent(){
@@ -27,10 +30,21 @@ public abstract class CancellableEvent extends Event implements Cancellable {
 	}
 	
 	public boolean isCancelled(){
+		CancellationScope scope = CancellationScope.current();
+		if(scope != null){
+			Boolean scoped = scope.get(this);
+			if(scoped != null){
+				return scoped;
+			}
+		}
 		return cancelled;
 	}
 	
 	public void setCancelled(boolean cancel){
+		CancellationScope scope = CancellationScope.current();
+		if(scope != null && scope.set(this, cancel)){
+			return;
+		}
 		cancelled = cancel;
 	}
 }
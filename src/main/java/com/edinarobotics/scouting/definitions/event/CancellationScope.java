@@ -0,0 +1,147 @@
+package com.edinarobotics.scouting.definitions.event;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * This class gives a thread its own view of the cancellation states of
+ * {@link CancellableEvent} objects.
+ * While a thread is inside a CancellationScope, {@link CancellableEvent#isCancelled()}
+ * and {@link CancellableEvent#setCancelled(boolean)} read and write the scope instead
+ * of the event for every event of the scope. The states in the scope start out as the
+ * states seen by the thread that created it. Changes reach the events only through
+ * {@link #commit()}; a scope that is never committed leaves its events unchanged.<br/>
+ * Event firing classes use CancellationScopes to isolate event listeners that run
+ * in parallel or on other threads from each other. Events that are not part of a
+ * scope and {@link Cancellable} events that do not extend CancellableEvent are not
+ * isolated, see {@link #canIsolate(Event)}.<br/>
+ * A CancellationScope must only be used by one thread at a time.
+ */
+public final class CancellationScope {
+	private static final ThreadLocal<CancellationScope> CURRENT = new ThreadLocal<CancellationScope>();
+	
+	private Map<CancellableEvent, Boolean> initial;
+	private Map<CancellableEvent, Boolean> states;
+	
+	/**
+	 * Constructs a new CancellationScope containing an Event or every Event
+	 * of an {@link EventBatch}. The states in the scope are read from the
+	 * calling thread's view of the events.
+	 * @param event The Event or EventBatch to be isolated.
+	 */
+	public CancellationScope(Event event){
+		initial = new IdentityHashMap<CancellableEvent, Boolean>();
+		if(event instanceof EventBatch){
+			for(Event element : (EventBatch<?>)event){
+				add(element);
+			}
+		}
+		else{
+			add(event);
+		}
+		states = new IdentityHashMap<CancellableEvent, Boolean>(initial);
+	}
+	
+	/**
+	 * Adds a single Event to this CancellationScope if it is a CancellableEvent.
+	 * @param event The Event to be added.
+	 */
+	private void add(Event event){
+		if(event instanceof CancellableEvent){
+			CancellableEvent cancellable = (CancellableEvent)event;
+			initial.put(cancellable, cancellable.isCancelled());
+		}
+	}
+	
+	/**
+	 * Indicates whether the cancellation states of an Event, or of every Event of
+	 * an {@link EventBatch}, can be isolated by a CancellationScope.
+	 * @param event The Event or EventBatch to be checked.
+	 * @return {@code true} if every {@link Cancellable} Event extends
+	 * {@link CancellableEvent}.
+	 */
+	public static boolean canIsolate(Event event){
+		if(event instanceof EventBatch){
+			for(Event element : (EventBatch<?>)event){
+				if(element instanceof Cancellable && !(element instanceof CancellableEvent)){
+					return false;
+				}
+			}
+			return true;
+		}
+		return !(event instanceof Cancellable) || event instanceof CancellableEvent;
+	}
+	
+	/**
+	 * Makes this CancellationScope the scope of the calling thread.
+	 * Every call must be followed by a call to {@link #exit(CancellationScope)}
+	 * on the same thread, usually in a {@code finally} block.
+	 * @return The previous scope of the calling thread, to be passed to
+	 * {@link #exit(CancellationScope)}.
+	 */
+	public CancellationScope enter(){
+		CancellationScope previous = CURRENT.get();
+		CURRENT.set(this);
+		return previous;
+	}
+	
+	/**
+	 * Leaves the scope of the calling thread, returning to a previous scope.
+	 * @param previous The scope returned by {@link #enter()}.
+	 */
+	public static void exit(CancellationScope previous){
+		if(previous == null){
+			CURRENT.remove();
+		}
+		else{
+			CURRENT.set(previous);
+		}
+	}
+	
+	/**
+	 * Applies the changes made in this CancellationScope to its events.
+	 * Only states that differ from the state at the creation of this scope
+	 * are applied. They are applied through the calling thread's view, so if the
+	 * calling thread is itself inside a scope the changes are applied to that scope.
+	 */
+	public void commit(){
+		for(Map.Entry<CancellableEvent, Boolean> entry : states.entrySet()){
+			if(!entry.getValue().equals(initial.get(entry.getKey()))){
+				entry.getKey().setCancelled(entry.getValue());
+			}
+		}
+	}
+	
+	/**
+	 * Returns the scope of the calling thread.
+	 * @return The CancellationScope of the calling thread or {@code null}
+	 * if it is not inside a scope.
+	 */
+	static CancellationScope current(){
+		return CURRENT.get();
+	}
+	
+	/**
+	 * Returns the cancellation state of an event in this CancellationScope.
+	 * @param event The CancellableEvent.
+	 * @return The state of {@code event} or {@code null} if it is not part of this scope.
+	 */
+	Boolean get(CancellableEvent event){
+		return states.get(event);
+	}
+	
+	/**
+	 * Sets the cancellation state of an event in this CancellationScope.
+	 * @param event The CancellableEvent.
+	 * @param cancel The new cancellation state of {@code event}.
+	 * @return {@code true} if the state was set, {@code false} if {@code event}
+	 * is not part of this scope.
+	 */
+	boolean set(CancellableEvent event, boolean cancel){
+		if(!states.containsKey(event)){
+			return false;
+		}
+		states.put(event, cancel);
+		return true;
+	}
+}
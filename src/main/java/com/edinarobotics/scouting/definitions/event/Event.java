@@ -1,20 +1,24 @@
 package com.edinarobotics.scouting.definitions.event;
 
-import java.util.UUID;
-
 /**
  * This class represents events used throughout the scouting system.
  */
 public abstract class Event {
-	private final String id;
+	private static volatile EventIdGenerator idGenerator = new SequentialEventIdGenerator();
+	private final EventIdGenerator generator;
+	private final long generatedId;
+	private String id;
 	
 	/**
 	 * This constructor handles some default setup tasks for Events.
-	 * For example, It assigns a randomly generated, unique ID value to each
-	 * Event object.
+	 * For example, It assigns a unique ID value to each Event object.
+	 * The ID value is generated by the current {@link EventIdGenerator}
+	 * and is only rendered as a String when {@link #getId()} is called.
+	 * @see #setIdGenerator(EventIdGenerator)
 	 */
 	public Event(){
-		this.id = UUID.randomUUID().toString();
+		this.generator = idGenerator;
+		this.generatedId = generator.nextId();
 	}
 	
 	/**
@@ -24,6 +28,8 @@ public abstract class Event {
 	 * @param id The {@link String} id value for this {@link Event} object.
 	 */
 	public Event(String id){
+		this.generator = null;
+		this.generatedId = 0;
 		this.id = id;
 	}
 	
@@ -32,9 +38,39 @@ public abstract class Event {
 	 * All {@link Event} objects have IDs associated with them. These ID values can
 	 * be used to identify the method call that produced this event.
 	 * @return A {@link String} object representing the ID for this {@link Event}
-	 * object.
+	 * object, or {@code null} if it was constructed with a {@code null} ID.
 	 */
 	public final String getId(){
-		return id;
+		String rendered = id;
+		if(rendered == null && generator != null){
+			//Strings are immutable, so rendering twice in a race is harmless
+			rendered = generator.toString(generatedId);
+			id = rendered;
+		}
+		return rendered;
+	}
+	
+	/**
+	 * Sets the {@link EventIdGenerator} used to assign ID values to
+	 * events constructed without an explicit ID. Events constructed before
+	 * this call keep their IDs.
+	 * @param generator The new EventIdGenerator.
+	 * @throws NullPointerException If {@code generator} is {@code null}.
+	 */
+	public static void setIdGenerator(EventIdGenerator generator){
+		if(generator == null){
+			throw new NullPointerException("The event ID generator cannot be null.");
+		}
+		idGenerator = generator;
+	}
+	
+	/**
+	 * Returns the {@link EventIdGenerator} used to assign ID values to
+	 * events constructed without an explicit ID.
+	 * By default this is a {@link SequentialEventIdGenerator}.
+	 * @return The current EventIdGenerator.
+	 */
+	public static EventIdGenerator getIdGenerator(){
+		return idGenerator;
 	}
 }
@@ -0,0 +1,88 @@
+package com.edinarobotics.scouting.definitions.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This class represents a group of {@link Event} objects that are fired together.
+ * Firing a batch costs one event firing process instead of one per Event, which
+ * matters when thousands of events are fired at once, for example for every
+ * {@link com.edinarobotics.scouting.definitions.database.changes.Change Change}
+ * of a large {@link com.edinarobotics.scouting.definitions.database.changes.Transaction Transaction}.
+ * <br/>
+ * Event listeners opt in to batches by accepting an EventBatch parameter. The
+ * type argument of the parameter selects the events they receive, for example:
+ * <pre>
+ * &#64;EventListener
+ * public void onChanges(EventBatch&lt;DatabaseChangeEvent&gt; changes)
+ * </pre>
+ * Such a listener is invoked once per batch with the matching events of the batch.
+ * Listeners accepting a single Event are still invoked once for every matching Event
+ * of the batch, so existing listeners work unchanged.<br/>
+ * Each Event of a batch keeps its own cancellation state. Cancelling an Event of a
+ * batch does not cancel the other events.
+ * @param <E> The type of the events in this batch.
+ */
+public class EventBatch<E extends Event> extends Event implements Iterable<E>{
+	private final List<E> events;
+	
+	/**
+	 * Constructs a new EventBatch containing the given events in order.
+	 * This constructor assigns a unique ID value to this batch.
+	 * @param events The events of this batch.
+	 */
+	public EventBatch(List<? extends E> events){
+		super();
+		this.events = Collections.unmodifiableList(new ArrayList<E>(events));
+	}
+	
+	/**
+	 * Constructs a new EventBatch containing the given events in order
+	 * and having the given String ID value.
+	 * @param events The events of this batch.
+	 * @param id The String ID value to be assigned to this batch.
+	 * @see Event#Event(String)
+	 */
+	public EventBatch(List<? extends E> events, String id){
+		super(id);
+		this.events = Collections.unmodifiableList(new ArrayList<E>(events));
+	}
+	
+	/**
+	 * Returns the events of this batch in the order in which they were fired.
+	 * @return An unmodifiable List of the events of this batch.
+	 */
+	public List<E> getEvents(){
+		return events;
+	}
+	
+	/**
+	 * Returns the Event at position {@code index} of this batch.
+	 * @param index The position of the Event.
+	 * @return The Event at {@code index}.
+	 * @throws IndexOutOfBoundsException If {@code index} is negative or not less
+	 * than {@link #size()}.
+	 */
+	public E get(int index){
+		return events.get(index);
+	}
+	
+	/**
+	 * Returns the number of events in this batch.
+	 * @return The number of events in this batch.
+	 */
+	public int size(){
+		return events.size();
+	}
+	
+	/**
+	 * Returns an Iterator over the events of this batch in order.
+	 * The Iterator does not support removal.
+	 * @return An Iterator over the events of this batch.
+	 */
+	public Iterator<E> iterator(){
+		return events.iterator();
+	}
+}
@@ -0,0 +1,30 @@
+package com.edinarobotics.scouting.definitions.event;
+
+/**
+ * This interface is implemented by classes that assign ID values to
+ * {@link Event} objects that are constructed without an explicit ID.
+ * <br/>
+ * Generating an ID must be cheap, because it happens for every Event.
+ * For this reason an ID is generated as a {@code long} and only rendered
+ * as a String when {@link Event#getId()} is first called.
+ * Implementations must be thread-safe.
+ * @see Event#setIdGenerator(EventIdGenerator)
+ * @see SequentialEventIdGenerator
+ */
+public interface EventIdGenerator {
+	
+	/**
+	 * Returns a new ID value. Every call must return a value that has not been
+	 * returned before by this EventIdGenerator.
+	 * @return A new, unique ID value.
+	 */
+	public long nextId();
+	
+	/**
+	 * Renders an ID value returned by {@link #nextId()} as a String.
+	 * Different ID values must be rendered as different Strings.
+	 * @param id The ID value to be rendered.
+	 * @return The String form of {@code id}.
+	 */
+	public String toString(long id);
+}
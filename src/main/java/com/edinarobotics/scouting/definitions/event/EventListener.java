@@ -30,4 +30,27 @@ public @interface EventListener {
 	 * @return The state of the {@code ignoreCancelled} flag.
 	 */
 	boolean ignoreCancelled() default false;
+	
+	/**
+	 * The names of the tables whose {@link TableEvent} objects this event listener
+	 * receives, such as {@code {"Match", "Team"}}. TableEvents of other tables are
+	 * never passed to the listener, so it does not have to check
+	 * {@link TableEvent#getTargetTableReference()} itself. Events that are not
+	 * TableEvents are not affected.<br/>
+	 * If no tables are given (the default), the listener receives the TableEvents
+	 * of every table.
+	 * @return The names of the tables of interest to the event listener.
+	 */
+	String[] tables() default {};
+	
+	/**
+	 * The longest time, in milliseconds, the event firing process waits for this
+	 * event listener. A listener that has not returned by then is interrupted and
+	 * the event firing process continues with the next listener. Use a timeout for
+	 * listeners that block, such as listeners performing I/O.<br/>
+	 * If the timeout is {@code 0} (the default), the default timeout of the
+	 * event firing class applies, if it has one.
+	 * @return The timeout of the event listener in milliseconds.
+	 */
+	long timeout() default 0;
 }
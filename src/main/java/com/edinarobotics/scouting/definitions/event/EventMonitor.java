@@ -21,5 +21,14 @@ import java.lang.annotation.Retention;
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface EventMonitor {
-
+	
+	/**
+	 * The names of the tables whose {@link TableEvent} objects this event monitor
+	 * is notified of. Events that are not TableEvents are not affected.
+	 * If no tables are given (the default), the monitor is notified of the
+	 * TableEvents of every table.
+	 * @return The names of the tables of interest to the event monitor.
+	 * @see EventListener#tables()
+	 */
+	String[] tables() default {};
 }
\ No newline at end of file
@@ -25,5 +25,17 @@ public enum Result {
 	 * The results should be available through {@link Future#get()}.
 	 * @see Future#get()
 	 */
-	SUCCESS
+	SUCCESS,
+	
+	/**
+	 * This {@link Result} indicates that the call was not applied because
+	 * it conflicted with a concurrent call. For example, a transaction
+	 * expected a row version that had already been replaced by another
+	 * transaction. Expect a
+	 * {@link com.edinarobotics.scouting.definitions.database.VersionConflictException VersionConflictException}
+	 * as the cause of the exception thrown by {@link Future#get()}.
+	 * The call may be retried.
+	 * @see Future#get()
+	 */
+	CONFLICT
 }
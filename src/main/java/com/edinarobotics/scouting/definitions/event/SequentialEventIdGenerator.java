@@ -0,0 +1,54 @@
+package com.edinarobotics.scouting.definitions.event;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This {@link EventIdGenerator} assigns increasing sequence numbers to events.
+ * IDs are rendered as the node prefix of the generator, a dash and the sequence
+ * number in hexadecimal, for example {@code 3f2a9c01d4e5b6a7-1c}.
+ * <br/>
+ * Generating an ID is a single atomic increment. The node prefix keeps IDs
+ * from different processes (or different runs of the same process) apart.
+ * This is the default EventIdGenerator of {@link Event}.
+ */
+public class SequentialEventIdGenerator implements EventIdGenerator {
+	private final String prefix;
+	private final AtomicLong sequence;
+	
+	/**
+	 * Constructs a new SequentialEventIdGenerator with a random node prefix.
+	 * The prefix is chosen once, so the secure random number generator is
+	 * not used when IDs are generated.
+	 */
+	public SequentialEventIdGenerator(){
+		this(Long.toHexString(UUID.randomUUID().getMostSignificantBits()));
+	}
+	
+	/**
+	 * Constructs a new SequentialEventIdGenerator with the given node prefix.
+	 * Use a prefix that identifies the node, such as a host name, when IDs
+	 * from several nodes are compared.
+	 * @param prefix The node prefix of every ID rendered by this generator.
+	 */
+	public SequentialEventIdGenerator(String prefix){
+		this.prefix = prefix;
+		this.sequence = new AtomicLong();
+	}
+	
+	/**
+	 * Returns the node prefix of the IDs rendered by this generator.
+	 * @return The node prefix of this generator.
+	 */
+	public String getPrefix(){
+		return prefix;
+	}
+	
+	public long nextId(){
+		return sequence.incrementAndGet();
+	}
+	
+	public String toString(long id){
+		return prefix + "-" + Long.toHexString(id);
+	}
+}
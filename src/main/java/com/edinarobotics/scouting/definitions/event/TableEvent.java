@@ -0,0 +1,21 @@
+package com.edinarobotics.scouting.definitions.event;
+
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+
+/**
+ * This interface is implemented by {@link Event} classes that concern
+ * a single database table, such as
+ * {@link com.edinarobotics.scouting.definitions.database.events.DatabaseChangeEvent DatabaseChangeEvent}.
+ * <br/>
+ * Event listeners and monitors can restrict themselves to the TableEvents of some
+ * tables with {@link EventListener#tables()} and {@link EventMonitor#tables()}.
+ * Event firing classes use the table of a TableEvent to skip listeners of other tables.
+ */
+public interface TableEvent {
+	
+	/**
+	 * Returns the {@link TableReference} of the table concerned by this event.
+	 * @return The TableReference of the table concerned by this event.
+	 */
+	public TableReference getTargetTableReference();
+}
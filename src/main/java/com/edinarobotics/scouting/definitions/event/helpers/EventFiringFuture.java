@@ -1,6 +1,8 @@
 package com.edinarobotics.scouting.definitions.event.helpers;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
@@ -10,6 +12,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import com.edinarobotics.scouting.definitions.event.Cancellable;
 import com.edinarobotics.scouting.definitions.event.Event;
+import com.edinarobotics.scouting.definitions.event.EventBatch;
 import com.edinarobotics.scouting.definitions.event.Future;
 import com.edinarobotics.scouting.definitions.event.Result;
 
@@ -24,6 +27,7 @@ public class EventFiringFuture extends Future<Event>{
 	private boolean topCancel = false;
 	private Set<RegisteredEventMonitor> monitors;
 	private ExecutorService execServ;
+	private MonitorRingBuffer monitorRing;
 	
 	/**
 	 * Constructs a new EventFiringFuture for an Event
@@ -40,10 +44,34 @@ public class EventFiringFuture extends Future<Event>{
 	 * {@link #notifyMonitors(Result)}.
 	 */
 	public EventFiringFuture(String eventId, EventFiringTask eventTask, Set<RegisteredEventMonitor> monitors, ExecutorService execServ){
+		this(eventId, eventTask, monitors, execServ, null);
+	}
+	
+	/**
+	 * Constructs a new EventFiringFuture for an Event
+	 * with the given {@code eventId} and that was
+	 * fired through the given {@link EventFiringTask},
+	 * {@code eventTask} and that must notify {@code monitors}.
+	 * If {@code monitorRing} is not {@code null},
+	 * {@link #notifyMonitors(Result)} publishes the outcome to it
+	 * instead of notifying {@code monitors} itself.
+	 * @param eventId The String ID of the fired Event.
+	 * @param eventTask The EventFiringTask managing
+	 * the event firing process for the given Event.
+	 * @param monitors The event monitors to be notified
+	 * using {@link #notifyMonitors(Result)}.
+	 * @param execServ The {@link ExecutorService} used
+	 * to manage the event monitor threads when calling
+	 * {@link #notifyMonitors(Result)}.
+	 * @param monitorRing The {@link MonitorRingBuffer} delivering
+	 * the outcome to the monitors, or {@code null}.
+	 */
+	public EventFiringFuture(String eventId, EventFiringTask eventTask, Set<RegisteredEventMonitor> monitors, ExecutorService execServ, MonitorRingBuffer monitorRing){
 		super(eventId);
 		this.eventTask = eventTask;
 		this.monitors = monitors;
 		this.execServ = execServ;
+		this.monitorRing = monitorRing;
 	}
 	
 	/**
@@ -81,8 +109,17 @@ public class EventFiringFuture extends Future<Event>{
 	 */
 	public Event get() throws CancellationException, ExecutionException, InterruptedException {
 		Event toReturn = eventTask.get();
-		if(toReturn instanceof Cancellable && topCancel){
-			((Cancellable)toReturn).setCancelled(true);
+		if(topCancel){
+			if(toReturn instanceof Cancellable){
+				((Cancellable)toReturn).setCancelled(true);
+			}
+			else if(toReturn instanceof EventBatch){
+				for(Event element : (EventBatch<?>)toReturn){
+					if(element instanceof Cancellable){
+						((Cancellable)element).setCancelled(true);
+					}
+				}
+			}
 		}
 		return toReturn;
 	}
@@ -133,7 +170,8 @@ public class EventFiringFuture extends Future<Event>{
 	 * event firing process. This cancellation request,
 	 * if possible for the Event, will cancel the event
 	 * with the highest priority, overriding all event
-	 * handling methods.
+	 * handling methods. For an {@link EventBatch}, every
+	 * cancellable Event of the batch is cancelled.
 	 * @see Future#cancel(boolean)
 	 * @see Cancellable#setCancelled(boolean)
 	 * @see #cancel(boolean)
@@ -256,7 +294,14 @@ public class EventFiringFuture extends Future<Event>{
 	 * until {@link #get()} returns and will throw the same
 	 * exceptions as {@link #get()}.<br/>
 	 * This method should only be called <em>once</em>. It does
-	 * not automatically prevent multiple calls.
+	 * not automatically prevent multiple calls.<br/>
+	 * Every monitor accepting the Event is notified by a single
+	 * {@link MonitorDispatchTask}, one monitor after another. If no monitor
+	 * accepts the Event, no task is submitted and the returned future is
+	 * already complete.<br/>
+	 * If this EventFiringFuture has a {@link MonitorRingBuffer}, the outcome is
+	 * only published to the buffer and the returned future is already complete.
+	 * Exceptions thrown by monitors are then reported by the MonitorRingBuffer.
 	 * @param result The Result representing the outcome of the action
 	 * represented by the event for this EventFiringFuture.
 	 * @return A {@link MonitorNotifyFuture}, that can be used to
@@ -270,12 +315,22 @@ public class EventFiringFuture extends Future<Event>{
 	 */
 	public MonitorNotifyFuture notifyMonitors(Result result) throws CancellationException, ExecutionException, InterruptedException{
 		Event event = get();
-		Set<MonitorNotifyTask> tasks = new HashSet<MonitorNotifyTask>();
+		if(monitorRing != null){
+			//The monitor threads of the ring buffer deliver the outcome
+			monitorRing.publish(event, result);
+			return new MonitorNotifyFuture(event.getId(), Collections.<MonitorNotifyTask>emptySet());
+		}
+		List<RegisteredEventMonitor> matching = new ArrayList<RegisteredEventMonitor>();
 		for(RegisteredEventMonitor monitor : monitors){
-			MonitorNotifyTask notifyTask = new MonitorNotifyTask(monitor, event, result);
-			execServ.submit(notifyTask);
-			tasks.add(notifyTask);
+			if(monitor.matches(event)){
+				matching.add(monitor);
+			}
+		}
+		//One task notifies every matching monitor
+		MonitorDispatchTask dispatchTask = new MonitorDispatchTask(event, result, matching);
+		if(!matching.isEmpty()){
+			execServ.execute(dispatchTask);
 		}
-		return new MonitorNotifyFuture(event.getId(), tasks);
+		return new MonitorNotifyFuture(event.getId(), dispatchTask);
 	}
 }
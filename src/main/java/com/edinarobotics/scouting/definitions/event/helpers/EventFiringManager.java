@@ -1,20 +1,35 @@
 package com.edinarobotics.scouting.definitions.event.helpers;
 
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import com.edinarobotics.scouting.definitions.event.Event;
+import com.edinarobotics.scouting.definitions.event.EventBatch;
 import com.edinarobotics.scouting.definitions.event.EventListener;
 import com.edinarobotics.scouting.definitions.event.EventMonitor;
 import com.edinarobotics.scouting.definitions.event.EventRegistrar;
 import com.edinarobotics.scouting.definitions.event.Listener;
 import com.edinarobotics.scouting.definitions.event.ListenerPriority;
+import com.edinarobotics.scouting.definitions.event.TableEvent;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
 
 /**
  * This class provides a full implementation of an {@link EventRegistrar}
@@ -24,10 +39,20 @@ import com.edinarobotics.scouting.definitions.event.ListenerPriority;
  */
 public class EventFiringManager implements EventRegistrar{
 	private Map<ListenerPriority, Set<RegisteredEventListener>> listeners;
+	private Map<TableReference, Map<ListenerPriority, Set<RegisteredEventListener>>> tableListeners;
 	private Set<RegisteredEventMonitor> monitors;
+	private volatile Set<RegisteredEventMonitor> monitorSnapshot;
 	private ExecutorService execServ;
 	private Lock listenerLock;
 	private Lock monitorLock;
+	private volatile boolean parallelListeners;
+	private volatile MonitorRingBuffer monitorRing;
+	private volatile long latencyBudgetNanos;
+	private ListenerWatchdog watchdog;
+	private volatile boolean metricsExported;
+	private volatile long listenerTimeoutNanos;
+	private volatile int failureThreshold;
+	private volatile long disableNanos;
 	
 	/**
 	 * Creates a new EventFiringManager with no registered events.
@@ -37,9 +62,12 @@ public class EventFiringManager implements EventRegistrar{
 		//Internal map used to store registered listeners
 		listeners = new HashMap<ListenerPriority, Set<RegisteredEventListener>>();
 		monitors = new HashSet<RegisteredEventMonitor>();
+		monitorSnapshot = Collections.emptySet();
 		for(ListenerPriority priority : ListenerPriority.values()){
 			listeners.put(priority, new HashSet<RegisteredEventListener>());
 		}
+		//Listeners restricted to some tables are indexed by table
+		tableListeners = new HashMap<TableReference, Map<ListenerPriority, Set<RegisteredEventListener>>>();
 		listenerLock = new ReentrantLock();
 		monitorLock = new ReentrantLock();
 	}
@@ -52,17 +80,40 @@ public class EventFiringManager implements EventRegistrar{
 	 * @param listener The {@link Listener} to be registered for events.
 	 */
 	public void registerEvents(Listener listener){
+		Set<RegisteredEventListener> added = new HashSet<RegisteredEventListener>();
 		listenerLock.lock();
 		try{
 			for(Method method : listener.getClass().getMethods()){
 				if(method.isAnnotationPresent(EventListener.class)){
 					RegisteredEventListener newListener = new RegisteredEventListener(method, listener);
-					listeners.get(newListener.getPriority()).add(newListener);
+					newListener.getMetrics().setLatencyBudgetNanos(latencyBudgetNanos);
+					newListener.setDefaultTimeoutNanos(listenerTimeoutNanos);
+					newListener.getCircuitBreaker().configure(failureThreshold, disableNanos);
+					added.add(newListener);
+					if(newListener.getTables() == null){
+						listeners.get(newListener.getPriority()).add(newListener);
+					}
+					else{
+						for(TableReference table : newListener.getTables()){
+							Map<ListenerPriority, Set<RegisteredEventListener>> tableMap = tableListeners.get(table);
+							if(tableMap == null){
+								tableMap = new HashMap<ListenerPriority, Set<RegisteredEventListener>>();
+								for(ListenerPriority priority : ListenerPriority.values()){
+									tableMap.put(priority, new HashSet<RegisteredEventListener>());
+								}
+								tableListeners.put(table, tableMap);
+							}
+							tableMap.get(newListener.getPriority()).add(newListener);
+						}
+					}
 				}
 			}
 		}finally{
 			listenerLock.unlock();
 		}
+		if(metricsExported){
+			exportMetrics(added, true);
+		}
 		monitorLock.lock();
 		try{
 			for(Method method : listener.getClass().getMethods()){
@@ -71,6 +122,7 @@ public class EventFiringManager implements EventRegistrar{
 					monitors.add(newMonitor);
 				}
 			}
+			updateMonitorSnapshot();
 		}finally{
 			monitorLock.unlock();
 		}
@@ -84,6 +136,7 @@ public class EventFiringManager implements EventRegistrar{
 	 * @param listener The Listener to unregister from all events.
 	 */
 	public void unregisterListener(Listener listener){
+		Set<RegisteredEventListener> removed = new HashSet<RegisteredEventListener>();
 		listenerLock.lock();
 		try{
 			for(ListenerPriority priority : listeners.keySet()){
@@ -96,10 +149,33 @@ public class EventFiringManager implements EventRegistrar{
 					for(RegisteredEventListener regListener : toRemove){
 						listeners.get(priority).remove(regListener);
 					}
+					removed.addAll(toRemove);
+			}
+			Set<TableReference> emptyTables = new HashSet<TableReference>();
+			for(Map.Entry<TableReference, Map<ListenerPriority, Set<RegisteredEventListener>>> tableEntry : tableListeners.entrySet()){
+				boolean empty = true;
+				for(Set<RegisteredEventListener> tableSet : tableEntry.getValue().values()){
+					Iterator<RegisteredEventListener> iterator = tableSet.iterator();
+					while(iterator.hasNext()){
+						RegisteredEventListener regListener = iterator.next();
+						if(regListener.getListener() == listener){
+							iterator.remove();
+							removed.add(regListener);
+						}
+					}
+					empty = empty && tableSet.isEmpty();
+				}
+				if(empty){
+					emptyTables.add(tableEntry.getKey());
+				}
 			}
+			tableListeners.keySet().removeAll(emptyTables);
 		}finally{
 			listenerLock.unlock();
 		}
+		if(metricsExported){
+			exportMetrics(removed, false);
+		}
 		monitorLock.lock();
 		try{
 			Set<RegisteredEventMonitor> toRemove = new HashSet<RegisteredEventMonitor>();
@@ -111,9 +187,261 @@ public class EventFiringManager implements EventRegistrar{
 			for(RegisteredEventMonitor monitor : toRemove){
 				monitors.remove(monitor);
 			}
+			updateMonitorSnapshot();
+		}finally{
+			monitorLock.unlock();
+		}
+	}
+	
+	/**
+	 * Sets whether the event listeners of a single {@link ListenerPriority}
+	 * run in parallel. This mode is off by default.<br/>
+	 * When it is on, the listeners of one priority level are run at the same time
+	 * on the threads of this EventFiringManager and the next priority level starts
+	 * once all of them have returned, so priorities keep their meaning. Cancellation
+	 * states are restored for each failing listener separately. Turn this mode on
+	 * when listeners perform slow, independent work such as validation. Listeners of
+	 * the same priority must then be thread-safe with respect to each other.
+	 * @param parallelListeners {@code true} to run the listeners of a priority
+	 * level in parallel, {@code false} to run them one at a time.
+	 */
+	public void setParallelListeners(boolean parallelListeners){
+		this.parallelListeners = parallelListeners;
+	}
+	
+	/**
+	 * Indicates whether the event listeners of a single {@link ListenerPriority}
+	 * run in parallel.
+	 * @return {@code true} if listeners of a priority level run in parallel.
+	 * @see #setParallelListeners(boolean)
+	 */
+	public boolean isParallelListeners(){
+		return parallelListeners;
+	}
+	
+	/**
+	 * Sets the {@link MonitorRingBuffer} through which event monitors are notified.
+	 * By default no ring buffer is used and
+	 * {@link EventFiringFuture#notifyMonitors(com.edinarobotics.scouting.definitions.event.Result) EventFiringFuture.notifyMonitors}
+	 * notifies monitors with a task on the threads of this EventFiringManager.<br/>
+	 * With a ring buffer, every registered monitor has its own thread and
+	 * {@code notifyMonitors} only publishes the outcome to the buffer, so monitors
+	 * never slow down the thread that performs the action. A previous ring buffer is
+	 * closed; outcomes it has not delivered yet are discarded.
+	 * @param ring The MonitorRingBuffer to be used or {@code null} to notify monitors
+	 * with tasks again.
+	 */
+	public void setMonitorRingBuffer(MonitorRingBuffer ring){
+		MonitorRingBuffer previous;
+		monitorLock.lock();
+		try{
+			previous = monitorRing;
+			monitorRing = ring;
+			if(ring != null){
+				ring.setMonitors(monitorSnapshot);
+			}
 		}finally{
 			monitorLock.unlock();
 		}
+		if(previous != null && previous != ring){
+			previous.close();
+		}
+	}
+	
+	/**
+	 * Returns the {@link MonitorRingBuffer} through which event monitors are notified.
+	 * @return The MonitorRingBuffer of this EventFiringManager or {@code null}
+	 * if monitors are notified with tasks.
+	 * @see #setMonitorRingBuffer(MonitorRingBuffer)
+	 */
+	public MonitorRingBuffer getMonitorRingBuffer(){
+		return monitorRing;
+	}
+	
+	/**
+	 * Returns the {@link ListenerMetrics} of every registered event listener method.
+	 * The returned List is a snapshot of the registered listeners, but the
+	 * ListenerMetrics objects keep counting the invocations of their listeners.
+	 * @return A List containing the ListenerMetrics of each registered
+	 * {@link EventListener} method.
+	 */
+	public List<ListenerMetrics> getListenerMetrics(){
+		List<ListenerMetrics> metricsList = new ArrayList<ListenerMetrics>();
+		for(RegisteredEventListener regListener : getAllListeners()){
+			metricsList.add(regListener.getMetrics());
+		}
+		return metricsList;
+	}
+	
+	/**
+	 * Sets the latency budget of every event listener method. This budget
+	 * is off by default.<br/>
+	 * Listener invocations taking longer than the budget are counted by
+	 * {@link ListenerMetrics#getSlowInvocationCount()}. While a budget is set,
+	 * a watchdog thread also logs a warning with {@link java.util.logging}
+	 * as soon as a running listener exceeds it, so that a stuck plugin can be
+	 * found before its invocation returns.
+	 * @param millis The latency budget in milliseconds or {@code 0} to turn off
+	 * the budget and the watchdog.
+	 * @throws IllegalArgumentException If {@code millis} is negative.
+	 */
+	public void setLatencyBudget(long millis){
+		if(millis < 0){
+			throw new IllegalArgumentException("Latency budget must not be negative.");
+		}
+		long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+		listenerLock.lock();
+		try{
+			latencyBudgetNanos = nanos;
+			for(RegisteredEventListener regListener : getAllListeners()){
+				regListener.getMetrics().setLatencyBudgetNanos(nanos);
+			}
+			if(watchdog != null){
+				watchdog.close();
+				watchdog = null;
+			}
+			if(nanos > 0){
+				watchdog = new ListenerWatchdog(this, nanos);
+			}
+		}finally{
+			listenerLock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the latency budget of every event listener method.
+	 * @return The latency budget in milliseconds or {@code 0} if there is none.
+	 * @see #setLatencyBudget(long)
+	 */
+	public long getLatencyBudget(){
+		return TimeUnit.NANOSECONDS.toMillis(latencyBudgetNanos);
+	}
+	
+	/**
+	 * Sets whether the {@link ListenerMetrics} of the registered event listener
+	 * methods are exported through JMX. This is off by default.<br/>
+	 * When it is on, the metrics of every listener method are registered with the
+	 * platform MBeanServer under the name
+	 * {@code com.edinarobotics.scouting:type=EventListener,name=<listener name>@<id>}
+	 * and unregistered when their listener is unregistered, so they can be read
+	 * with a tool such as JConsole.
+	 * @param metricsExported {@code true} to export the metrics through JMX,
+	 * {@code false} to remove them from the MBeanServer.
+	 * @see ListenerMetricsMXBean
+	 */
+	public void setMetricsExported(boolean metricsExported){
+		listenerLock.lock();
+		try{
+			if(this.metricsExported != metricsExported){
+				this.metricsExported = metricsExported;
+				exportMetrics(getAllListeners(), metricsExported);
+			}
+		}finally{
+			listenerLock.unlock();
+		}
+	}
+	
+	/**
+	 * Indicates whether the {@link ListenerMetrics} of the registered
+	 * event listener methods are exported through JMX.
+	 * @return {@code true} if the metrics are exported.
+	 * @see #setMetricsExported(boolean)
+	 */
+	public boolean isMetricsExported(){
+		return metricsExported;
+	}
+	
+	/**
+	 * Sets the default timeout of the event listener methods. There is no
+	 * default timeout by default.<br/>
+	 * The timeout applies to listeners whose {@link EventListener#timeout()}
+	 * is {@code 0}. Listeners with a timeout run on the threads of this
+	 * EventFiringManager; once a listener exceeds its timeout it is interrupted,
+	 * a {@link ListenerTimeoutException} is reported by
+	 * {@link EventFiringFuture#getExceptions()} and the next listener is invoked,
+	 * so a listener blocking on I/O cannot stall every later event. A listener with a
+	 * timeout changes a copy of the cancellation states of the event, which is applied
+	 * only if it returns in time. A listener that ignores the interruption keeps running,
+	 * but its changes to a {@link com.edinarobotics.scouting.definitions.event.CancellableEvent CancellableEvent}
+	 * are discarded.
+	 * @param millis The default timeout in milliseconds or {@code 0} for none.
+	 * @throws IllegalArgumentException If {@code millis} is negative.
+	 * @see #setCircuitBreaker(int, long)
+	 */
+	public void setListenerTimeout(long millis){
+		if(millis < 0){
+			throw new IllegalArgumentException("Listener timeout must not be negative.");
+		}
+		long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+		listenerLock.lock();
+		try{
+			listenerTimeoutNanos = nanos;
+			for(RegisteredEventListener regListener : getAllListeners()){
+				regListener.setDefaultTimeoutNanos(nanos);
+			}
+		}finally{
+			listenerLock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the default timeout of the event listener methods.
+	 * @return The default timeout in milliseconds or {@code 0} if there is none.
+	 * @see #setListenerTimeout(long)
+	 */
+	public long getListenerTimeout(){
+		return TimeUnit.NANOSECONDS.toMillis(listenerTimeoutNanos);
+	}
+	
+	/**
+	 * Configures the {@link ListenerCircuitBreaker} of every event listener method.
+	 * The circuit breakers are off by default.<br/>
+	 * When they are on, a listener that throws an exception or exceeds its timeout
+	 * {@code failureThreshold} times in a row is disabled for {@code disableMillis}
+	 * milliseconds. A disabled listener is skipped and a {@link ListenerDisabledException}
+	 * is reported by {@link EventFiringFuture#getExceptions()} instead. Afterwards one
+	 * trial invocation decides whether the listener is enabled again or disabled for
+	 * another {@code disableMillis} milliseconds. This keeps one misbehaving plugin
+	 * from slowing down every event.
+	 * @param failureThreshold The number of consecutive failures disabling a listener,
+	 * or {@code 0} to turn the circuit breakers off and enable every listener.
+	 * @param disableMillis The time in milliseconds for which a listener is disabled.
+	 * @throws IllegalArgumentException If {@code failureThreshold} or
+	 * {@code disableMillis} is negative.
+	 */
+	public void setCircuitBreaker(int failureThreshold, long disableMillis){
+		if(failureThreshold < 0 || disableMillis < 0){
+			throw new IllegalArgumentException("Circuit breaker settings must not be negative.");
+		}
+		long nanos = TimeUnit.MILLISECONDS.toNanos(disableMillis);
+		listenerLock.lock();
+		try{
+			this.failureThreshold = failureThreshold;
+			disableNanos = nanos;
+			for(RegisteredEventListener regListener : getAllListeners()){
+				regListener.getCircuitBreaker().configure(failureThreshold, nanos);
+			}
+		}finally{
+			listenerLock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of consecutive failures disabling an event listener method.
+	 * @return The failure threshold or {@code 0} if the circuit breakers are off.
+	 * @see #setCircuitBreaker(int, long)
+	 */
+	public int getFailureThreshold(){
+		return failureThreshold;
+	}
+	
+	/**
+	 * Returns the time for which a failing event listener method is disabled.
+	 * @return The disable time in milliseconds.
+	 * @see #setCircuitBreaker(int, long)
+	 */
+	public long getDisableTime(){
+		return TimeUnit.NANOSECONDS.toMillis(disableNanos);
 	}
 	
 	/**
@@ -121,37 +449,79 @@ public class EventFiringManager implements EventRegistrar{
 	 * registered Event handling methods. This method will correctly
 	 * route any any type of Event even if no handling methods exist for
 	 * an Event. It will distribute the Event to all listening methods
-	 * in the correct order and will respect their priorities and
-	 * {@code ignoreCancelled} values. The event firing process
-	 * is handled in a new thread.
+	 * in the correct order and will respect their priorities,
+	 * {@code ignoreCancelled}, {@code tables} and {@code timeout} values. The event
+	 * firing process is handled in a new thread.
 	 * @param event The Event to be distributed to all relevant
 	 * event handling methods.
 	 * @return An {@link EventFiringFuture} providing access
 	 * to the results of this event firing process.
 	 * @see EventListener#priority()
 	 * @see EventListener#ignoreCancelled()
+	 * @see EventListener#tables()
+	 * @see EventListener#timeout()
 	 */
 	public EventFiringFuture fireEvent(Event event){
-		EventFiringTask fireTask = new EventFiringTask(event, getListenerMapCopy());
+		EventFiringTask fireTask = new EventFiringTask(event, getListenerMapCopy(event), parallelListeners ? execServ : null, execServ);
 		execServ.submit(fireTask);
-		return new EventFiringFuture(event.getId(), fireTask, getMonitorSetCopy(), execServ);
+		return new EventFiringFuture(event.getId(), fireTask, getMonitorSetCopy(), execServ, monitorRing);
 	}
 	
 	/**
-	 * Returns a copy of the internal registered listener map, {@code listeners}.
+	 * Fires the given events together as one {@link EventBatch}.
+	 * The batch is distributed by a single event firing process instead
+	 * of one process per Event. Listeners that accept an EventBatch are
+	 * invoked once with all of their matching events, other listeners are
+	 * invoked once per matching Event. Each Event still passes through the
+	 * listeners in priority order and keeps its own cancellation state, so
+	 * the outcome for each Event is the same as if it had been fired with
+	 * {@link #fireEvent(Event)}.<br/>
+	 * Use this method when many events are fired at once, such as one
+	 * {@link com.edinarobotics.scouting.definitions.database.events.DatabaseChangeEvent DatabaseChangeEvent}
+	 * for every Change of a large Transaction.
+	 * @param events The events to be fired, in order.
+	 * @return An {@link EventFiringFuture} providing access to the results of
+	 * this event firing process. Its {@link EventFiringFuture#get() get()} method
+	 * returns the EventBatch, whose events can be checked for cancellation, and its
+	 * {@link EventFiringFuture#notifyMonitors(com.edinarobotics.scouting.definitions.event.Result) notifyMonitors}
+	 * method notifies monitors of every Event of the batch.
+	 * @see EventBatch
+	 */
+	public EventFiringFuture fireEvents(List<? extends Event> events){
+		return fireEvent(new EventBatch<Event>(events));
+	}
+	
+	/**
+	 * Returns a copy of the internal registered listener map, {@code listeners},
+	 * together with the listeners restricted to the tables of {@code event}.
+	 * Listeners restricted to other tables are left out, so they are never invoked.
 	 * This map is not connected to {@code listeners} and is suitable to pass
 	 * to other objects (such as an {@link EventFiringTask}).
-	 * @return A copy of the registered listener map, {@code listeners}.
+	 * @param event The Event that is to be fired.
+	 * @return A copy of the registered listener map, {@code listeners}, including
+	 * the listeners interested in {@code event}.
 	 */
-	private Map<ListenerPriority, Set<RegisteredEventListener>> getListenerMapCopy(){
+	private Map<ListenerPriority, Set<RegisteredEventListener>> getListenerMapCopy(Event event){
+		Set<TableReference> targets = getTargetTables(event);
 		Map<ListenerPriority, Set<RegisteredEventListener>> newMap = new HashMap<ListenerPriority, Set<RegisteredEventListener>>();
-		for(ListenerPriority priority : ListenerPriority.values()){
-			newMap.put(priority, new HashSet<RegisteredEventListener>());
-		}
 		listenerLock.lock();
 		try{
 			for(ListenerPriority priority : ListenerPriority.values()){
-				newMap.put(priority, new HashSet<RegisteredEventListener>(listeners.get(priority)));
+				Set<RegisteredEventListener> prioritySet = new HashSet<RegisteredEventListener>(listeners.get(priority));
+				if(targets == null){
+					for(Map<ListenerPriority, Set<RegisteredEventListener>> tableMap : tableListeners.values()){
+						prioritySet.addAll(tableMap.get(priority));
+					}
+				}
+				else{
+					for(TableReference table : targets){
+						Map<ListenerPriority, Set<RegisteredEventListener>> tableMap = tableListeners.get(table);
+						if(tableMap != null){
+							prioritySet.addAll(tableMap.get(priority));
+						}
+					}
+				}
+				newMap.put(priority, prioritySet);
 			}
 		}finally{
 			listenerLock.unlock();
@@ -159,18 +529,105 @@ public class EventFiringManager implements EventRegistrar{
 		return newMap;
 	}
 	
+	/**
+	 * Returns every registered event listener method, including
+	 * the listeners restricted to some tables.
+	 * @return A new Set containing every RegisteredEventListener.
+	 */
+	private Set<RegisteredEventListener> getAllListeners(){
+		Set<RegisteredEventListener> all = new HashSet<RegisteredEventListener>();
+		listenerLock.lock();
+		try{
+			for(Set<RegisteredEventListener> prioritySet : listeners.values()){
+				all.addAll(prioritySet);
+			}
+			for(Map<ListenerPriority, Set<RegisteredEventListener>> tableMap : tableListeners.values()){
+				for(Set<RegisteredEventListener> prioritySet : tableMap.values()){
+					all.addAll(prioritySet);
+				}
+			}
+		}finally{
+			listenerLock.unlock();
+		}
+		return all;
+	}
+	
+	/**
+	 * Registers or unregisters the {@link ListenerMetrics} of event listener
+	 * methods with the platform MBeanServer. Metrics that are already
+	 * registered or already unregistered are skipped.
+	 * @param regListeners The RegisteredEventListener objects whose metrics are
+	 * to be registered or unregistered.
+	 * @param export {@code true} to register the metrics, {@code false} to
+	 * unregister them.
+	 */
+	private static void exportMetrics(Collection<RegisteredEventListener> regListeners, boolean export){
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for(RegisteredEventListener regListener : regListeners){
+			try{
+				ObjectName name = new ObjectName("com.edinarobotics.scouting:type=EventListener,name="+
+						ObjectName.quote(regListener.getMetrics().getListenerName()+"@"+Integer.toHexString(System.identityHashCode(regListener))));
+				if(export){
+					server.registerMBean(regListener.getMetrics(), name);
+				}
+				else{
+					server.unregisterMBean(name);
+				}
+			}catch(InstanceAlreadyExistsException e){
+				//Already exported
+			}catch(InstanceNotFoundException e){
+				//Already removed
+			}catch(JMException e){
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the tables concerned by an Event.
+	 * @param event The Event or {@link EventBatch}.
+	 * @return The tables of {@code event} if it is a {@link TableEvent}, or of
+	 * every Event of the batch if they all are TableEvents. Otherwise {@code null},
+	 * meaning that listeners of every table must be considered.
+	 */
+	private static Set<TableReference> getTargetTables(Event event){
+		if(event instanceof TableEvent){
+			return Collections.singleton(((TableEvent)event).getTargetTableReference());
+		}
+		if(!(event instanceof EventBatch)){
+			return null;
+		}
+		Set<TableReference> targets = new HashSet<TableReference>();
+		for(Event element : (EventBatch<?>)event){
+			if(!(element instanceof TableEvent)){
+				return null;
+			}
+			targets.add(((TableEvent)element).getTargetTableReference());
+		}
+		return targets;
+	}
+	
 	/**
 	 * Returns a copy of the internal registered monitor set, {@code monitors}.
 	 * This set is not connected to {@code monitors} and is suitable to pass
-	 * to other objects (such as an {@link MonitorNotifyTask}).
-	 * @return A copy of the registered monitor map, {@code monitors}.
+	 * to other objects (such as an {@link MonitorDispatchTask}).
+	 * The copy is only made when monitors are registered or unregistered,
+	 * not for every fired Event.
+	 * @return An unmodifiable copy of the registered monitor set, {@code monitors}.
 	 */
 	private Set<RegisteredEventMonitor> getMonitorSetCopy(){
-		monitorLock.lock();
-		try{
-			return new HashSet<RegisteredEventMonitor>(monitors);
-		}finally{
-			monitorLock.unlock();
+		return monitorSnapshot;
+	}
+	
+	/**
+	 * Replaces the copy returned by {@link #getMonitorSetCopy()} after
+	 * {@code monitors} changed. The caller must hold {@code monitorLock}.
+	 */
+	private void updateMonitorSnapshot(){
+		monitorSnapshot = Collections.unmodifiableSet(new HashSet<RegisteredEventMonitor>(monitors));
+		MonitorRingBuffer ring = monitorRing;
+		if(ring != null){
+			ring.setMonitors(monitorSnapshot);
 		}
 	}
 }
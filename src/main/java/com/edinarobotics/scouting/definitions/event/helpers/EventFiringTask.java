@@ -1,13 +1,25 @@
 package com.edinarobotics.scouting.definitions.event.helpers;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import com.edinarobotics.scouting.definitions.event.Event;
+import com.edinarobotics.scouting.definitions.event.EventBatch;
 import com.edinarobotics.scouting.definitions.event.Cancellable;
+import com.edinarobotics.scouting.definitions.event.CancellationScope;
 import com.edinarobotics.scouting.definitions.event.ListenerPriority;
 
 /**
@@ -21,6 +33,9 @@ public class EventFiringTask implements Runnable{
 	private ListenerPriority[] priorityOrder;
 	private Set<Exception> exceptions;
 	private CountDownLatch latch;
+	private ExecutorService parallelExecutor;
+	private ExecutorService timeoutExecutor;
+	private Set<RegisteredEventListener> disabledListeners;
 	
 	/**
 	 * Create a new EventFiringTask that will fire the given {@code event} to
@@ -30,12 +45,53 @@ public class EventFiringTask implements Runnable{
 	 * is to be distributed.
 	 */
 	public EventFiringTask(Event event, Map<ListenerPriority, Set<RegisteredEventListener>> listeners){
+		this(event, listeners, null);
+	}
+	
+	/**
+	 * Create a new EventFiringTask that will fire the given {@code event} to
+	 * the {@link RegisteredEventListener} objects in {@code listeners}.
+	 * If {@code parallelExecutor} is not {@code null}, the listeners of each
+	 * priority level are run in parallel on it.
+	 * @param event The Event to be fired.
+	 * @param listeners The RegisteredEventListener objects to which the event
+	 * is to be distributed.
+	 * @param parallelExecutor The {@link ExecutorService} running the listeners
+	 * of a priority level in parallel, or {@code null} to run every listener
+	 * on the event firing thread, one at a time.
+	 */
+	public EventFiringTask(Event event, Map<ListenerPriority, Set<RegisteredEventListener>> listeners, ExecutorService parallelExecutor){
+		this(event, listeners, parallelExecutor, null);
+	}
+	
+	/**
+	 * Create a new EventFiringTask that will fire the given {@code event} to
+	 * the {@link RegisteredEventListener} objects in {@code listeners}.
+	 * If {@code parallelExecutor} is not {@code null}, the listeners of each
+	 * priority level are run in parallel on it. If {@code timeoutExecutor} is
+	 * not {@code null}, listeners with a timeout are run on it and abandoned
+	 * once their timeout has passed.
+	 * @param event The Event to be fired.
+	 * @param listeners The RegisteredEventListener objects to which the event
+	 * is to be distributed.
+	 * @param parallelExecutor The {@link ExecutorService} running the listeners
+	 * of a priority level in parallel, or {@code null} to run every listener
+	 * on the event firing thread, one at a time.
+	 * @param timeoutExecutor The ExecutorService running listeners with a timeout,
+	 * or {@code null} to run them without enforcing their timeouts.
+	 * @see RegisteredEventListener#getTimeoutNanos()
+	 */
+	public EventFiringTask(Event event, Map<ListenerPriority, Set<RegisteredEventListener>> listeners, ExecutorService parallelExecutor, ExecutorService timeoutExecutor){
 		this.event = event;
 		this.listeners = listeners;
+		this.parallelExecutor = parallelExecutor;
+		this.timeoutExecutor = timeoutExecutor;
 		//Sort ListenerPriority values by their call order (declared order)
 		priorityOrder = ListenerPriority.values();
 		Arrays.sort(priorityOrder);
-		exceptions = new HashSet<Exception>();
+		//Listeners running in parallel may add exceptions concurrently
+		exceptions = Collections.newSetFromMap(new ConcurrentHashMap<Exception, Boolean>());
+		disabledListeners = Collections.newSetFromMap(new ConcurrentHashMap<RegisteredEventListener, Boolean>());
 		latch = new CountDownLatch(1);
 	}
 	
@@ -47,33 +103,287 @@ public class EventFiringTask implements Runnable{
 	 * to a RegisteredEventListener, the Exception is stored for retrieval using
 	 * {@link #getExceptions()} and the cancellation state of the Event is restored
 	 * to its value prior to invoking the failed RegisteredEventListener. The
-	 * Exception will not rise from this method.
+	 * Exception will not rise from this method.<br/>
+	 * If the event is an {@link EventBatch}, batch listeners receive the whole
+	 * batch at once and other listeners receive each Event of the batch in turn.
+	 * Each priority level finishes with every Event of the batch before the next
+	 * level begins. Cancellation states are restored per Event: an exception for
+	 * one Event only restores that Event, while an exception from a batch listener
+	 * restores every Event of the batch.<br/>
+	 * If this task has a parallel executor, the listeners of each priority level
+	 * run in parallel and the next level begins only after every listener of the
+	 * current level has returned. Each listener of the level runs in its own
+	 * {@link CancellationScope}: it sees the cancellation states from the start of
+	 * the level and its changes are applied at the end of the level, only if it did not
+	 * throw. The changes of one Event made by a failing listener are discarded without
+	 * affecting the changes of the other listeners. Listeners of one level are never
+	 * called in a defined order, so if two listeners of a level change the same Event,
+	 * either change may win. A level whose events are {@link Cancellable} but do not
+	 * extend {@link com.edinarobotics.scouting.definitions.event.CancellableEvent CancellableEvent}
+	 * cannot be isolated and runs one listener at a time.<br/>
+	 * A listener with a timeout that has not returned in time is interrupted and
+	 * a {@link ListenerTimeoutException} is stored; the event firing process does
+	 * not wait for it. Listeners with a timeout change a copy of the cancellation
+	 * states that is only applied if they return in time, so a listener that was
+	 * given up on cannot change the Event afterwards. A listener disabled by its {@link ListenerCircuitBreaker} is
+	 * skipped and a {@link ListenerDisabledException} is stored instead.
 	 */
 	public void run(){
 		try{
 			for(ListenerPriority priority : priorityOrder){
 				//Use each priority in the correct order
-				for(RegisteredEventListener listener : listeners.get(priority)){
-					//Call each RegisteredEventListener at each priority
-					boolean cancelled = false;
-					if(event instanceof Cancellable){
-						//If event is cancellable, store its cancellation state
-						//In case of exception, cancellation will be rolled back
-						cancelled = ((Cancellable)event).isCancelled();
+				Set<RegisteredEventListener> level = listeners.get(priority);
+				if(parallelExecutor != null && level.size() > 1 && CancellationScope.canIsolate(event)){
+					deliverParallel(level);
+				}
+				else{
+					for(RegisteredEventListener listener : level){
+						//Call each RegisteredEventListener at each priority
+						deliver(listener);
 					}
+				}
+			}
+		}finally{
+			latch.countDown();
+		}
+	}
+	
+	/**
+	 * Passes the event to one RegisteredEventListener. Single-event listeners
+	 * receive each Event of an {@link EventBatch} separately.
+	 * @param listener The RegisteredEventListener to be invoked.
+	 */
+	private void deliver(RegisteredEventListener listener){
+		if(event instanceof EventBatch && !listener.isBatchListener()){
+			//Single-event listeners see each Event of a batch separately
+			for(Event element : (EventBatch<?>)event){
+				fireEvent(listener, element);
+			}
+		}
+		else{
+			fireEvent(listener, event);
+		}
+	}
+	
+	/**
+	 * Passes the event to every RegisteredEventListener of a priority level
+	 * in parallel and waits for all of them to return.
+	 * The last listener runs on the calling thread. Listeners that the parallel
+	 * executor rejects also run on the calling thread. Every listener runs in
+	 * its own {@link CancellationScope}, which is committed once all listeners
+	 * of the level have returned.
+	 * @param level The RegisteredEventListener objects of one priority level.
+	 */
+	private void deliverParallel(Set<RegisteredEventListener> level){
+		final CountDownLatch barrier = new CountDownLatch(level.size() - 1);
+		List<CancellationScope> scopes = new ArrayList<CancellationScope>(level.size());
+		Iterator<RegisteredEventListener> iterator = level.iterator();
+		for(int i = 0; i < level.size() - 1; i++){
+			final RegisteredEventListener listener = iterator.next();
+			//Scopes are created here so they all start from the same states
+			final CancellationScope scope = new CancellationScope(event);
+			scopes.add(scope);
+			Runnable delivery = new Runnable(){
+				public void run(){
+					CancellationScope previous = scope.enter();
 					try{
-						listener.fireEvent(event);
-					}catch(Exception e){
-						exceptions.add(e);
-						if(event instanceof Cancellable){
-							//An exception occurred, roll back the cancellation
-							((Cancellable)event).setCancelled(cancelled);
-						}
+						deliver(listener);
+					}finally{
+						CancellationScope.exit(previous);
+						barrier.countDown();
 					}
 				}
+			};
+			try{
+				parallelExecutor.execute(delivery);
+			}catch(RejectedExecutionException e){
+				delivery.run();
 			}
+		}
+		CancellationScope scope = new CancellationScope(event);
+		scopes.add(scope);
+		CancellationScope previous = scope.enter();
+		try{
+			deliver(iterator.next());
 		}finally{
-			latch.countDown();
+			CancellationScope.exit(previous);
+		}
+		boolean interrupted = false;
+		while(true){
+			try{
+				//Later priority levels must not start before this level is done
+				barrier.await();
+				break;
+			}catch(InterruptedException e){
+				interrupted = true;
+			}
+		}
+		if(interrupted){
+			Thread.currentThread().interrupt();
+		}
+		//Failed listeners rolled back their own scopes, so only successful changes remain
+		for(CancellationScope listenerScope : scopes){
+			listenerScope.commit();
+		}
+	}
+	
+	/**
+	 * Passes an Event to a single RegisteredEventListener, rolling back
+	 * the cancellation state of the Event (or of every Event of an
+	 * {@link EventBatch}) if the listener throws an Exception or exceeds
+	 * its timeout. Failures are recorded by the {@link ListenerCircuitBreaker}
+	 * of the listener.
+	 * @param listener The RegisteredEventListener to be invoked.
+	 * @param target The Event or EventBatch to be passed to {@code listener}.
+	 */
+	private void fireEvent(RegisteredEventListener listener, Event target){
+		if(!listener.isInterested(target)){
+			//Events the listener never sees must not count for its circuit breaker
+			return;
+		}
+		ListenerCircuitBreaker breaker = listener.getCircuitBreaker();
+		if(!breaker.allowInvocation()){
+			//Report a disabled listener once per fired Event
+			if(disabledListeners.add(listener)){
+				exceptions.add(new ListenerDisabledException("Event listener "+listener.getMetrics().getListenerName()+
+						" is disabled after repeated failures."));
+			}
+			return;
+		}
+		//If events are cancellable, store their cancellation states
+		//In case of exception, cancellation will be rolled back
+		boolean[] cancelled = getCancellation(target);
+		try{
+			long timeout = listener.getTimeoutNanos();
+			if(timeout > 0 && timeoutExecutor != null){
+				fireEventTimed(listener, target, timeout);
+			}
+			else{
+				listener.fireEvent(target);
+			}
+			breaker.recordSuccess();
+		}catch(Exception e){
+			exceptions.add(e);
+			//An exception occurred, roll back the cancellation
+			setCancellation(target, cancelled);
+			if(breaker.recordFailure() && disabledListeners.add(listener)){
+				exceptions.add(new ListenerDisabledException("Event listener "+listener.getMetrics().getListenerName()+
+						" was disabled after "+breaker.getConsecutiveFailures()+" consecutive failures.", e));
+			}
+		}
+	}
+	
+	/**
+	 * Passes an Event to a single RegisteredEventListener on the timeout executor
+	 * and waits at most {@code timeout} nanoseconds for it to return.<br/>
+	 * The listener runs against a copy of the cancellation states, held by a
+	 * {@link CancellationScope}. The copy is applied to the Event only if the
+	 * listener returns in time without an exception. A listener that has not
+	 * returned in time is interrupted and left running, but the changes it makes
+	 * from then on only reach its discarded copy. Events that are {@link Cancellable}
+	 * but do not extend {@link com.edinarobotics.scouting.definitions.event.CancellableEvent CancellableEvent}
+	 * cannot be copied; their changes are rolled back on timeout but a late change
+	 * by the abandoned listener still reaches them.<br/>
+	 * If the timeout executor rejects the listener, it runs on the calling thread
+	 * without a timeout.
+	 * @param listener The RegisteredEventListener to be invoked.
+	 * @param target The Event or EventBatch to be passed to {@code listener}.
+	 * @param timeout The timeout of {@code listener} in nanoseconds.
+	 * @throws ListenerTimeoutException If {@code listener} did not return in time.
+	 * @throws Exception If {@code listener} threw an Exception.
+	 */
+	private void fireEventTimed(final RegisteredEventListener listener, final Event target, long timeout) throws Exception{
+		//Created on the calling thread, so the copy starts from the states it sees
+		final CancellationScope scope = CancellationScope.canIsolate(target) ? new CancellationScope(target) : null;
+		Future<?> result;
+		try{
+			result = timeoutExecutor.submit(new Callable<Object>(){
+				public Object call() throws Exception{
+					if(scope == null){
+						listener.fireEvent(target);
+						return null;
+					}
+					CancellationScope previous = scope.enter();
+					try{
+						listener.fireEvent(target);
+					}finally{
+						CancellationScope.exit(previous);
+					}
+					return null;
+				}
+			});
+		}catch(RejectedExecutionException e){
+			listener.fireEvent(target);
+			return;
+		}
+		long deadline = System.nanoTime() + timeout;
+		boolean interrupted = false;
+		try{
+			while(true){
+				try{
+					result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if(scope != null){
+						scope.commit();
+					}
+					return;
+				}catch(InterruptedException e){
+					//The timeout already bounds the wait
+					interrupted = true;
+				}catch(TimeoutException e){
+					result.cancel(true);
+					throw new ListenerTimeoutException("Event listener "+listener.getMetrics().getListenerName()+
+							" did not return within "+TimeUnit.NANOSECONDS.toMillis(timeout)+" ms.");
+				}catch(ExecutionException e){
+					if(e.getCause() instanceof Exception){
+						throw (Exception)e.getCause();
+					}
+					throw (Error)e.getCause();
+				}
+			}
+		}finally{
+			if(interrupted){
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the cancellation states of an Event or of the events of
+	 * an {@link EventBatch}.
+	 * @param target The Event or EventBatch.
+	 * @return The cancellation state of each Event in order. Events that are
+	 * not {@link Cancellable} have a state of {@code false}.
+	 */
+	private static boolean[] getCancellation(Event target){
+		if(target instanceof EventBatch){
+			EventBatch<?> batch = (EventBatch<?>)target;
+			boolean[] states = new boolean[batch.size()];
+			for(int i = 0; i < states.length; i++){
+				Event element = batch.get(i);
+				states[i] = element instanceof Cancellable && ((Cancellable)element).isCancelled();
+			}
+			return states;
+		}
+		return new boolean[]{target instanceof Cancellable && ((Cancellable)target).isCancelled()};
+	}
+	
+	/**
+	 * Restores cancellation states returned by {@link #getCancellation(Event)}.
+	 * @param target The Event or EventBatch.
+	 * @param states The cancellation states to be restored.
+	 */
+	private static void setCancellation(Event target, boolean[] states){
+		if(target instanceof EventBatch){
+			EventBatch<?> batch = (EventBatch<?>)target;
+			for(int i = 0; i < states.length; i++){
+				Event element = batch.get(i);
+				if(element instanceof Cancellable){
+					((Cancellable)element).setCancelled(states[i]);
+				}
+			}
+		}
+		else if(target instanceof Cancellable){
+			((Cancellable)target).setCancelled(states[0]);
 		}
 	}
 	
@@ -0,0 +1,143 @@
+package com.edinarobotics.scouting.definitions.event.helpers;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class isolates a misbehaving event listener method.
+ * Every {@link RegisteredEventListener} has one ListenerCircuitBreaker counting
+ * the consecutive invocations that threw an exception or exceeded their timeout.
+ * Once the count reaches the failure threshold, the breaker opens and the
+ * listener is disabled for the disable time: it is skipped and a
+ * {@link ListenerDisabledException} is reported instead.<br/>
+ * When the disable time has passed, a single trial invocation is let through.
+ * If it succeeds the breaker closes and the listener is enabled again,
+ * otherwise the listener is disabled for another disable time.<br/>
+ * A failure threshold of {@code 0} (the default) turns the breaker off.
+ * @see EventFiringManager#setCircuitBreaker(int, long)
+ */
+public class ListenerCircuitBreaker {
+	private volatile int failureThreshold;
+	private volatile long disableNanos;
+	private AtomicInteger consecutiveFailures;
+	private AtomicLong tripCount;
+	private AtomicBoolean trial;
+	private volatile boolean open;
+	private volatile long disabledUntil;
+	
+	/**
+	 * Constructs a new ListenerCircuitBreaker that is turned off.
+	 */
+	public ListenerCircuitBreaker(){
+		consecutiveFailures = new AtomicInteger();
+		tripCount = new AtomicLong();
+		trial = new AtomicBoolean();
+	}
+	
+	/**
+	 * Sets the failure threshold and the disable time of this ListenerCircuitBreaker.
+	 * @param failureThreshold The number of consecutive failures disabling the
+	 * listener, or {@code 0} to turn this breaker off.
+	 * @param disableNanos The time in nanoseconds for which the listener is disabled.
+	 */
+	void configure(int failureThreshold, long disableNanos){
+		this.disableNanos = disableNanos;
+		this.failureThreshold = failureThreshold;
+		if(failureThreshold == 0){
+			reset();
+		}
+	}
+	
+	/**
+	 * Returns the number of consecutive failures disabling the listener.
+	 * @return The failure threshold or {@code 0} if this breaker is turned off.
+	 */
+	public int getFailureThreshold(){
+		return failureThreshold;
+	}
+	
+	/**
+	 * Returns the number of consecutive invocations of the listener that failed.
+	 * @return The number of consecutive failures.
+	 */
+	public int getConsecutiveFailures(){
+		return consecutiveFailures.get();
+	}
+	
+	/**
+	 * Returns how often this ListenerCircuitBreaker has disabled the listener.
+	 * @return The number of times the breaker opened.
+	 */
+	public long getTripCount(){
+		return tripCount.get();
+	}
+	
+	/**
+	 * Indicates whether the listener is disabled. A disabled listener
+	 * whose disable time has passed is still disabled until its trial
+	 * invocation succeeds.
+	 * @return {@code true} if the breaker is open.
+	 */
+	public boolean isDisabled(){
+		return open;
+	}
+	
+	/**
+	 * Closes this ListenerCircuitBreaker, enabling the listener
+	 * and clearing its consecutive failures.
+	 */
+	public void reset(){
+		open = false;
+		consecutiveFailures.set(0);
+		trial.set(false);
+	}
+	
+	/**
+	 * Indicates whether the listener may be invoked. While the breaker is open
+	 * this method returns {@code true} once per disable time, for the trial
+	 * invocation.
+	 * @return {@code true} if the listener may be invoked, {@code false}
+	 * if it is disabled.
+	 */
+	boolean allowInvocation(){
+		if(!open){
+			return true;
+		}
+		if(System.nanoTime() - disabledUntil < 0){
+			return false;
+		}
+		//Only one trial invocation at a time
+		return trial.compareAndSet(false, true);
+	}
+	
+	/**
+	 * Records an invocation that returned normally within its timeout.
+	 */
+	void recordSuccess(){
+		//Avoid writing shared state on the common path
+		if(open || consecutiveFailures.get() != 0){
+			reset();
+		}
+	}
+	
+	/**
+	 * Records an invocation that threw an exception or exceeded its timeout.
+	 * @return {@code true} if this failure disabled the listener.
+	 */
+	boolean recordFailure(){
+		int threshold = failureThreshold;
+		if(threshold <= 0){
+			return false;
+		}
+		int failures = consecutiveFailures.incrementAndGet();
+		boolean failedTrial = trial.getAndSet(false);
+		if(failedTrial || (!open && failures >= threshold)){
+			disabledUntil = System.nanoTime() + disableNanos;
+			open = true;
+			tripCount.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+}
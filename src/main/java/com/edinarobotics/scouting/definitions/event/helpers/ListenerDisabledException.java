@@ -0,0 +1,63 @@
+package com.edinarobotics.scouting.definitions.event.helpers;
+
+/**
+ * This exception indicates that an event listener method was not
+ * invoked because its {@link ListenerCircuitBreaker} disabled it
+ * after repeated failures or timeouts.
+ * @see EventFiringManager#setCircuitBreaker(int, long)
+ */
+@SuppressWarnings("serial")
+public class ListenerDisabledException extends Exception{
+	
+	/**
+	 * Constructs a new {@link ListenerDisabledException} with
+	 * {@code null} as its detail message.
+	 */
+	public ListenerDisabledException(){
+		super();
+	}
+	
+	/**
+	 * Constructs a new {@link ListenerDisabledException} with
+	 * the specified detail message.
+	 * @param message The detail message, saved for later
+	 * retrieval by the {@link Throwable#getMessage()} method.
+	 */
+	public ListenerDisabledException(String message){
+		super(message);
+	}
+	
+	/**
+	 * Constructs a new {@link ListenerDisabledException} 
+	 * with the specified detail message and cause.
+	 * <br/><br/>
+	 * Note that the detail message associated with {@code cause}
+	 * is <em>not</em> automatically incorporated in this exception's
+	 * detail message.
+	 * @param message The detail message, saved for later
+	 * retrieval by the {@link Throwable#getMessage()} method.
+	 * @param cause The cause (which is saved for later retrieval
+	 * by the {@link Throwable#getCause()} method). A {@code null}
+	 * value is permitted, and indicates that the cause is nonexistant
+	 * or unknown.
+	 */
+	public ListenerDisabledException(String message, Throwable cause){
+		super(message, cause);
+	}
+	
+	/**
+	 * Constructs a new {@link ListenerDisabledException} with the
+	 * specified cause and a detail message of
+	 * {@code (cause==null ? null : cause.toString())}
+	 * (which typically contains the class and detail message of
+	 * {@code cause}). This constructor is useful for exceptions
+	 * that are little more than wrappers for other throwables.
+	 * @param cause The cause (which is saved for later retrieval
+	 * by the {@link Throwable#getCause()} method). A {@code null}
+	 * value is permitted and indicates that the cause is nonexistant
+	 * or unknown.
+	 */
+	public ListenerDisabledException(Throwable cause){
+		super(cause);
+	}
+}
@@ -0,0 +1,266 @@
+package com.edinarobotics.scouting.definitions.event.helpers;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import com.edinarobotics.scouting.definitions.event.ListenerPriority;
+
+/**
+ * This class records the invocations of a single event listener method.
+ * Every {@link RegisteredEventListener} has one ListenerMetrics object that
+ * counts its invocations, exceptions, cancelled events and slow invocations
+ * and keeps a histogram of its latencies.<br/>
+ * The histogram has {@value #BUCKETS} buckets. Bucket 0 counts invocations
+ * shorter than one microsecond, bucket {@code i} counts invocations of at least
+ * 2<sup>i-1</sup> and less than 2<sup>i</sup> microseconds, and the last bucket
+ * also counts all longer invocations.<br/>
+ * Recording an invocation only updates atomic counters and a concurrent set of
+ * the start times of the running invocations, so it is cheap and never blocks.
+ * @see EventFiringManager#getListenerMetrics()
+ */
+public class ListenerMetrics implements ListenerMetricsMXBean {
+	/**
+	 * The number of buckets of the latency histogram.
+	 */
+	public static final int BUCKETS = 32;
+	
+	private final String listenerName;
+	private final ListenerPriority priority;
+	private final AtomicLong invocations;
+	private final AtomicLong exceptions;
+	private final AtomicLong cancellations;
+	private final AtomicLong slowInvocations;
+	private final AtomicLong totalNanos;
+	private final AtomicLong maxNanos;
+	private final AtomicLongArray histogram;
+	private final ConcurrentSkipListSet<Long> running;
+	private volatile long latencyBudgetNanos;
+	
+	/**
+	 * Constructs a new ListenerMetrics object with all counters at zero.
+	 * @param listenerName The name of the event listener method.
+	 * @param priority The priority of the event listener method.
+	 */
+	public ListenerMetrics(String listenerName, ListenerPriority priority){
+		this.listenerName = listenerName;
+		this.priority = priority;
+		invocations = new AtomicLong();
+		exceptions = new AtomicLong();
+		cancellations = new AtomicLong();
+		slowInvocations = new AtomicLong();
+		totalNanos = new AtomicLong();
+		maxNanos = new AtomicLong();
+		histogram = new AtomicLongArray(BUCKETS);
+		running = new ConcurrentSkipListSet<Long>();
+	}
+	
+	/**
+	 * Returns the name of the event listener method, formed by the
+	 * name of its class, a {@code #} and the name of the method.
+	 * @return The name of the listener method.
+	 */
+	public String getListenerName(){
+		return listenerName;
+	}
+	
+	public String getPriority(){
+		return priority.name();
+	}
+	
+	/**
+	 * Returns the priority of the event listener method.
+	 * @return The ListenerPriority of the listener method.
+	 */
+	public ListenerPriority getListenerPriority(){
+		return priority;
+	}
+	
+	/**
+	 * Returns the latency budget of the event listener method. Invocations
+	 * taking longer are counted as slow.
+	 * @return The latency budget in nanoseconds or {@code 0} if there is none.
+	 */
+	public long getLatencyBudgetNanos(){
+		return latencyBudgetNanos;
+	}
+	
+	/**
+	 * Sets the latency budget of the event listener method.
+	 * @param latencyBudgetNanos The latency budget in nanoseconds or {@code 0}
+	 * for none.
+	 * @see EventFiringManager#setLatencyBudget(long)
+	 */
+	public void setLatencyBudgetNanos(long latencyBudgetNanos){
+		this.latencyBudgetNanos = latencyBudgetNanos;
+	}
+	
+	public long getInvocationCount(){
+		return invocations.get();
+	}
+	
+	public long getExceptionCount(){
+		return exceptions.get();
+	}
+	
+	public long getCancellationCount(){
+		return cancellations.get();
+	}
+	
+	public long getSlowInvocationCount(){
+		return slowInvocations.get();
+	}
+	
+	/**
+	 * Returns the fraction of invocations that cancelled an event.
+	 * @return The cancellation rate between {@code 0} and {@code 1}.
+	 */
+	public double getCancellationRate(){
+		long count = invocations.get();
+		return count == 0 ? 0 : (double) cancellations.get() / count;
+	}
+	
+	public double getMeanLatencyMicros(){
+		long count = invocations.get();
+		return count == 0 ? 0 : totalNanos.get() / 1000.0 / count;
+	}
+	
+	public long getMaxLatencyMicros(){
+		return maxNanos.get() / 1000;
+	}
+	
+	public long getLatency99thPercentileMicros(){
+		return getLatencyPercentileMicros(0.99);
+	}
+	
+	/**
+	 * Returns an upper bound of a percentile of the invocation durations,
+	 * taken from the latency histogram.
+	 * @param fraction The percentile as a fraction, such as {@code 0.5} for the median.
+	 * @return The upper bound of the histogram bucket containing the percentile
+	 * in microseconds, or {@code 0} if there have been no invocations.
+	 */
+	public long getLatencyPercentileMicros(double fraction){
+		long[] counts = getLatencyHistogram();
+		long total = 0;
+		for(long count : counts){
+			total += count;
+		}
+		if(total == 0){
+			return 0;
+		}
+		long rank = (long) Math.ceil(fraction * total);
+		long seen = 0;
+		for(int i = 0; i < counts.length; i++){
+			seen += counts[i];
+			if(seen >= rank){
+				return 1L << i;
+			}
+		}
+		return 1L << (counts.length - 1);
+	}
+	
+	/**
+	 * Returns a copy of the latency histogram.
+	 * @return An array of {@link #BUCKETS} invocation counts, one per bucket.
+	 */
+	public long[] getLatencyHistogram(){
+		long[] counts = new long[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++){
+			counts[i] = histogram.get(i);
+		}
+		return counts;
+	}
+	
+	/**
+	 * Indicates whether an invocation of the event listener method has been
+	 * running for longer than {@code nanos}. If several invocations are running
+	 * at once, the oldest one is checked, so later invocations cannot hide
+	 * a stuck one.
+	 * @param nanos The duration in nanoseconds.
+	 * @param now The current value of {@link System#nanoTime()}.
+	 * @return {@code true} if an invocation has been running for longer than {@code nanos}.
+	 */
+	public boolean isRunningLongerThan(long nanos, long now){
+		Long start = getOldestStartTime();
+		return start != null && now - start.longValue() > nanos;
+	}
+	
+	/**
+	 * Returns the start time of the oldest running invocation.
+	 * @return The value of {@link System#nanoTime()} when the oldest running
+	 * invocation started or {@code null} if no invocation is running.
+	 */
+	public Long getOldestStartTime(){
+		return running.ceiling(Long.MIN_VALUE);
+	}
+	
+	public void reset(){
+		invocations.set(0);
+		exceptions.set(0);
+		cancellations.set(0);
+		slowInvocations.set(0);
+		totalNanos.set(0);
+		maxNanos.set(0);
+		for(int i = 0; i < BUCKETS; i++){
+			histogram.set(i, 0);
+		}
+	}
+	
+	/**
+	 * Records the start of an invocation.
+	 * The start time identifies the invocation until it finishes, so an invocation
+	 * starting in the same nanosecond as a running one is moved to the next free
+	 * nanosecond.
+	 * @return The start time to be passed to {@link #finish(long, boolean, boolean)}.
+	 */
+	long start(){
+		long now = System.nanoTime();
+		while(!running.add(now)){
+			now++;
+		}
+		return now;
+	}
+	
+	/**
+	 * Records the end of an invocation.
+	 * @param start The start time returned by {@link #start()}.
+	 * @param failed {@code true} if the invocation threw an exception.
+	 * @param cancelled {@code true} if the invocation cancelled an event.
+	 * @return The duration of the invocation in nanoseconds.
+	 */
+	long finish(long start, boolean failed, boolean cancelled){
+		long duration = System.nanoTime() - start;
+		running.remove(start);
+		invocations.incrementAndGet();
+		if(failed){
+			exceptions.incrementAndGet();
+		}
+		if(cancelled){
+			cancellations.incrementAndGet();
+		}
+		long budget = latencyBudgetNanos;
+		if(budget > 0 && duration > budget){
+			slowInvocations.incrementAndGet();
+		}
+		totalNanos.addAndGet(duration);
+		long max = maxNanos.get();
+		while(duration > max && !maxNanos.compareAndSet(max, duration)){
+			max = maxNanos.get();
+		}
+		histogram.incrementAndGet(bucket(duration));
+		return duration;
+	}
+	
+	/**
+	 * Returns the histogram bucket of a duration.
+	 * @param nanos The duration in nanoseconds.
+	 * @return The index of the bucket counting {@code nanos}.
+	 */
+	private static int bucket(long nanos){
+		long micros = nanos / 1000;
+		if(micros <= 0){
+			return 0;
+		}
+		return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+	}
+}
@@ -0,0 +1,76 @@
+package com.edinarobotics.scouting.definitions.event.helpers;
+
+/**
+ * This interface is the JMX management interface of {@link ListenerMetrics}.
+ * Its attributes describe how often an event listener method was invoked,
+ * how long it took and how often it failed or cancelled events.
+ * @see EventFiringManager#setMetricsExported(boolean)
+ */
+public interface ListenerMetricsMXBean {
+	
+	/**
+	 * Returns the name of the event listener method.
+	 * @return The name of the listener method, see {@link ListenerMetrics#getListenerName()}.
+	 */
+	public String getListenerName();
+	
+	/**
+	 * Returns the priority of the event listener method.
+	 * @return The name of the {@link com.edinarobotics.scouting.definitions.event.ListenerPriority ListenerPriority}
+	 * of the listener method.
+	 */
+	public String getPriority();
+	
+	/**
+	 * Returns the number of invocations of the event listener method.
+	 * @return The number of invocations.
+	 */
+	public long getInvocationCount();
+	
+	/**
+	 * Returns the number of invocations that threw an exception.
+	 * @return The number of failed invocations.
+	 */
+	public long getExceptionCount();
+	
+	/**
+	 * Returns the number of invocations that cancelled an event.
+	 * @return The number of cancelling invocations.
+	 */
+	public long getCancellationCount();
+	
+	/**
+	 * Returns the number of invocations that took longer than the latency budget.
+	 * @return The number of slow invocations.
+	 */
+	public long getSlowInvocationCount();
+	
+	/**
+	 * Returns the mean duration of an invocation.
+	 * @return The mean latency in microseconds.
+	 */
+	public double getMeanLatencyMicros();
+	
+	/**
+	 * Returns the longest duration of an invocation.
+	 * @return The maximum latency in microseconds.
+	 */
+	public long getMaxLatencyMicros();
+	
+	/**
+	 * Returns an upper bound of the 99th percentile of the invocation durations.
+	 * @return The 99th percentile latency in microseconds.
+	 */
+	public long getLatency99thPercentileMicros();
+	
+	/**
+	 * Returns the latency histogram of the event listener method.
+	 * @return The histogram, see {@link ListenerMetrics#getLatencyHistogram()}.
+	 */
+	public long[] getLatencyHistogram();
+	
+	/**
+	 * Resets every counter and the histogram to zero.
+	 */
+	public void reset();
+}
@@ -0,0 +1,86 @@
+package com.edinarobotics.scouting.definitions.event.helpers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class watches the event listeners of an {@link EventFiringManager}
+ * for invocations that exceed a latency budget.
+ * It checks the {@link ListenerMetrics} of every listener on its own daemon
+ * thread and logs a warning, once per invocation, when a listener has been
+ * running for longer than the budget. Only the oldest running invocation of each
+ * listener is checked; the next one is checked once it has finished. Warnings are logged with
+ * {@link java.util.logging} under the name of the EventFiringManager class.
+ * @see EventFiringManager#setLatencyBudget(long)
+ */
+class ListenerWatchdog implements Runnable{
+	private static final Logger LOGGER = Logger.getLogger(EventFiringManager.class.getName());
+	
+	private EventFiringManager manager;
+	private long budgetNanos;
+	private Map<ListenerMetrics, Long> warned;
+	private ScheduledExecutorService scheduler;
+	
+	/**
+	 * Constructs and starts a new ListenerWatchdog.
+	 * The listeners are checked four times per latency budget,
+	 * but at most once per millisecond.
+	 * @param manager The EventFiringManager whose listeners are watched.
+	 * @param budgetNanos The latency budget in nanoseconds.
+	 */
+	ListenerWatchdog(EventFiringManager manager, long budgetNanos){
+		this.manager = manager;
+		this.budgetNanos = budgetNanos;
+		warned = new HashMap<ListenerMetrics, Long>();
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory(){
+			public Thread newThread(Runnable runnable){
+				Thread thread = new Thread(runnable, "listener-watchdog");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), budgetNanos / 4);
+		scheduler.scheduleWithFixedDelay(this, period, period, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Checks every listener once. Only the watchdog thread calls this method.
+	 */
+	public void run(){
+		try{
+			long now = System.nanoTime();
+			List<ListenerMetrics> metricsList = manager.getListenerMetrics();
+			//Forget listeners that were unregistered
+			warned.keySet().retainAll(metricsList);
+			for(ListenerMetrics metrics : metricsList){
+				Long start = metrics.getOldestStartTime();
+				if(start != null && now - start.longValue() > budgetNanos){
+					Long warnedStart = warned.get(metrics);
+					if(!start.equals(warnedStart)){
+						warned.put(metrics, start);
+						LOGGER.log(Level.WARNING, "Event listener "+metrics.getListenerName()+" has been running for "+
+								TimeUnit.NANOSECONDS.toMillis(now - start.longValue())+" ms, exceeding its budget of "+
+								TimeUnit.NANOSECONDS.toMillis(budgetNanos)+" ms.");
+					}
+				}
+			}
+		}catch(RuntimeException e){
+			//Never let an exception end the scheduled checks
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Stops this ListenerWatchdog.
+	 */
+	void close(){
+		scheduler.shutdownNow();
+	}
+}
@@ -0,0 +1,148 @@
+package com.edinarobotics.scouting.definitions.event.helpers;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import com.edinarobotics.scouting.definitions.event.Event;
+import com.edinarobotics.scouting.definitions.event.EventBatch;
+import com.edinarobotics.scouting.definitions.event.Result;
+
+/**
+ * This Runnable notifies every {@link RegisteredEventMonitor} of the outcome of
+ * an {@link Event} (or of every Event of an
+ * {@link com.edinarobotics.scouting.definitions.event.EventBatch EventBatch})
+ * in a single task.<br/>
+ * Unlike a {@link MonitorNotifyTask} per monitor, one MonitorDispatchTask shares
+ * a single completion latch among all of its monitors and only allocates a
+ * collection for exceptions once a monitor actually throws one. Monitors are
+ * notified one after another on the thread running this task.
+ */
+public class MonitorDispatchTask implements Runnable{
+	private Event event;
+	private Result result;
+	private RegisteredEventMonitor[] monitors;
+	private volatile Set<Exception> exceptions;
+	private CountDownLatch latch;
+	
+	/**
+	 * Creates a new MonitorDispatchTask that will notify the given
+	 * {@code monitors} that the given {@code event} has completed with
+	 * a status indicated by {@code result}.
+	 * @param event The Event to be passed to the monitors.
+	 * @param result The {@link Result} of the action represented
+	 * by the given {@link Event}.
+	 * @param monitors The {@link RegisteredEventMonitor} objects to be
+	 * notified of the outcome of the Event.
+	 */
+	public MonitorDispatchTask(Event event, Result result, Collection<RegisteredEventMonitor> monitors){
+		this.event = event;
+		this.result = result;
+		this.monitors = monitors.toArray(new RegisteredEventMonitor[monitors.size()]);
+		latch = new CountDownLatch(this.monitors.length == 0 ? 0 : 1);
+	}
+	
+	/**
+	 * This method is called by the notifying thread to notify every
+	 * monitor of the outcome of the Event, in turn.
+	 * If an exception occurs while calling an event monitoring method,
+	 * the exception is stored for retrieval by the {@link #getExceptions()}
+	 * method and the remaining monitors are still notified. Monitors that do not
+	 * accept batches are notified of each Event of a batch separately. The exception
+	 * will not rise from this method.
+	 * @see RegisteredEventMonitor#notifyMonitor(Event, Result)
+	 */
+	public void run(){
+		try{
+			for(RegisteredEventMonitor monitor : monitors){
+				if(event instanceof EventBatch && !monitor.isBatchMonitor()){
+					//A failure for one Event must not hide the other events
+					for(Event element : (EventBatch<?>)event){
+						deliver(monitor, element, RegisteredEventMonitor.getResult(element, result));
+					}
+				}
+				else{
+					deliver(monitor, event, result);
+				}
+			}
+		}finally{
+			latch.countDown();
+		}
+	}
+	
+	/**
+	 * Notifies a single monitor, storing any exception it throws.
+	 * @param monitor The monitor to be notified.
+	 * @param target The Event or EventBatch to be passed to {@code monitor}.
+	 * @param targetResult The Result to be passed to {@code monitor}.
+	 */
+	private void deliver(RegisteredEventMonitor monitor, Event target, Result targetResult){
+		try{
+			monitor.notifyMonitor(target, targetResult);
+		}catch(Exception e){
+			addException(e);
+		}
+	}
+	
+	/**
+	 * Returns the number of monitors notified by this task.
+	 * @return The number of monitors.
+	 */
+	public int getMonitorCount(){
+		return monitors.length;
+	}
+	
+	/**
+	 * Waits for the completion of the {@link #run()} method.
+	 * This method will block until {@link #run()} returns and
+	 * can be used as a join to the monitor notification process.
+	 * If this task has no monitors, this method returns immediately.
+	 * @throws InterruptedException If the calling thread
+	 * was interrupted while waiting for the {@link #run()}
+	 * method to complete.
+	 */
+	public void join() throws InterruptedException{
+		latch.await();
+	}
+	
+	/**
+	 * Indicates whether the {@link #run()} method has completed.
+	 * If this method returns {@code true} calls to {@link #join()}
+	 * will return immediately.
+	 * @return {@code true} if the {@link #run()} method has
+	 * finished or if this task has no monitors, {@code false} otherwise.
+	 */
+	public boolean isDone(){
+		return latch.getCount() == 0;
+	}
+	
+	/**
+	 * Returns an unmodifiable {@link Set} containing any exceptions
+	 * that were thrown by the event monitoring methods.
+	 * This method does not block and results are available (and may change)
+	 * during the monitor notification process.
+	 * @return A Set containing the exceptions thrown by the event monitoring
+	 * methods.
+	 * @see #run()
+	 */
+	public Set<Exception> getExceptions(){
+		Set<Exception> current = exceptions;
+		if(current == null){
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(current);
+	}
+	
+	/**
+	 * Stores an exception thrown by an event monitoring method,
+	 * creating the exception Set on first use.
+	 * @param exception The exception to be stored.
+	 */
+	private void addException(Exception exception){
+		if(exceptions == null){
+			exceptions = Collections.newSetFromMap(new ConcurrentHashMap<Exception, Boolean>());
+		}
+		exceptions.add(exception);
+	}
+}
@@ -17,6 +17,7 @@ import com.edinarobotics.scouting.definitions.event.Result;
  */
 public class MonitorNotifyFuture extends Future<Void>{
 	private Set<MonitorNotifyTask> notifyTasks;
+	private MonitorDispatchTask dispatchTask;
 	
 	/**
 	 * Constructs a MonitorNotifyFuture for an
@@ -34,6 +35,23 @@ public class MonitorNotifyFuture extends Future<Void>{
 		this.notifyTasks = notifyTasks;
 	}
 	
+	/**
+	 * Constructs a MonitorNotifyFuture for an
+	 * {@link com.edinarobotics.scouting.definitions.event.Event Event}
+	 * with the given {@code eventId} that is notifying registered
+	 * event monitors with a single {@link MonitorDispatchTask},
+	 * {@code dispatchTask}.
+	 * @param eventId The String ID of the Event whose monitors
+	 * are to be notified.
+	 * @param dispatchTask The MonitorDispatchTask that is notifying
+	 * the registered event monitors.
+	 */
+	public MonitorNotifyFuture(String eventId, MonitorDispatchTask dispatchTask){
+		super(eventId);
+		this.notifyTasks = Collections.emptySet();
+		this.dispatchTask = dispatchTask;
+	}
+	
 	/**
 	 * Waits for the completion of the monitor notification process,
 	 * then returns {@code null}. This method can be used as a 
@@ -49,6 +67,9 @@ public class MonitorNotifyFuture extends Future<Void>{
 		for(MonitorNotifyTask notifyTask : notifyTasks){
 			notifyTask.join();
 		}
+		if(dispatchTask != null){
+			dispatchTask.join();
+		}
 		return null;
 	}
 	
@@ -95,7 +116,7 @@ public class MonitorNotifyFuture extends Future<Void>{
 				return false;
 			}
 		}
-		return true;
+		return dispatchTask == null || dispatchTask.isDone();
 	}
 
 	/**
@@ -134,6 +155,9 @@ public class MonitorNotifyFuture extends Future<Void>{
 	 * @see MonitorNotifyTask#getExceptions()
 	 */
 	public Set<Exception> getExceptions(){
+		if(notifyTasks.isEmpty() && dispatchTask != null){
+			return dispatchTask.getExceptions();
+		}
 		Set<Exception> exceptions = new HashSet<Exception>();
 		for(MonitorNotifyTask notifyTask : notifyTasks){
 			for(Exception exception: notifyTask.getExceptions()){
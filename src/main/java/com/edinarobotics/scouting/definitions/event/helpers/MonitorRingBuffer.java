@@ -0,0 +1,450 @@
+package com.edinarobotics.scouting.definitions.event.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import com.edinarobotics.scouting.definitions.event.Event;
+import com.edinarobotics.scouting.definitions.event.EventBatch;
+import com.edinarobotics.scouting.definitions.event.Result;
+
+/**
+ * This class delivers the outcomes of events to {@link RegisteredEventMonitor} objects
+ * through a preallocated ring buffer, in the style of the LMAX Disruptor.
+ * <br/>
+ * Publishing an event claims the next slot of the buffer with a single atomic
+ * operation, stores the Event and its {@link Result} in the slot and marks the slot
+ * as published. Every monitor has its own thread that follows the published slots
+ * with its own sequence number, so a slow monitor never delays another one.
+ * The slots are reused, so publishing allocates no objects.<br/>
+ * A slot can only be reused once every monitor has passed it. When the slowest
+ * monitor is a whole buffer behind, the {@link OverflowPolicy} decides whether
+ * new events are dropped, sampled or wait for free space. The {@link WaitStrategy}
+ * decides how monitor threads wait for new events.<br/>
+ * Exceptions thrown by monitors are counted rather than collected, see
+ * {@link #getErrorCount()} and {@link #getLastException()}.
+ * @see EventFiringManager#setMonitorRingBuffer(MonitorRingBuffer)
+ */
+public class MonitorRingBuffer {
+	/**
+	 * The default number of slots of a MonitorRingBuffer.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	/**
+	 * The default sample rate of the {@link OverflowPolicy#SAMPLE} policy.
+	 */
+	public static final int DEFAULT_SAMPLE_RATE = 10;
+	
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 200;
+	private static final long SLEEP_NANOS = 100000;
+	private static final long BLOCK_TIMEOUT_MILLIS = 10;
+	
+	private final Slot[] slots;
+	private final AtomicLongArray published;
+	private final int mask;
+	private final AtomicLong cursor;
+	private final WaitStrategy waitStrategy;
+	private final OverflowPolicy overflowPolicy;
+	private final int sampleRate;
+	private final AtomicLong sampleCounter;
+	private final AtomicLong dropped;
+	private final AtomicInteger waitingConsumers;
+	private final Object signal;
+	private volatile Consumer[] consumers;
+	private volatile boolean closed;
+	
+	/**
+	 * Constructs a new MonitorRingBuffer with {@link #DEFAULT_CAPACITY} slots,
+	 * the {@link WaitStrategy#SLEEPING} wait strategy and the
+	 * {@link OverflowPolicy#DROP} overflow policy.
+	 */
+	public MonitorRingBuffer(){
+		this(DEFAULT_CAPACITY, WaitStrategy.SLEEPING, OverflowPolicy.DROP);
+	}
+	
+	/**
+	 * Constructs a new MonitorRingBuffer using {@link #DEFAULT_SAMPLE_RATE}.
+	 * @param capacity The number of slots, a power of two.
+	 * @param waitStrategy The WaitStrategy of the monitor threads.
+	 * @param overflowPolicy The OverflowPolicy applied when the buffer is full.
+	 * @throws IllegalArgumentException If {@code capacity} is not a positive
+	 * power of two.
+	 */
+	public MonitorRingBuffer(int capacity, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy){
+		this(capacity, waitStrategy, overflowPolicy, DEFAULT_SAMPLE_RATE);
+	}
+	
+	/**
+	 * Constructs a new MonitorRingBuffer.
+	 * @param capacity The number of slots, a power of two.
+	 * @param waitStrategy The WaitStrategy of the monitor threads.
+	 * @param overflowPolicy The OverflowPolicy applied when the buffer is full.
+	 * @param sampleRate Only every {@code sampleRate}-th event is published while the
+	 * buffer is more than half full if {@code overflowPolicy} is {@link OverflowPolicy#SAMPLE}.
+	 * @throws IllegalArgumentException If {@code capacity} is not a positive
+	 * power of two or {@code sampleRate} is not positive.
+	 */
+	public MonitorRingBuffer(int capacity, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy, int sampleRate){
+		if(capacity < 1 || (capacity & (capacity - 1)) != 0){
+			throw new IllegalArgumentException("The capacity of a monitor ring buffer must be a power of two.");
+		}
+		if(sampleRate < 1){
+			throw new IllegalArgumentException("The sample rate of a monitor ring buffer must be positive.");
+		}
+		slots = new Slot[capacity];
+		for(int i = 0; i < capacity; i++){
+			slots[i] = new Slot();
+		}
+		published = new AtomicLongArray(capacity);
+		for(int i = 0; i < capacity; i++){
+			published.set(i, -1);
+		}
+		mask = capacity - 1;
+		cursor = new AtomicLong(-1);
+		this.waitStrategy = waitStrategy;
+		this.overflowPolicy = overflowPolicy;
+		this.sampleRate = sampleRate;
+		sampleCounter = new AtomicLong();
+		dropped = new AtomicLong();
+		waitingConsumers = new AtomicInteger();
+		signal = new Object();
+		consumers = new Consumer[0];
+	}
+	
+	/**
+	 * Returns the number of slots of this MonitorRingBuffer.
+	 * @return The capacity of this buffer.
+	 */
+	public int getCapacity(){
+		return slots.length;
+	}
+	
+	/**
+	 * Returns the WaitStrategy of the monitor threads.
+	 * @return The WaitStrategy of this buffer.
+	 */
+	public WaitStrategy getWaitStrategy(){
+		return waitStrategy;
+	}
+	
+	/**
+	 * Returns the OverflowPolicy applied when this buffer is full.
+	 * @return The OverflowPolicy of this buffer.
+	 */
+	public OverflowPolicy getOverflowPolicy(){
+		return overflowPolicy;
+	}
+	
+	/**
+	 * Returns the number of events published to this buffer.
+	 * @return The number of published events.
+	 */
+	public long getPublishedCount(){
+		return cursor.get() + 1;
+	}
+	
+	/**
+	 * Returns the number of events that were dropped or skipped by sampling
+	 * because the buffer was full.
+	 * @return The number of dropped events.
+	 */
+	public long getDroppedCount(){
+		return dropped.get();
+	}
+	
+	/**
+	 * Returns the number of published events that the slowest monitor
+	 * has not processed yet.
+	 * @return The backlog of this buffer.
+	 */
+	public long getBacklog(){
+		long current = cursor.get();
+		return current - getMinimumSequence(current);
+	}
+	
+	/**
+	 * Returns the number of exceptions thrown by the current monitors of this buffer.
+	 * @return The number of monitor exceptions.
+	 */
+	public long getErrorCount(){
+		long errors = 0;
+		for(Consumer consumer : consumers){
+			errors += consumer.errors;
+		}
+		return errors;
+	}
+	
+	/**
+	 * Returns the last exception thrown by one of the monitors of this buffer.
+	 * If several monitors have thrown exceptions, the exception of the monitor
+	 * registered last is returned.
+	 * @return An exception thrown by a monitor or {@code null} if no monitor
+	 * has thrown an exception.
+	 */
+	public Exception getLastException(){
+		Exception last = null;
+		for(Consumer consumer : consumers){
+			if(consumer.lastException != null){
+				last = consumer.lastException;
+			}
+		}
+		return last;
+	}
+	
+	/**
+	 * Publishes the outcome of an Event to every monitor of this buffer.
+	 * This method does not wait for the monitors, and does not allocate objects.
+	 * When the buffer is full, the {@link OverflowPolicy} of this buffer applies.
+	 * @param event The Event (or {@link EventBatch}) whose outcome is published.
+	 * @param result The {@link Result} of the action represented by {@code event}.
+	 * @return {@code true} if the event was published, {@code false} if it was
+	 * dropped, sampled out or this buffer is closed.
+	 */
+	public boolean publish(Event event, Result result){
+		if(closed){
+			return false;
+		}
+		while(true){
+			long current = cursor.get();
+			long next = current + 1;
+			long minimum = getMinimumSequence(current);
+			if(next - minimum > slots.length){
+				//The slowest monitor has not freed the slot yet
+				if(overflowPolicy != OverflowPolicy.BLOCK){
+					dropped.incrementAndGet();
+					return false;
+				}
+				if(closed){
+					return false;
+				}
+				LockSupport.parkNanos(SLEEP_NANOS);
+				continue;
+			}
+			if(overflowPolicy == OverflowPolicy.SAMPLE && 2 * (next - minimum) > slots.length &&
+					sampleCounter.incrementAndGet() % sampleRate != 0){
+				dropped.incrementAndGet();
+				return false;
+			}
+			if(cursor.compareAndSet(current, next)){
+				int index = (int)(next & mask);
+				Slot slot = slots[index];
+				slot.event = event;
+				slot.result = result;
+				//The volatile write makes the slot contents visible to the monitors
+				published.set(index, next);
+				if(waitStrategy == WaitStrategy.BLOCKING && waitingConsumers.get() > 0){
+					synchronized(signal){
+						signal.notifyAll();
+					}
+				}
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Replaces the monitors of this buffer. Monitors that are not in {@code monitors}
+	 * any more are stopped. New monitors get their own thread and only receive events
+	 * published after this call.
+	 * @param monitors The RegisteredEventMonitor objects to be notified.
+	 */
+	public synchronized void setMonitors(Set<RegisteredEventMonitor> monitors){
+		if(closed){
+			return;
+		}
+		List<Consumer> kept = new ArrayList<Consumer>();
+		for(Consumer consumer : consumers){
+			if(monitors.contains(consumer.monitor)){
+				kept.add(consumer);
+			}
+			else{
+				consumer.stop();
+			}
+		}
+		for(RegisteredEventMonitor monitor : monitors){
+			boolean present = false;
+			for(Consumer consumer : kept){
+				if(consumer.monitor == monitor){
+					present = true;
+					break;
+				}
+			}
+			if(!present){
+				Consumer consumer = new Consumer(monitor, cursor.get());
+				kept.add(consumer);
+				consumer.start();
+			}
+		}
+		consumers = kept.toArray(new Consumer[kept.size()]);
+	}
+	
+	/**
+	 * Stops every monitor thread of this buffer. Events that have not been
+	 * delivered yet are discarded and further events are not published.
+	 */
+	public synchronized void close(){
+		closed = true;
+		for(Consumer consumer : consumers){
+			consumer.stop();
+		}
+		consumers = new Consumer[0];
+	}
+	
+	/**
+	 * Returns the sequence number of the last event processed by the slowest monitor.
+	 * @param current The sequence number of the last published event, returned if
+	 * there are no monitors.
+	 * @return The smallest sequence number of the monitors of this buffer.
+	 */
+	private long getMinimumSequence(long current){
+		long minimum = current;
+		for(Consumer consumer : consumers){
+			long sequence = consumer.sequence;
+			if(sequence < minimum){
+				minimum = sequence;
+			}
+		}
+		return minimum;
+	}
+	
+	/**
+	 * A preallocated slot of the ring buffer.
+	 */
+	private static final class Slot {
+		Event event;
+		Result result;
+	}
+	
+	/**
+	 * A monitor thread following the published slots with its own sequence number.
+	 */
+	private final class Consumer implements Runnable {
+		final RegisteredEventMonitor monitor;
+		volatile long sequence;
+		volatile long errors;
+		volatile Exception lastException;
+		private volatile boolean running;
+		private Thread thread;
+		
+		/**
+		 * Constructs a new Consumer.
+		 * @param monitor The monitor to be notified.
+		 * @param sequence The sequence number of the last event the monitor
+		 * should not receive.
+		 */
+		Consumer(RegisteredEventMonitor monitor, long sequence){
+			this.monitor = monitor;
+			this.sequence = sequence;
+			this.running = true;
+		}
+		
+		/**
+		 * Starts the monitor thread.
+		 */
+		void start(){
+			thread = new Thread(this, "Event monitor "+monitor.getListener().getClass().getName());
+			thread.setDaemon(true);
+			thread.start();
+		}
+		
+		/**
+		 * Stops the monitor thread after its current event.
+		 */
+		void stop(){
+			running = false;
+			thread.interrupt();
+		}
+		
+		public void run(){
+			long next = sequence + 1;
+			int idle = 0;
+			while(running){
+				int index = (int)(next & mask);
+				if(published.get(index) != next){
+					idle = waitForEvent(index, next, idle);
+					continue;
+				}
+				Slot slot = slots[index];
+				Event event = slot.event;
+				Result result = slot.result;
+				if(monitor.matches(event)){
+					deliver(event, result);
+				}
+				//Only now may the producer reuse the slot
+				sequence = next;
+				next++;
+				idle = 0;
+			}
+		}
+		
+		/**
+		 * Notifies the monitor of an event, counting any exception it throws.
+		 * Monitors that do not accept batches are notified of each Event of a
+		 * batch separately.
+		 * @param event The Event or EventBatch.
+		 * @param result The Result of the action represented by {@code event}.
+		 */
+		private void deliver(Event event, Result result){
+			if(event instanceof EventBatch && !monitor.isBatchMonitor()){
+				for(Event element : (EventBatch<?>)event){
+					deliver(element, RegisteredEventMonitor.getResult(element, result));
+				}
+				return;
+			}
+			try{
+				monitor.notifyMonitor(event, result);
+			}catch(Exception e){
+				//Only the monitor thread writes these fields
+				errors++;
+				lastException = e;
+			}
+		}
+		
+		/**
+		 * Waits for the slot {@code index} to be published with sequence number
+		 * {@code next} according to the {@link WaitStrategy} of the buffer.
+		 * @param index The index of the slot.
+		 * @param next The sequence number the monitor is waiting for.
+		 * @param idle The number of unsuccessful checks so far.
+		 * @return The number of unsuccessful checks including this one, limited
+		 * to the point where the wait strategy stops changing.
+		 */
+		private int waitForEvent(int index, long next, int idle){
+			switch(waitStrategy){
+			case BUSY_SPIN:
+				break;
+			case YIELDING:
+				Thread.yield();
+				break;
+			case SLEEPING:
+				if(idle >= YIELD_TRIES){
+					LockSupport.parkNanos(SLEEP_NANOS);
+				}
+				else if(idle >= SPIN_TRIES){
+					Thread.yield();
+				}
+				break;
+			case BLOCKING:
+				waitingConsumers.incrementAndGet();
+				try{
+					synchronized(signal){
+						if(running && published.get(index) != next){
+							signal.wait(BLOCK_TIMEOUT_MILLIS);
+						}
+					}
+				}catch(InterruptedException e){
+					//Interrupted by stop(), the loop checks running.
+				}finally{
+					waitingConsumers.decrementAndGet();
+				}
+				break;
+			}
+			return idle < YIELD_TRIES ? idle + 1 : idle;
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.edinarobotics.scouting.definitions.event.helpers;
+
+/**
+ * The values in this enum decide what a {@link MonitorRingBuffer} does
+ * with an event when its slowest monitor has fallen too far behind.
+ */
+public enum OverflowPolicy {
+	
+	/**
+	 * Events published to a full buffer are dropped and counted by
+	 * {@link MonitorRingBuffer#getDroppedCount()}. Publishing never waits.
+	 */
+	DROP,
+	
+	/**
+	 * Publishing waits until the slowest monitor frees a slot. No event is
+	 * lost, but a slow monitor can slow down the thread that publishes.
+	 */
+	BLOCK,
+	
+	/**
+	 * Once the buffer is half full, only every n-th event is published, where n is
+	 * the sample rate of the buffer. Events published to a full buffer are dropped.
+	 * Monitors keep seeing a sample of the events while they catch up.
+	 */
+	SAMPLE
+}
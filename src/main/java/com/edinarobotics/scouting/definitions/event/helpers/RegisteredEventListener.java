@@ -2,11 +2,24 @@ package com.edinarobotics.scouting.definitions.event.helpers;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import com.edinarobotics.scouting.definitions.event.Cancellable;
 import com.edinarobotics.scouting.definitions.event.Event;
+import com.edinarobotics.scouting.definitions.event.EventBatch;
 import com.edinarobotics.scouting.definitions.event.EventListener;
 import com.edinarobotics.scouting.definitions.event.Listener;
 import com.edinarobotics.scouting.definitions.event.ListenerPriority;
+import com.edinarobotics.scouting.definitions.event.TableEvent;
+import com.edinarobotics.scouting.definitions.database.references.InvalidReferenceException;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
 
 /**
  * This class handles the reflection tasks of calling an
@@ -14,14 +27,26 @@ import com.edinarobotics.scouting.definitions.event.ListenerPriority;
  * It examines the arguments of handling methods and
  * examines their EventListener annotations.
  * It provides methods to invoke these methods
- * and to provide events to them for processing.
+ * and to provide events to them for processing.<br/>
+ * Handling methods that accept an {@link EventBatch} are batch listeners.
+ * They receive the events matching the type argument of their
+ * parameter in a single invocation per batch.<br/>
+ * Every invocation made by {@link #fireEvent(Event)} is recorded in the
+ * {@link ListenerMetrics} of this RegisteredEventListener and its failures
+ * are counted by its {@link ListenerCircuitBreaker}.
  */
 public class RegisteredEventListener {
 	private ListenerPriority priority;
 	private Listener listener;
 	private Class<? extends Event> eventType;
 	private boolean ignoresCancelled;
+	private boolean batchListener;
+	private Set<TableReference> tables;
 	private Method listenerMethod;
+	private ListenerMetrics metrics;
+	private ListenerCircuitBreaker circuitBreaker;
+	private long annotatedTimeoutNanos;
+	private volatile long timeoutNanos;
 	
 	/**
 	 * Constructs a new RegisteredEventListener surrounding the
@@ -30,8 +55,9 @@ public class RegisteredEventListener {
 	 * by this RegisteredEventListener.
 	 * @param listener The object on which {@code method} is to be called.
 	 * @throws IllegalArgumentException If {@code listenerMethod} does not have
-	 * an EventListener annotation or if {@code listenerMthod} does not accept
-	 * a single {@link Event} subclass object as a parameter.
+	 * an EventListener annotation, if {@code listenerMthod} does not accept
+	 * a single {@link Event} subclass object as a parameter or if the annotation
+	 * names an invalid table or has a negative timeout.
 	 */
 	public RegisteredEventListener(Method listenerMethod, Listener listener){
 		//Attempt to get the EventListener annotation on this method
@@ -43,6 +69,12 @@ public class RegisteredEventListener {
 		//Get priority and ignoreCancelled values from the annotation
 		priority = listenerAnnotation.priority();
 		ignoresCancelled = listenerAnnotation.ignoreCancelled();
+		tables = parseTables(listenerAnnotation.tables());
+		if(listenerAnnotation.timeout() < 0){
+			throw new IllegalArgumentException("Listener method timeout must not be negative.");
+		}
+		annotatedTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(listenerAnnotation.timeout());
+		timeoutNanos = annotatedTimeoutNanos;
 		//Get the parameter types of the method
 		Class<?>[] listenerMethodParameters = listenerMethod.getParameterTypes();
 		//Verify that the parameters of the method are valid for an event-handling method
@@ -52,6 +84,11 @@ public class RegisteredEventListener {
 		}
 		//Store the type of the Event-subclass parameter in eventType
 		eventType = (Class<? extends Event>)listenerMethodParameters[0];
+		if(EventBatch.class.isAssignableFrom(eventType)){
+			//Batch listeners receive the events named by the type argument
+			batchListener = true;
+			eventType = getBatchEventType(listenerMethod);
+		}
 		//Store the listener method in listenerMethod
 		this.listenerMethod = listenerMethod;
 		//Make sure that listenerMethod is accessible
@@ -60,6 +97,8 @@ public class RegisteredEventListener {
 		}
 		//Store the listener object in listener
 		this.listener = listener;
+		metrics = new ListenerMetrics(listener.getClass().getName()+"#"+listenerMethod.getName(), priority);
+		circuitBreaker = new ListenerCircuitBreaker();
 	}
 	
 	/**
@@ -96,6 +135,8 @@ public class RegisteredEventListener {
 	/**
 	 * Returns the class of the type of Event accepted
 	 * by this RegisteredEventListener.
+	 * For batch listeners, this is the type of the events
+	 * within an {@link EventBatch}.
 	 * @return The Class object representing the type
 	 * of Event accepted by this RegisteredEventListener.
 	 */
@@ -103,6 +144,64 @@ public class RegisteredEventListener {
 		return eventType;
 	}
 	
+	/**
+	 * Returns the tables whose {@link TableEvent} objects this RegisteredEventListener
+	 * receives.
+	 * @return An unmodifiable Set of the tables named by {@link EventListener#tables()},
+	 * or {@code null} if the listener receives the TableEvents of every table.
+	 */
+	public Set<TableReference> getTables(){
+		return tables;
+	}
+	
+	/**
+	 * Indicates whether the event handling method accepts an {@link EventBatch}.
+	 * @return {@code true} if the event handling method receives batches of
+	 * events, {@code false} if it receives single events.
+	 */
+	public boolean isBatchListener(){
+		return batchListener;
+	}
+	
+	/**
+	 * Returns the {@link ListenerMetrics} recording the invocations made by
+	 * {@link #fireEvent(Event)}.
+	 * @return The ListenerMetrics of this RegisteredEventListener.
+	 */
+	public ListenerMetrics getMetrics(){
+		return metrics;
+	}
+	
+	/**
+	 * Returns the {@link ListenerCircuitBreaker} counting the failures
+	 * of this RegisteredEventListener.
+	 * @return The ListenerCircuitBreaker of this RegisteredEventListener.
+	 */
+	public ListenerCircuitBreaker getCircuitBreaker(){
+		return circuitBreaker;
+	}
+	
+	/**
+	 * Returns the timeout of this RegisteredEventListener. This is the timeout of
+	 * its {@link EventListener} annotation or, if the annotation has none, the
+	 * default timeout.
+	 * @return The timeout in nanoseconds or {@code 0} if there is none.
+	 * @see EventListener#timeout()
+	 */
+	public long getTimeoutNanos(){
+		return timeoutNanos;
+	}
+	
+	/**
+	 * Sets the default timeout, which applies if the {@link EventListener}
+	 * annotation has no timeout.
+	 * @param defaultTimeoutNanos The default timeout in nanoseconds or {@code 0}
+	 * for none.
+	 */
+	void setDefaultTimeoutNanos(long defaultTimeoutNanos){
+		timeoutNanos = annotatedTimeoutNanos > 0 ? annotatedTimeoutNanos : defaultTimeoutNanos;
+	}
+	
 	/**
 	 * Invokes the method wrapped by this RegisteredEventListener with the
 	 * given Event.
@@ -127,7 +226,12 @@ public class RegisteredEventListener {
 	 * that does not wish to receive cancelled events, it also verifies the
 	 * parameter types of the underlying method before submitting the Event
 	 * object. It is generally safe to submit any type of Event object to
-	 * this method. 
+	 * this method.<br/>
+	 * An {@link EventBatch} is passed to a batch listener as one batch of its
+	 * matching events, and to other listeners one Event at a time. A single
+	 * Event is passed to a batch listener as a batch of one Event.
+	 * {@link TableEvent} objects of tables not named by {@link #getTables()}
+	 * are never passed to the underlying method.
 	 * @param event The Event to be sent to the underlying method of this
 	 * RegisteredEventListener.
 	 * @throws IllegalAccessException If the event handling method is inaccessible.
@@ -138,11 +242,167 @@ public class RegisteredEventListener {
 	 * @see #invoke(Event)
 	 */
 	public void fireEvent(Event event) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException{
-		if(event instanceof Cancellable && ((Cancellable)event).isCancelled() && getIgnoresCancelled()){
+		if(isBatchListener()){
+			List<Event> matching = new ArrayList<Event>();
+			if(event instanceof EventBatch){
+				for(Event element : (EventBatch<?>)event){
+					if(accepts(element)){
+						matching.add(element);
+					}
+				}
+			}
+			else if(accepts(event)){
+				matching.add(event);
+			}
+			if(!matching.isEmpty()){
+				measuredInvoke(new EventBatch<Event>(matching, event.getId()));
+			}
 			return;
 		}
-		if(getEventType().isAssignableFrom(event.getClass())){
+		if(event instanceof EventBatch){
+			for(Event element : (EventBatch<?>)event){
+				fireEvent(element);
+			}
+			return;
+		}
+		if(accepts(event)){
+			measuredInvoke(event);
+		}
+	}
+	
+	/**
+	 * Invokes the underlying method and records the invocation in the
+	 * {@link ListenerMetrics} of this RegisteredEventListener.
+	 * @param event The Event or EventBatch to be passed to the underlying method.
+	 * @throws IllegalAccessException If the event handling method is inaccessible.
+	 * @throws IllegalArgumentException If the given Event is not a suitable argument
+	 * for this method.
+	 * @throws InvocationTargetException If the underlying method throws an exception.
+	 */
+	private void measuredInvoke(Event event) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException{
+		int cancelledBefore = countCancelled(event);
+		boolean failed = true;
+		long start = metrics.start();
+		try{
 			invoke(event);
+			failed = false;
+		}finally{
+			//Only count cancellations made by a successful invocation
+			metrics.finish(start, failed, !failed && countCancelled(event) > cancelledBefore);
+		}
+	}
+	
+	/**
+	 * Counts the cancelled events of an Event or {@link EventBatch}.
+	 * @param event The Event or EventBatch.
+	 * @return The number of cancelled {@link Cancellable} events.
+	 */
+	private static int countCancelled(Event event){
+		int count = 0;
+		if(event instanceof EventBatch){
+			for(Event element : (EventBatch<?>)event){
+				if(element instanceof Cancellable && ((Cancellable)element).isCancelled()){
+					count++;
+				}
+			}
+		}
+		else if(event instanceof Cancellable && ((Cancellable)event).isCancelled()){
+			count++;
+		}
+		return count;
+	}
+	
+	/**
+	 * Indicates whether {@link #fireEvent(Event)} would invoke the underlying
+	 * method for an Event.
+	 * @param event The Event or {@link EventBatch} to be checked.
+	 * @return {@code true} if {@code event}, or any Event of the batch, is
+	 * accepted by this RegisteredEventListener.
+	 */
+	boolean isInterested(Event event){
+		if(event instanceof EventBatch){
+			for(Event element : (EventBatch<?>)event){
+				if(accepts(element)){
+					return true;
+				}
+			}
+			return false;
+		}
+		return accepts(event);
+	}
+	
+	/**
+	 * Indicates whether a single Event should be passed to the underlying method.
+	 * @param event The Event to be checked.
+	 * @return {@code true} if {@code event} has the accepted type, is not a
+	 * cancelled Event ignored by this RegisteredEventListener and is not a
+	 * {@link TableEvent} of another table.
+	 */
+	private boolean accepts(Event event){
+		if(event instanceof Cancellable && ((Cancellable)event).isCancelled() && getIgnoresCancelled()){
+			return false;
+		}
+		return getEventType().isAssignableFrom(event.getClass()) && acceptsTable(tables, event);
+	}
+	
+	/**
+	 * Indicates whether an Event passes a table filter.
+	 * @param tables The tables of the filter or {@code null} for no filter.
+	 * @param event The Event to be checked.
+	 * @return {@code true} if there is no filter, {@code event} is not a
+	 * {@link TableEvent} or its table is in {@code tables}.
+	 */
+	static boolean acceptsTable(Set<TableReference> tables, Event event){
+		return tables == null || !(event instanceof TableEvent) || tables.contains(((TableEvent)event).getTargetTableReference());
+	}
+	
+	/**
+	 * Parses the table names of an {@link EventListener#tables()} or
+	 * {@link com.edinarobotics.scouting.definitions.event.EventMonitor#tables() EventMonitor.tables()}
+	 * attribute.
+	 * @param names The table names.
+	 * @return An unmodifiable Set of the named tables or {@code null} if
+	 * {@code names} is empty.
+	 * @throws IllegalArgumentException If a name is not a valid table reference.
+	 */
+	static Set<TableReference> parseTables(String[] names){
+		if(names.length == 0){
+			return null;
+		}
+		Set<TableReference> parsed = new HashSet<TableReference>();
+		for(String name : names){
+			try{
+				parsed.add(new TableReference(name));
+			}catch(InvalidReferenceException e){
+				throw new IllegalArgumentException("Listener method names an invalid table: "+name, e);
+			}
+		}
+		return Collections.unmodifiableSet(parsed);
+	}
+	
+	/**
+	 * Returns the type of the events accepted by a method whose first parameter
+	 * is an {@link EventBatch}. The type is read from the type argument of the
+	 * parameter, such as {@code EventBatch<DatabaseChangeEvent>} or
+	 * {@code EventBatch<? extends DatabaseChangeEvent>}.
+	 * @param method The method accepting an EventBatch.
+	 * @return The type of the events accepted by {@code method}, or
+	 * {@link Event} if the parameter has no usable type argument.
+	 */
+	static Class<? extends Event> getBatchEventType(Method method){
+		Type parameter = method.getGenericParameterTypes()[0];
+		if(parameter instanceof ParameterizedType){
+			Type argument = ((ParameterizedType)parameter).getActualTypeArguments()[0];
+			if(argument instanceof WildcardType){
+				argument = ((WildcardType)argument).getUpperBounds()[0];
+			}
+			if(argument instanceof ParameterizedType){
+				argument = ((ParameterizedType)argument).getRawType();
+			}
+			if(argument instanceof Class && Event.class.isAssignableFrom((Class<?>)argument)){
+				return ((Class<?>)argument).asSubclass(Event.class);
+			}
 		}
+		return Event.class;
 	}
 }
@@ -2,10 +2,16 @@ package com.edinarobotics.scouting.definitions.event.helpers;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.event.Cancellable;
 import com.edinarobotics.scouting.definitions.event.Event;
+import com.edinarobotics.scouting.definitions.event.EventBatch;
 import com.edinarobotics.scouting.definitions.event.EventMonitor;
 import com.edinarobotics.scouting.definitions.event.Listener;
 import com.edinarobotics.scouting.definitions.event.Result;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
 
 /**
  * This class handles the reflection tasks of calling an
@@ -13,10 +19,14 @@ import com.edinarobotics.scouting.definitions.event.Result;
  * It examines the arguments of handling methods to determine
  * the correct {@link Event} type to send.
  * It provides method to invoke these monitor methods
- * and to provide events to them for processing.
+ * and to provide events to them for processing.<br/>
+ * Like {@link RegisteredEventListener}, monitoring methods that accept an
+ * {@link EventBatch} receive the matching events of a batch at once.
  */
 public class RegisteredEventMonitor {
 	private Class<? extends Event> eventType;
+	private boolean batchMonitor;
+	private Set<TableReference> tables;
 	private Method monitorMethod;
 	private Listener listener;
 	
@@ -27,8 +37,9 @@ public class RegisteredEventMonitor {
 	 * by this RegisteredEventMonitor.
 	 * @param listener The object on which {@code monitorMethod} is to be called.
 	 * @throws IllegalArgumentException If {@code monitorMethod} does not have
-	 * an EventMonitor annotation or if {@code monitorMethod} does not accept an
-	 * {@link Event} subclass and a {@link Result} value as arguments.
+	 * an EventMonitor annotation, if {@code monitorMethod} does not accept an
+	 * {@link Event} subclass and a {@link Result} value as arguments or if the
+	 * annotation names an invalid table.
 	 */
 	public RegisteredEventMonitor(Method monitorMethod, Listener listener){
 		//Attempt to get the EventMonitor annotation on this method
@@ -36,6 +47,7 @@ public class RegisteredEventMonitor {
 		if(monitorAnnotation == null){
 			throw new IllegalArgumentException("Monitor method does not have an EventMonitor annotation.");
 		}
+		tables = RegisteredEventListener.parseTables(monitorAnnotation.tables());
 		//Get the parameter types of the method
 		Class<?>[] monitorMethodParameters = monitorMethod.getParameterTypes();
 		//Verify that the parameters are valid for an event-monitoring method
@@ -46,6 +58,11 @@ public class RegisteredEventMonitor {
 		}
 		//Store the type of the Event-subclass parameter
 		eventType = (Class<? extends Event>)monitorMethodParameters[0];
+		if(EventBatch.class.isAssignableFrom(eventType)){
+			//Batch monitors receive the events named by the type argument
+			batchMonitor = true;
+			eventType = RegisteredEventListener.getBatchEventType(monitorMethod);
+		}
 		//Store the monitor method in monitorMethod
 		this.monitorMethod = monitorMethod;
 		//Make sure that monitor method is accessible
@@ -76,6 +93,48 @@ public class RegisteredEventMonitor {
 		return eventType;
 	}
 	
+	/**
+	 * Returns the tables whose
+	 * {@link com.edinarobotics.scouting.definitions.event.TableEvent TableEvent}
+	 * objects this RegisteredEventMonitor is notified of.
+	 * @return An unmodifiable Set of the tables named by
+	 * {@link EventMonitor#tables()}, or {@code null} if the monitor is notified of
+	 * the TableEvents of every table.
+	 */
+	public Set<TableReference> getTables(){
+		return tables;
+	}
+	
+	/**
+	 * Indicates whether the event monitoring method accepts an {@link EventBatch}.
+	 * @return {@code true} if the event monitoring method receives batches of
+	 * events, {@code false} if it receives single events.
+	 */
+	public boolean isBatchMonitor(){
+		return batchMonitor;
+	}
+	
+	/**
+	 * Indicates whether {@link #notifyMonitor(Event, Result)} would invoke
+	 * the underlying method for the given Event.
+	 * @param event The Event to be checked.
+	 * @return {@code true} if {@code event}, or any Event of an {@link EventBatch},
+	 * has the type accepted by this RegisteredEventMonitor and is not a
+	 * {@link com.edinarobotics.scouting.definitions.event.TableEvent TableEvent}
+	 * of another table.
+	 */
+	public boolean matches(Event event){
+		if(event instanceof EventBatch){
+			for(Event element : (EventBatch<?>)event){
+				if(accepts(element)){
+					return true;
+				}
+			}
+			return false;
+		}
+		return accepts(event);
+	}
+	
 	/**
 	 * Invokes the method wrapped by this RegisteredEventMonitor with the
 	 * given Event.
@@ -100,7 +159,11 @@ public class RegisteredEventMonitor {
 	 * RegisteredEventMonitor.
 	 * This method verifies the parameter types of the underlying method
 	 * before submitting the Event object. It is generally safe to submit
-	 * any type of Event object to this method. 
+	 * any type of Event object to this method.<br/>
+	 * An {@link EventBatch} is passed to a batch monitor as one batch of its
+	 * matching events with {@code result}. Other monitors receive each Event
+	 * of the batch in turn, with {@link Result#CANCELLED} for cancelled events
+	 * and {@code result} for the rest.
 	 * @param event The Event to be sent to the underlying method of this
 	 * RegisteredEventMonitor.
 	 * @param result The result of the action represented by {@code event}. This
@@ -112,8 +175,57 @@ public class RegisteredEventMonitor {
 	 * @see #invoke(Event, Result)
 	 */
 	public void notifyMonitor(Event event, Result result) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException{
-		if(getEventType().isAssignableFrom(event.getClass())){
+		if(isBatchMonitor()){
+			List<Event> matching = new ArrayList<Event>();
+			if(event instanceof EventBatch){
+				for(Event element : (EventBatch<?>)event){
+					if(accepts(element)){
+						matching.add(element);
+					}
+				}
+			}
+			else if(accepts(event)){
+				matching.add(event);
+			}
+			if(!matching.isEmpty()){
+				invoke(new EventBatch<Event>(matching, event.getId()), result);
+			}
+			return;
+		}
+		if(event instanceof EventBatch){
+			for(Event element : (EventBatch<?>)event){
+				notifyMonitor(element, getResult(element, result));
+			}
+			return;
+		}
+		if(accepts(event)){
 			invoke(event, result);
 		}
 	}
+	
+	/**
+	 * Indicates whether a single Event should be passed to the underlying method.
+	 * @param event The Event to be checked.
+	 * @return {@code true} if {@code event} has the accepted type and is not a
+	 * {@link com.edinarobotics.scouting.definitions.event.TableEvent TableEvent}
+	 * of another table.
+	 */
+	private boolean accepts(Event event){
+		return getEventType().isAssignableFrom(event.getClass()) && RegisteredEventListener.acceptsTable(tables, event);
+	}
+	
+	/**
+	 * Returns the {@link Result} reported to single-event monitors for one
+	 * Event of an {@link EventBatch}.
+	 * @param element The Event of the batch.
+	 * @param result The Result of the action represented by the whole batch.
+	 * @return {@link Result#CANCELLED} if {@code element} is cancelled,
+	 * {@code result} otherwise.
+	 */
+	static Result getResult(Event element, Result result){
+		if(element instanceof Cancellable && ((Cancellable)element).isCancelled()){
+			return Result.CANCELLED;
+		}
+		return result;
+	}
 }
@@ -0,0 +1,35 @@
+package com.edinarobotics.scouting.definitions.event.helpers;
+
+/**
+ * The values in this enum control how the monitor threads of a
+ * {@link MonitorRingBuffer} wait for new events.
+ * Strategies that react faster use more CPU while the buffer is empty.
+ */
+public enum WaitStrategy {
+	
+	/**
+	 * Monitor threads spin without pausing. This gives the lowest latency
+	 * but keeps one processor busy per monitor. Only use it when there are
+	 * spare processors.
+	 */
+	BUSY_SPIN,
+	
+	/**
+	 * Monitor threads call {@link Thread#yield()} between checks, so other
+	 * threads can run while the buffer is empty.
+	 */
+	YIELDING,
+	
+	/**
+	 * Monitor threads spin briefly, then yield, then sleep for short periods.
+	 * This is a good compromise for background monitors such as loggers.
+	 */
+	SLEEPING,
+	
+	/**
+	 * Monitor threads block until an event is published. This uses no CPU
+	 * while the buffer is empty, but publishing an event must wake the
+	 * waiting threads.
+	 */
+	BLOCKING
+}
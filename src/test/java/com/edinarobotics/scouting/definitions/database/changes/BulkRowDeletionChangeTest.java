@@ -0,0 +1,56 @@
+package com.edinarobotics.scouting.definitions.database.changes;
+
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+public class BulkRowDeletionChangeTest extends TestCase{
+	public MatchFixture fixture;
+	public Query query;
+	
+	public BulkRowDeletionChangeTest(){
+		super("BulkRowDeletionChange");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates the Match table and a {@link Query} selecting the blue rows.
+	 */
+	public void setUp() throws Exception{
+		fixture = new MatchFixture();
+		query = new Query(fixture.match).constrain(new EqualsConstraint("Match.team", new Text("blue")));
+	}
+	
+	/**
+	 * This method tests that {@link BulkRowDeletionChange#affectsRow(Row)}
+	 * selects exactly the rows that satisfy the change's {@link Query}.
+	 */
+	public void testAffectsRow() throws Exception{
+		BulkRowDeletionChange change = new BulkRowDeletionChange(query);
+		assertEquals("The wrong rows were affected!", MatchFixture.ids(1, 3, 5, 7, 9), fixture.getAffectedIds(change));
+	}
+	
+	/**
+	 * This method tests that a BulkRowDeletionChange without constraints
+	 * affects every row.
+	 */
+	public void testUnconstrained() throws Exception{
+		BulkRowDeletionChange change = new BulkRowDeletionChange(new Query(fixture.match));
+		assertEquals("A row was not affected!", MatchFixture.ROW_COUNT, fixture.getAffectedIds(change).size());
+	}
+	
+	/**
+	 * This method tests that a BulkRowDeletionChange carries its Query and
+	 * target table and is equal to a change with an equal Query.
+	 */
+	public void testQuery() throws Exception{
+		BulkRowDeletionChange change = new BulkRowDeletionChange(query);
+		assertEquals("The Query is wrong!", query, change.getQuery());
+		assertEquals("The target table is wrong!", fixture.match, change.getTargetTableReference());
+		assertEquals("The target table name is wrong!", "Match", change.getTargetTableName());
+		assertEquals("Changes with equal Queries should be equal!", change, new BulkRowDeletionChange(query));
+		assertFalse("Changes with different Queries should differ!", change.equals(new BulkRowDeletionChange(new Query(fixture.match))));
+	}
+}
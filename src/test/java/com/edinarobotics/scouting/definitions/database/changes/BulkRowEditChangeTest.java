@@ -0,0 +1,135 @@
+package com.edinarobotics.scouting.definitions.database.changes;
+
+import java.util.HashMap;
+import java.util.Map;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.InvalidSchemaException;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+public class BulkRowEditChangeTest extends TestCase{
+	public MatchFixture fixture;
+	public Query query;
+	
+	public BulkRowEditChangeTest(){
+		super("BulkRowEditChange");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates the Match table and a {@link Query} selecting the red
+	 * row with an average of 4.
+	 */
+	public void setUp() throws Exception{
+		fixture = new MatchFixture();
+		query = new Query(fixture.match).constrain(new EqualsConstraint("Match.average", new Real(4)))
+				.constrain(new EqualsConstraint("Match.team", new Text("red")));
+	}
+	
+	/**
+	 * This method tests that {@link BulkRowEditChange#affectsRow(Row)} selects
+	 * exactly the rows that satisfy the change's {@link Query}.
+	 */
+	public void testAffectsRow() throws Exception{
+		BulkRowEditChange change = new BulkRowEditChange(query, "team", new Text("green"));
+		assertEquals("The wrong rows were affected!", MatchFixture.ids(4), fixture.getAffectedIds(change));
+		BulkRowEditChange unconstrained = new BulkRowEditChange(new Query(fixture.match), "team", new Text("green"));
+		assertEquals("An unconstrained change should affect every row!", MatchFixture.ROW_COUNT, fixture.getAffectedIds(unconstrained).size());
+	}
+	
+	/**
+	 * This method tests that a BulkRowEditChange carries its Query, its target
+	 * table and its new values, and that both constructors build the same change.
+	 */
+	public void testNewValues() throws Exception{
+		Map<ColumnReference, Data> newValues = new HashMap<ColumnReference, Data>();
+		newValues.put(new ColumnReference("Match.team"), new Text("green"));
+		newValues.put(new ColumnReference("Match.average"), null);
+		BulkRowEditChange change = new BulkRowEditChange(query, newValues);
+		newValues.clear();
+		assertEquals("The Query is wrong!", query, change.getQuery());
+		assertEquals("The target table is wrong!", fixture.match, change.getTargetTableReference());
+		assertEquals("The wrong number of values was kept!", 2, change.getNewValues().size());
+		assertEquals("A new value is wrong!", new Text("green"), change.getNewValues().get(new ColumnReference("Match.team")));
+		assertTrue("A null value was lost!", change.getNewValues().containsKey(new ColumnReference("Match.average")));
+		try{
+			change.getNewValues().clear();
+			fail("The new values should not be modifiable!");
+		}catch(UnsupportedOperationException e){
+			//Expected.
+		}
+		newValues.put(new ColumnReference("Match.team"), new Text("green"));
+		assertEquals("The constructors built different changes!", new BulkRowEditChange(query, newValues),
+				new BulkRowEditChange(query, "team", new Text("green")));
+	}
+	
+	/**
+	 * This method tests that edits of no columns and of columns outside the
+	 * queried table are rejected.
+	 */
+	public void testInvalidValues() throws Exception{
+		try{
+			new BulkRowEditChange(query, new HashMap<ColumnReference, Data>());
+			fail("Editing zero columns should be rejected!");
+		}catch(InvalidSchemaException e){
+			//Expected.
+		}
+		Map<ColumnReference, Data> newValues = new HashMap<ColumnReference, Data>();
+		newValues.put(new ColumnReference("Match.team"), new Text("green"));
+		newValues.put(new ColumnReference("Team.name"), new Text("green"));
+		try{
+			new BulkRowEditChange(query, newValues);
+			fail("Columns of another table should be rejected!");
+		}catch(InvalidTargetException e){
+			//Expected.
+		}
+	}
+	
+	/**
+	 * This method tests that a BulkRowEditChange of the primary key column
+	 * cannot be applied, whichever constructor built it.
+	 */
+	public void testPrimaryKey() throws Exception{
+		Row row = fixture.rows.get(4);
+		try{
+			new BulkRowEditChange(query, "id", new Integer(40)).applyTo(row);
+			fail("Editing the primary key should be rejected!");
+		}catch(InvalidSchemaException e){
+			//Expected.
+		}
+		Map<ColumnReference, Data> newValues = new HashMap<ColumnReference, Data>();
+		newValues.put(new ColumnReference("Match.team"), new Text("green"));
+		newValues.put(new ColumnReference("Match.id"), new Integer(40));
+		try{
+			new BulkRowEditChange(query, newValues).applyTo(row);
+			fail("Editing the primary key with other columns should be rejected!");
+		}catch(InvalidSchemaException e){
+			//Expected.
+		}
+	}
+	
+	/**
+	 * This method tests that {@link BulkRowEditChange#applyTo(Row)} keeps the
+	 * values of columns that are not edited and does not modify the Row.
+	 */
+	public void testApplyTo() throws Exception{
+		Row row = fixture.rows.get(4);
+		Map<ColumnReference, Data> newValues = new HashMap<ColumnReference, Data>();
+		newValues.put(new ColumnReference("Match.team"), new Text("green"));
+		newValues.put(new ColumnReference("Match.score"), new Integer(12));
+		Map<Column, Data> edited = new BulkRowEditChange(query, newValues).applyTo(row);
+		assertEquals("The edited column has the wrong value!", new Text("green"), edited.get(fixture.team));
+		assertEquals("An unedited column changed!", new Real(4), edited.get(fixture.average));
+		assertEquals("The primary key changed!", new Integer(4), edited.get(fixture.id));
+		assertEquals("A column missing from the Row was added!", 3, edited.size());
+		assertEquals("The Row was modified!", new Text("red"), row.getColumnValue("team"));
+	}
+}
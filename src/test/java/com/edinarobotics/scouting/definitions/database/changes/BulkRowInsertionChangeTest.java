@@ -0,0 +1,107 @@
+package com.edinarobotics.scouting.definitions.database.changes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.InvalidSchemaException;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+
+public class BulkRowInsertionChangeTest extends TestCase{
+	public MatchFixture fixture;
+	public List<ColumnReference> columns;
+	public BulkRowInsertionChange bulk;
+	
+	public BulkRowInsertionChangeTest(){
+		super("BulkRowInsertionChange");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates a BulkRowInsertionChange inserting the rows of the Match table.
+	 */
+	public void setUp() throws Exception{
+		fixture = new MatchFixture();
+		columns = Arrays.asList(fixture.id.getReference(), fixture.average.getReference(), fixture.team.getReference());
+		List<List<Data>> columnValues = new ArrayList<List<Data>>();
+		for(ColumnReference column : columns){
+			List<Data> values = new ArrayList<Data>();
+			for(Row row : fixture.rows){
+				values.add(row.getColumnValue(column.getColumnName()));
+			}
+			columnValues.add(values);
+		}
+		bulk = new BulkRowInsertionChange(fixture.match, columns, columnValues);
+	}
+	
+	/**
+	 * This method tests that a BulkRowInsertionChange carries every value
+	 * in its row and column.
+	 */
+	public void testValues() throws Exception{
+		assertEquals("The row count is wrong!", MatchFixture.ROW_COUNT, bulk.getRowCount());
+		assertEquals("The column count is wrong!", columns.size(), bulk.getColumnCount());
+		assertEquals("The columns are wrong!", columns, bulk.getColumnReferences());
+		assertEquals("The target table is wrong!", fixture.match, bulk.getTargetTableReference());
+		for(int i = 0; i < bulk.getRowCount(); i++){
+			Map<ColumnReference, Data> expected = new HashMap<ColumnReference, Data>();
+			for(Map.Entry<Column, Data> value : fixture.rows.get(i).getValues().entrySet()){
+				expected.put(value.getKey().getReference(), value.getValue());
+			}
+			assertEquals("Row "+i+" has the wrong values!", expected, bulk.getRowValues(i));
+			assertEquals("Row "+i+" has the wrong id!", new Integer(i), bulk.getValue(i, 0));
+		}
+		assertEquals("A column has the wrong values!", bulk.getColumnValues(2), bulk.getColumnValues(fixture.team.getReference()));
+	}
+	
+	/**
+	 * This method tests that each row of a BulkRowInsertionChange has the same
+	 * values as the equivalent {@link RowInsertionChange}.
+	 */
+	public void testEquivalentToSingleInsertions() throws Exception{
+		for(int i = 0; i < bulk.getRowCount(); i++){
+			Map<String, Data> values = new HashMap<String, Data>();
+			for(Map.Entry<Column, Data> value : fixture.rows.get(i).getValues().entrySet()){
+				values.put(value.getKey().getReference().getColumnName(), value.getValue());
+			}
+			RowInsertionChange single = new RowInsertionChange(fixture.match, values);
+			assertEquals("Row "+i+" differs from the single-row change!", single.getValues(), bulk.getRowValues(i));
+			assertEquals("Row "+i+" targets the wrong table!", single.getTargetTableReference(), bulk.getTargetTableReference());
+		}
+	}
+	
+	/**
+	 * This method tests that invalid column layouts are rejected.
+	 */
+	public void testInvalidColumns() throws Exception{
+		List<List<Data>> values = new ArrayList<List<Data>>();
+		values.add(Arrays.<Data>asList(new Integer(1), new Integer(2)));
+		values.add(Arrays.<Data>asList(new Integer(1)));
+		try{
+			new BulkRowInsertionChange(fixture.match, Arrays.asList("id", "score"), values);
+			fail("Columns of different lengths should be rejected!");
+		}catch(InvalidSchemaException e){
+			//Expected.
+		}
+		values.set(1, Arrays.<Data>asList(new Integer(1), new Integer(2)));
+		try{
+			new BulkRowInsertionChange(fixture.match, Arrays.asList("id", "id"), values);
+			fail("A column named twice should be rejected!");
+		}catch(InvalidSchemaException e){
+			//Expected.
+		}
+		try{
+			new BulkRowInsertionChange(fixture.match, Arrays.asList(new ColumnReference("Match.id"), new ColumnReference("Team.id")), values);
+			fail("Columns of another table should be rejected!");
+		}catch(InvalidTargetException e){
+			//Expected.
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.edinarobotics.scouting.definitions.database.changes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+/**
+ * This class holds the Match table shared by the tests of the bulk changes.
+ * The table has ten rows. Row {@code i} has an id and an average of {@code i}
+ * and is on the red team if {@code i} is even, on the blue team otherwise.
+ */
+public class MatchFixture{
+	public static final int ROW_COUNT = 10;
+	public TableReference match;
+	public Column id;
+	public Column average;
+	public Column team;
+	public List<Row> rows;
+	
+	/**
+	 * Constructs the schema and the rows of the Match table.
+	 */
+	public MatchFixture() throws Exception{
+		match = new TableReference("Match");
+		id = new Column(new ColumnReference("Match.id"), Integer.class);
+		average = new Column(new ColumnReference("Match.average"), Real.class);
+		team = new Column(new ColumnReference("Match.team"), Text.class);
+		rows = new ArrayList<Row>();
+		for(int i = 0; i < ROW_COUNT; i++){
+			Map<Column, Data> values = new HashMap<Column, Data>();
+			values.put(id, new Integer(i));
+			values.put(average, new Real(i));
+			values.put(team, new Text(getTeam(i)));
+			rows.add(new Row(values, id));
+		}
+	}
+	
+	/**
+	 * Returns the team of a row of the Match table.
+	 * @param i The id of the row.
+	 * @return {@code "red"} if {@code i} is even, {@code "blue"} otherwise.
+	 */
+	public static String getTeam(int i){
+		return i % 2 == 0 ? "red" : "blue";
+	}
+	
+	/**
+	 * Returns the ids of the rows affected by a change.
+	 * @param change The {@link BulkRowEditChange} or {@link BulkRowDeletionChange}.
+	 * @return The ids of every row for which {@code affectsRow} returns {@code true}.
+	 */
+	public Set<Long> getAffectedIds(Change change){
+		Set<Long> affected = new HashSet<Long>();
+		for(Row row : rows){
+			boolean affects = change instanceof BulkRowEditChange ? ((BulkRowEditChange) change).affectsRow(row)
+					: ((BulkRowDeletionChange) change).affectsRow(row);
+			if(affects){
+				affected.add(row.getPrimaryKeyValue().longValue());
+			}
+		}
+		return affected;
+	}
+	
+	/**
+	 * Creates a Set of row ids.
+	 * @param ids The ids.
+	 * @return A new Set containing {@code ids}.
+	 */
+	public static Set<Long> ids(long... ids){
+		Set<Long> result = new HashSet<Long>();
+		for(long id : ids){
+			result.add(id);
+		}
+		return result;
+	}
+}
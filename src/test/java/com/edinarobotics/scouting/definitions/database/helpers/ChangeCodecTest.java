@@ -0,0 +1,165 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.rowset.serial.SerialBlob;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.changes.BulkRowDeletionChange;
+import com.edinarobotics.scouting.definitions.database.changes.BulkRowEditChange;
+import com.edinarobotics.scouting.definitions.database.changes.BulkRowInsertionChange;
+import com.edinarobotics.scouting.definitions.database.changes.Change;
+import com.edinarobotics.scouting.definitions.database.changes.RowInsertionChange;
+import com.edinarobotics.scouting.definitions.database.changes.Transaction;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.RangeConstraint;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Blob;
+import com.edinarobotics.scouting.definitions.database.types.Boolean;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+public class ChangeCodecTest extends TestCase{
+	public BulkRowInsertionChange bulkInsertion;
+	public Query query;
+	
+	public ChangeCodecTest(){
+		super("ChangeCodec");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates a {@link BulkRowInsertionChange} with a column
+	 * of every comparable {@link Data} type, including {@code null} values,
+	 * and a {@link Query} with every kind of constraint.
+	 */
+	public void setUp() throws Exception{
+		List<List<Data>> values = new ArrayList<List<Data>>();
+		values.add(Arrays.<Data>asList(new Integer(1), new Integer(2), new Integer(3)));
+		values.add(Arrays.<Data>asList(new Real(1.5), null, new Real(-2)));
+		values.add(Arrays.<Data>asList(new Text("red"), new Text(""), null));
+		values.add(Arrays.<Data>asList(new Boolean(true), new Boolean(false), null));
+		bulkInsertion = new BulkRowInsertionChange(new TableReference("Match"),
+				Arrays.asList("id", "average", "alliance", "scored"), values);
+		query = new Query("Match").constrain(new EqualsConstraint("Match.alliance", new Text("red")))
+				.constrain(new RangeConstraint("Match.average", new Real(1.5), false, null, true));
+	}
+	
+	/**
+	 * Encodes and decodes a single {@link Change}.
+	 * @param change The Change to be encoded.
+	 * @return The decoded Change.
+	 */
+	private Change roundTrip(Change change) throws IOException{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		ChangeCodec.writeChange(out, change);
+		out.flush();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		Change decoded = ChangeCodec.readChange(in);
+		assertEquals("Not every encoded byte was read!", -1, in.read());
+		return decoded;
+	}
+	
+	/**
+	 * This method tests that a {@link BulkRowInsertionChange} is decoded
+	 * unchanged, alone and as part of a {@link Transaction}.
+	 */
+	public void testBulkRowInsertion() throws IOException{
+		Change decoded = roundTrip(bulkInsertion);
+		assertEquals("BulkRowInsertionChange was not decoded correctly!", bulkInsertion, decoded);
+		BulkRowInsertionChange decodedInsertion = (BulkRowInsertionChange) decoded;
+		assertEquals("The column order changed!", bulkInsertion.getColumnReferences(), decodedInsertion.getColumnReferences());
+		assertEquals("The row count changed!", 3, decodedInsertion.getRowCount());
+		assertNull("A null value was not decoded!", decodedInsertion.getValue(1, 1));
+		Transaction transaction = new Transaction();
+		transaction.add(bulkInsertion);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		ChangeCodec.writeTransaction(out, transaction);
+		out.flush();
+		Transaction decodedTransaction = ChangeCodec.readTransaction(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals("The Transaction was not decoded correctly!", transaction, decodedTransaction);
+	}
+	
+	/**
+	 * This method tests that an empty {@link BulkRowInsertionChange} is decoded unchanged.
+	 */
+	public void testEmptyBulkRowInsertion() throws Exception{
+		List<List<Data>> values = new ArrayList<List<Data>>();
+		values.add(new ArrayList<Data>());
+		BulkRowInsertionChange empty = new BulkRowInsertionChange(new TableReference("Match"), Arrays.asList("id"), values);
+		assertEquals("An empty BulkRowInsertionChange was not decoded correctly!", empty, roundTrip(empty));
+	}
+	
+	/**
+	 * This method tests that the bytes of a {@link Blob} column survive
+	 * encoding. {@link Blob} objects are compared by their bytes because
+	 * {@link Blob#equals(Object)} does not compare values.
+	 */
+	public void testBulkRowInsertionBlob() throws Exception{
+		List<List<Data>> values = new ArrayList<List<Data>>();
+		values.add(Arrays.<Data>asList(new Integer(1), new Integer(2)));
+		values.add(Arrays.<Data>asList(new Blob(new SerialBlob(new byte[]{1, 2, 3})), null));
+		BulkRowInsertionChange blobs = new BulkRowInsertionChange(new TableReference("Match"), Arrays.asList("id", "notes"), values);
+		BulkRowInsertionChange decoded = (BulkRowInsertionChange) roundTrip(blobs);
+		java.sql.Blob blob = ((Blob) decoded.getValue(0, 1)).getValue();
+		assertTrue("The Blob bytes were not decoded correctly!", Arrays.equals(new byte[]{1, 2, 3}, blob.getBytes(1, (int) blob.length())));
+		assertNull("A null Blob was not decoded!", decoded.getValue(1, 1));
+		assertEquals("The ids were not decoded correctly!", blobs.getColumnValues(0), decoded.getColumnValues(0));
+	}
+	
+	/**
+	 * This method tests that a {@link BulkRowEditChange} is decoded unchanged.
+	 */
+	public void testBulkRowEdit() throws Exception{
+		Map<ColumnReference, Data> newValues = new HashMap<ColumnReference, Data>();
+		newValues.put(new ColumnReference("Match.alliance"), new Text("blue"));
+		newValues.put(new ColumnReference("Match.average"), null);
+		newValues.put(new ColumnReference("Match.scored"), new Boolean(true));
+		BulkRowEditChange edit = new BulkRowEditChange(query, newValues);
+		Change decoded = roundTrip(edit);
+		assertEquals("BulkRowEditChange was not decoded correctly!", edit, decoded);
+		assertEquals("The Query was not decoded correctly!", query, ((BulkRowEditChange) decoded).getQuery());
+		BulkRowEditChange unconstrained = new BulkRowEditChange(new Query("Match"), "id", new Integer(7));
+		assertEquals("An unconstrained BulkRowEditChange was not decoded correctly!", unconstrained, roundTrip(unconstrained));
+	}
+	
+	/**
+	 * This method tests that a {@link BulkRowDeletionChange} is decoded unchanged.
+	 */
+	public void testBulkRowDeletion() throws Exception{
+		BulkRowDeletionChange deletion = new BulkRowDeletionChange(query);
+		Change decoded = roundTrip(deletion);
+		assertEquals("BulkRowDeletionChange was not decoded correctly!", deletion, decoded);
+		assertEquals("The Query was not decoded correctly!", query.getConstraints(), ((BulkRowDeletionChange) decoded).getQuery().getConstraints());
+		BulkRowDeletionChange unconstrained = new BulkRowDeletionChange(new Query("Match"));
+		assertEquals("An unconstrained BulkRowDeletionChange was not decoded correctly!", unconstrained, roundTrip(unconstrained));
+	}
+	
+	/**
+	 * This method tests that a conditional {@link RowInsertionChange} is
+	 * decoded with its condition.
+	 */
+	public void testRowInsertion() throws Exception{
+		Map<ColumnReference, Data> values = new HashMap<ColumnReference, Data>();
+		values.put(new ColumnReference("Match.id"), new Integer(4));
+		values.put(new ColumnReference("Match.alliance"), null);
+		RowInsertionChange conditional = new RowInsertionChange(values, true);
+		RowInsertionChange decoded = (RowInsertionChange) roundTrip(conditional);
+		assertEquals("RowInsertionChange was not decoded correctly!", conditional, decoded);
+		assertTrue("The condition was not decoded!", decoded.isInsertIfAbsent());
+		assertFalse("An unconditional insertion was decoded as conditional!", ((RowInsertionChange) roundTrip(new RowInsertionChange(values))).isInsertIfAbsent());
+	}
+}
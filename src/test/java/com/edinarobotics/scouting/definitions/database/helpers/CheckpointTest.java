@@ -0,0 +1,257 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.VersionConflictException;
+import com.edinarobotics.scouting.definitions.database.changes.Change;
+import com.edinarobotics.scouting.definitions.database.changes.EntryEditChange;
+import com.edinarobotics.scouting.definitions.database.changes.Transaction;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+public class CheckpointTest extends TestCase{
+	public File directory;
+	public File file;
+	public TableReference match;
+	public Column id;
+	public Column score;
+	public Set<Column> columns;
+	
+	public CheckpointTest(){
+		super("Checkpoint");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates an empty log directory, a checkpoint file name
+	 * and the schema of the Match table.
+	 */
+	public void setUp() throws Exception{
+		directory = File.createTempFile("wal", "test");
+		directory.delete();
+		file = File.createTempFile("checkpoint", "test");
+		file.delete();
+		match = new TableReference("Match");
+		id = new Column(new ColumnReference("Match.id"), Integer.class);
+		score = new Column(new ColumnReference("Match.score"), Integer.class);
+		columns = new HashSet<Column>();
+		columns.add(id);
+		columns.add(score);
+	}
+	
+	/**
+	 * This method deletes the log directory and the checkpoint file after each test.
+	 */
+	public void tearDown(){
+		File[] files = directory.listFiles();
+		if(files != null){
+			for(File logFile : files){
+				logFile.delete();
+			}
+		}
+		directory.delete();
+		file.delete();
+	}
+	
+	/**
+	 * Creates a row of the Match table.
+	 * @param key The id of the row.
+	 * @param value The score of the row.
+	 * @return The new Row.
+	 */
+	private Row row(int key, int value) throws Exception{
+		Map<Column, Data> values = new HashMap<Column, Data>();
+		values.put(id, new Integer(key));
+		values.put(score, new Integer(value));
+		return new Row(values, id);
+	}
+	
+	/**
+	 * Commits a single row in its own {@link MultiVersionStore.Write}.
+	 * @param store The store receiving the row.
+	 * @param row The Row to be written.
+	 */
+	private void put(MultiVersionStore store, Row row) throws Exception{
+		MultiVersionStore.Write write = store.beginWrite();
+		write.put(match, row);
+		write.commit();
+	}
+	
+	/**
+	 * Reads a single row of the Match table at the latest version.
+	 * @param store The store to be read.
+	 * @param key The id of the row.
+	 * @return The Row or {@code null} if it does not exist.
+	 */
+	private Row get(MultiVersionStore store, long key){
+		Snapshot snapshot = store.openSnapshot();
+		try{
+			return store.getTable(match).getRow(key, snapshot);
+		}finally{
+			snapshot.release();
+		}
+	}
+	
+	/**
+	 * This method tests that a checkpoint keeps the version of every row and the
+	 * commit version of the store. It writes a checkpoint, which truncates the log,
+	 * recovers into a new store and replays version-checked {@link EntryEditChange}
+	 * objects that were logged after the checkpoint. A change expecting the version
+	 * of a row before the checkpoint must succeed and a stale change must conflict.
+	 */
+	public void testRecoverKeepsVersions() throws Exception{
+		MultiVersionStore store = new MultiVersionStore();
+		store.createTable(match, columns, id);
+		WriteAheadLog log = new WriteAheadLog(directory, SyncPolicy.NEVER);
+		Transaction logged = new Transaction();
+		logged.add(new EntryEditChange("Match.score#1", new Integer(42)));
+		put(store, row(1, 42));
+		log.append(logged);
+		put(store, row(2, 10));
+		log.append(logged);
+		put(store, row(1, 43));
+		long sequence = log.append(logged);
+		assertEquals("Row 1 has the wrong version before the checkpoint!", 3, get(store, 1).getVersion());
+		assertEquals("Row 2 has the wrong version before the checkpoint!", 2, get(store, 2).getVersion());
+		Snapshot snapshot = store.openSnapshot();
+		try{
+			Checkpoint.checkpoint(file, store, snapshot, sequence, log);
+		}finally{
+			snapshot.release();
+		}
+		Transaction current = new Transaction();
+		current.add(new EntryEditChange("Match.score#1", new Integer(44), 3));
+		log.append(current);
+		Transaction stale = new Transaction();
+		stale.add(new EntryEditChange("Match.score#2", new Integer(11), 1));
+		log.append(stale);
+		log.close();
+		
+		final MultiVersionStore recovered = new MultiVersionStore();
+		final int[] conflicts = new int[1];
+		final int[] replayed = new int[1];
+		log = new WriteAheadLog(directory, SyncPolicy.NEVER);
+		try{
+			long last = Checkpoint.recover(file, recovered, log, new LogReplayHandler(){
+				public void replayTransaction(long sequenceNumber, Transaction transaction) throws Exception{
+					replayed[0]++;
+					for(Change change : transaction.getChanges()){
+						EntryEditChange edit = (EntryEditChange)change;
+						long key = edit.getTargetRowPrimaryKeyValue().longValue();
+						Map<Column, Data> values = new HashMap<Column, Data>(get(recovered, key).getValues());
+						values.put(score, edit.getNewValue());
+						MultiVersionStore.Write write = recovered.beginWrite();
+						write.put(match, new Row(values, id), edit.getExpectedRowVersion());
+						try{
+							write.commit();
+						}catch(VersionConflictException e){
+							conflicts[0]++;
+						}
+					}
+				}
+			});
+			assertEquals("Recovery replayed the wrong records!", sequence + 2, last);
+		}finally{
+			log.close();
+		}
+		assertEquals("Recovery replayed records included in the checkpoint!", 2, replayed[0]);
+		assertEquals("Stale change was not rejected!", 1, conflicts[0]);
+		assertEquals("Row 1 was not edited after recovery!", new Integer(44), get(recovered, 1).getColumnValue(score));
+		assertEquals("Row 1 has the wrong version after recovery!", 4, get(recovered, 1).getVersion());
+		assertEquals("Row 2 was edited by a stale change!", new Integer(10), get(recovered, 2).getColumnValue(score));
+		assertEquals("Row 2 lost its version in the checkpoint!", 2, get(recovered, 2).getVersion());
+		assertEquals("Commit version did not continue after the checkpoint!", 4, recovered.getCommittedVersion());
+	}
+	
+	/**
+	 * This method tests that a restored store starts at the commit version
+	 * of the checkpoint, even if the newest row is older.
+	 */
+	public void testRestoreCommitVersion() throws Exception{
+		MultiVersionStore store = new MultiVersionStore();
+		store.createTable(match, columns, id);
+		put(store, row(1, 42));
+		put(store, row(2, 10));
+		MultiVersionStore.Write write = store.beginWrite();
+		write.delete(match, 2);
+		write.commit();
+		Snapshot snapshot = store.openSnapshot();
+		try{
+			Checkpoint.write(file, store, snapshot, 0);
+		}finally{
+			snapshot.release();
+		}
+		Checkpoint checkpoint = Checkpoint.open(file);
+		MultiVersionStore restored = new MultiVersionStore();
+		try{
+			assertEquals("Checkpoint has the wrong commit version!", 3, checkpoint.getCommitVersion());
+			checkpoint.restore(restored);
+		}finally{
+			checkpoint.close();
+		}
+		assertEquals("Restored store has the wrong commit version!", 3, restored.getCommittedVersion());
+		assertEquals("Row 1 lost its version in the checkpoint!", 1, get(restored, 1).getVersion());
+		assertNull("Deleted row was restored!", get(restored, 2));
+	}
+	
+	/**
+	 * This method tests that a checkpoint spanning several mapped chunks is
+	 * written to its exact length and restored completely.
+	 */
+	public void testChunkedCheckpoint() throws Exception{
+		TableReference note = new TableReference("Note");
+		Column noteId = new Column(new ColumnReference("Note.id"), Integer.class);
+		Column text = new Column(new ColumnReference("Note.text"), Text.class);
+		Set<Column> noteColumns = new HashSet<Column>();
+		noteColumns.add(noteId);
+		noteColumns.add(text);
+		MultiVersionStore store = new MultiVersionStore();
+		store.createTable(note, noteColumns, noteId);
+		StringBuilder value = new StringBuilder();
+		for(int i = 0; i < 4096; i++){
+			value.append((char) ('a' + i % 26));
+		}
+		int rows = 2 * MappedFile.CHUNK_SIZE / value.length();
+		MultiVersionStore.Write write = store.beginWrite();
+		for(int i = 0; i < rows; i++){
+			Map<Column, Data> values = new HashMap<Column, Data>();
+			values.put(noteId, new Integer(i));
+			values.put(text, new Text(value.toString() + i));
+			write.put(note, new Row(values, noteId));
+		}
+		write.commit();
+		Snapshot snapshot = store.openSnapshot();
+		try{
+			Checkpoint.write(file, store, snapshot, 0);
+		}finally{
+			snapshot.release();
+		}
+		assertTrue("The checkpoint should span several chunks!", file.length() > 2 * MappedFile.CHUNK_SIZE);
+		assertTrue("The checkpoint should not be padded to whole chunks!", file.length() % MappedFile.CHUNK_SIZE != 0);
+		assertFalse("The temporary file should have been moved!", new File(file.getPath()+".tmp").exists());
+		MultiVersionStore restored = new MultiVersionStore();
+		Checkpoint checkpoint = Checkpoint.open(file);
+		try{
+			checkpoint.restore(restored);
+		}finally{
+			checkpoint.close();
+		}
+		Snapshot restoredSnapshot = restored.openSnapshot();
+		try{
+			assertEquals("Rows were lost!", rows, restored.getTable(note).getRows(restoredSnapshot).size());
+			Row last = restored.getTable(note).getRow(rows - 1, restoredSnapshot);
+			assertEquals("The last row was not restored!", new Text(value.toString() + (rows - 1)), last.getColumnValue(text));
+		}finally{
+			restoredSnapshot.release();
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.RangeConstraint;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Boolean;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+public class CompressedTableTest extends TestCase{
+	public Column match;
+	public Column team;
+	public Column score;
+	public Column average;
+	public Column broken;
+	public Column alliance;
+	public List<Row> rows;
+	public CompressedTable table;
+	
+	public CompressedTableTest(){
+		super("CompressedTable");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates two segments of rows shaped like scouting data
+	 * and compresses them.
+	 */
+	public void setUp() throws Exception{
+		match = new Column(new ColumnReference("Match.match"), Integer.class);
+		team = new Column(new ColumnReference("Match.team"), Integer.class);
+		score = new Column(new ColumnReference("Match.score"), Integer.class);
+		average = new Column(new ColumnReference("Match.average"), Real.class);
+		broken = new Column(new ColumnReference("Match.broken"), Boolean.class);
+		alliance = new Column(new ColumnReference("Match.alliance"), Text.class);
+		Set<Column> columns = new HashSet<Column>();
+		columns.add(match);
+		columns.add(team);
+		columns.add(score);
+		columns.add(average);
+		columns.add(broken);
+		columns.add(alliance);
+		int[] teams = {254, 1114, 1816, 2056, 3310, 4451};
+		rows = new ArrayList<Row>();
+		for(int i = 0; i < CompressedTable.SEGMENT_SIZE * 2; i++){
+			Map<Column, Data> values = new HashMap<Column, Data>();
+			values.put(match, new Integer(i + 1));
+			values.put(team, new Integer(teams[i % teams.length]));
+			values.put(score, new Integer(20 + (i * 7) % 40));
+			values.put(average, i % 10 == 0 ? null : new Real((i % 50) / 4.0 - 5));
+			values.put(broken, new Boolean(i % 1000 == 999));
+			values.put(alliance, new Text(i % 2 == 0 ? "red" : "blue"));
+			rows.add(new Row(values, match));
+		}
+		table = CompressedTable.build(new TableReference("Match"), columns, match, rows);
+	}
+	
+	/**
+	 * Returns the rows that satisfy {@code query} without using the encoded data.
+	 */
+	private Set<Row> expected(Query query){
+		Set<Row> result = new HashSet<Row>();
+		for(Row row : rows){
+			if(query.satisfiesQuery(row)){
+				result.add(row);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * This method tests that each column is given the encoding that suits its data.
+	 */
+	public void testEncodingSelection() throws Exception{
+		assertEquals("Match numbers should be delta encoded!", ColumnEncoding.DELTA, table.getEncoding(match, 0));
+		assertEquals("Team numbers should be dictionary encoded!", ColumnEncoding.DICTIONARY, table.getEncoding(team, 0));
+		assertEquals("Scores should be bit-packed!", ColumnEncoding.BIT_PACKED, table.getEncoding(score, 0));
+		assertEquals("Rare booleans should be run-length encoded!", ColumnEncoding.RUN_LENGTH, table.getEncoding(broken, 1));
+		assertTrue("The table should be smaller than its plain values!", table.getEncodedSize() < rows.size() * 6 * 8 / 4);
+	}
+	
+	/**
+	 * This method tests that rows are decoded unchanged.
+	 */
+	public void testDecoding(){
+		assertEquals("The wrong number of rows was stored!", rows.size(), table.getRowCount());
+		assertEquals("Row 1 was not decoded correctly!", rows.get(0), table.getRow(1));
+		assertEquals("Row 5000 was not decoded correctly!", rows.get(4999), table.getRow(5000));
+		assertNull("A missing row should not be found!", table.getRow(0));
+	}
+	
+	/**
+	 * This method tests that constraints evaluated on the encoded data
+	 * select the same rows as {@link Query#satisfiesQuery(Row)}.
+	 */
+	public void testQueries() throws Exception{
+		Query base = new Query("Match");
+		List<Query> queries = new ArrayList<Query>();
+		queries.add(base);
+		queries.add(base.constrain(new EqualsConstraint("Match.team", new Integer(2056))));
+		queries.add(base.constrain(new EqualsConstraint("Match.team", new Integer(9999))));
+		queries.add(base.constrain(new RangeConstraint("Match.match", new Real(4000), false, new Real(4200.5), true)));
+		queries.add(base.constrain(new RangeConstraint("Match.score", new Real(20), false, null, true)));
+		queries.add(base.constrain(new RangeConstraint("Match.average", new Real(0), true, new Real(2.5), false)));
+		queries.add(base.constrain(new EqualsConstraint("Match.average", null)));
+		queries.add(base.constrain(new EqualsConstraint("Match.broken", new Boolean(true))));
+		queries.add(base.constrain(new EqualsConstraint("Match.alliance", new Text("red")))
+				.constrain(new RangeConstraint("Match.score", new Real(50), null)));
+		queries.add(base.constrain(new EqualsConstraint("Match.missing", new Integer(1))));
+		for(Query query : queries){
+			assertEquals("The wrong rows were selected for "+query.getConstraints()+"!", expected(query), table.executeQuery(query));
+		}
+	}
+}
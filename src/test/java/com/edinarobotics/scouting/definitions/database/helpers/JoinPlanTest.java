@@ -0,0 +1,165 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.JoinQuery;
+import com.edinarobotics.scouting.definitions.database.queries.JoinType;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+public class JoinPlanTest extends TestCase{
+	public MultiVersionStore store;
+	public Column matchId;
+	public Column performanceId;
+	public Column performanceMatch;
+	public Column performanceTeam;
+	public Column pitId;
+	public Column pitDrive;
+	
+	public JoinPlanTest(){
+		super("JoinPlan");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates a store with 10 matches, 6 performances in every match
+	 * by 20 teams and pit data for the 10 teams with even numbers.
+	 */
+	public void setUp() throws Exception{
+		store = new MultiVersionStore();
+		matchId = new Column(new ColumnReference("Match.id"), Integer.class);
+		performanceId = new Column(new ColumnReference("Performance.id"), Integer.class);
+		performanceMatch = new Column(new ColumnReference("Performance.match"), Integer.class);
+		performanceTeam = new Column(new ColumnReference("Performance.team"), Integer.class);
+		pitId = new Column(new ColumnReference("Pit.id"), Integer.class);
+		pitDrive = new Column(new ColumnReference("Pit.drive"), Text.class);
+		store.createTable(new TableReference("Match"), columns(matchId), matchId);
+		store.createTable(new TableReference("Performance"), columns(performanceId, performanceMatch, performanceTeam), performanceId);
+		store.createTable(new TableReference("Pit"), columns(pitId, pitDrive), pitId);
+		MultiVersionStore.Write write = store.beginWrite();
+		for(int i = 0; i < 10; i++){
+			write.insert(new TableReference("Match"), row(matchId, matchId, new Integer(i)));
+			for(int j = 0; j < 6; j++){
+				write.insert(new TableReference("Performance"), row(performanceId, performanceId, new Integer(i * 6 + j),
+						performanceMatch, new Integer(i), performanceTeam, new Integer((i * 6 + j) % 20)));
+			}
+		}
+		for(int i = 0; i < 20; i += 2){
+			write.insert(new TableReference("Pit"), row(pitId, pitId, new Integer(i), pitDrive, new Text(i % 4 == 0 ? "tank" : "swerve")));
+		}
+		write.commit();
+	}
+	
+	private static Set<Column> columns(Column... columns){
+		Set<Column> set = new HashSet<Column>();
+		for(Column column : columns){
+			set.add(column);
+		}
+		return set;
+	}
+	
+	private static Row row(Column primaryKey, Object... columnsAndValues) throws Exception{
+		Map<Column, Data> values = new HashMap<Column, Data>();
+		for(int i = 0; i < columnsAndValues.length; i += 2){
+			values.put((Column) columnsAndValues[i], (Data) columnsAndValues[i + 1]);
+		}
+		return new Row(values, primaryKey);
+	}
+	
+	/**
+	 * This method tests a join of three tables with an inner join on a
+	 * non-key column and a left join through the primary key index.
+	 */
+	public void testThreeTableJoin() throws Exception{
+		JoinQuery query = new JoinQuery(new Query("Match"))
+				.join(JoinType.INNER, new Query("Performance"), "Match.id", "Performance.match")
+				.join(JoinType.LEFT, new Query("Pit"), "Performance.team", "Pit.id");
+		Set<Row> rows = store.executeJoin(query);
+		assertEquals("Every performance should be joined once!", 60, rows.size());
+		int withPit = 0;
+		for(Row row : rows){
+			assertEquals("Joined rows should contain every column!", 6, row.getColumns().size());
+			assertEquals("The match of a performance was not joined correctly!", row.getColumnValue(matchId), row.getColumnValue(performanceMatch));
+			Data pit = row.getColumnValue(pitId);
+			if(pit != null){
+				assertEquals("The pit data of a team was not joined correctly!", row.getColumnValue(performanceTeam), pit);
+				withPit++;
+			}
+			else{
+				assertNull("Unmatched rows should have null pit columns!", row.getColumnValue(pitDrive));
+			}
+		}
+		assertEquals("Only teams with pit data should be matched!", 30, withPit);
+		JoinQuery inner = new JoinQuery(new Query("Performance"))
+				.join(JoinType.INNER, new Query("Pit").constrain(new EqualsConstraint("Pit.drive", new Text("tank"))), "Performance.team", "Pit.id");
+		assertEquals("Constraints of joined tables should be applied!", 15, store.executeJoin(inner).size());
+	}
+	
+	/**
+	 * This method tests a left join through the primary key index.
+	 */
+	public void testPrimaryKeyJoin() throws Exception{
+		JoinQuery query = new JoinQuery(new Query("Pit").constrain(new EqualsConstraint("Pit.drive", new Text("tank"))))
+				.join(JoinType.LEFT, new Query("Match"), "Pit.id", "Match.id");
+		Set<Row> rows = store.executeJoin(query);
+		assertEquals("Every pit row should be kept!", 5, rows.size());
+		int matched = 0;
+		for(Row row : rows){
+			if(row.getColumnValue(matchId) != null){
+				assertEquals("The wrong match was looked up!", row.getColumnValue(pitId), row.getColumnValue(matchId));
+				matched++;
+			}
+		}
+		assertEquals("Only existing primary keys should be matched!", 3, matched);
+	}
+	
+	/**
+	 * This method tests that the hash join and the merge join produce
+	 * the same rows.
+	 */
+	public void testOperatorsAgree() throws Exception{
+		Snapshot snapshot = store.openSnapshot();
+		List<Map<Column, Data>> left = new ArrayList<Map<Column, Data>>();
+		for(Row row : store.getTable(new TableReference("Performance")).getRows(snapshot)){
+			left.add(row.getValues());
+		}
+		List<Map<Column, Data>> right = new ArrayList<Map<Column, Data>>();
+		for(Row row : store.getTable(new TableReference("Pit")).getRows(snapshot)){
+			right.add(row.getValues());
+		}
+		snapshot.release();
+		Set<Column> pitColumns = columns(pitId, pitDrive);
+		for(JoinType type : JoinType.values()){
+			List<Map<Column, Data>> hashed = new HashJoin().join(left, performanceTeam, right, pitId, type, pitColumns);
+			List<Map<Column, Data>> merged = new MergeJoin().join(left, performanceTeam, right, pitId, type, pitColumns);
+			assertEquals("The operators should produce the same number of rows!", hashed.size(), merged.size());
+			assertEquals("The operators should produce the same rows!", new HashSet<Map<Column, Data>>(hashed), new HashSet<Map<Column, Data>>(merged));
+		}
+	}
+	
+	/**
+	 * This method tests that joins on missing columns are rejected.
+	 */
+	public void testMissingColumn() throws Exception{
+		JoinQuery query = new JoinQuery(new Query("Match")).join(JoinType.INNER, new Query("Pit"), "Match.team", "Pit.id");
+		try{
+			store.executeJoin(query);
+			fail("A join on a missing column should fail!");
+		}catch(InvalidTargetException e){
+			//Expected.
+		}
+	}
+}
@@ -0,0 +1,308 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.events.KeyValueBatchChangeEvent;
+import com.edinarobotics.scouting.definitions.database.events.KeyValueChangeEvent;
+import com.edinarobotics.scouting.definitions.event.EventListener;
+import com.edinarobotics.scouting.definitions.event.Listener;
+import com.edinarobotics.scouting.definitions.event.helpers.EventFiringManager;
+
+public class KeyValueStoreTest extends TestCase{
+	public File file;
+	
+	public KeyValueStoreTest(){
+		super("KeyValueStore");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It chooses a store file that does not exist yet.
+	 */
+	public void setUp() throws Exception{
+		file = File.createTempFile("kvs", "test");
+		file.delete();
+	}
+	
+	/**
+	 * This method deletes the store file after each test.
+	 */
+	public void tearDown(){
+		file.delete();
+		new File(file.getPath()+".tmp").delete();
+	}
+	
+	/**
+	 * This method tests that NEVER keeps records in the buffer until
+	 * {@link KeyValueStore#sync()} is called.
+	 */
+	public void testBufferedWrites() throws IOException{
+		KeyValueStore store = new KeyValueStore("config", file, SyncPolicy.NEVER);
+		long length = file.length();
+		store.put("a", "1");
+		store.put("b", "2");
+		assertEquals("NEVER should not write records before the buffer is full!", length, file.length());
+		assertTrue("The records should be unsynced!", store.hasUnsyncedWrites());
+		store.sync();
+		assertFalse("sync() should sync every record!", store.hasUnsyncedWrites());
+		assertEquals("sync() should write every record!", store.getFileSize(), file.length());
+		store.close();
+	}
+	
+	/**
+	 * This method tests that a failed sync is reported by every later write,
+	 * sync and close.
+	 */
+	public void testSyncFailure() throws Exception{
+		KeyValueStore store = new KeyValueStore("config", file, SyncPolicy.NEVER);
+		store.put("a", "1");
+		Field logFile = KeyValueStore.class.getDeclaredField("logFile");
+		logFile.setAccessible(true);
+		((FileOutputStream) logFile.get(store)).close();
+		IOException failure = null;
+		try{
+			store.sync();
+			fail("A sync of a closed file should fail!");
+		}catch(IOException e){
+			failure = e;
+		}
+		try{
+			store.put("b", "2");
+			fail("A write after a failed sync should fail!");
+		}catch(IllegalStateException e){
+			assertSame("The write should report the failed sync!", failure, e.getCause().getCause());
+		}
+		assertNull("A failed write should not change the store!", store.get("b"));
+		try{
+			store.close();
+			fail("close() should report the failed sync!");
+		}catch(IOException e){
+			assertSame("close() should report the failed sync!", failure, e.getCause());
+		}
+	}
+	
+	/**
+	 * This method tests that a failed compaction does not fail the write that
+	 * started it.
+	 */
+	public void testFailedCompaction() throws IOException{
+		File temporary = new File(file.getPath()+".tmp");
+		//The temporary file of the compaction cannot be created over a directory.
+		assertTrue("Cannot create the directory!", temporary.mkdir());
+		KeyValueStore store = new KeyValueStore("config", file, SyncPolicy.NEVER);
+		StringBuilder value = new StringBuilder();
+		for(int i = 0; i < 1000; i++){
+			value.append('x');
+		}
+		for(int i = 0; i < 3000; i++){
+			store.put("key"+(i % 10), value.toString() + i);
+		}
+		assertTrue("The file should not have been compacted!", store.getFileSize() > 2 * KeyValueStore.MIN_COMPACTION_SIZE);
+		store.close();
+		temporary.delete();
+		store = new KeyValueStore("config", file, SyncPolicy.NEVER);
+		assertEquals("Writes after a failed compaction were lost!", value.toString() + 2999, store.get("key9"));
+		store.close();
+	}
+	
+	/**
+	 * This method tests that writes survive reopening the store and
+	 * that memory usage is accounted for.
+	 */
+	public void testReopen() throws IOException{
+		KeyValueStore store = new KeyValueStore("config", file, SyncPolicy.ALWAYS);
+		store.put("a", "1");
+		store.put("b", "2");
+		store.put("a", "3");
+		store.remove("b");
+		assertNull("putIfAbsent should add missing keys!", store.putIfAbsent("c", "4"));
+		assertEquals("replace should return the old value!", "4", store.replace("c", "5"));
+		Iterator<Map.Entry<String, String>> iterator = store.entrySet().iterator();
+		while(iterator.hasNext()){
+			Map.Entry<String, String> entry = iterator.next();
+			if(entry.getKey().equals("c")){
+				entry.setValue("6");
+			}
+		}
+		long memory = store.getMemoryUsage();
+		assertEquals("Memory usage was not accounted correctly!", 2 * KeyValueStore.ENTRY_OVERHEAD + 8, memory);
+		store.close();
+		store = new KeyValueStore("config", file, SyncPolicy.ALWAYS);
+		assertEquals("The wrong number of entries was replayed!", 2, store.size());
+		assertEquals("An overwritten value was not replayed!", "3", store.get("a"));
+		assertEquals("An entry set value was not replayed!", "6", store.get("c"));
+		assertEquals("Memory usage should be restored!", memory, store.getMemoryUsage());
+		store.close();
+		try{
+			store.put("d", "7");
+			fail("A closed store should reject writes!");
+		}catch(IllegalStateException e){
+			//Expected.
+		}
+	}
+	
+	/**
+	 * This method tests that an incomplete record at the end of the file
+	 * is discarded.
+	 */
+	public void testTornRecordIsDiscarded() throws IOException{
+		KeyValueStore store = new KeyValueStore("config", file, SyncPolicy.NEVER);
+		store.put("a", "1");
+		store.put("b", "2");
+		store.close();
+		RandomAccessFile raw = new RandomAccessFile(file, "rw");
+		raw.setLength(raw.length() - 1);
+		raw.close();
+		store = new KeyValueStore("config", file, SyncPolicy.NEVER);
+		assertEquals("The torn record should be discarded!", 1, store.size());
+		store.put("c", "3");
+		store.close();
+		store = new KeyValueStore("config", file, SyncPolicy.NEVER);
+		assertEquals("Records after a torn record should be kept!", "3", store.get("c"));
+		store.close();
+	}
+	
+	/**
+	 * This method tests that a file of overwritten records is compacted.
+	 */
+	public void testCompaction() throws IOException{
+		KeyValueStore store = new KeyValueStore("config", file, SyncPolicy.NEVER);
+		StringBuilder value = new StringBuilder();
+		for(int i = 0; i < 1000; i++){
+			value.append('x');
+		}
+		for(int i = 0; i < 3000; i++){
+			store.put("key"+(i % 10), value.toString() + i);
+		}
+		assertTrue("The file should have been compacted!", store.getFileSize() < KeyValueStore.MIN_COMPACTION_SIZE + 2000);
+		assertFalse("The temporary file should have been moved over the store file!", new File(file.getPath()+".tmp").exists());
+		store.close();
+		store = new KeyValueStore("config", file, SyncPolicy.NEVER);
+		assertEquals("Compaction lost entries!", 10, store.size());
+		assertEquals("Compaction kept an old value!", value.toString() + 2999, store.get("key9"));
+		store.close();
+	}
+	
+	/**
+	 * This method tests that INTERVAL syncs writes after the interval even if
+	 * no later write arrives, and that its sync thread is stopped by close().
+	 */
+	public void testIntervalSync() throws Exception{
+		KeyValueStore store = new KeyValueStore("interval", file, SyncPolicy.INTERVAL, 20);
+		store.put("a", "1");
+		long deadline = System.currentTimeMillis() + 5000;
+		while(store.hasUnsyncedWrites() && System.currentTimeMillis() < deadline){
+			Thread.sleep(5);
+		}
+		assertFalse("INTERVAL should sync writes after the interval without a later write!", store.hasUnsyncedWrites());
+		store.close();
+		//The thread may take a moment to exit after its last task.
+		deadline = System.currentTimeMillis() + 1000;
+		while(isThreadAlive("kvs-flusher-interval") && System.currentTimeMillis() < deadline){
+			Thread.sleep(5);
+		}
+		assertFalse("close() should stop the sync thread!", isThreadAlive("kvs-flusher-interval"));
+	}
+	
+	/**
+	 * Checks whether a thread with the given name is alive.
+	 * @param name The name of the thread.
+	 * @return {@code true} if a live thread has the name.
+	 */
+	private boolean isThreadAlive(String name){
+		for(Thread thread : Thread.getAllStackTraces().keySet()){
+			if(thread.getName().equals(name) && thread.isAlive()){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * This method tests concurrent writes of the same keys.
+	 */
+	public void testConcurrentWrites() throws Exception{
+		final KeyValueStore store = new KeyValueStore("config", file, SyncPolicy.NEVER);
+		Thread[] threads = new Thread[8];
+		for(int t = 0; t < threads.length; t++){
+			final int thread = t;
+			threads[t] = new Thread(){
+				public void run(){
+					for(int i = 0; i < 2000; i++){
+						store.put("key"+(i % 50), thread+":"+i);
+						store.remove("key"+((i + 25) % 50), "none");
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads){
+			thread.join();
+		}
+		Map<String, String> expected = new HashMap<String, String>(store);
+		store.close();
+		KeyValueStore reopened = new KeyValueStore("config", file, SyncPolicy.NEVER);
+		assertEquals("The file does not match the entries in memory!", expected, reopened);
+		reopened.close();
+	}
+	
+	/**
+	 * This method tests that single writes fire one entry event each and that
+	 * {@link KeyValueStore#putAll(Map)} fires a single batch event.
+	 */
+	public void testChangeEvents() throws Exception{
+		KeyValueStore store = new KeyValueStore("config");
+		EventFiringManager manager = new EventFiringManager();
+		ChangeRecorder recorder = new ChangeRecorder();
+		manager.registerEvents(recorder);
+		store.setEventFiringManager(manager);
+		store.put("a", "1");
+		store.put("a", "1");
+		Map<String, String> bulk = new HashMap<String, String>();
+		for(int i = 0; i < 1000; i++){
+			bulk.put("key"+i, Integer.toString(i));
+		}
+		store.putAll(bulk);
+		store.remove("a");
+		assertTrue("Not all events were delivered!", recorder.latch.await(5, TimeUnit.SECONDS));
+		Thread.sleep(50);
+		assertEquals("Unchanged values should fire no events!", 3, recorder.events.size());
+		int batches = 0;
+		for(KeyValueChangeEvent event : recorder.events){
+			assertEquals("The event has the wrong store name!", "config", event.getStoreName());
+			if(event instanceof KeyValueBatchChangeEvent){
+				batches++;
+				assertEquals("The batch is missing changes!", 1000, ((KeyValueBatchChangeEvent) event).size());
+				assertEquals("The batch has the wrong value!", "7", event.getNewValue("key7"));
+				assertNull("An added key should have no previous value!", event.getPreviousValue("key7"));
+			}
+		}
+		assertEquals("putAll should fire exactly one batch event!", 1, batches);
+	}
+	
+	/**
+	 * A {@link Listener} recording every {@link KeyValueChangeEvent}.
+	 */
+	public static class ChangeRecorder implements Listener{
+		public List<KeyValueChangeEvent> events = Collections.synchronizedList(new ArrayList<KeyValueChangeEvent>());
+		public CountDownLatch latch = new CountDownLatch(3);
+		
+		@EventListener
+		public void onChange(KeyValueChangeEvent event){
+			events.add(event);
+			latch.countDown();
+		}
+	}
+}
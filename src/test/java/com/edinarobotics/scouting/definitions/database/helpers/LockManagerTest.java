@@ -0,0 +1,316 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.changes.BulkRowInsertionChange;
+import com.edinarobotics.scouting.definitions.database.changes.EntryEditChange;
+import com.edinarobotics.scouting.definitions.database.changes.RowInsertionChange;
+import com.edinarobotics.scouting.definitions.database.changes.Transaction;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.RowReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+
+public class LockManagerTest extends TestCase{
+	public LockManager manager;
+	public ExecutorService executor;
+	public TableReference first;
+	public TableReference second;
+	
+	public LockManagerTest(){
+		super("LockManager");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates a LockManager and two tables that use different stripes.
+	 */
+	public void setUp() throws Exception{
+		manager = new LockManager();
+		executor = Executors.newCachedThreadPool();
+		first = new TableReference("Match");
+		int i = 0;
+		do{
+			second = new TableReference("Team"+i++);
+		}while(manager.getTableStripe(second) == manager.getTableStripe(first));
+		//The second table must come first in the global lock order.
+		if(manager.getTableStripe(second) > manager.getTableStripe(first)){
+			TableReference swap = first;
+			first = second;
+			second = swap;
+		}
+	}
+	
+	/**
+	 * This method stops the threads used by a test.
+	 */
+	public void tearDown(){
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Creates a LockSet locking a single table.
+	 * @param tableRef The table to be locked.
+	 * @param mode The LockMode of the lock.
+	 * @return The new LockSet.
+	 */
+	private LockSet lockTable(TableReference tableRef, LockMode mode){
+		LockSet locks = manager.newLockSet();
+		locks.addTable(tableRef, mode);
+		return locks;
+	}
+	
+	/**
+	 * Tries to acquire a LockSet on another thread and releases it again.
+	 * @param locks The LockSet to be acquired.
+	 * @param timeout The time to wait in milliseconds.
+	 * @return {@code true} if the LockSet could be acquired.
+	 */
+	private boolean tryOnOtherThread(final LockSet locks, final long timeout) throws Exception{
+		return executor.submit(new Callable<java.lang.Boolean>(){
+			public java.lang.Boolean call() throws Exception{
+				if(!locks.tryAcquire(timeout, TimeUnit.MILLISECONDS)){
+					return false;
+				}
+				locks.release();
+				return true;
+			}
+		}).get();
+	}
+	
+	/**
+	 * This method tests that shared locks on the same table coexist.
+	 */
+	public void testSharedLocks() throws Exception{
+		LockSet held = lockTable(first, LockMode.SHARED);
+		held.acquire();
+		try{
+			assertTrue("Shared locks should coexist!", tryOnOtherThread(lockTable(first, LockMode.SHARED), 1000));
+			assertFalse("A shared lock should exclude an exclusive lock!", tryOnOtherThread(lockTable(first, LockMode.EXCLUSIVE), 50));
+		}finally{
+			held.release();
+		}
+		assertFalse("A released LockSet should not be held!", held.isHeld());
+	}
+	
+	/**
+	 * This method tests that exclusive locks exclude every other lock
+	 * of the same table, but not locks of other tables.
+	 */
+	public void testExclusiveLocks() throws Exception{
+		LockSet held = lockTable(first, LockMode.EXCLUSIVE);
+		held.acquire();
+		try{
+			assertTrue("The LockSet should be held!", held.isHeld());
+			assertFalse("Exclusive locks should exclude each other!", tryOnOtherThread(lockTable(first, LockMode.EXCLUSIVE), 50));
+			assertFalse("An exclusive lock should exclude a shared lock!", tryOnOtherThread(lockTable(first, LockMode.SHARED), 50));
+			assertTrue("Locks of another table should not be excluded!", tryOnOtherThread(lockTable(second, LockMode.EXCLUSIVE), 1000));
+		}finally{
+			held.release();
+		}
+		assertTrue("A released lock should be available!", tryOnOtherThread(lockTable(first, LockMode.EXCLUSIVE), 1000));
+	}
+	
+	/**
+	 * This method tests that a table added more than once
+	 * is locked in the strongest requested mode.
+	 */
+	public void testStrongestMode() throws Exception{
+		LockSet held = manager.newLockSet();
+		held.addTable(first, LockMode.EXCLUSIVE);
+		held.addTable(first, LockMode.SHARED);
+		held.acquire();
+		try{
+			assertFalse("A table added in both modes should be locked exclusively!", tryOnOtherThread(lockTable(first, LockMode.SHARED), 50));
+			try{
+				held.addTable(second, LockMode.SHARED);
+				fail("A held LockSet should not accept new locks!");
+			}catch(IllegalStateException e){
+				//Expected.
+			}
+		}finally{
+			held.release();
+		}
+	}
+	
+	/**
+	 * This method tests that the LockSets of transactions editing different
+	 * rows of a table coexist and those editing the same row exclude each other.
+	 */
+	public void testTransactionLocks() throws Exception{
+		Transaction row = edit(1);
+		Transaction other;
+		int i = 2;
+		do{
+			other = edit(i++);
+		}while(manager.getRowStripe(target(other)) == manager.getRowStripe(target(row)));
+		LockSet held = manager.getLockSet(row);
+		held.acquire();
+		try{
+			assertTrue("Edits of different rows should coexist!", tryOnOtherThread(manager.getLockSet(other), 1000));
+			assertFalse("Edits of the same row should exclude each other!", tryOnOtherThread(manager.getLockSet(edit(1)), 50));
+			assertFalse("A row edit should exclude table changes!", tryOnOtherThread(lockTable(new TableReference("Match"), LockMode.EXCLUSIVE), 50));
+		}finally{
+			held.release();
+		}
+	}
+	
+	/**
+	 * Creates a Transaction editing a single entry of the Match table.
+	 * @param key The primary key of the row to be edited.
+	 * @return The new Transaction.
+	 */
+	private Transaction edit(int key) throws Exception{
+		Transaction transaction = new Transaction();
+		transaction.add(new EntryEditChange("Match.score#"+key, new Integer(1)));
+		return transaction;
+	}
+	
+	/**
+	 * Returns the row edited by a Transaction created by {@link #edit(int)}.
+	 * @param transaction The Transaction.
+	 * @return The RowReference of the edited row.
+	 */
+	private RowReference target(Transaction transaction){
+		return ((EntryEditChange) transaction.getChanges().get(0)).getTargetRowReference();
+	}
+	
+	/**
+	 * Creates a Transaction inserting a single row into the Match table.
+	 * @param key The primary key of the row to be inserted.
+	 * @return The new Transaction.
+	 */
+	private Transaction insert(int key) throws Exception{
+		Map<String, Data> values = new HashMap<String, Data>();
+		values.put("id", new Integer(key));
+		values.put("score", new Integer(0));
+		Transaction transaction = new Transaction();
+		transaction.add(new RowInsertionChange(new TableReference("Match"), values));
+		return transaction;
+	}
+	
+	/**
+	 * This method tests that insertions of the same primary key value exclude
+	 * each other and edits of that row, that insertions of other rows coexist,
+	 * and that bulk insertions lock their rows like single insertions.
+	 */
+	public void testInsertionLocks() throws Exception{
+		TableReference match = new TableReference("Match");
+		Map<TableReference, ColumnReference> primaryKeys = new HashMap<TableReference, ColumnReference>();
+		primaryKeys.put(match, new ColumnReference("Match.id"));
+		assertEquals("Row stripes should not depend on how the row is named!",
+				manager.getRowStripe(new RowReference("Match#-7")), manager.getRowStripe(match, -7));
+		int other = 2;
+		while(manager.getRowStripe(match, other) == manager.getRowStripe(match, 1)){
+			other++;
+		}
+		LockSet held = manager.getLockSet(insert(1), primaryKeys);
+		held.acquire();
+		try{
+			assertFalse("Insertions of the same row should exclude each other!", tryOnOtherThread(manager.getLockSet(insert(1), primaryKeys), 50));
+			assertFalse("An insertion should exclude edits of its row!", tryOnOtherThread(manager.getLockSet(edit(1), primaryKeys), 50));
+			assertTrue("Insertions of different rows should coexist!", tryOnOtherThread(manager.getLockSet(insert(other), primaryKeys), 1000));
+			List<List<Data>> columns = new ArrayList<List<Data>>();
+			columns.add(Arrays.<Data>asList(new Integer(other), new Integer(1)));
+			columns.add(Arrays.<Data>asList(new Integer(0), new Integer(0)));
+			Transaction bulk = new Transaction();
+			bulk.add(new BulkRowInsertionChange(match, Arrays.asList("id", "score"), columns));
+			assertFalse("A bulk insertion should lock each of its rows!", tryOnOtherThread(manager.getLockSet(bulk, primaryKeys), 50));
+			columns.set(0, Arrays.<Data>asList(new Integer(other), new Integer(other)));
+			bulk = new Transaction();
+			bulk.add(new BulkRowInsertionChange(match, Arrays.asList("id", "score"), columns));
+			assertTrue("A bulk insertion of other rows should coexist!", tryOnOtherThread(manager.getLockSet(bulk, primaryKeys), 1000));
+			assertFalse("Without primary key columns an insertion should lock its table!", tryOnOtherThread(manager.getLockSet(insert(other)), 50));
+		}finally{
+			held.release();
+		}
+	}
+	
+	/**
+	 * This method tests that stripes are acquired in ascending order whatever
+	 * the order in which they were added to a LockSet.
+	 */
+	public void testAcquisitionOrder() throws Exception{
+		//second comes first in the global order but is added last.
+		final LockSet both = manager.newLockSet();
+		both.addTable(first, LockMode.EXCLUSIVE);
+		both.addTable(second, LockMode.EXCLUSIVE);
+		LockSet blocker = lockTable(first, LockMode.EXCLUSIVE);
+		blocker.acquire();
+		try{
+			Thread waiter = new Thread(new Runnable(){
+				public void run(){
+					try{
+						both.acquire();
+						both.release();
+					}catch(InterruptedException e){
+						//The test is over.
+					}
+				}
+			});
+			waiter.start();
+			long deadline = System.currentTimeMillis() + 5000;
+			boolean secondTaken = false;
+			while(!secondTaken && System.currentTimeMillis() < deadline){
+				secondTaken = !tryOnOtherThread(lockTable(second, LockMode.SHARED), 10);
+			}
+			assertTrue("The first stripe in the global order was not acquired first!", secondTaken);
+			blocker.release();
+			waiter.join(5000);
+			assertFalse("The waiting LockSet was not acquired!", waiter.isAlive());
+		}finally{
+			blocker.release();
+		}
+	}
+	
+	/**
+	 * This method tests that LockSets adding the same tables in opposite
+	 * orders do not deadlock.
+	 */
+	public void testNoDeadlock() throws Exception{
+		final AtomicInteger acquired = new AtomicInteger();
+		Thread[] threads = new Thread[4];
+		for(int t = 0; t < threads.length; t++){
+			final boolean reversed = t % 2 == 0;
+			threads[t] = new Thread(new Runnable(){
+				public void run(){
+					try{
+						for(int i = 0; i < 1000; i++){
+							LockSet locks = manager.newLockSet();
+							locks.addTable(reversed ? second : first, LockMode.EXCLUSIVE);
+							locks.addTable(reversed ? first : second, LockMode.EXCLUSIVE);
+							locks.acquire();
+							try{
+								acquired.incrementAndGet();
+							}finally{
+								locks.release();
+							}
+						}
+					}catch(InterruptedException e){
+						//The test is over.
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for(Thread thread : threads){
+			thread.join(10000);
+		}
+		for(Thread thread : threads){
+			if(thread.isAlive()){
+				thread.interrupt();
+			}
+		}
+		assertEquals("LockSets deadlocked!", 4000, acquired.get());
+	}
+}
@@ -0,0 +1,167 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.InvalidTargetException;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.RangeConstraint;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+import com.edinarobotics.scouting.definitions.database.types.Text;
+
+public class MappedColumnTableTest extends TestCase{
+	public File directory;
+	public TableReference match;
+	public Column id;
+	public Column score;
+	public Column team;
+	public Set<Column> columns;
+	
+	public MappedColumnTableTest(){
+		super("MappedColumnTable");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It chooses a table directory that does not exist yet
+	 * and creates the schema of the Match table.
+	 */
+	public void setUp() throws Exception{
+		directory = File.createTempFile("mapped", "test");
+		directory.delete();
+		match = new TableReference("Match");
+		id = new Column(new ColumnReference("Match.id"), Integer.class);
+		score = new Column(new ColumnReference("Match.score"), Integer.class);
+		team = new Column(new ColumnReference("Match.team"), Text.class);
+		columns = new HashSet<Column>();
+		columns.add(id);
+		columns.add(score);
+		columns.add(team);
+	}
+	
+	/**
+	 * This method deletes the table directory after each test.
+	 */
+	public void tearDown(){
+		File[] files = directory.listFiles();
+		if(files != null){
+			for(File file : files){
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+	
+	/**
+	 * Creates a row of the Match table.
+	 * @param key The id of the row.
+	 * @param value The score of the row.
+	 * @return The new Row.
+	 */
+	private Row row(int key, int value) throws Exception{
+		Map<Column, Data> values = new HashMap<Column, Data>();
+		values.put(id, new Integer(key));
+		values.put(score, new Integer(value));
+		values.put(team, new Text("Team "+(key % 10)));
+		return new Row(values, id);
+	}
+	
+	/**
+	 * This method tests that rows can be inserted, read, updated and deleted
+	 * by primary key and that duplicate primary keys are rejected.
+	 */
+	public void testRowOperations() throws Exception{
+		MappedColumnTable table = MappedColumnTable.create(directory, match, columns, id);
+		try{
+			for(int i = 0; i < 5000; i++){
+				table.insert(row(i, i % 100));
+			}
+			assertEquals("The wrong number of row slots was used!", 5000, table.getRowCount());
+			assertEquals("An inserted row was not found!", row(1234, 34), table.getRow(1234));
+			assertNull("A missing row was found!", table.getRow(5000));
+			try{
+				table.insert(row(1234, 0));
+				fail("A duplicate primary key should be rejected!");
+			}catch(InvalidTargetException e){
+				//Expected.
+			}
+			table.update(1234, score, new Integer(99));
+			assertEquals("An updated value was not read back!", new Integer(99), table.getRow(1234).getColumnValue(score));
+			assertTrue("An existing row was not deleted!", table.delete(1234));
+			assertFalse("A deleted row was deleted again!", table.delete(1234));
+			assertNull("A deleted row was found!", table.getRow(1234));
+			try{
+				table.update(1234, score, new Integer(1));
+				fail("A deleted row should not be updated!");
+			}catch(InvalidTargetException e){
+				//Expected.
+			}
+			table.insert(row(1234, 7));
+			assertEquals("A reinserted row should use a new slot!", 5001, table.getRowCount());
+			assertEquals("A reinserted row was not found!", row(1234, 7), table.getRow(1234));
+		}finally{
+			table.close();
+		}
+	}
+	
+	/**
+	 * This method tests that the primary key index and zone maps are rebuilt
+	 * when a table is opened again.
+	 */
+	public void testReopen() throws Exception{
+		MappedColumnTable table = MappedColumnTable.create(directory, match, columns, id);
+		for(int i = 0; i < 3000; i++){
+			table.insert(row(i, i));
+		}
+		table.delete(10);
+		table.delete(2000);
+		table.insert(row(10, 5));
+		table.close();
+		table = MappedColumnTable.open(directory);
+		try{
+			assertEquals("The row count was not restored!", 3001, table.getRowCount());
+			assertEquals("A row was not found after reopening!", row(2999, 2999), table.getRow(2999));
+			assertEquals("A reinserted row was not found after reopening!", row(10, 5), table.getRow(10));
+			assertNull("A deleted row was found after reopening!", table.getRow(2000));
+			Query query = new Query(match).constrain(new RangeConstraint("Match.score", new Real(1995), true, new Real(2005), false));
+			Set<Row> expected = new HashSet<Row>();
+			for(int i = 1995; i < 2005; i++){
+				if(i != 2000){
+					expected.add(row(i, i));
+				}
+			}
+			assertEquals("The query returned the wrong rows after reopening!", expected, table.executeQuery(query));
+			table.insert(row(3000, 1));
+			assertEquals("A row inserted after reopening was not found!", row(3000, 1), table.getRow(3000));
+		}finally{
+			table.close();
+		}
+	}
+	
+	/**
+	 * This method tests that the files of a small table stay
+	 * much smaller than a mapped chunk.
+	 */
+	public void testSmallFiles() throws Exception{
+		MappedColumnTable table = MappedColumnTable.create(directory, match, columns, id);
+		try{
+			for(int i = 0; i < 10; i++){
+				table.insert(row(i, i));
+			}
+		}finally{
+			table.close();
+		}
+		for(File file : directory.listFiles()){
+			assertTrue("The file "+file.getName()+" of a small table is too large!", file.length() <= MappedFile.MIN_CAPACITY);
+		}
+	}
+}
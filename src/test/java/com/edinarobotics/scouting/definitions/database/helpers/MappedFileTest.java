@@ -0,0 +1,98 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import junit.framework.TestCase;
+
+public class MappedFileTest extends TestCase{
+	public File file;
+	
+	public MappedFileTest(){
+		super("MappedFile");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It chooses a file that does not exist yet.
+	 */
+	public void setUp() throws Exception{
+		file = File.createTempFile("mapped", "test");
+		file.delete();
+	}
+	
+	/**
+	 * This method deletes the mapped file after each test.
+	 */
+	public void tearDown(){
+		file.delete();
+	}
+	
+	/**
+	 * This method tests that a small file starts at {@link MappedFile#MIN_CAPACITY}
+	 * bytes and doubles in size instead of growing by a whole chunk.
+	 */
+	public void testSmallGrowth() throws IOException{
+		MappedFile mapped = new MappedFile(file);
+		try{
+			assertEquals("A new file should be empty!", 0, mapped.getCapacity());
+			mapped.putLong(0, 42);
+			assertEquals("A small file should start at the minimum capacity!", MappedFile.MIN_CAPACITY, mapped.getCapacity());
+			assertEquals("The file length should match the capacity!", MappedFile.MIN_CAPACITY, file.length());
+			mapped.putLong(MappedFile.MIN_CAPACITY, 43);
+			assertEquals("A small file should double in size!", 2 * MappedFile.MIN_CAPACITY, mapped.getCapacity());
+			mapped.putByte(5 * MappedFile.MIN_CAPACITY, (byte) 1);
+			assertEquals("A small file should double until it fits!", 8 * MappedFile.MIN_CAPACITY, mapped.getCapacity());
+			assertEquals("A value was lost when the last chunk was remapped!", 42, mapped.getLong(0));
+			assertEquals("A value was lost when the last chunk was remapped!", 43, mapped.getLong(MappedFile.MIN_CAPACITY));
+			assertEquals("New bytes should be zero!", 0, mapped.getLong(2 * MappedFile.MIN_CAPACITY));
+		}finally{
+			mapped.close();
+		}
+	}
+	
+	/**
+	 * This method tests that a file larger than a chunk grows in whole chunks
+	 * and that byte arrays can cross chunk boundaries.
+	 */
+	public void testChunkGrowth() throws IOException{
+		MappedFile mapped = new MappedFile(file);
+		try{
+			byte[] bytes = new byte[1000];
+			for(int i = 0; i < bytes.length; i++){
+				bytes[i] = (byte) i;
+			}
+			long position = MappedFile.CHUNK_SIZE - 500;
+			mapped.putBytes(position, bytes);
+			assertEquals("A file larger than a chunk should grow in whole chunks!", 2L * MappedFile.CHUNK_SIZE, mapped.getCapacity());
+			assertTrue("Bytes crossing a chunk boundary were not read back!", Arrays.equals(bytes, mapped.getBytes(position, bytes.length)));
+			mapped.putLong(2L * MappedFile.CHUNK_SIZE, 7);
+			assertEquals("A file larger than a chunk should grow by one chunk!", 3L * MappedFile.CHUNK_SIZE, mapped.getCapacity());
+			assertEquals("A value in a new chunk was not read back!", 7, mapped.getLong(2L * MappedFile.CHUNK_SIZE));
+		}finally{
+			mapped.close();
+		}
+	}
+	
+	/**
+	 * This method tests that the contents and capacity of a file are
+	 * restored when it is opened again.
+	 */
+	public void testReopen() throws IOException{
+		MappedFile mapped = new MappedFile(file);
+		mapped.putLong(8, 12345);
+		mapped.putBytes(100, new byte[]{1, 2, 3});
+		mapped.close();
+		mapped = new MappedFile(file);
+		try{
+			assertEquals("The capacity was not restored!", MappedFile.MIN_CAPACITY, mapped.getCapacity());
+			assertEquals("A long value was not restored!", 12345, mapped.getLong(8));
+			assertTrue("Bytes were not restored!", Arrays.equals(new byte[]{1, 2, 3}, mapped.getBytes(100, 3)));
+			mapped.putLong(MappedFile.MIN_CAPACITY, 1);
+			assertEquals("A reopened file should keep growing!", 2 * MappedFile.MIN_CAPACITY, mapped.getCapacity());
+			assertEquals("A value was lost when the reopened file grew!", 12345, mapped.getLong(8));
+		}finally{
+			mapped.close();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+public class MappedKeyIndexTest extends TestCase{
+	public File directory;
+	
+	public MappedKeyIndexTest(){
+		super("MappedKeyIndex");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates an empty directory for the index files.
+	 */
+	public void setUp() throws Exception{
+		directory = File.createTempFile("keys", "test");
+		directory.delete();
+		directory.mkdirs();
+	}
+	
+	/**
+	 * This method deletes the index directory after each test.
+	 */
+	public void tearDown(){
+		File[] files = directory.listFiles();
+		if(files != null){
+			for(File file : files){
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+	
+	/**
+	 * This method tests that keys are found after the hash table has grown
+	 * several times and that only the current index file is kept.
+	 */
+	public void testGrowth() throws IOException{
+		MappedKeyIndex index = new MappedKeyIndex(directory, "keys", 0);
+		try{
+			for(int i = 0; i < 10000; i++){
+				index.put(i * 7919L - 5000000L, i);
+			}
+			assertEquals("Every key should be counted once!", 10000, index.size());
+			for(int i = 0; i < 10000; i++){
+				assertEquals("A key was lost while the index grew!", i, index.get(i * 7919L - 5000000L));
+			}
+			assertEquals("A missing key was found!", -1, index.get(1));
+			assertEquals("Only one index file should be kept!", 1, directory.listFiles().length);
+		}finally{
+			index.close();
+		}
+		assertEquals("close() should delete the index file!", 0, directory.listFiles().length);
+	}
+	
+	/**
+	 * This method tests that putting a key again replaces its slot.
+	 */
+	public void testReplace() throws IOException{
+		MappedKeyIndex index = new MappedKeyIndex(directory, "keys", 10);
+		try{
+			index.put(Long.MIN_VALUE, 0);
+			index.put(0, 1);
+			index.put(Long.MIN_VALUE, 2);
+			assertEquals("A replaced key should not be counted again!", 2, index.size());
+			assertEquals("The slot was not replaced!", 2, index.get(Long.MIN_VALUE));
+			assertEquals("Key 0 should not be mistaken for an empty entry!", 1, index.get(0));
+		}finally{
+			index.close();
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+
+public class MultiVersionStoreTest extends TestCase{
+	public MultiVersionStore store;
+	public TableReference match;
+	public Column id;
+	public Column score;
+	
+	public MultiVersionStoreTest(){
+		super("MultiVersionStore");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates a MultiVersionStore containing an empty Match table.
+	 */
+	public void setUp() throws Exception{
+		store = new MultiVersionStore();
+		match = new TableReference("Match");
+		id = new Column(new ColumnReference("Match.id"), Integer.class);
+		score = new Column(new ColumnReference("Match.score"), Integer.class);
+		Set<Column> columns = new HashSet<Column>();
+		columns.add(id);
+		columns.add(score);
+		store.createTable(match, columns, id);
+	}
+	
+	/**
+	 * Creates a row of the Match table.
+	 * @param key The id of the row.
+	 * @param value The score of the row.
+	 * @return The new Row.
+	 */
+	private Row row(int key, int value) throws Exception{
+		Map<Column, Data> values = new HashMap<Column, Data>();
+		values.put(id, new Integer(key));
+		values.put(score, new Integer(value));
+		return new Row(values, id);
+	}
+	
+	/**
+	 * Commits a single row in its own {@link MultiVersionStore.Write}.
+	 * @param row The Row to be written.
+	 * @return The commit version of the Write.
+	 */
+	private long put(Row row) throws Exception{
+		MultiVersionStore.Write write = store.beginWrite();
+		write.put(match, row);
+		return write.commit();
+	}
+	
+	/**
+	 * Reads the score of a row through a Snapshot.
+	 * @param key The id of the row.
+	 * @param snapshot The Snapshot through which the row is read.
+	 * @return The score or {@code null} if the row is not visible.
+	 */
+	private Data score(long key, Snapshot snapshot) throws Exception{
+		Row row = store.getTable(match).getRow(key, snapshot);
+		return row == null ? null : row.getColumnValue(score);
+	}
+	
+	/**
+	 * This method tests that a Snapshot keeps seeing the store as it was
+	 * when it was opened while a writer commits on another thread.
+	 */
+	public void testSnapshotStability() throws Exception{
+		put(row(1, 42));
+		Snapshot snapshot = store.openSnapshot();
+		final Throwable[] failure = new Throwable[1];
+		Thread writer = new Thread(new Runnable(){
+			public void run(){
+				try{
+					for(int i = 0; i < 500; i++){
+						MultiVersionStore.Write write = store.beginWrite();
+						write.put(match, row(1, i));
+						write.put(match, row(i + 2, i));
+						write.commit();
+					}
+				}catch(Throwable e){
+					failure[0] = e;
+				}
+			}
+		});
+		writer.start();
+		try{
+			while(writer.isAlive()){
+				assertEquals("A snapshot saw a later commit!", new Integer(42), score(1, snapshot));
+				assertEquals("A snapshot saw rows inserted later!", 1, store.getTable(match).getRows(snapshot).size());
+			}
+			writer.join();
+			assertNull("The writer failed!", failure[0]);
+			assertEquals("A snapshot saw a later commit!", new Integer(42), score(1, snapshot));
+			assertEquals("A snapshot saw rows inserted later!", 1, store.getTable(match).getRows(snapshot).size());
+			assertEquals("The snapshot version changed!", 1, snapshot.getVersion());
+		}finally{
+			snapshot.release();
+		}
+		Snapshot latest = store.openSnapshot();
+		try{
+			assertEquals("A new snapshot did not see the latest commit!", new Integer(499), score(1, latest));
+			assertEquals("A new snapshot did not see every row!", 501, store.getTable(match).getRows(latest).size());
+		}finally{
+			latest.release();
+		}
+	}
+	
+	/**
+	 * This method tests that garbage collection discards only the row versions
+	 * that no open Snapshot can see.
+	 */
+	public void testGarbageCollection() throws Exception{
+		put(row(1, 1));
+		put(row(2, 1));
+		Snapshot first = store.openSnapshot();
+		put(row(1, 2));
+		Snapshot second = store.openSnapshot();
+		put(row(1, 3));
+		put(row(1, 4));
+		MultiVersionStore.Write write = store.beginWrite();
+		write.delete(match, 2);
+		write.commit();
+		assertEquals("Versions visible to the oldest snapshot were discarded!", 0, store.collectGarbage());
+		assertEquals("The oldest snapshot lost its row!", new Integer(1), score(1, first));
+		assertEquals("The oldest snapshot lost a deleted row!", new Integer(1), score(2, first));
+		first.release();
+		//Row 1 version 1 is hidden behind version 2, which the second snapshot sees.
+		assertEquals("The wrong number of versions was discarded!", 1, store.collectGarbage());
+		assertEquals("The second snapshot lost its row!", new Integer(2), score(1, second));
+		assertEquals("The second snapshot lost a deleted row!", new Integer(1), score(2, second));
+		second.release();
+		//Row 1 versions 2 and 3, row 2 version 2 and the deletion of row 2.
+		assertEquals("The wrong number of versions was discarded!", 4, store.collectGarbage());
+		Snapshot latest = store.openSnapshot();
+		try{
+			assertEquals("The latest version was discarded!", new Integer(4), score(1, latest));
+			assertNull("A deleted row is visible!", score(2, latest));
+			assertEquals("Nothing should be left to discard!", 0, store.collectGarbage());
+		}finally{
+			latest.release();
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.JoinQuery;
+import com.edinarobotics.scouting.definitions.database.queries.JoinType;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.RangeConstraint;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+
+public class QueryPlannerTest extends TestCase{
+	public MultiVersionStore store;
+	public TableReference matches;
+	public TableReference teams;
+	public Column id;
+	public Column team;
+	public Column score;
+	public Column teamId;
+	
+	public QueryPlannerTest(){
+		super("QueryPlanner");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates a Match table of 1000 rows played by 50 teams with scores
+	 * from 0 to 99 and a Team table of the 50 teams.
+	 */
+	public void setUp() throws Exception{
+		store = new MultiVersionStore();
+		matches = new TableReference("Match");
+		teams = new TableReference("Team");
+		id = new Column(new ColumnReference("Match.id"), Integer.class);
+		team = new Column(new ColumnReference("Match.team"), Integer.class);
+		score = new Column(new ColumnReference("Match.score"), Integer.class);
+		teamId = new Column(new ColumnReference("Team.id"), Integer.class);
+		Set<Column> columns = new HashSet<Column>();
+		columns.add(id);
+		columns.add(team);
+		columns.add(score);
+		store.createTable(matches, columns, id);
+		store.createTable(teams, new HashSet<Column>(java.util.Collections.singleton(teamId)), teamId);
+		MultiVersionStore.Write write = store.beginWrite();
+		for(int i = 0; i < 1000; i++){
+			Map<Column, Data> values = new HashMap<Column, Data>();
+			values.put(id, new Integer(i));
+			values.put(team, new Integer(i % 50));
+			values.put(score, new Integer(i % 100));
+			write.insert(matches, new Row(values, id));
+		}
+		for(int i = 0; i < 50; i++){
+			Map<Column, Data> values = new HashMap<Column, Data>();
+			values.put(teamId, new Integer(i));
+			write.insert(teams, new Row(values, teamId));
+		}
+		write.commit();
+	}
+	
+	/**
+	 * This method tests that statistics are kept up to date as rows are written.
+	 */
+	public void testStatistics() throws Exception{
+		TableStatistics statistics = store.getTable(matches).getStatistics();
+		assertEquals("The row count is wrong!", 1000, statistics.getRowCount());
+		long distinct = statistics.getColumnStatistics(team).getDistinctCount();
+		assertTrue("The distinct count estimate is too far off!", distinct >= 45 && distinct <= 55);
+		double range = statistics.estimateSelectivity(new RangeConstraint("Match.score", new Real(0), new Real(24.5)));
+		assertTrue("The histogram estimate is too far off!", range > 0.2 && range < 0.3);
+		MultiVersionStore.Write write = store.beginWrite();
+		for(int i = 0; i < 500; i++){
+			write.delete(matches, i);
+		}
+		write.commit();
+		assertEquals("Deleted rows should not be counted!", 500, statistics.getRowCount());
+		assertEquals("Deleted values should not be counted!", 500, statistics.getColumnStatistics(score).getValueCount());
+	}
+	
+	/**
+	 * This method tests the choice of access method and constraint order.
+	 */
+	public void testTablePlan() throws Exception{
+		QueryPlanner planner = store.getQueryPlanner();
+		Query lookup = new Query(matches).constrain(new EqualsConstraint("Match.id", new Integer(7)));
+		assertEquals("An equal primary key should be looked up!", AccessMethod.PRIMARY_KEY_LOOKUP, planner.plan(lookup).getAccessMethod());
+		assertEquals("The lookup returned the wrong rows!", 1, store.executeQuery(lookup).size());
+		Query range = new Query(matches).constrain(new RangeConstraint("Match.id", new Real(10), false, new Real(20), true));
+		assertEquals("A narrow primary key range should be looked up!", AccessMethod.PRIMARY_KEY_RANGE, planner.plan(range).getAccessMethod());
+		assertEquals("The range lookup returned the wrong rows!", 10, store.executeQuery(range).size());
+		Query wide = new Query(matches).constrain(new RangeConstraint("Match.id", new Real(0), new Real(900)));
+		assertEquals("A wide primary key range should be scanned!", AccessMethod.TABLE_SCAN, planner.plan(wide).getAccessMethod());
+		EqualsConstraint selective = new EqualsConstraint("Match.team", new Integer(3));
+		Query scan = new Query(matches).constrain(new RangeConstraint("Match.score", new Real(10), null)).constrain(selective);
+		TablePlan plan = planner.plan(scan);
+		assertEquals("The most selective constraint should be tested first!", selective, plan.getConstraints().get(0));
+		assertEquals("The scan returned the wrong rows!", 10, store.executeQuery(scan).size());
+		assertTrue("The plan should be explained!", planner.explain(scan).startsWith("TABLE SCAN Match"));
+	}
+	
+	/**
+	 * This method tests that the smallest join is executed first.
+	 */
+	public void testJoinOrder() throws Exception{
+		Query oneTeam = new Query(teams).constrain(new EqualsConstraint("Team.id", new Integer(3)));
+		Query others = new Query(new TableReference("Other"));
+		store.createTable(new TableReference("Other"), new HashSet<Column>(java.util.Collections.singleton(
+				new Column(new ColumnReference("Other.id"), Integer.class))), new Column(new ColumnReference("Other.id"), Integer.class));
+		JoinQuery query = new JoinQuery(new Query(matches))
+				.join(JoinType.LEFT, others, "Match.score", "Other.id")
+				.join(JoinType.INNER, oneTeam, "Match.team", "Team.id");
+		JoinPlan plan = store.getQueryPlanner().plan(query);
+		assertEquals("The selective join should be executed first!", teams, plan.getSteps().get(0).getJoin().getTableReference());
+		assertEquals("The join returned the wrong rows!", 20, store.executeJoin(query).size());
+		assertTrue("The join should be explained!", plan.explain().startsWith("JOIN"));
+	}
+	
+	/**
+	 * This method tests that a join is merged only when sorting both inputs
+	 * is estimated to cost less than hashing them.
+	 */
+	public void testJoinMethod() throws Exception{
+		int rows = 2 * QueryPlanner.HASH_CACHE_ROWS;
+		TableReference first = createLargeTable("First", rows);
+		TableReference second = createLargeTable("Second", rows);
+		JoinQuery large = new JoinQuery(new Query(first)).join(JoinType.INNER, new Query(second), "First.value", "Second.value");
+		assertEquals("Large inputs should be merged!", JoinMethod.MERGE_JOIN,
+				store.getQueryPlanner().plan(large).getSteps().get(0).getMethod());
+		JoinQuery small = new JoinQuery(new Query(matches)).join(JoinType.INNER, new Query(second), "Match.score", "Second.value");
+		assertEquals("A small build side should be hashed!", JoinMethod.HASH_JOIN,
+				store.getQueryPlanner().plan(small).getSteps().get(0).getMethod());
+	}
+	
+	/**
+	 * Creates a table with an {@code id} primary key and a {@code value}
+	 * column holding the same values.
+	 * @param name The name of the table.
+	 * @param rows The number of rows.
+	 * @return The TableReference of the new table.
+	 */
+	private TableReference createLargeTable(String name, int rows) throws Exception{
+		TableReference tableRef = new TableReference(name);
+		Column key = new Column(new ColumnReference(name+".id"), Integer.class);
+		Column value = new Column(new ColumnReference(name+".value"), Integer.class);
+		Set<Column> columns = new HashSet<Column>();
+		columns.add(key);
+		columns.add(value);
+		store.createTable(tableRef, columns, key);
+		MultiVersionStore.Write write = store.beginWrite();
+		for(int i = 0; i < rows; i++){
+			Map<Column, Data> values = new HashMap<Column, Data>();
+			values.put(key, new Integer(i));
+			values.put(value, new Integer(i));
+			write.insert(tableRef, new Row(values, key));
+		}
+		write.commit();
+		return tableRef;
+	}
+}
@@ -0,0 +1,114 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.RowSet;
+import com.edinarobotics.scouting.definitions.database.changes.TableDeletionChange;
+import com.edinarobotics.scouting.definitions.database.events.TableDeletionChangeEvent;
+import com.edinarobotics.scouting.definitions.database.queries.Query;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.event.Result;
+
+public class QueryResultCacheTest extends TestCase{
+	public QueryResultCache cache;
+	public TableReference matches;
+	public Query matchQuery;
+	public Query teamQuery;
+	public RowSet oneRow;
+	
+	public QueryResultCacheTest(){
+		super("QueryResultCache");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates a cache with a maximum weight of 4, two queries on
+	 * different tables and a RowSet of one row (weight 2).
+	 */
+	public void setUp() throws Exception{
+		cache = new QueryResultCache(4);
+		matches = new TableReference("Match");
+		matchQuery = new Query(matches).constrain(new EqualsConstraint("Match.id", new Integer(1)));
+		teamQuery = new Query("Team");
+		Column id = new Column(new ColumnReference("Match.id"), Integer.class);
+		Map<Column, Data> values = new HashMap<Column, Data>();
+		values.put(id, new Integer(1));
+		Set<Row> rows = new HashSet<Row>();
+		rows.add(new Row(values, id));
+		oneRow = new RowSet(rows);
+	}
+	
+	/**
+	 * This method tests that equal queries share a cached result and that
+	 * invalidating a table removes only the results for that table.
+	 */
+	public void testInvalidationPerTable() throws Exception{
+		assertNull("An empty cache should miss!", cache.get(matchQuery));
+		assertTrue("The result should be cached!", cache.put(matchQuery, oneRow, cache.getGeneration(matches)));
+		assertTrue("The empty result should be cached!", cache.put(teamQuery, new RowSet(new HashSet<Row>()), cache.getGeneration(teamQuery.getTableReference())));
+		Query equalQuery = new Query("Match").constrain(new EqualsConstraint("Match.id", new Integer(1)));
+		assertSame("An equal query should hit the cached result!", oneRow, cache.get(equalQuery));
+		cache.onDatabaseChange(new TableDeletionChangeEvent(new TableDeletionChange(matches)), Result.SUCCESS);
+		assertNull("The changed table should be invalidated!", cache.get(matchQuery));
+		assertNotNull("Other tables should stay cached!", cache.get(teamQuery));
+		assertEquals("Hits and misses were not counted!", 2, cache.getMissCount());
+	}
+	
+	/**
+	 * This method tests that a result read before an invalidation is not cached.
+	 */
+	public void testStaleResultIsNotCached(){
+		long generation = cache.getGeneration(matches);
+		cache.invalidate(matches);
+		assertFalse("A stale result should not be cached!", cache.put(matchQuery, oneRow, generation));
+		cache.onDatabaseChange(new TableDeletionChangeEvent(new TableDeletionChange(matches)), Result.CANCELLED);
+		assertTrue("Cancelled changes should not invalidate!", cache.put(matchQuery, oneRow, cache.getGeneration(matches)));
+	}
+	
+	/**
+	 * This method tests that a {@link MultiVersionStore} invalidates its cache
+	 * before a commit or a schema change returns.
+	 */
+	public void testCommitInvalidates() throws Exception{
+		MultiVersionStore store = new MultiVersionStore();
+		store.setQueryResultCache(cache);
+		Column id = new Column(new ColumnReference("Match.id"), Integer.class);
+		Set<Column> columns = new HashSet<Column>();
+		columns.add(id);
+		store.createTable(matches, columns, id);
+		assertTrue("The result should be cached!", cache.put(matchQuery, oneRow, cache.getGeneration(matches)));
+		TableReference tables = new TableReference("@tables");
+		long generation = cache.getGeneration(tables);
+		MultiVersionStore.Write write = store.beginWrite();
+		write.put(matches, oneRow.iterator().next());
+		write.commit();
+		assertNull("The commit should invalidate the changed table before it returns!", cache.get(matchQuery));
+		store.dropTable(matches);
+		assertEquals("Dropping a table should invalidate the metatables!", generation + 1, cache.getGeneration(tables));
+	}
+	
+	/**
+	 * This method tests that the least recently used results are evicted by weight.
+	 */
+	public void testEviction() throws Exception{
+		Query otherQuery = new Query(matches);
+		Query thirdQuery = new Query("Score");
+		cache.put(matchQuery, oneRow, 0);
+		cache.put(otherQuery, oneRow, 0);
+		cache.get(matchQuery);
+		cache.put(thirdQuery, oneRow, 0);
+		assertEquals("The cache should stay within its weight!", 4, cache.getWeight());
+		assertNull("The least recently used result should be evicted!", cache.get(otherQuery));
+		assertNotNull("Recently used results should stay cached!", cache.get(matchQuery));
+		assertEquals("The eviction was not counted!", 1, cache.getEvictionCount());
+	}
+}
@@ -0,0 +1,235 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.VersionConflictException;
+import com.edinarobotics.scouting.definitions.database.changes.EntryEditChange;
+import com.edinarobotics.scouting.definitions.database.changes.RowInsertionChange;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.event.Result;
+
+public class VersionConflictTest extends TestCase{
+	public MultiVersionStore store;
+	public TableReference match;
+	public Column id;
+	public Column score;
+	
+	public VersionConflictTest(){
+		super("VersionConflict");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates a MultiVersionStore containing a Match table with one row.
+	 */
+	public void setUp() throws Exception{
+		store = new MultiVersionStore();
+		match = new TableReference("Match");
+		id = new Column(new ColumnReference("Match.id"), Integer.class);
+		score = new Column(new ColumnReference("Match.score"), Integer.class);
+		Set<Column> columns = new HashSet<Column>();
+		columns.add(id);
+		columns.add(score);
+		store.createTable(match, columns, id);
+		MultiVersionStore.Write write = store.beginWrite();
+		write.put(match, row(1, 42));
+		write.commit();
+	}
+	
+	/**
+	 * Creates a row of the Match table.
+	 * @param key The id of the row.
+	 * @param value The score of the row.
+	 * @return The new Row.
+	 */
+	private Row row(long key, Data value) throws Exception{
+		Map<Column, Data> values = new HashMap<Column, Data>();
+		values.put(id, new Integer(key));
+		values.put(score, value);
+		return new Row(values, id);
+	}
+	
+	/**
+	 * Creates a row of the Match table.
+	 * @param key The id of the row.
+	 * @param value The score of the row.
+	 * @return The new Row.
+	 */
+	private Row row(long key, int value) throws Exception{
+		return row(key, new Integer(value));
+	}
+	
+	/**
+	 * Reads a row of the Match table at the latest version.
+	 * @param key The id of the row.
+	 * @return The Row or {@code null} if it does not exist.
+	 */
+	private Row get(long key){
+		Snapshot snapshot = store.openSnapshot();
+		try{
+			return store.getTable(match).getRow(key, snapshot);
+		}finally{
+			snapshot.release();
+		}
+	}
+	
+	/**
+	 * Applies an {@link EntryEditChange} the way a Database implementation would,
+	 * checking its expected row version when the Write is committed.
+	 * @param change The EntryEditChange to be applied.
+	 * @return The commit version of the change.
+	 */
+	private long apply(EntryEditChange change) throws Exception{
+		long key = change.getTargetRowPrimaryKeyValue().longValue();
+		MultiVersionStore.Write write = store.beginWrite();
+		if(change.hasExpectedRowVersion()){
+			write.put(match, row(key, change.getNewValue()), change.getExpectedRowVersion());
+		}
+		else{
+			write.put(match, row(key, change.getNewValue()));
+		}
+		return write.commit();
+	}
+	
+	/**
+	 * This method tests that an EntryEditChange based on the current
+	 * row version is applied and gives the row a new version.
+	 */
+	public void testMatchingVersion() throws Exception{
+		long version = get(1).getVersion();
+		EntryEditChange change = new EntryEditChange("Match.score#1", new Integer(43), version);
+		assertTrue("The change should check the row version!", change.hasExpectedRowVersion());
+		long committed = apply(change);
+		assertEquals("The change was not applied!", new Integer(43), get(1).getColumnValue(score));
+		assertEquals("The row did not get the commit version!", committed, get(1).getVersion());
+		assertTrue("The row version did not change!", committed > version);
+	}
+	
+	/**
+	 * This method tests that an EntryEditChange based on a stale row version
+	 * is rejected with a {@link VersionConflictException} and leaves the row unchanged.
+	 */
+	public void testStaleVersion() throws Exception{
+		long version = get(1).getVersion();
+		apply(new EntryEditChange("Match.score#1", new Integer(50), version));
+		long current = get(1).getVersion();
+		try{
+			apply(new EntryEditChange("Match.score#1", new Integer(43), version));
+			fail("A stale row version should be rejected!");
+		}catch(VersionConflictException e){
+			//Expected.
+		}
+		assertEquals("A rejected change was applied!", new Integer(50), get(1).getColumnValue(score));
+		assertEquals("A rejected change changed the row version!", current, get(1).getVersion());
+		assertEquals("A rejected change used a commit version!", current, store.getCommittedVersion());
+	}
+	
+	/**
+	 * This method tests that an EntryEditChange without an expected
+	 * row version is applied whatever the version of the row.
+	 */
+	public void testUncheckedChange() throws Exception{
+		apply(new EntryEditChange("Match.score#1", new Integer(50)));
+		EntryEditChange change = new EntryEditChange("Match.score#1", new Integer(43));
+		assertFalse("The change should not check the row version!", change.hasExpectedRowVersion());
+		assertEquals("The change should have no expected version!", Row.NO_VERSION, change.getExpectedRowVersion());
+		apply(change);
+		assertEquals("An unchecked change was not applied!", new Integer(43), get(1).getColumnValue(score));
+	}
+	
+	/**
+	 * This method tests that a conflict in one operation of a Write
+	 * prevents every operation of the Write from being applied.
+	 */
+	public void testConflictIsAtomic() throws Exception{
+		long version = get(1).getVersion();
+		MultiVersionStore.Write write = store.beginWrite();
+		write.put(match, row(2, 10));
+		write.put(match, row(1, 43), version + 1);
+		try{
+			write.commit();
+			fail("A stale row version should be rejected!");
+		}catch(VersionConflictException e){
+			//Expected.
+		}
+		assertNull("A row of a rejected Write was inserted!", get(2));
+		assertEquals("A rejected Write changed a row!", new Integer(42), get(1).getColumnValue(score));
+	}
+	
+	/**
+	 * This method tests the version checks of insertions and deletions.
+	 */
+	public void testInsertAndDelete() throws Exception{
+		MultiVersionStore.Write write = store.beginWrite();
+		write.insert(match, row(1, 0));
+		try{
+			write.commit();
+			fail("Inserting an existing row should be rejected!");
+		}catch(VersionConflictException e){
+			//Expected.
+		}
+		write = store.beginWrite();
+		write.insert(match, row(2, 10));
+		write.commit();
+		assertEquals("An inserted row was not found!", new Integer(10), get(2).getColumnValue(score));
+		long version = get(2).getVersion();
+		write = store.beginWrite();
+		write.delete(match, 2, version - 1);
+		try{
+			write.commit();
+			fail("Deleting a row at a stale version should be rejected!");
+		}catch(VersionConflictException e){
+			//Expected.
+		}
+		assertNotNull("A rejected deletion was applied!", get(2));
+		write = store.beginWrite();
+		write.delete(match, 2, version);
+		write.commit();
+		assertNull("A deletion at the current version was not applied!", get(2));
+	}
+	
+	/**
+	 * This method tests that a conditional {@link RowInsertionChange} carries
+	 * its condition and is rejected when its row exists.
+	 */
+	public void testConditionalInsertion() throws Exception{
+		Map<String, Data> values = new HashMap<String, Data>();
+		values.put("id", new Integer(1));
+		values.put("score", new Integer(0));
+		Map<ColumnReference, Data> valueRefs = new RowInsertionChange(match, values).getValues();
+		RowInsertionChange unconditional = new RowInsertionChange(valueRefs);
+		RowInsertionChange conditional = new RowInsertionChange(valueRefs, true);
+		assertFalse("Insertions should be unconditional by default!", unconditional.isInsertIfAbsent());
+		assertTrue("The condition was not kept!", conditional.isInsertIfAbsent());
+		assertFalse("Conditional and unconditional insertions should differ!", conditional.equals(unconditional));
+		assertEquals("Equal insertions should be equal!", conditional, new RowInsertionChange(valueRefs, true));
+		MultiVersionStore.Write write = store.beginWrite();
+		write.insert(match, row(1, 0));
+		try{
+			write.commit();
+			fail("A conditional insertion of an existing row should be rejected!");
+		}catch(VersionConflictException e){
+			//Expected.
+		}
+		assertEquals("A rejected insertion changed the row!", new Integer(42), get(1).getColumnValue(score));
+	}
+	
+	/**
+	 * This method tests that {@link Result#CONFLICT} did not change the
+	 * ordinals of the existing Result values.
+	 */
+	public void testResultOrdinals(){
+		assertEquals("CANCELLED moved!", 0, Result.CANCELLED.ordinal());
+		assertEquals("ERROR moved!", 1, Result.ERROR.ordinal());
+		assertEquals("SUCCESS moved!", 2, Result.SUCCESS.ordinal());
+		assertEquals("CONFLICT should be last!", 3, Result.CONFLICT.ordinal());
+	}
+}
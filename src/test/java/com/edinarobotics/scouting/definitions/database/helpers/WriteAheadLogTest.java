@@ -0,0 +1,240 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.changes.EntryEditChange;
+import com.edinarobotics.scouting.definitions.database.changes.RowInsertionChange;
+import com.edinarobotics.scouting.definitions.database.changes.TableCreationChange;
+import com.edinarobotics.scouting.definitions.database.changes.Transaction;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+
+public class WriteAheadLogTest extends TestCase{
+	public File directory;
+	public Transaction createTable;
+	public Transaction insertRow;
+	public Transaction editEntry;
+	
+	public WriteAheadLogTest(){
+		super("WriteAheadLog");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates an empty log directory and three {@link Transaction}
+	 * objects that are appended to the log.
+	 */
+	public void setUp() throws Exception{
+		directory = File.createTempFile("wal", "test");
+		directory.delete();
+		Column id = new Column(new ColumnReference("Match.id"), Integer.class);
+		Column score = new Column(new ColumnReference("Match.score"), Integer.class);
+		Set<Column> columns = new HashSet<Column>();
+		columns.add(id);
+		columns.add(score);
+		createTable = new Transaction();
+		createTable.add(new TableCreationChange("Match", columns, id));
+		Map<ColumnReference, Data> values = new HashMap<ColumnReference, Data>();
+		values.put(id.getReference(), new Integer(1));
+		values.put(score.getReference(), new Integer(42));
+		insertRow = new Transaction();
+		insertRow.add(new RowInsertionChange(values));
+		editEntry = new Transaction();
+		editEntry.add(new EntryEditChange("Match.score#1", new Integer(43), 7));
+	}
+	
+	/**
+	 * This method deletes the log directory after each test.
+	 */
+	public void tearDown(){
+		File[] files = directory.listFiles();
+		if(files != null){
+			for(File file : files){
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+	
+	/**
+	 * Replays the whole log in {@link #directory}.
+	 * @return The replayed Transaction objects in order.
+	 */
+	private List<Transaction> replayAll() throws IOException{
+		final List<Transaction> replayed = new ArrayList<Transaction>();
+		WriteAheadLog log = new WriteAheadLog(directory, SyncPolicy.NEVER);
+		log.replay(1, new LogReplayHandler(){
+			public void replayTransaction(long sequenceNumber, Transaction transaction){
+				replayed.add(transaction);
+			}
+		});
+		log.close();
+		return replayed;
+	}
+	
+	/**
+	 * This method tests that appended {@link Transaction} objects are
+	 * replayed unchanged and in order after the log is reopened.
+	 */
+	public void testReplayAfterReopen() throws IOException{
+		WriteAheadLog log = new WriteAheadLog(directory, SyncPolicy.ALWAYS);
+		assertEquals("The first transaction should have sequence number 1!", 1, log.append(createTable));
+		assertEquals("The second transaction should have sequence number 2!", 2, log.append(insertRow));
+		assertEquals("The third transaction should have sequence number 3!", 3, log.append(editEntry));
+		assertEquals("ALWAYS should sync every append!", 3, log.getSyncedSequenceNumber());
+		log.close();
+		List<Transaction> replayed = replayAll();
+		assertEquals("Not all transactions were replayed!", 3, replayed.size());
+		assertEquals("TableCreationChange was not replayed correctly!", createTable, replayed.get(0));
+		assertEquals("RowInsertionChange was not replayed correctly!", insertRow, replayed.get(1));
+		assertEquals("EntryEditChange was not replayed correctly!", editEntry, replayed.get(2));
+	}
+	
+	/**
+	 * This method tests that an incomplete record at the end of the log
+	 * is discarded and that new records are appended after the last
+	 * valid record.
+	 */
+	public void testTornRecordIsDiscarded() throws IOException{
+		WriteAheadLog log = new WriteAheadLog(directory, SyncPolicy.NEVER);
+		log.append(createTable);
+		log.append(insertRow);
+		log.close();
+		File segment = directory.listFiles()[0];
+		RandomAccessFile file = new RandomAccessFile(segment, "rw");
+		file.setLength(file.length() - 3);
+		file.close();
+		log = new WriteAheadLog(directory, SyncPolicy.NEVER);
+		assertEquals("The torn record should not be counted!", 1, log.getLastSequenceNumber());
+		assertEquals("Appends should reuse the sequence number of the torn record!", 2, log.append(editEntry));
+		log.close();
+		List<Transaction> replayed = replayAll();
+		assertEquals("The torn record should not be replayed!", 2, replayed.size());
+		assertEquals("The record after the torn record was not replayed!", editEntry, replayed.get(1));
+	}
+	
+	/**
+	 * This method tests segment rollover and truncation of old segments.
+	 */
+	public void testSegmentRollover() throws IOException{
+		WriteAheadLog log = new WriteAheadLog(directory, SyncPolicy.NEVER, 64, 0);
+		for(int i = 0; i < 5; i++){
+			log.append(editEntry);
+		}
+		assertTrue("Small segments should roll over!", directory.listFiles().length > 1);
+		log.truncateBefore(5);
+		final List<Long> sequences = new ArrayList<Long>();
+		log.replay(5, new LogReplayHandler(){
+			public void replayTransaction(long sequenceNumber, Transaction transaction){
+				sequences.add(sequenceNumber);
+			}
+		});
+		log.close();
+		assertEquals("Only the last transaction should be replayed!", 1, sequences.size());
+		assertEquals("The wrong transaction was replayed!", 5L, sequences.get(0).longValue());
+	}
+	
+	/**
+	 * This method tests when each {@link SyncPolicy} syncs appended records.
+	 * INTERVAL must sync records even if no later append arrives, and its
+	 * sync thread must be stopped by {@link WriteAheadLog#close()}.
+	 */
+	public void testSyncPolicies() throws Exception{
+		WriteAheadLog log = new WriteAheadLog(directory, SyncPolicy.NEVER);
+		log.append(createTable);
+		Thread.sleep(50);
+		assertEquals("NEVER should not sync appends!", 0, log.getSyncedSequenceNumber());
+		log.sync();
+		assertEquals("sync() should sync every append!", 1, log.getSyncedSequenceNumber());
+		log.append(insertRow);
+		log.close();
+		assertEquals("close() should sync every append!", 2, log.getSyncedSequenceNumber());
+		
+		log = new WriteAheadLog(directory, SyncPolicy.ALWAYS);
+		assertEquals("ALWAYS should sync every append!", 3, log.append(editEntry));
+		assertEquals("ALWAYS should sync every append!", 3, log.getSyncedSequenceNumber());
+		log.close();
+		
+		log = new WriteAheadLog(directory, SyncPolicy.INTERVAL, WriteAheadLog.DEFAULT_SEGMENT_SIZE, 20);
+		String flusherName = "wal-flusher-"+directory.getName();
+		assertTrue("INTERVAL should start a sync thread!", isThreadAlive(flusherName));
+		long sequence = log.append(editEntry);
+		long deadline = System.currentTimeMillis() + 5000;
+		while(log.getSyncedSequenceNumber() < sequence && System.currentTimeMillis() < deadline){
+			Thread.sleep(5);
+		}
+		assertEquals("INTERVAL should sync appends after the interval without a later append!", sequence, log.getSyncedSequenceNumber());
+		log.close();
+		//The thread may take a moment to exit after its last task.
+		deadline = System.currentTimeMillis() + 1000;
+		while(isThreadAlive(flusherName) && System.currentTimeMillis() < deadline){
+			Thread.sleep(5);
+		}
+		assertFalse("close() should stop the sync thread!", isThreadAlive(flusherName));
+	}
+	
+	/**
+	 * This method tests that a failed sync is reported by every later
+	 * append, sync and close instead of being retried.
+	 */
+	public void testSyncFailure() throws Exception{
+		WriteAheadLog log = new WriteAheadLog(directory, SyncPolicy.NEVER);
+		log.append(createTable);
+		Field channelField = WriteAheadLog.class.getDeclaredField("channel");
+		channelField.setAccessible(true);
+		//Closing the segment behind the log's back makes the next sync fail.
+		((FileChannel) channelField.get(log)).close();
+		IOException failure = null;
+		try{
+			log.sync();
+			fail("Syncing a closed segment should fail!");
+		}catch(IOException e){
+			failure = e;
+		}
+		try{
+			log.append(insertRow);
+			fail("An append after a failed sync should fail!");
+		}catch(IOException e){
+			assertSame("The append should report the sync failure!", failure, e.getCause());
+		}
+		try{
+			log.sync();
+			fail("A sync after a failed sync should fail!");
+		}catch(IOException e){
+			assertSame("The sync should report the first failure!", failure, e.getCause());
+		}
+		try{
+			log.close();
+			fail("Closing after a failed sync should fail!");
+		}catch(IOException e){
+			assertSame("The close should report the first failure!", failure, e.getCause());
+		}
+		assertEquals("The log should reopen with the appended record!", 1, replayAll().size());
+	}
+	
+	/**
+	 * Checks whether a thread with the given name is alive.
+	 * @param name The name of the thread.
+	 * @return {@code true} if a live thread has the name.
+	 */
+	private boolean isThreadAlive(String name){
+		for(Thread thread : Thread.getAllStackTraces().keySet()){
+			if(thread.getName().equals(name) && thread.isAlive()){
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,93 @@
+package com.edinarobotics.scouting.definitions.database.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.RangeConstraint;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+
+public class ZoneMapTest extends TestCase{
+	public ZoneMap zoneMap;
+	
+	public ZoneMapTest(){
+		super("ZoneMap");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates a ZoneMap of two blocks of four rows. The first block
+	 * holds the values 1 to 4 and the second the values 61 to 63 and a {@code null}.
+	 */
+	public void setUp() throws Exception{
+		zoneMap = new ZoneMap(4);
+		fill(zoneMap);
+	}
+	
+	/**
+	 * Adds the rows described by {@link #setUp()} to a ZoneMap.
+	 * @param target The empty ZoneMap to be filled.
+	 */
+	private void fill(ZoneMap target) throws IOException{
+		for(int i = 0; i < 4; i++){
+			target.add(i, new Integer(i + 1));
+		}
+		for(int i = 4; i < 7; i++){
+			target.add(i, new Integer(i + 57));
+		}
+		target.add(7, null);
+	}
+	
+	/**
+	 * This method tests that blocks are skipped only when their bounds
+	 * exclude a constraint.
+	 */
+	public void testMayContain() throws Exception{
+		RangeConstraint after60 = new RangeConstraint("Match.match", new Real(60), false, null, true);
+		assertFalse("The first block cannot contain matches after 60!", zoneMap.mayContain(0, after60));
+		assertTrue("The second block contains matches after 60!", zoneMap.mayContain(1, after60));
+		RangeConstraint upTo61 = new RangeConstraint("Match.match", null, true, new Real(61), false);
+		assertFalse("The exclusive upper bound should skip the second block!", zoneMap.mayContain(1, upTo61));
+		assertTrue("Equal values should be found!", zoneMap.mayContain(0, new EqualsConstraint("Match.match", new Integer(3))));
+		assertFalse("Values between the bounds of two blocks should skip both!", zoneMap.mayContain(0, new EqualsConstraint("Match.match", new Integer(30)))
+				|| zoneMap.mayContain(1, new EqualsConstraint("Match.match", new Integer(30))));
+		assertFalse("The first block has no null values!", zoneMap.mayContain(0, new EqualsConstraint("Match.match", null)));
+		assertTrue("The second block has a null value!", zoneMap.mayContain(1, new EqualsConstraint("Match.match", null)));
+		assertFalse("Blocks past the end should be skipped!", zoneMap.mayContain(2, after60));
+	}
+	
+	/**
+	 * This method tests that updates widen the bounds and track null values.
+	 */
+	public void testUpdate() throws Exception{
+		zoneMap.update(7, null, new Integer(100));
+		assertEquals("The update should widen the maximum!", 100.0, zoneMap.getMax(1));
+		assertEquals("The update should remove the null value!", 0, zoneMap.getNullCount(1));
+		zoneMap.update(0, new Integer(1), new Integer(2));
+		assertEquals("Bounds should not narrow when a value is replaced!", 1.0, zoneMap.getMin(0));
+	}
+	
+	/**
+	 * This method tests that a ZoneMap stored in a mapped file keeps the same
+	 * statistics as one on the heap and deletes its file.
+	 */
+	public void testMappedFile() throws Exception{
+		File file = File.createTempFile("zonemap", "test");
+		file.delete();
+		ZoneMap mapped = new ZoneMap(4, new MappedFile(file));
+		try{
+			fill(mapped);
+			for(int block = 0; block < 3; block++){
+				assertEquals("The minimum differs from the heap!", zoneMap.getMin(block), mapped.getMin(block));
+				assertEquals("The maximum differs from the heap!", zoneMap.getMax(block), mapped.getMax(block));
+				assertEquals("The null count differs from the heap!", zoneMap.getNullCount(block), mapped.getNullCount(block));
+			}
+			assertFalse("The first block cannot contain matches after 60!",
+					mapped.mayContain(0, new RangeConstraint("Match.match", new Real(60), false, null, true)));
+		}finally{
+			mapped.delete();
+		}
+		assertFalse("delete() should delete the file!", file.exists());
+	}
+}
@@ -0,0 +1,105 @@
+package com.edinarobotics.scouting.definitions.database.queries;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.Constraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+
+public class ConstraintSetTest extends TestCase{
+	
+	/**
+	 * This Constraint has a chosen hash code, so that hash collisions
+	 * can be tested.
+	 */
+	private static class HashedConstraint extends Constraint{
+		private final int id;
+		private final int hash;
+		
+		public HashedConstraint(int id, int hash) throws Exception{
+			super("Match.score");
+			this.id = id;
+			this.hash = hash;
+		}
+		
+		public boolean satisfiesConstraint(Row row){
+			return true;
+		}
+		
+		public int hashCode(){
+			return hash;
+		}
+		
+		public boolean equals(Object obj){
+			return obj instanceof HashedConstraint && ((HashedConstraint) obj).id == id;
+		}
+	}
+	
+	public ConstraintSetTest(){
+		super("ConstraintSet");
+	}
+	
+	/**
+	 * This method tests that a ConstraintSet behaves like a {@link HashSet}
+	 * with the same elements, including elements with colliding hash codes
+	 * and hash codes that differ only in their highest bits.
+	 */
+	public void testMatchesHashSet() throws Exception{
+		Random random = new Random(2012);
+		ConstraintSet set = ConstraintSet.EMPTY;
+		Set<Constraint> expected = new HashSet<Constraint>();
+		for(int i = 0; i < 2000; i++){
+			Constraint constraint;
+			if(i % 4 == 0){
+				constraint = new HashedConstraint(random.nextInt(500), 7);
+			}
+			else if(i % 4 == 1){
+				int id = 500 + random.nextInt(500);
+				constraint = new HashedConstraint(id, (id % 64) << 20);
+			}
+			else if(i % 4 == 2){
+				int id = 1000 + random.nextInt(500);
+				constraint = new HashedConstraint(id, (id % 4) << 30 | 7);
+			}
+			else{
+				constraint = new EqualsConstraint(new ColumnReference("Match.team"), new Integer(random.nextInt(1000)));
+			}
+			ConstraintSet previous = set;
+			int previousSize = previous.size();
+			set = set.with(constraint);
+			expected.add(constraint);
+			assertEquals("Adding should not change the previous set!", previousSize, previous.size());
+			assertTrue("The added constraint is missing!", set.contains(constraint));
+		}
+		assertEquals("The sizes differ!", expected.size(), set.size());
+		assertEquals("The sets should be equal!", expected, set);
+		assertEquals("The sets should be equal!", set, expected);
+		assertEquals("The cached hash code is wrong!", expected.hashCode(), set.hashCode());
+		Set<Constraint> iterated = new HashSet<Constraint>();
+		for(Constraint constraint : set){
+			assertTrue("A constraint was returned twice!", iterated.add(constraint));
+		}
+		assertEquals("Iteration did not return every constraint!", expected, iterated);
+		assertSame("Adding a present constraint should return the same set!", set, set.with(set.iterator().next()));
+	}
+	
+	/**
+	 * This method tests that queries built in different orders are equal.
+	 */
+	public void testQueryEquality() throws Exception{
+		Query first = new Query("Match").constrain(new EqualsConstraint("Match.team", new Integer(1))).constrain(new EqualsConstraint("Match.id", new Integer(2)));
+		Query second = new Query("Match").constrain(new EqualsConstraint("Match.id", new Integer(2))).constrain(new EqualsConstraint("Match.team", new Integer(1)));
+		assertEquals("Queries with the same constraints should be equal!", first, second);
+		assertEquals("Equal queries should have equal hash codes!", first.hashCode(), second.hashCode());
+		try{
+			first.getConstraints().clear();
+			fail("The constraints of a Query should not be modifiable!");
+		}catch(UnsupportedOperationException e){
+			//Expected.
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.edinarobotics.scouting.definitions.database.queries;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.Column;
+import com.edinarobotics.scouting.definitions.database.Row;
+import com.edinarobotics.scouting.definitions.database.helpers.MultiVersionStore;
+import com.edinarobotics.scouting.definitions.database.helpers.Snapshot;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.EqualsConstraint;
+import com.edinarobotics.scouting.definitions.database.queries.constraints.RangeConstraint;
+import com.edinarobotics.scouting.definitions.database.references.ColumnReference;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.database.types.Data;
+import com.edinarobotics.scouting.definitions.database.types.Integer;
+import com.edinarobotics.scouting.definitions.database.types.Real;
+
+public class PreparedQueryTest extends TestCase{
+	public MultiVersionStore store;
+	public TableReference matches;
+	public Query template;
+	
+	public PreparedQueryTest(){
+		super("PreparedQuery");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates a store with a Match table of 30 rows played by three teams
+	 * and a template Query for matches with a score of at least 10.
+	 */
+	public void setUp() throws Exception{
+		store = new MultiVersionStore();
+		matches = new TableReference("Match");
+		Column id = new Column(new ColumnReference("Match.id"), Integer.class);
+		Column team = new Column(new ColumnReference("Match.team"), Integer.class);
+		Column score = new Column(new ColumnReference("Match.score"), Integer.class);
+		Set<Column> columns = new HashSet<Column>();
+		columns.add(id);
+		columns.add(team);
+		columns.add(score);
+		store.createTable(matches, columns, id);
+		MultiVersionStore.Write write = store.beginWrite();
+		for(int i = 0; i < 30; i++){
+			Map<Column, Data> values = new HashMap<Column, Data>();
+			values.put(id, new Integer(i));
+			values.put(team, new Integer(i % 3));
+			values.put(score, new Integer(i));
+			write.insert(matches, new Row(values, id));
+		}
+		write.commit();
+		template = new Query(matches).constrain(new RangeConstraint("Match.score", new Real(10), null));
+	}
+	
+	/**
+	 * This method tests that binding produces the same Query as
+	 * adding the constraints one by one.
+	 */
+	public void testBind() throws Exception{
+		PreparedQuery prepared = new PreparedQuery(template, "Match.team");
+		Query expected = template.constrain(new EqualsConstraint("Match.team", new Integer(2)));
+		assertEquals("The bound query does not match the constrained query!", expected, prepared.bind(new Integer(2)));
+		try{
+			prepared.bind();
+			fail("Binding the wrong number of values should fail!");
+		}catch(IllegalArgumentException e){
+			//Expected.
+		}
+	}
+	
+	/**
+	 * This method tests that prepared queries return the same rows as
+	 * their bound queries, both by scan and by primary key lookup.
+	 */
+	public void testExecute() throws Exception{
+		PreparedQuery byTeam = new PreparedQuery(template, "Match.team");
+		PreparedQuery byId = new PreparedQuery(template, "Match.id");
+		Snapshot snapshot = store.openSnapshot();
+		try{
+			for(int team = 0; team < 3; team++){
+				assertEquals("The scan returned the wrong rows!", store.executeQuery(byTeam.bind(new Integer(team)), snapshot),
+						store.executeQuery(byTeam, snapshot, new Integer(team)));
+			}
+			assertEquals("The lookup should find one row!", 1, store.executeQuery(byId, snapshot, new Integer(12)).size());
+			assertEquals("The fixed constraint should still apply!", 0, store.executeQuery(byId, snapshot, new Integer(5)).size());
+			assertEquals("Integral reals should find the row!", 1, store.executeQuery(byId, snapshot, new Real(12.0)).size());
+		}finally{
+			snapshot.release();
+		}
+		assertTrue("Primary key parameters should be looked up!", store.getQueryPlanner().plan(byId).isPrimaryKeyLookup());
+		assertFalse("Other parameters should be scanned!", store.getQueryPlanner().plan(byTeam).isPrimaryKeyLookup());
+	}
+}
@@ -0,0 +1,150 @@
+package com.edinarobotics.scouting.definitions.event;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+public class SequentialEventIdGeneratorTest extends TestCase{
+	public EventIdGenerator defaultGenerator;
+	
+	public SequentialEventIdGeneratorTest(){
+		super("SequentialEventIdGenerator");
+	}
+	
+	/**
+	 * This method saves the EventIdGenerator of {@link Event}
+	 * so that tests may replace it.
+	 */
+	public void setUp(){
+		defaultGenerator = Event.getIdGenerator();
+	}
+	
+	/**
+	 * This method restores the EventIdGenerator of {@link Event}.
+	 */
+	public void tearDown(){
+		Event.setIdGenerator(defaultGenerator);
+	}
+	
+	/**
+	 * This method tests that IDs generated concurrently are unique and
+	 * that the IDs generated by each thread increase.
+	 */
+	public void testConcurrentGeneration() throws Exception{
+		final SequentialEventIdGenerator generator = new SequentialEventIdGenerator("node");
+		final int threads = 8;
+		final int perThread = 10000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try{
+			List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+			for(int t = 0; t < threads; t++){
+				results.add(executor.submit(new Callable<long[]>(){
+					public long[] call(){
+						long[] ids = new long[perThread];
+						for(int i = 0; i < perThread; i++){
+							ids[i] = generator.nextId();
+						}
+						return ids;
+					}
+				}));
+			}
+			Set<Long> seen = new HashSet<Long>();
+			for(Future<long[]> result : results){
+				long[] ids = result.get();
+				for(int i = 0; i < ids.length; i++){
+					assertTrue("An ID was generated twice!", seen.add(ids[i]));
+					if(i > 0){
+						assertTrue("IDs generated by a thread should increase!", ids[i] > ids[i - 1]);
+					}
+				}
+			}
+			assertEquals("IDs should be consecutive!", (long) threads * perThread, generator.nextId() - 1);
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * This method tests the rendered format of IDs.
+	 */
+	public void testFormat(){
+		SequentialEventIdGenerator generator = new SequentialEventIdGenerator("node");
+		assertEquals("The prefix was not kept!", "node", generator.getPrefix());
+		assertEquals("IDs should be rendered as prefix-hex!", "node-1c", generator.toString(28));
+		SequentialEventIdGenerator random = new SequentialEventIdGenerator();
+		assertTrue("A random prefix should be hexadecimal!", random.getPrefix().matches("[0-9a-f]{1,16}"));
+		assertFalse("Random prefixes should differ!", random.getPrefix().equals(new SequentialEventIdGenerator().getPrefix()));
+	}
+	
+	/**
+	 * This method tests that an Event renders its ID only when
+	 * {@link Event#getId()} is first called, using the generator that was
+	 * current when the Event was constructed.
+	 */
+	public void testLazyId(){
+		CountingGenerator generator = new CountingGenerator("node");
+		Event.setIdGenerator(generator);
+		TestEvent first = new TestEvent();
+		TestEvent second = new TestEvent();
+		Event.setIdGenerator(new SequentialEventIdGenerator("other"));
+		assertEquals("Constructing an Event should not render its ID!", 0, generator.rendered.get());
+		assertEquals("The first ID has the wrong format!", "node-1", first.getId());
+		assertEquals("Only the requested ID should be rendered!", 1, generator.rendered.get());
+		assertEquals("The rendered ID changed!", "node-1", first.getId());
+		assertEquals("An ID should only be rendered once!", 1, generator.rendered.get());
+		assertEquals("The second ID has the wrong format!", "node-2", second.getId());
+		assertEquals("An explicit ID was not kept!", "manual", new TestEvent("manual").getId());
+		assertNull("An explicit null ID was not kept!", new TestEvent((String) null).getId());
+		assertTrue("A new Event should use the new generator!", new TestEvent().getId().startsWith("other-"));
+	}
+	
+	/**
+	 * This method tests that {@link Event#setIdGenerator(EventIdGenerator)}
+	 * rejects {@code null}.
+	 */
+	public void testNullGenerator(){
+		try{
+			Event.setIdGenerator(null);
+			fail("A null generator should be rejected!");
+		}catch(NullPointerException e){
+			//Expected.
+		}
+		assertSame("A rejected generator was set!", defaultGenerator, Event.getIdGenerator());
+	}
+	
+	/**
+	 * A SequentialEventIdGenerator that counts how often IDs are rendered.
+	 */
+	private static class CountingGenerator extends SequentialEventIdGenerator{
+		public AtomicInteger rendered = new AtomicInteger();
+		
+		public CountingGenerator(String prefix){
+			super(prefix);
+		}
+		
+		public String toString(long id){
+			rendered.incrementAndGet();
+			return super.toString(id);
+		}
+	}
+	
+	/**
+	 * A minimal Event used to test ID assignment.
+	 */
+	private static class TestEvent extends Event{
+		public TestEvent(){
+			super();
+		}
+		
+		public TestEvent(String id){
+			super(id);
+		}
+	}
+}
@@ -0,0 +1,513 @@
+package com.edinarobotics.scouting.definitions.event.helpers;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+import junit.framework.TestCase;
+import com.edinarobotics.scouting.definitions.database.references.InvalidReferenceException;
+import com.edinarobotics.scouting.definitions.database.references.TableReference;
+import com.edinarobotics.scouting.definitions.event.CancellableEvent;
+import com.edinarobotics.scouting.definitions.event.Event;
+import com.edinarobotics.scouting.definitions.event.EventBatch;
+import com.edinarobotics.scouting.definitions.event.EventListener;
+import com.edinarobotics.scouting.definitions.event.EventMonitor;
+import com.edinarobotics.scouting.definitions.event.Listener;
+import com.edinarobotics.scouting.definitions.event.ListenerPriority;
+import com.edinarobotics.scouting.definitions.event.Result;
+import com.edinarobotics.scouting.definitions.event.TableEvent;
+
+public class EventFiringManagerTest extends TestCase{
+	public EventFiringManager manager;
+	public List<TestEvent> events;
+	
+	public EventFiringManagerTest(){
+		super("EventFiringManager");
+	}
+	
+	/**
+	 * This method sets up all variables used in testing.
+	 * It creates an empty EventFiringManager and ten events.
+	 */
+	public void setUp(){
+		manager = new EventFiringManager();
+		events = new ArrayList<TestEvent>();
+		for(int i = 0; i < 10; i++){
+			events.add(new TestEvent(i));
+		}
+	}
+	
+	/**
+	 * This method tests that a batch listener is invoked once per batch,
+	 * while single-event listeners are invoked once per event.
+	 */
+	public void testBatchDelivery() throws Exception{
+		BatchRecorder recorder = new BatchRecorder();
+		manager.registerEvents(recorder);
+		EventFiringFuture future = manager.fireEvents(events);
+		EventBatch<?> batch = (EventBatch<?>) future.get();
+		assertEquals("The batch lost events!", 10, batch.size());
+		assertEquals("The batch listener should be invoked once!", 1, recorder.batches);
+		assertEquals("The batch listener missed events!", 10, recorder.batchEvents);
+		assertEquals("The single listener should see every event!", 10, recorder.singles);
+		assertEquals("The single listener did not cancel odd events!", 5, recorder.cancelledInBatch);
+	}
+	
+	/**
+	 * This method tests that an exception for one event of a batch only
+	 * rolls back the cancellation of that event.
+	 */
+	public void testRollbackPerEvent() throws Exception{
+		manager.registerEvents(new FailingCanceller());
+		manager.fireEvents(events).get();
+		for(TestEvent event : events){
+			assertEquals("Cancellation was not rolled back for the failed event only!", event.number != 3, event.isCancelled());
+		}
+	}
+	
+	/**
+	 * This method tests that listeners of one priority level run in parallel
+	 * and that the next level waits for all of them.
+	 */
+	public void testParallelListeners() throws Exception{
+		manager.setParallelListeners(true);
+		SlowListener first = new SlowListener();
+		SlowListener second = new SlowListener();
+		manager.registerEvents(first);
+		manager.registerEvents(second);
+		BarrierChecker checker = new BarrierChecker(first, second);
+		manager.registerEvents(checker);
+		long start = System.nanoTime();
+		manager.fireEvent(events.get(0)).get();
+		long elapsed = (System.nanoTime() - start) / 1000000;
+		assertTrue("Listeners of one level did not run in parallel!", elapsed < 2 * SlowListener.DELAY);
+		assertEquals("Both slow listeners should have run!", 2, first.calls.get() + second.calls.get());
+		assertEquals("The next level did not wait for the slow listeners!", 2, checker.seen);
+	}
+	
+	/**
+	 * This method tests that a failing listener running in parallel only rolls back
+	 * its own cancellation changes, not those of the other listeners of its level.
+	 */
+	public void testParallelRollback() throws Exception{
+		manager.setParallelListeners(true);
+		manager.registerEvents(new FailingCanceller());
+		manager.registerEvents(new LateThrower());
+		for(int i = 0; i < 3; i++){
+			EventFiringFuture future = manager.fireEvent(events.get(i));
+			future.get();
+			assertTrue("A failing sibling should not undo a cancellation!", events.get(i).isCancelled());
+			assertEquals("Only the late thrower should fail!", 1, future.getExceptions().size());
+		}
+		List<TestEvent> batch = events.subList(3, 6);
+		EventFiringFuture future = manager.fireEvents(batch);
+		future.get();
+		for(TestEvent event : batch){
+			assertEquals("Only the changes of the failed invocation should be discarded!", event.number != 3, event.isCancelled());
+		}
+		assertEquals("Every event should fail in the late thrower and event 3 in the canceller!", 4, future.getExceptions().size());
+	}
+	
+	/**
+	 * This method tests that monitors are notified of every event of a batch,
+	 * that a failing monitor does not stop the others and that no task is
+	 * needed when no monitor matches.
+	 */
+	public void testMonitorDispatch() throws Exception{
+		assertTrue("No monitors should mean no pending work!", manager.fireEvent(events.get(0)).notifyMonitors(Result.SUCCESS).isDone());
+		MonitorRecorder recorder = new MonitorRecorder();
+		manager.registerEvents(recorder);
+		events.get(4).setCancelled(true);
+		MonitorNotifyFuture future = manager.fireEvents(events).notifyMonitors(Result.SUCCESS);
+		future.get();
+		assertEquals("The failing monitor should have one exception per event!", 10, future.getExceptions().size());
+		assertEquals("The recording monitor missed events!", 10, recorder.results.size());
+		assertEquals("A cancelled event should be reported as cancelled!", Result.CANCELLED, recorder.results.get(4));
+	}
+	
+	/**
+	 * This method tests delivery through a {@link MonitorRingBuffer} and that
+	 * a full buffer drops events instead of blocking.
+	 */
+	public void testMonitorRingBuffer() throws Exception{
+		MonitorRingBuffer ring = new MonitorRingBuffer(4, WaitStrategy.BLOCKING, OverflowPolicy.DROP);
+		manager.setMonitorRingBuffer(ring);
+		BlockedMonitor monitor = new BlockedMonitor();
+		manager.registerEvents(monitor);
+		for(TestEvent event : events){
+			assertTrue("Ring delivery should not wait for monitors!", manager.fireEvent(event).notifyMonitors(Result.SUCCESS).isDone());
+		}
+		assertTrue("A full buffer should drop events!", ring.getDroppedCount() > 0);
+		monitor.gate.countDown();
+		long deadline = System.currentTimeMillis() + 5000;
+		while(ring.getBacklog() > 0 && System.currentTimeMillis() < deadline){
+			Thread.sleep(10);
+		}
+		assertEquals("Every published event should be delivered!", ring.getPublishedCount(), monitor.count.get());
+		assertEquals("Published and dropped events should add up!", 10, ring.getPublishedCount() + ring.getDroppedCount());
+		manager.setMonitorRingBuffer(null);
+	}
+	
+	/**
+	 * This method tests that listeners and monitors restricted to a table
+	 * only receive the {@link TableEvent} objects of that table.
+	 */
+	public void testTableFilter() throws Exception{
+		TableRecorder recorder = new TableRecorder();
+		manager.registerEvents(recorder);
+		List<TableChange> changes = new ArrayList<TableChange>();
+		changes.add(new TableChange("Match"));
+		changes.add(new TableChange("Team"));
+		changes.add(new TableChange("Match"));
+		for(TableChange change : changes){
+			manager.fireEvent(change).notifyMonitors(Result.SUCCESS).get();
+		}
+		manager.fireEvents(changes).notifyMonitors(Result.SUCCESS).get();
+		assertEquals("The listener should only see Match events!", 4, recorder.listened);
+		assertEquals("The monitor should only see Team events!", 2, recorder.monitored);
+		assertEquals("Unfiltered listeners should see every event!", 6, recorder.all);
+	}
+	
+	/**
+	 * This method tests that listener invocations, exceptions, cancellations
+	 * and slow invocations are counted and exported through JMX.
+	 */
+	public void testListenerMetrics() throws Exception{
+		manager.registerEvents(new FailingCanceller());
+		manager.registerEvents(new SlowListener());
+		//Capture the watchdog warnings instead of printing them
+		Logger logger = Logger.getLogger(EventFiringManager.class.getName());
+		final List<LogRecord> warnings = Collections.synchronizedList(new ArrayList<LogRecord>());
+		Handler handler = new Handler(){
+			public void publish(LogRecord record){
+				warnings.add(record);
+			}
+			
+			public void flush(){
+			}
+			
+			public void close(){
+			}
+		};
+		logger.addHandler(handler);
+		logger.setUseParentHandlers(false);
+		manager.setLatencyBudget(SlowListener.DELAY / 2);
+		manager.setMetricsExported(true);
+		try{
+			for(int i = 0; i < 4; i++){
+				manager.fireEvent(events.get(i)).get();
+			}
+			List<ListenerMetrics> metricsList = manager.getListenerMetrics();
+			assertEquals("Both listeners should have metrics!", 2, metricsList.size());
+			for(ListenerMetrics metrics : metricsList){
+				assertEquals("Every event should be counted!", 4, metrics.getInvocationCount());
+				if(metrics.getListenerName().endsWith("FailingCanceller#onEvent")){
+					assertEquals("The failure for event 3 should be counted!", 1, metrics.getExceptionCount());
+					assertEquals("Only successful cancellations should be counted!", 3, metrics.getCancellationCount());
+					assertEquals("The canceller should not be slow!", 0, metrics.getSlowInvocationCount());
+				}
+				else{
+					assertEquals("Every slow invocation should be counted!", 4, metrics.getSlowInvocationCount());
+					assertTrue("The latency histogram should cover the delay!",
+							metrics.getLatency99thPercentileMicros() >= SlowListener.DELAY * 1000);
+				}
+			}
+			ObjectName pattern = new ObjectName("com.edinarobotics.scouting:type=EventListener,*");
+			assertEquals("Both listeners should be exported!", 2, ManagementFactory.getPlatformMBeanServer().queryNames(pattern, null).size());
+			assertFalse("The watchdog should warn about the slow listener!", warnings.isEmpty());
+			for(LogRecord record : warnings){
+				assertTrue("Only the slow listener should be reported!", record.getMessage().contains("SlowListener#onEvent"));
+			}
+		}finally{
+			manager.setMetricsExported(false);
+			manager.setLatencyBudget(0);
+			logger.removeHandler(handler);
+			logger.setUseParentHandlers(true);
+		}
+		assertTrue("Metrics should be removed from JMX!", ManagementFactory.getPlatformMBeanServer().queryNames(
+				new ObjectName("com.edinarobotics.scouting:type=EventListener,*"), null).isEmpty());
+	}
+	
+	/**
+	 * This method tests that a stuck invocation is still reported by the watchdog
+	 * while newer invocations of the same listener start and finish.
+	 */
+	public void testOverlappingInvocations() throws Exception{
+		manager.registerEvents(new SlowListener());
+		ListenerMetrics metrics = manager.getListenerMetrics().get(0);
+		Logger logger = Logger.getLogger(EventFiringManager.class.getName());
+		final List<LogRecord> warnings = Collections.synchronizedList(new ArrayList<LogRecord>());
+		Handler handler = new Handler(){
+			public void publish(LogRecord record){
+				warnings.add(record);
+			}
+			
+			public void flush(){
+			}
+			
+			public void close(){
+			}
+		};
+		logger.addHandler(handler);
+		logger.setUseParentHandlers(false);
+		long stuck = metrics.start();
+		manager.setLatencyBudget(50);
+		try{
+			long deadline = System.currentTimeMillis() + 5000;
+			while(warnings.isEmpty() && System.currentTimeMillis() < deadline){
+				long start = metrics.start();
+				assertTrue("The stuck invocation should be running too long!",
+						metrics.isRunningLongerThan(0, System.nanoTime()));
+				Thread.sleep(5);
+				metrics.finish(start, false, false);
+			}
+			assertFalse("The watchdog should report the stuck invocation!", warnings.isEmpty());
+			assertEquals("The stuck invocation should be the oldest!", Long.valueOf(stuck), metrics.getOldestStartTime());
+			metrics.finish(stuck, false, false);
+			assertNull("No invocation should be running!", metrics.getOldestStartTime());
+			assertFalse("A finished invocation should not be running!", metrics.isRunningLongerThan(0, System.nanoTime()));
+		}finally{
+			manager.setLatencyBudget(0);
+			logger.removeHandler(handler);
+			logger.setUseParentHandlers(true);
+		}
+	}
+	
+	/**
+	 * This method tests that a blocking listener is abandoned after its timeout
+	 * and disabled by its circuit breaker after repeated timeouts.
+	 */
+	public void testListenerTimeouts() throws Exception{
+		HangingListener hanging = new HangingListener();
+		manager.registerEvents(hanging);
+		manager.setCircuitBreaker(2, 60000);
+		long start = System.currentTimeMillis();
+		for(int i = 0; i < 3; i++){
+			EventFiringFuture future = manager.fireEvent(events.get(i));
+			future.get();
+			int timeouts = 0;
+			int disabled = 0;
+			for(Exception e : future.getExceptions()){
+				if(e instanceof ListenerTimeoutException){
+					timeouts++;
+				}
+				else if(e instanceof ListenerDisabledException){
+					disabled++;
+				}
+			}
+			assertEquals("Only the first two events should time out!", i < 2 ? 1 : 0, timeouts);
+			assertEquals("The listener should be reported as disabled after two timeouts!", i < 1 ? 0 : 1, disabled);
+			assertFalse("Timed out cancellations should be rolled back!", events.get(i).isCancelled());
+		}
+		assertTrue("Events should not wait for the hanging listener!", System.currentTimeMillis() - start < HangingListener.DELAY);
+		assertEquals("The disabled listener should not be invoked!", 2, hanging.calls.get());
+		assertTrue("The hanging listener should finish eventually!", hanging.finished.await(5, TimeUnit.SECONDS));
+		for(int i = 0; i < 2; i++){
+			assertFalse("Late cancellations of abandoned listeners should be discarded!", events.get(i).isCancelled());
+		}
+	}
+	
+	/**
+	 * A cancellable event carrying a number.
+	 */
+	public static class TestEvent extends CancellableEvent{
+		public final int number;
+		
+		public TestEvent(int number){
+			this.number = number;
+		}
+	}
+	
+	/**
+	 * A {@link Listener} with a single-event listener that cancels odd events
+	 * and a later batch listener that counts them.
+	 */
+	public static class BatchRecorder implements Listener{
+		public int batches;
+		public int batchEvents;
+		public int singles;
+		public int cancelledInBatch;
+		
+		@EventListener(priority = ListenerPriority.LOW)
+		public void onEvent(TestEvent event){
+			singles++;
+			event.setCancelled(event.number % 2 == 1);
+		}
+		
+		@EventListener(priority = ListenerPriority.HIGH)
+		public void onBatch(EventBatch<TestEvent> batch){
+			batches++;
+			for(TestEvent event : batch){
+				batchEvents++;
+				if(event.isCancelled()){
+					cancelledInBatch++;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * A {@link Listener} that cancels every event but fails for event 3.
+	 */
+	public static class FailingCanceller implements Listener{
+		
+		@EventListener
+		public void onEvent(TestEvent event){
+			event.setCancelled(true);
+			if(event.number == 3){
+				throw new IllegalStateException("Failure for event 3.");
+			}
+		}
+	}
+	
+	/**
+	 * A {@link Listener} that throws for every event after the other
+	 * listeners of its level have had time to change it.
+	 */
+	public static class LateThrower implements Listener{
+		
+		@EventListener
+		public void onEvent(TestEvent event) throws InterruptedException{
+			Thread.sleep(50);
+			throw new IllegalStateException("Late failure for event "+event.number+".");
+		}
+	}
+	
+	/**
+	 * A {@link Listener} that blocks for {@link #DELAY} milliseconds.
+	 */
+	public static class SlowListener implements Listener{
+		public static final long DELAY = 300;
+		public AtomicInteger calls = new AtomicInteger();
+		
+		@EventListener
+		public void onEvent(TestEvent event) throws InterruptedException{
+			Thread.sleep(DELAY);
+			calls.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * A {@link Listener} that cancels every event, blocks for {@link #DELAY}
+	 * milliseconds, far beyond its timeout, ignoring interruptions and then
+	 * cancels the event again.
+	 */
+	public static class HangingListener implements Listener{
+		public static final long DELAY = 1000;
+		public AtomicInteger calls = new AtomicInteger();
+		public CountDownLatch finished = new CountDownLatch(2);
+		
+		@EventListener(timeout = 50)
+		public void onEvent(TestEvent event){
+			calls.incrementAndGet();
+			event.setCancelled(true);
+			long end = System.currentTimeMillis() + DELAY;
+			while(System.currentTimeMillis() < end){
+				try{
+					Thread.sleep(Math.max(1, end - System.currentTimeMillis()));
+				}catch(InterruptedException e){
+					//Keep running after the timeout, like a listener stuck in I/O
+				}
+			}
+			event.setCancelled(true);
+			finished.countDown();
+		}
+	}
+	
+	/**
+	 * A {@link Listener} recording how many {@link SlowListener} calls had
+	 * finished when it was invoked.
+	 */
+	public static class BarrierChecker implements Listener{
+		public int seen;
+		private SlowListener[] slowListeners;
+		
+		public BarrierChecker(SlowListener... slowListeners){
+			this.slowListeners = slowListeners;
+		}
+		
+		@EventListener(priority = ListenerPriority.HIGH)
+		public void onEvent(TestEvent event){
+			for(SlowListener slowListener : slowListeners){
+				seen += slowListener.calls.get();
+			}
+		}
+	}
+	
+	/**
+	 * A {@link Listener} with a monitor recording results and a monitor that always fails.
+	 */
+	public static class MonitorRecorder implements Listener{
+		public List<Result> results = new ArrayList<Result>();
+		
+		@EventMonitor
+		public void record(TestEvent event, Result result){
+			results.add(result);
+		}
+		
+		@EventMonitor
+		public void fail(TestEvent event, Result result){
+			throw new IllegalStateException("Monitor failure.");
+		}
+	}
+	
+	/**
+	 * A {@link Listener} with a monitor that waits for {@link #gate} before counting events.
+	 */
+	public static class BlockedMonitor implements Listener{
+		public CountDownLatch gate = new CountDownLatch(1);
+		public AtomicInteger count = new AtomicInteger();
+		
+		@EventMonitor
+		public void onEvent(TestEvent event, Result result) throws InterruptedException{
+			gate.await();
+			count.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * A {@link TableEvent} of a given table.
+	 */
+	public static class TableChange extends Event implements TableEvent{
+		private TableReference table;
+		
+		public TableChange(String table) throws InvalidReferenceException{
+			this.table = new TableReference(table);
+		}
+		
+		public TableReference getTargetTableReference(){
+			return table;
+		}
+	}
+	
+	/**
+	 * A {@link Listener} with table-filtered and unfiltered methods.
+	 */
+	public static class TableRecorder implements Listener{
+		public int listened;
+		public int monitored;
+		public int all;
+		
+		@EventListener(tables = "Match")
+		public void onMatch(TableChange event){
+			listened++;
+		}
+		
+		@EventListener
+		public void onAll(TableChange event){
+			all++;
+		}
+		
+		@EventMonitor(tables = "Team")
+		public void onTeam(TableChange event, Result result){
+			monitored++;
+		}
+	}
+}